@@ -1,440 +1,1060 @@
-package com.carrosalquiler.carrosalquiler.controller;
-
-// Importa lo necesario de clases
-import com.carrosalquiler.carrosalquiler.models.*;
-import com.carrosalquiler.carrosalquiler.service.GestionVehiculoService;
-import com.carrosalquiler.carrosalquiler.service.GestionUsuariosService;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
-import org.springframework.web.server.ResponseStatusException;
-import org.springframework.http.HttpStatus;
-
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.util.List;
-import java.util.stream.Collectors;
-/**
- * VehicleController es un controlador REST para gestionar operaciones relacionadas con vehículos.
- * Se encarga del registro, listado, actualización y validación de vehículos, así como del alquiler y devolución de vehículos.
- */
-@RestController
-@RequestMapping("/vehicles")
-public class VehicleController {
-
-    private final GestionVehiculoService vehicleService;
-    private final GestionUsuariosService userService;
-    private Iterable<? extends AbstractVehicle> vehicleList;
-
-    /**
-     * Constructor con inyección de dependencias para los servicios de vehículo y usuario.
-     *
-     * @param vehicleService el servicio del vehículo que se inyectará
-     * @param userService el servicio del usuario que se inyectará
-     */
-
-    @Autowired /**es una anotación que se utiliza para habilitar la inyección de dependencias automática,(no crea sus propias dependencias, sino que se las proporciona un contenedor )
-     Su propósito es indicar a Spring que debe buscar y proporcionar automáticamente objeto gestionado por Spring para una variable, método o constructor.  */
-    public VehicleController(GestionVehiculoService vehicleService, GestionUsuariosService userService) {
-        this.vehicleService = vehicleService;
-        this.userService = userService;
-    }
-
-    /**
-     * Punto final para registrar un nuevo automóvil.
-     *
-     * @param car el objeto del automóvil que contiene los detalles del automóvil
-     * @return un mensaje de éxito
-     */
-    //@requestbody permite que los datos enviados por el cliente  se deserialicen automáticamente en una instancia de una clase Java.
-    @PostMapping("/registerCar")
-    public String registerCar(@RequestBody Car car) {
-        // Define el método que recibe un objeto `Car` como entrada.
-        vehicleService.registerVehicle(car);
-        // Llama al servicio `vehicleService` para registrar el automóvil.
-        // Este servicio probablemente contiene la lógica de negocio para almacenar el automóvil
-        // en una base de datos o realizar validaciones.
-        return "Car registered successfully!";
-        // Devuelve un mensaje de éxito indicando que el automóvil fue registrado correctamente.
-    }
-
-    /**
-     * Endpoint para registrar una nueva motocicleta.
-     *
-     * @param motorcycle el objeto de motocicleta que contiene los detalles de la motocicleta
-     * @return un mensaje de éxito
-     */
-    @PostMapping("/registerMotorcycle")
-    public String registerMotorcycle(@RequestBody Motorcycle motorcycle) {
-        vehicleService.registerVehicle(motorcycle);
-        return "Motorcycle registered successfully!";
-    }
-
-    /**
-     * Endpoint para registrar un nuevo camión.
-     *
-     * @param truck el objeto de camión que contiene los detalles del camión
-     * @return un mensaje de éxito
-     */
-    @PostMapping("/registerTruck")
-    public String registerTruck(@RequestBody Truck truck) {
-        vehicleService.registerVehicle(truck);
-        return "Truck registered successfully!";
-    }
-
-    /**
-     * Endpoint para registrar una nueva camioneta.
-     *
-     * @param van el objeto van que contiene los detalles de la camioneta
-     * @return un mensaje de éxito
-     */
-
-    @PostMapping("/registerVan")
-    public String registerVan(@RequestBody Van van) {
-        vehicleService.registerVehicle(van);
-        return "Van registered successfully!";
-    }
-
-    /**
-     * Endpoint para listar todos los vehículos.
-     *
-     * @return una lista de todos los vehículos
-     */
-    @GetMapping("/all")
-    public List<AbstractVehicle> listAllVehicles() {
-        return vehicleService.listAllVehicles();
-    }
-
-    /**
-     * Endpoint para listar los vehículos disponibles.
-     *
-     * @return una lista de vehículos disponibles
-     */
-
-    @GetMapping("/available")
-    public List<AbstractVehicle> listAvailableVehicles() {
-        return vehicleService.listAvailableVehicles();
-    }
-
-    /**
-     * Endpoint para actualizar la disponibilidad de un vehículo.
-     * Solo accesible para administradores.
-     *
-     * @param licensePlate la matrícula del vehículo que se va a actualizar
-     * @param isAvailable el nuevo estado de disponibilidad
-     * @param login el nombre de usuario del usuario que intenta actualizar la disponibilidad
-     * @return un mensaje de éxito si la actualización es exitosa
-     */
-
-    @PutMapping("/availability/{licensePlate}")
-    // Define un endpoint HTTP PUT que responde a solicitudes en la ruta "/availability/{licensePlate}".
-// "{licensePlate}" es un parámetro dinámico que representa la matrícula del vehículo.
-    public String updateAvailability(@PathVariable String licensePlate, @RequestParam boolean isAvailable, @RequestParam String login) {
-        // Define un método que recibe la matrícula del vehículo como @PathVariable, un parámetro booleano `isAvailable` y el login del usuario como @RequestParam.
-        User user = userService.getUserByLogin(login);
-        // Llama al servicio `userService` para obtener el usuario asociado al login proporcionado.
-        if (user != null && user.getRole() == Role.ADMIN) {
-            // Comprueba que el usuario existe y que su rol es ADMIN.
-            vehicleService.updateVehicleAvailability(licensePlate, isAvailable);
-            // Si el usuario es administrador, llama al servicio `vehicleService` para actualizar la disponibilidad del vehículo.
-            return "Vehicle availability updated successfully!";
-            // Devuelve un mensaje de éxito indicando que la disponibilidad del vehículo fue actualizada.
-        } else {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied. Admin role required.");
-            // Si el usuario no es administrador, lanza una excepción HTTP 403
-        }
-    }
-
-    /**
-     * Endpoint para validar las condiciones de un vehículo.
-     * Solo accesible para administradores.
-     *
-     * @param licensePlate la matrícula del vehículo a validar
-     * @param conditions las condiciones del vehículo
-     * @param login el login del usuario que intenta validar las condiciones
-     * @return un mensaje de éxito si la validación es exitosa
-     */
-
-    // Define un endpoint PUT que valida las condiciones de un vehículo usando su placa.
-    @PutMapping("/validateConditions/{licensePlate}")
-    public String validateConditions(@PathVariable String licensePlate,
-                                     @RequestParam String conditions,
-                                     @RequestParam String login) {
-        // Obtiene el usuario asociado al login proporcionado utilizando el servicio de usuarios.
-        User user = userService.getUserByLogin(login);
-        // Verifica si el usuario existe y si el rol del usuario es ADMIN.
-        if (user != null && user.getRole() == Role.ADMIN) {
-            // Es una clase o enumeración (enum) que define los diferentes roles que un usuario puede tener en el sistema.
-            // Verifica si el usuario existe y si el rol del usuario es ADMIN.
-            boolean valid = vehicleService.validateVehicleConditions(licensePlate, conditions);
-            // Retorna un mensaje de éxito si las condiciones del vehículo fueron validadas correctamente, de lo contrario, retorna un mensaje de fallo.
-            return valid ? "Vehicle conditions validated successfully!" : "Vehicle conditions validation failed.";
-            //El signo de interrogación en este código se utiliza como parte de un operador ternario. Este operador es una forma compacta de escribir una instrucción
-        } else {
-            // Si el usuario no se encuentra o no tiene el rol de ADMIN, lanza una excepción de acceso denegado con el mensaje adecuado.
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied. Admin role required.");
-        }
-    }
-
-    /**
-     * Endpoint para listar los autos disponibles.
-     * Solo accesible para administradores.
-     *
-     * @param login el nombre de usuario del usuario que intenta listar los autos
-     * @return una lista de los autos disponibles
-     */
-    // Define un endpoint GET para listar los coches disponibles, accesible solo por administradores.
-    @GetMapping("/available/cars")
-    public List<Car> listAvailableCars(@RequestParam String login) {
-        // Obtiene el usuario asociado al login proporcionado utilizando el servicio de usuarios.
-        User user = userService.getUserByLogin(login);
-
-        // Verifica si el usuario existe y si el rol del usuario es ADMIN.
-        if (user != null && user.getRole() == Role.ADMIN) {
-            // Llama al servicio de vehículos para obtener todos los vehículos de tipo "Car" y los convierte en una lista.
-            return vehicleService.listVehiclesByType(Car.class).stream()
-                    //stream :Un stream permite procesar los elementos de la colección de manera eficiente y fluida utilizando operaciones como map, filter, reduce, entre otras.
-                    //tambien stream es utilizado para convertir una colección (como una lista, conjunto, etc.) en un stream
-                    // Mapea cada vehículo a una instancia de tipo "Car" (ya que se obtiene como tipo genérico).
-                    .map(vehicle -> (Car) vehicle)
-                    // Colecta los vehículos en una lista y la retorna.
-                    .collect(Collectors.toList());
-        } else {
-            // Si el usuario no se encuentra o no tiene el rol de ADMIN, lanza una excepción de acceso denegado con el mensaje adecuado.
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied. Admin role required.");
-        }
-    }
-
-    /**
-     * Endpoint para listar las motocicletas disponibles.
-     * Solo accesible para administradores.
-     *
-     * @param login el nombre de usuario del usuario que intenta listar las motocicletas
-     * @return una lista de motocicletas disponibles
-     */
-    @GetMapping("/available/motorcycles")
-    public List<Motorcycle> listAvailableMotorcycles(@RequestParam String login) {
-        User user = userService.getUserByLogin(login);
-        if (user != null && user.getRole() == Role.ADMIN) {
-            return vehicleService.listVehiclesByType(Motorcycle.class).stream()
-                    .map(vehicle -> (Motorcycle) vehicle)
-                    .collect(Collectors.toList());
-        } else {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied. Admin role required.");
-        }
-    }
-
-    /**
-     * Endpoint para listar las furgonetas disponibles.
-     * Solo accesible para administradores.
-     *
-     * @param login el nombre de usuario del usuario que intenta listar las furgonetas
-     * @return una lista de furgonetas disponibles
-     */
-
-    @GetMapping("/available/vans")
-    public List<Van> listAvailableVans(@RequestParam String login) {
-        User user = userService.getUserByLogin(login);
-        if (user != null && user.getRole() == Role.ADMIN) {
-            return vehicleService.listVehiclesByType(Van.class).stream()
-                    .map(vehicle -> (Van) vehicle)
-                    .collect(Collectors.toList());
-        } else {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied. Admin role required.");
-        }
-    }
-
-    /**
-     * Endpoint para listar los camiones disponibles.
-     * Solo accesible para administradores.
-     *
-     * @param login el nombre de usuario del usuario que intenta listar los camiones
-     * @return una lista de camiones disponibles
-     */
-
-    @GetMapping("/available/trucks")
-    public List<Truck> listAvailableTrucks(@RequestParam String login) {
-        User user = userService.getUserByLogin(login);
-        if (user != null && user.getRole() == Role.ADMIN) {
-            return vehicleService.listVehiclesByType(Truck.class).stream()
-                    .map(vehicle -> (Truck) vehicle)
-                    .collect(Collectors.toList());
-        } else {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied. Admin role required.");
-        }
-    }
-
-    /**
-     * Endpoint para actualizar un vehículo.
-     * Solo accesible para administradores.
-     *
-     * @param licensePlate la matrícula del vehículo que se va a actualizar
-     * @param updatedVehiculo los detalles actualizados del vehículo
-     * @param login el nombre de usuario del usuario que intenta actualizar el vehículo
-     * @return un mensaje de éxito si la actualización se realiza correctamente
-     */
-    // Define un endpoint PUT para actualizar un vehículo con la placa proporcionada, accesible solo para administradores.
-    @PutMapping("/update/{licensePlate}")
-
-    public String updateVehicle(@PathVariable String licensePlate,
-                                @RequestBody AbstractVehicle updatedVehiculo,
-                                @RequestParam String login) {
-        // Obtiene el usuario asociado al login proporcionado utilizando el servicio de usuarios.
-        User user = userService.getUserByLogin(login);
-        // Verifica si el usuario existe y si el rol del usuario es ADMIN.
-        if (user != null && user.getRole() == Role.ADMIN) {
-            // Llama al servicio de vehículos para actualizar el vehículo con la placa especificada utilizando la nueva información proporcionada.
-            vehicleService.updateVehicle(licensePlate, updatedVehiculo);
-            // Retorna un mensaje indicando que el vehículo ha sido actualizado con éxito
-            return "Vehicle updated successfully!";
-        } else {
-            // Si el usuario no se encuentra o no tiene el rol de ADMIN, lanza una excepción de acceso denegado con el mensaje adecuado.
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied. Admin role required.");
-        }
-    }
-
-    /**
-     * Endpoint para eliminar un vehículo.
-     * Solo accesible para administradores.
-     *
-     * @param licensePlate la matrícula del vehículo que se eliminará
-     * @param login el nombre de usuario del usuario que intenta eliminar el vehículo
-     * @return un mensaje de éxito si la eliminación se realiza correctamente
-     */
-// Define un endpoint DELETE para eliminar un vehículo con la placa proporcionada, accesible solo para administradores.
-    @DeleteMapping("/delete/{licensePlate}")
-    public String deleteVehicle(@PathVariable String licensePlate, @RequestParam String login) {
-        // Obtiene el usuario asociado al login proporcionado utilizando el servicio de usuarios.
-        User user = userService.getUserByLogin(login);
-        // Obtiene el usuario asociado al login proporcionado utilizando el servicio de usuarios.
-        if (user != null && user.getRole() == Role.ADMIN) {
-            // Llama al servicio de vehículos para eliminar el vehículo con la placa especificada.
-            vehicleService.deleteVehicle(licensePlate);
-            // Retorna un mensaje indicando que el vehículo ha sido eliminado con éxito.
-            return "Vehicle deleted successfully!";
-        } else {
-            // Si el usuario no se encuentra o no tiene el rol de ADMIN, lanza una excepción de acceso denegado con el mensaje adecuado.
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied. Admin role required.");
-        }
-    }
-
-    /**
-     * Endpoint para alquilar un vehículo.
-     *
-     * @param licensePlate la matrícula del vehículo que se va a alquilar
-     * @param user el usuario que alquila el vehículo
-     * @return un mensaje de éxito si el alquiler se realiza correctamente
-     */
-    // Define un endpoint POST para alquilar un vehículo, especificando la placa del vehículo y el usuario que realiza el alquiler.
-    @PostMapping("/rent/{licensePlate}")
-    public String rentVehicle(@PathVariable String licensePlate, @RequestBody User user) {
-        // Llama al servicio de vehículos para realizar el alquiler del vehículo con la placa proporcionada y el usuario especificado.
-        boolean success = vehicleService.rentVehicle(licensePlate, user);
-        // Retorna un mensaje dependiendo del éxito o fracaso del alquiler.
-        return success ? "Vehicle rented successfully!" : "Vehicle could not be rented.";
-        // ?: if else
-    }
-
-    /**
-     * Endpoint para devolver un vehículo alquilado.
-     *
-     * @param licensePlate la matrícula del vehículo que se devolverá
-     * @return un mensaje de éxito si la devolución es exitosa
-     */
-
-    @PostMapping("/return/{licensePlate}")
-    public String returnVehicle(@PathVariable String licensePlate) {
-        boolean success = vehicleService.returnVehicle(licensePlate);
-        return success ? "Vehicle returned successfully!" : "Vehicle could not be returned.";
-    }
-    /**
-     * Endpoint para generar un informe de uso de los vehículos.
-     * Solo accesible para administradores.
-     *
-     * @param startDate la fecha de inicio del informe
-     * @param endDate la fecha de finalización del informe
-     * @param login el inicio de sesión del usuario que solicita el informe
-     * @return el informe de uso como una cadena
-     */
-    // Define un endpoint GET para generar un reporte de uso de vehículos entre dos fechas, accesible solo para administradores.
-    @GetMapping("/usageReport")
-    public String generateUsageReport(@RequestParam String startDate, @RequestParam String endDate, @RequestParam String login) {
-        // Obtiene el usuario asociado al login proporcionado utilizando el servicio de usuarios.
-        User user = userService.getUserByLogin(login);
-        // Verifica si el usuario existe y si el rol del usuario es ADMIN.
-        if (user != null && user.getRole() == Role.ADMIN) {
-            // Llama al servicio de vehículos para generar el reporte de uso entre las fechas especificadas.
-            return vehicleService.generateUsageReport(startDate, endDate);
-        } else {
-            // Si el usuario no se encuentra o no tiene el rol de ADMIN, lanza una excepción de acceso denegado con el mensaje adecuado.
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied. Admin role required.");
-        }
-    }
-
-    /**
-     * Endpoint para cargar vehículos en masa desde un archivo CSV.
-     * Solo accesible para administradores.
-     *
-     * @param file el archivo CSV que contiene los datos del vehículo
-     * @param login el nombre de usuario del usuario que intenta realizar la carga en masa
-     * @return un mensaje de éxito si la carga en masa se realiza correctamente
-     */
-
-    // Define un endpoint POST para cargar un archivo CSV con vehículos en masa, accesible solo para administradores.
-    @PostMapping("/bulkUpload")
-    public String bulkUploadVehicles(@RequestParam("file") MultipartFile file, @RequestParam String login) {
-        // Obtiene el usuario asociado al login proporcionado utilizando el servicio de usuarios.
-        User user = userService.getUserByLogin(login);
-        // Verifica si el usuario existe y si el rol del usuario es ADMIN.
-        if (user != null && user.getRole() == Role.ADMIN) {
-            try {
-                // Convierte el archivo MultipartFile en un archivo File en el sistema local.
-                File csvFile = convertMultiPartToFile(file);
-                //file:representa un archivo físico en el sistema de archivos
-                //csvfile:es el archivo CSV(valores separados por comas) cargado por el usuario, pero convertido a un archivo físico que el servidor puede manipular y procesar para realizar la carga masiva de vehículos en el sistema.
-                // Llama al servicio de vehículos para cargar los vehículos desde el archivo CSV.
-                vehicleService.bulkUploadVehicles(csvFile);
-                // Retorna un mensaje de éxito si la carga masiva fue exitosa.
-                return "Bulk upload successful!";
-            } catch (Exception e) {
-                // Si ocurre algún error durante el proceso, retorna un mensaje de error con la descripción del problema.
-                return "Bulk upload failed: " + e.getMessage();
-            }
-        } else {
-            // Si el usuario no tiene el rol de ADMIN o no existe, lanza una excepción de acceso denegado con el mensaje adecuado.
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied. Admin role required.");
-        }
-    }
-
-    /**
-     * Método de utilidad para convertir un MultipartFile en un archivo.
-     *
-     * @param file el MultipartFile que se va a convertir
-     * @return el archivo convertido
-     * @throws IOException si ocurre un error durante la conversión del archivo
-     */
-// Método privado que convierte un archivo de tipo MultipartFile en un archivo físico del sistema (File).
-    private File convertMultiPartToFile(MultipartFile file) throws IOException {
-        // Crea un objeto File con el nombre original del archivo que fue cargado (MultipartFile).
-        // Este archivo se almacenará en la ruta predeterminada del proyecto o el directorio en el que se ejecuta.
-        File convFile = new File(file.getOriginalFilename());
-        //convfile:  es un objeto de tipo File que representa el archivo físico creado en el sistema de archivos del servidor.
-        // Crea un flujo de salida de archivo (FileOutputStream) para escribir los datos en el archivo convFile.
-        FileOutputStream fos = new FileOutputStream(convFile);
-        // FileOutputStream: se utiliza para escribir datos en archivos, ya sea en formato binario o de texto, con la capacidad de sobrescribir el contenido existente.
-        // Escribe los bytes del archivo MultipartFile en el archivo físico convFile.
-        fos.write(file.getBytes());
-        //fos:se usa para abrir un archivo en modo escritura (o crear un nuevo archivo si no existe)
-        // Cierra el flujo de salida después de haber escrito los datos, liberando los recursos.
-        fos.close();
-        // Retorna el archivo físico (File) creado con los datos del archivo MultipartFile
-        return convFile;
-    }
-    @GetMapping("/vehicles/color/{color}/count")
-    public long getVehicleCountByColor(@PathVariable String color) {
-        return vehicleService.getVehiclesByColor(color, vehicleList).size();
-    }
-
-}
-
+package com.carrosalquiler.carrosalquiler.controller;
+
+// Importa lo necesario de clases
+import com.carrosalquiler.carrosalquiler.models.*;
+import com.carrosalquiler.carrosalquiler.service.BulkUploadJobService;
+import com.carrosalquiler.carrosalquiler.service.DynamicPricingService;
+import com.carrosalquiler.carrosalquiler.service.GestionVehiculoService;
+import com.carrosalquiler.carrosalquiler.service.GestionUsuariosService;
+import com.carrosalquiler.carrosalquiler.service.IdempotencyKeyStore;
+import com.carrosalquiler.carrosalquiler.service.QuoteService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+/**
+ * VehicleController es un controlador REST para gestionar operaciones relacionadas con vehículos.
+ * Se encarga del registro, listado, actualización y validación de vehículos, así como del alquiler, la devolución y la reserva de vehículos.
+ */
+@RestController
+@RequestMapping("/vehicles")
+public class VehicleController {
+    static final String NDJSON = "application/x-ndjson";  // Un vehículo JSON por línea
+    private static final int MAX_PAGE_SIZE = 1000;  // Máximo de vehículos por página
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";  // Cabecera con la clave que el cliente repite en los reintentos
+    private static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";  // Cabecera de las respuestas repetidas
+
+    private final GestionVehiculoService vehicleService;
+    private final GestionUsuariosService userService;
+    private final BulkUploadJobService bulkUploadJobService;
+    private final IdempotencyKeyStore idempotencyKeys;
+    private final QuoteService quoteService;
+    private final DynamicPricingService dynamicPricing;
+    // Escritor JSON para NDJSON; no vacía la salida tras cada vehículo, así el contenedor envía la respuesta en bloques
+    private final ObjectWriter ndjsonWriter;
+
+    /**
+     * Constructor con inyección de dependencias para los servicios de vehículo y usuario.
+     *
+     * @param vehicleService el servicio del vehículo que se inyectará
+     * @param userService el servicio del usuario que se inyectará
+     * @param bulkUploadJobService el servicio de cargas masivas en segundo plano que se inyectará
+     * @param idempotencyKeys las respuestas recordadas de los alquileres y devoluciones con clave de idempotencia
+     * @param quoteService el servicio de presupuestos que se inyectará
+     * @param dynamicPricing los precios según la ocupación de la flota
+     * @param objectMapper el mapeador JSON de la aplicación, usado para escribir NDJSON
+     */
+
+    @Autowired /**es una anotación que se utiliza para habilitar la inyección de dependencias automática,(no crea sus propias dependencias, sino que se las proporciona un contenedor )
+     Su propósito es indicar a Spring que debe buscar y proporcionar automáticamente objeto gestionado por Spring para una variable, método o constructor.  */
+    public VehicleController(GestionVehiculoService vehicleService, GestionUsuariosService userService,
+                             BulkUploadJobService bulkUploadJobService, IdempotencyKeyStore idempotencyKeys,
+                             QuoteService quoteService, DynamicPricingService dynamicPricing, ObjectMapper objectMapper) {
+        this.vehicleService = vehicleService;
+        this.userService = userService;
+        this.bulkUploadJobService = bulkUploadJobService;
+        this.idempotencyKeys = idempotencyKeys;
+        this.quoteService = quoteService;
+        this.dynamicPricing = dynamicPricing;
+        this.ndjsonWriter = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("");  // El separador entre vehículos es el salto de línea que se escribe a mano
+    }
+
+    /**
+     * Punto final para registrar un nuevo automóvil.
+     *
+     * @param car el objeto del automóvil que contiene los detalles del automóvil
+     * @return un mensaje de éxito
+     */
+    //@requestbody permite que los datos enviados por el cliente  se deserialicen automáticamente en una instancia de una clase Java.
+    @PostMapping("/registerCar")
+    public String registerCar(@RequestBody Car car) {
+        // Define el método que recibe un objeto `Car` como entrada.
+        vehicleService.registerVehicle(car);
+        // Llama al servicio `vehicleService` para registrar el automóvil.
+        // Este servicio probablemente contiene la lógica de negocio para almacenar el automóvil
+        // en una base de datos o realizar validaciones.
+        return "Car registered successfully!";
+        // Devuelve un mensaje de éxito indicando que el automóvil fue registrado correctamente.
+    }
+
+    /**
+     * Endpoint para registrar una nueva motocicleta.
+     *
+     * @param motorcycle el objeto de motocicleta que contiene los detalles de la motocicleta
+     * @return un mensaje de éxito
+     */
+    @PostMapping("/registerMotorcycle")
+    public String registerMotorcycle(@RequestBody Motorcycle motorcycle) {
+        vehicleService.registerVehicle(motorcycle);
+        return "Motorcycle registered successfully!";
+    }
+
+    /**
+     * Endpoint para registrar un nuevo camión.
+     *
+     * @param truck el objeto de camión que contiene los detalles del camión
+     * @return un mensaje de éxito
+     */
+    @PostMapping("/registerTruck")
+    public String registerTruck(@RequestBody Truck truck) {
+        vehicleService.registerVehicle(truck);
+        return "Truck registered successfully!";
+    }
+
+    /**
+     * Endpoint para registrar una nueva camioneta.
+     *
+     * @param van el objeto van que contiene los detalles de la camioneta
+     * @return un mensaje de éxito
+     */
+
+    @PostMapping("/registerVan")
+    public String registerVan(@RequestBody Van van) {
+        vehicleService.registerVehicle(van);
+        return "Van registered successfully!";
+    }
+
+    /**
+     * Endpoint para listar todos los vehículos.
+     *
+     * @return una lista de todos los vehículos
+     */
+    @GetMapping("/all")
+    public List<AbstractVehicle> listAllVehicles() {
+        return vehicleService.listAllVehicles();
+    }
+
+    /**
+     * Endpoint para listar los vehículos por páginas, en orden de matrícula.
+     *
+     * @param limit el número máximo de vehículos de la página, entre 1 y 1000
+     * @param cursor el nextCursor de la página anterior; se omite para pedir la primera página
+     * @return la página de vehículos y el cursor de la siguiente
+     */
+    @GetMapping(value = "/all", params = "limit")
+    public VehiclePage listAllVehiclesPage(@RequestParam int limit, @RequestParam(required = false) String cursor) {
+        return vehicleService.listVehiclesPage(cursor, checkPageSize(limit));
+    }
+
+    /**
+     * Endpoint para transmitir todos los vehículos como NDJSON, en orden de matrícula.
+     * Cada vehículo se escribe en cuanto se recorre, así que la memoria usada no depende del tamaño de la flota.
+     *
+     * @return el cuerpo de la respuesta, que se escribe mientras se recorre la flota
+     */
+    @GetMapping(value = "/all", produces = NDJSON)
+    public StreamingResponseBody streamAllVehicles() {
+        return out -> writeNdjson(vehicleService.iterateAllVehicles(), out);
+    }
+
+    /**
+     * Endpoint para listar los vehículos disponibles.
+     * Responde con un ETag fuerte; si el cliente envía If-None-Match con la versión actual, recibe 304 sin que se recorra la flota.
+     *
+     * @param request la petición, de donde se lee If-None-Match
+     * @return una lista de vehículos disponibles, o null si respondió 304
+     */
+
+    @GetMapping("/available")
+    public List<AbstractVehicle> listAvailableVehicles(WebRequest request) {
+        if (request.checkNotModified(listingETag(AbstractVehicle.class))) {
+            return null;  // Nada cambió desde la última consulta: 304 sin recorrer ni serializar
+        }
+        return vehicleService.listAvailableVehicles();
+    }
+
+    /**
+     * Endpoint para listar los vehículos disponibles por páginas, en orden de matrícula.
+     *
+     * @param limit el número máximo de vehículos de la página, entre 1 y 1000
+     * @param cursor el nextCursor de la página anterior; se omite para pedir la primera página
+     * @return la página de vehículos disponibles y el cursor de la siguiente
+     */
+    @GetMapping(value = "/available", params = "limit")
+    public VehiclePage listAvailableVehiclesPage(@RequestParam int limit, @RequestParam(required = false) String cursor) {
+        return vehicleService.listAvailableVehiclesPage(cursor, checkPageSize(limit));
+    }
+
+    /**
+     * Endpoint para transmitir los vehículos disponibles como NDJSON, en orden de matrícula.
+     *
+     * @return el cuerpo de la respuesta, que se escribe mientras se recorre la flota
+     */
+    @GetMapping(value = "/available", produces = NDJSON)
+    public StreamingResponseBody streamAvailableVehicles() {
+        return out -> writeNdjson(vehicleService.iterateAvailableVehicles(), out);
+    }
+
+    /**
+     * Endpoint para contar los vehículos disponibles por tipo.
+     * El conteo sale del índice de disponibilidad, sin recorrer la flota.
+     *
+     * @return un mapa de tipo de vehículo a número de vehículos disponibles
+     */
+    @GetMapping("/available/count")
+    public Map<String, Integer> countAvailableVehicles() {
+        return vehicleService.countAvailableVehiclesByType();
+    }
+
+    /**
+     * Endpoint para actualizar la disponibilidad de un vehículo.
+     * Solo accesible para administradores.
+     *
+     * @param licensePlate la matrícula del vehículo que se va a actualizar
+     * @param isAvailable el nuevo estado de disponibilidad
+     * @param login el nombre de usuario del usuario que intenta actualizar la disponibilidad
+     * @return un mensaje de éxito si la actualización es exitosa
+     */
+
+    @PutMapping("/availability/{licensePlate}")
+    // Define un endpoint HTTP PUT que responde a solicitudes en la ruta "/availability/{licensePlate}".
+// "{licensePlate}" es un parámetro dinámico que representa la matrícula del vehículo.
+    public String updateAvailability(@PathVariable String licensePlate, @RequestParam boolean isAvailable, @RequestParam String login) {
+        // Define un método que recibe la matrícula del vehículo como @PathVariable, un parámetro booleano `isAvailable` y el login del usuario como @RequestParam.
+        User user = userService.getUserByLogin(login);
+        // Llama al servicio `userService` para obtener el usuario asociado al login proporcionado.
+        if (user != null && user.getRole() == Role.ADMIN) {
+            // Comprueba que el usuario existe y que su rol es ADMIN.
+            vehicleService.updateVehicleAvailability(licensePlate, isAvailable);
+            // Si el usuario es administrador, llama al servicio `vehicleService` para actualizar la disponibilidad del vehículo.
+            return "Vehicle availability updated successfully!";
+            // Devuelve un mensaje de éxito indicando que la disponibilidad del vehículo fue actualizada.
+        } else {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied. Admin role required.");
+            // Si el usuario no es administrador, lanza una excepción HTTP 403
+        }
+    }
+
+    /**
+     * Endpoint para validar las condiciones de un vehículo.
+     * Solo accesible para administradores.
+     *
+     * @param licensePlate la matrícula del vehículo a validar
+     * @param conditions las condiciones del vehículo
+     * @param login el login del usuario que intenta validar las condiciones
+     * @return un mensaje de éxito si la validación es exitosa
+     */
+
+    // Define un endpoint PUT que valida las condiciones de un vehículo usando su placa.
+    @PutMapping("/validateConditions/{licensePlate}")
+    public String validateConditions(@PathVariable String licensePlate,
+                                     @RequestParam String conditions,
+                                     @RequestParam String login) {
+        // Obtiene el usuario asociado al login proporcionado utilizando el servicio de usuarios.
+        User user = userService.getUserByLogin(login);
+        // Verifica si el usuario existe y si el rol del usuario es ADMIN.
+        if (user != null && user.getRole() == Role.ADMIN) {
+            // Es una clase o enumeración (enum) que define los diferentes roles que un usuario puede tener en el sistema.
+            // Verifica si el usuario existe y si el rol del usuario es ADMIN.
+            boolean valid = vehicleService.validateVehicleConditions(licensePlate, conditions);
+            // Retorna un mensaje de éxito si las condiciones del vehículo fueron validadas correctamente, de lo contrario, retorna un mensaje de fallo.
+            return valid ? "Vehicle conditions validated successfully!" : "Vehicle conditions validation failed.";
+            //El signo de interrogación en este código se utiliza como parte de un operador ternario. Este operador es una forma compacta de escribir una instrucción
+        } else {
+            // Si el usuario no se encuentra o no tiene el rol de ADMIN, lanza una excepción de acceso denegado con el mensaje adecuado.
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied. Admin role required.");
+        }
+    }
+
+    /**
+     * Endpoint para listar los autos disponibles.
+     * Solo accesible para administradores.
+     *
+     * @param login el nombre de usuario del usuario que intenta listar los autos
+     * @param request la petición, de donde se lee If-None-Match para responder 304 si el listado no cambió
+     * @return una lista de los autos disponibles, o null si respondió 304
+     */
+    // Define un endpoint GET para listar los coches disponibles, accesible solo por administradores.
+    @GetMapping("/available/cars")
+    public List<Car> listAvailableCars(@RequestParam String login, WebRequest request) {
+        // Obtiene el usuario asociado al login proporcionado utilizando el servicio de usuarios.
+        User user = userService.getUserByLogin(login);
+
+        // Verifica si el usuario existe y si el rol del usuario es ADMIN.
+        if (user != null && user.getRole() == Role.ADMIN) {
+            if (request.checkNotModified(listingETag(Car.class))) {
+                return null;  // Nada cambió desde la última consulta: 304 sin recorrer ni serializar
+            }
+            // Llama al servicio de vehículos para obtener todos los vehículos de tipo "Car" y los convierte en una lista.
+            return vehicleService.listVehiclesByType(Car.class).stream()
+                    //stream :Un stream permite procesar los elementos de la colección de manera eficiente y fluida utilizando operaciones como map, filter, reduce, entre otras.
+                    //tambien stream es utilizado para convertir una colección (como una lista, conjunto, etc.) en un stream
+                    // Mapea cada vehículo a una instancia de tipo "Car" (ya que se obtiene como tipo genérico).
+                    .map(vehicle -> (Car) vehicle)
+                    // Colecta los vehículos en una lista y la retorna.
+                    .collect(Collectors.toList());
+        } else {
+            // Si el usuario no se encuentra o no tiene el rol de ADMIN, lanza una excepción de acceso denegado con el mensaje adecuado.
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied. Admin role required.");
+        }
+    }
+
+    /**
+     * Endpoint para listar las motocicletas disponibles.
+     * Solo accesible para administradores.
+     *
+     * @param login el nombre de usuario del usuario que intenta listar las motocicletas
+     * @param request la petición, de donde se lee If-None-Match para responder 304 si el listado no cambió
+     * @return una lista de motocicletas disponibles, o null si respondió 304
+     */
+    @GetMapping("/available/motorcycles")
+    public List<Motorcycle> listAvailableMotorcycles(@RequestParam String login, WebRequest request) {
+        User user = userService.getUserByLogin(login);
+        if (user != null && user.getRole() == Role.ADMIN) {
+            if (request.checkNotModified(listingETag(Motorcycle.class))) {
+                return null;  // Nada cambió desde la última consulta: 304 sin recorrer ni serializar
+            }
+            return vehicleService.listVehiclesByType(Motorcycle.class).stream()
+                    .map(vehicle -> (Motorcycle) vehicle)
+                    .collect(Collectors.toList());
+        } else {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied. Admin role required.");
+        }
+    }
+
+    /**
+     * Endpoint para listar las furgonetas disponibles.
+     * Solo accesible para administradores.
+     *
+     * @param login el nombre de usuario del usuario que intenta listar las furgonetas
+     * @param request la petición, de donde se lee If-None-Match para responder 304 si el listado no cambió
+     * @return una lista de furgonetas disponibles, o null si respondió 304
+     */
+
+    @GetMapping("/available/vans")
+    public List<Van> listAvailableVans(@RequestParam String login, WebRequest request) {
+        User user = userService.getUserByLogin(login);
+        if (user != null && user.getRole() == Role.ADMIN) {
+            if (request.checkNotModified(listingETag(Van.class))) {
+                return null;  // Nada cambió desde la última consulta: 304 sin recorrer ni serializar
+            }
+            return vehicleService.listVehiclesByType(Van.class).stream()
+                    .map(vehicle -> (Van) vehicle)
+                    .collect(Collectors.toList());
+        } else {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied. Admin role required.");
+        }
+    }
+
+    /**
+     * Endpoint para listar los camiones disponibles.
+     * Solo accesible para administradores.
+     *
+     * @param login el nombre de usuario del usuario que intenta listar los camiones
+     * @param request la petición, de donde se lee If-None-Match para responder 304 si el listado no cambió
+     * @return una lista de camiones disponibles, o null si respondió 304
+     */
+
+    @GetMapping("/available/trucks")
+    public List<Truck> listAvailableTrucks(@RequestParam String login, WebRequest request) {
+        User user = userService.getUserByLogin(login);
+        if (user != null && user.getRole() == Role.ADMIN) {
+            if (request.checkNotModified(listingETag(Truck.class))) {
+                return null;  // Nada cambió desde la última consulta: 304 sin recorrer ni serializar
+            }
+            return vehicleService.listVehiclesByType(Truck.class).stream()
+                    .map(vehicle -> (Truck) vehicle)
+                    .collect(Collectors.toList());
+        } else {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied. Admin role required.");
+        }
+    }
+
+    /**
+     * Endpoint para actualizar un vehículo.
+     * Solo accesible para administradores.
+     *
+     * @param licensePlate la matrícula del vehículo que se va a actualizar
+     * @param updatedVehiculo los detalles actualizados del vehículo
+     * @param login el nombre de usuario del usuario que intenta actualizar el vehículo
+     * @return un mensaje de éxito si la actualización se realiza correctamente
+     */
+    // Define un endpoint PUT para actualizar un vehículo con la placa proporcionada, accesible solo para administradores.
+    @PutMapping("/update/{licensePlate}")
+
+    public String updateVehicle(@PathVariable String licensePlate,
+                                @RequestBody AbstractVehicle updatedVehiculo,
+                                @RequestParam String login) {
+        // Obtiene el usuario asociado al login proporcionado utilizando el servicio de usuarios.
+        User user = userService.getUserByLogin(login);
+        // Verifica si el usuario existe y si el rol del usuario es ADMIN.
+        if (user != null && user.getRole() == Role.ADMIN) {
+            // Llama al servicio de vehículos para actualizar el vehículo con la placa especificada utilizando la nueva información proporcionada.
+            try {
+                vehicleService.updateVehicle(licensePlate, updatedVehiculo);
+            } catch (IllegalStateException e) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+            }
+            // Retorna un mensaje indicando que el vehículo ha sido actualizado con éxito
+            return "Vehicle updated successfully!";
+        } else {
+            // Si el usuario no se encuentra o no tiene el rol de ADMIN, lanza una excepción de acceso denegado con el mensaje adecuado.
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied. Admin role required.");
+        }
+    }
+
+    /**
+     * Endpoint para eliminar un vehículo.
+     * Solo accesible para administradores.
+     *
+     * @param licensePlate la matrícula del vehículo que se eliminará
+     * @param login el nombre de usuario del usuario que intenta eliminar el vehículo
+     * @return un mensaje de éxito si la eliminación se realiza correctamente
+     */
+// Define un endpoint DELETE para eliminar un vehículo con la placa proporcionada, accesible solo para administradores.
+    @DeleteMapping("/delete/{licensePlate}")
+    public String deleteVehicle(@PathVariable String licensePlate, @RequestParam String login) {
+        // Obtiene el usuario asociado al login proporcionado utilizando el servicio de usuarios.
+        User user = userService.getUserByLogin(login);
+        // Obtiene el usuario asociado al login proporcionado utilizando el servicio de usuarios.
+        if (user != null && user.getRole() == Role.ADMIN) {
+            // Llama al servicio de vehículos para eliminar el vehículo con la placa especificada.
+            vehicleService.deleteVehicle(licensePlate);
+            // Retorna un mensaje indicando que el vehículo ha sido eliminado con éxito.
+            return "Vehicle deleted successfully!";
+        } else {
+            // Si el usuario no se encuentra o no tiene el rol de ADMIN, lanza una excepción de acceso denegado con el mensaje adecuado.
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied. Admin role required.");
+        }
+    }
+
+    /**
+     * Endpoint para alquilar un vehículo.
+     * Si la petición lleva la cabecera Idempotency-Key, un reintento con la misma clave recibe la respuesta original
+     * sin alquilar otra vez; si la clave ya se usó para otra petición, responde 422.
+     *
+     * @param licensePlate la matrícula del vehículo que se va a alquilar
+     * @param user el usuario que alquila el vehículo; basta con su login, los demás datos salen del registro de usuarios
+     * @param idempotencyKey la clave de idempotencia opcional del cliente
+     * @param response la respuesta HTTP, donde se indica si se repitió una respuesta anterior
+     * @return un mensaje de éxito si el alquiler se realiza correctamente
+     */
+    // Define un endpoint POST para alquilar un vehículo, especificando la placa del vehículo y el usuario que realiza el alquiler.
+    @PostMapping("/rent/{licensePlate}")
+    public String rentVehicle(@PathVariable String licensePlate, @RequestBody User user,
+                              @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                              HttpServletResponse response) {
+        User renter = registeredUser(user);
+        String request = "rent " + licensePlate + " " + renter.getLogin();
+        return idempotent(idempotencyKey, request, response, () -> {
+            // Llama al servicio de vehículos para realizar el alquiler del vehículo con la placa proporcionada y el usuario especificado.
+            boolean success = vehicleService.rentVehicle(licensePlate, renter);
+            // Retorna un mensaje dependiendo del éxito o fracaso del alquiler.
+            return success ? "Vehicle rented successfully!" : "Vehicle could not be rented.";
+            // ?: if else
+        });
+    }
+
+    /**
+     * Endpoint para devolver un vehículo alquilado.
+     * Acepta la misma cabecera Idempotency-Key que /vehicles/rent.
+     *
+     * @param licensePlate la matrícula del vehículo que se devolverá
+     * @param idempotencyKey la clave de idempotencia opcional del cliente
+     * @param response la respuesta HTTP, donde se indica si se repitió una respuesta anterior
+     * @return un mensaje de éxito si la devolución es exitosa
+     */
+
+    @PostMapping("/return/{licensePlate}")
+    public String returnVehicle(@PathVariable String licensePlate,
+                                @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                HttpServletResponse response) {
+        return idempotent(idempotencyKey, "return " + licensePlate, response, () -> {
+            boolean success = vehicleService.returnVehicle(licensePlate);
+            return success ? "Vehicle returned successfully!" : "Vehicle could not be returned.";
+        });
+    }
+
+    /**
+     * Busca en el registro de usuarios al usuario enviado en la petición, para no guardar en un alquiler o una reserva
+     * los datos que mande el cliente.
+     *
+     * @param user el usuario de la petición, del que solo se usa el login
+     * @return el usuario registrado
+     */
+    private User registeredUser(User user) {
+        User registered = user == null ? null : userService.getUserByLogin(user.getLogin());
+        if (registered == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown user.");
+        }
+        return registered;
+    }
+
+    /**
+     * Ejecuta una petición con clave de idempotencia: un reintento con la misma clave recibe la respuesta original
+     * con la cabecera Idempotent-Replayed, sin volver a ejecutarse.
+     */
+    private String idempotent(String idempotencyKey, String request, HttpServletResponse response, Supplier<String> action) {
+        try {
+            IdempotencyKeyStore.Outcome outcome = idempotencyKeys.execute(idempotencyKey, request, action);
+            if (outcome.replayed()) {
+                response.setHeader(IDEMPOTENT_REPLAYED, "true");
+            }
+            return outcome.response();
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, e.getMessage());
+        }
+    }
+
+    /**
+     * Endpoint para presupuestar muchos vehículos para muchas duraciones en una sola llamada, por ejemplo
+     * {"licensePlates": ["ABC123", "XYZ789"], "days": [1, 3, 7, 14]}. Sin matrículas presupuesta todos los vehículos disponibles.
+     * Los precios aplican las reglas configuradas, como el descuento semanal de los camiones y el recargo de los eléctricos.
+     *
+     * @param request los vehículos y las duraciones
+     * @return el precio de cada vehículo para cada duración
+     */
+    @PostMapping("/quotes")
+    public QuoteResult quoteVehicles(@RequestBody QuoteRequest request) {
+        try {
+            return quoteService.quote(request.getLicensePlates(), request.getDays());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Endpoint para consultar los multiplicadores de precio vigentes: la ocupación de cada grupo de vehículos y el factor
+     * que se aplica a su valor de alquiler en los presupuestos.
+     *
+     * @return un multiplicador por tipo, por tipo y eléctrico, y por tipo y color
+     */
+    @GetMapping("/pricing/multipliers")
+    public List<PricingMultiplier> listPricingMultipliers() {
+        return dynamicPricing.currentMultipliers();
+    }
+
+    /**
+     * Endpoint para alquilar varios vehículos a un mismo usuario de una vez, por ejemplo las furgonetas de un cliente corporativo.
+     * El lote se alquila entero o no se alquila: si algún vehículo no está disponible, responde 409 con cada matrícula
+     * que lo impidió y su motivo, y ningún vehículo cambia.
+     *
+     * @param request las matrículas y el usuario que las alquila
+     * @return el resultado del lote
+     */
+    @PostMapping("/rentBatch")
+    public ResponseEntity<BatchRentalResult> rentVehicles(@RequestBody BatchRentalRequest request) {
+        try {
+            BatchRentalResult result = vehicleService.rentVehicles(request.getLicensePlates(), registeredUser(request.getUser()));
+            return ResponseEntity.status(result.isSuccess() ? HttpStatus.OK : HttpStatus.CONFLICT).body(result);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Endpoint para devolver varios vehículos alquilados de una vez. Si alguno no está alquilado, responde 409
+     * con las matrículas que lo impidieron y no se devuelve ninguno.
+     *
+     * @param licensePlates las matrículas de los vehículos que se devuelven
+     * @return el resultado del lote
+     */
+    @PostMapping("/returnBatch")
+    public ResponseEntity<BatchRentalResult> returnVehicles(@RequestBody List<String> licensePlates) {
+        try {
+            BatchRentalResult result = vehicleService.returnVehicles(licensePlates);
+            return ResponseEntity.status(result.isSuccess() ? HttpStatus.OK : HttpStatus.CONFLICT).body(result);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Endpoint para reservar un vehículo para un periodo futuro, por ejemplo
+     * /vehicles/reserve/ABC123?pickup=2025-07-01T10:00&dropOff=2025-07-05T10:00.
+     * Mientras dura la reserva, /vehicles/rent solo deja alquilar el vehículo al usuario que lo reservó.
+     *
+     * @param licensePlate la matrícula del vehículo que se va a reservar
+     * @param user el usuario que reserva el vehículo
+     * @param pickup la fecha y hora de recogida
+     * @param dropOff la fecha y hora de entrega
+     * @return la reserva creada, con el identificador para cancelarla
+     */
+    @PostMapping("/reserve/{licensePlate}")
+    public Reservation reserveVehicle(@PathVariable String licensePlate, @RequestBody User user,
+                                      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime pickup,
+                                      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dropOff) {
+        if (vehicleService.getVehicle(licensePlate) == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Vehicle not found.");
+        }
+        Reservation reservation;
+        try {
+            reservation = vehicleService.reserveVehicle(licensePlate, registeredUser(user).getLogin(), pickup, dropOff);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (reservation == null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Vehicle is already reserved for part of that period.");
+        }
+        return reservation;
+    }
+
+    /**
+     * Endpoint para cancelar una reserva. Solo puede cancelarla el usuario que la hizo o un administrador.
+     *
+     * @param reservationId el identificador de la reserva
+     * @param login el inicio de sesión del usuario que cancela
+     * @return un mensaje de éxito si la cancelación se realiza correctamente
+     */
+    @PostMapping("/cancelReservation/{reservationId}")
+    public String cancelReservation(@PathVariable String reservationId, @RequestParam String login) {
+        Reservation reservation = vehicleService.getReservation(reservationId);
+        if (reservation == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Reservation not found.");
+        }
+        User user = userService.getUserByLogin(login);
+        if (user == null || (!reservation.getUserLogin().equals(login) && user.getRole() != Role.ADMIN)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only the user who made the reservation or an admin can cancel it.");
+        }
+        boolean success = vehicleService.cancelReservation(reservationId);
+        return success ? "Reservation cancelled successfully!" : "Reservation could not be cancelled.";
+    }
+
+    /**
+     * Endpoint para buscar los vehículos sin reservas en un periodo, por ejemplo
+     * /vehicles/available/between?type=van&from=2025-07-04T18:00&to=2025-07-07T10:00.
+     *
+     * @param type el tipo de vehículo (car, truck, van o motorcycle); si no se indica, se incluyen todos
+     * @param from el inicio del periodo
+     * @param to el fin del periodo
+     * @param limit el número máximo de vehículos devueltos, entre 1 y 1000 (100 por defecto)
+     * @return el total de vehículos libres, los primeros hasta el límite y el plan usado
+     */
+    @GetMapping("/available/between")
+    public VehicleSearchResult findVehiclesFreeBetween(@RequestParam(required = false) String type,
+                                                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                       @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return vehicleService.findVehiclesFreeBetween(type, from, to, checkPageSize(limit));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Endpoint para listar las reservas de un vehículo que aún no han terminado. Un administrador ve todas; cualquier otro
+     * usuario registrado ve solo las suyas, así no conoce los identificadores ni los usuarios de las reservas ajenas.
+     *
+     * @param licensePlate la matrícula del vehículo
+     * @param login el inicio de sesión del usuario que hace la consulta
+     * @return una lista con las reservas visibles para el usuario, ordenadas por fecha de recogida
+     */
+    @GetMapping("/reservations/{licensePlate}")
+    public List<Reservation> listReservations(@PathVariable String licensePlate, @RequestParam String login) {
+        User user = userService.getUserByLogin(login);
+        if (user == null) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied.");
+        }
+        return user.getRole() == Role.ADMIN
+                ? vehicleService.listReservations(licensePlate)
+                : vehicleService.listReservations(licensePlate, login);
+    }
+    /**
+     * Endpoint para generar un informe de uso de los vehículos entre dos fechas, ambas incluidas.
+     * Solo accesible para administradores. El informe se calcula con los contadores diarios del libro de alquileres.
+     *
+     * @param startDate el primer día del informe, en formato ISO (yyyy-MM-dd)
+     * @param endDate el último día del informe, incluido
+     * @param login el inicio de sesión del usuario que solicita el informe
+     * @param groupBy "type" para las cifras por tipo de vehículo, o "vehicle" para añadir también las de cada vehículo
+     * @param format "json"; el formato "csv" lo atiende generateUsageReportCsv
+     * @return el informe de uso
+     */
+    // Define un endpoint GET para generar un reporte de uso de vehículos entre dos fechas, accesible solo para administradores.
+    @GetMapping("/usageReport")
+    public UsageReport generateUsageReport(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+                                           @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+                                           @RequestParam String login,
+                                           @RequestParam(defaultValue = "type") String groupBy,
+                                           @RequestParam(defaultValue = "json") String format) {
+        if (!"json".equalsIgnoreCase(format)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown format '" + format + "'. Use json or csv.");
+        }
+        return usageReport(startDate, endDate, login, groupBy);
+    }
+
+    /**
+     * Endpoint para descargar el informe de uso como CSV: una fila para el total, una por tipo y, si se piden, una por vehículo.
+     *
+     * @param startDate el primer día del informe, en formato ISO (yyyy-MM-dd)
+     * @param endDate el último día del informe, incluido
+     * @param login el inicio de sesión del usuario que solicita el informe
+     * @param groupBy "type" o "vehicle"
+     * @return el informe de uso en formato CSV
+     */
+    @GetMapping(value = "/usageReport", params = "format=csv", produces = "text/csv")
+    public String generateUsageReportCsv(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+                                         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+                                         @RequestParam String login,
+                                         @RequestParam(defaultValue = "type") String groupBy) {
+        return usageReport(startDate, endDate, login, groupBy).toCsv();
+    }
+
+    /**
+     * Endpoint para consultar las métricas de la caché de informes de uso. Solo accesible para administradores.
+     *
+     * @param login el inicio de sesión del usuario que hace la consulta
+     * @return los aciertos, fallos, expulsiones, invalidaciones y la memoria estimada de la caché
+     */
+    @GetMapping("/usageReport/cacheStats")
+    public ReportCacheStats getUsageReportCacheStats(@RequestParam String login) {
+        User user = userService.getUserByLogin(login);
+        if (user != null && user.getRole() == Role.ADMIN) {
+            return vehicleService.getUsageReportCacheStats();
+        } else {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied. Admin role required.");
+        }
+    }
+
+    private UsageReport usageReport(LocalDate startDate, LocalDate endDate, String login, String groupBy) {
+        // Obtiene el usuario asociado al login proporcionado utilizando el servicio de usuarios.
+        User user = userService.getUserByLogin(login);
+        // Verifica si el usuario existe y si el rol del usuario es ADMIN.
+        if (user == null || user.getRole() != Role.ADMIN) {
+            // Si el usuario no se encuentra o no tiene el rol de ADMIN, lanza una excepción de acceso denegado con el mensaje adecuado.
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied. Admin role required.");
+        }
+        boolean byVehicle;
+        if ("vehicle".equalsIgnoreCase(groupBy)) {
+            byVehicle = true;
+        } else if ("type".equalsIgnoreCase(groupBy)) {
+            byVehicle = false;
+        } else {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown groupBy '" + groupBy + "'. Use type or vehicle.");
+        }
+        try {
+            return vehicleService.generateUsageReport(startDate, endDate, byVehicle);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Endpoint para cargar vehículos en masa desde un archivo CSV.
+     * Solo accesible para administradores.
+     *
+     * @param file el archivo CSV que contiene los datos del vehículo
+     * @param login el nombre de usuario del usuario que intenta realizar la carga en masa
+     * @param parallel true (por defecto) para analizar el CSV en paralelo, false para hacerlo de forma secuencial
+     * @return un mensaje de éxito si la carga en masa se realiza correctamente
+     */
+
+    // Define un endpoint POST para cargar un archivo CSV con vehículos en masa, accesible solo para administradores.
+    @PostMapping(value = "/bulkUpload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public String bulkUploadVehicles(@RequestParam("file") MultipartFile file, @RequestParam String login,
+                                     @RequestParam(defaultValue = "true") boolean parallel) {
+        // Obtiene el usuario asociado al login proporcionado utilizando el servicio de usuarios.
+        User user = userService.getUserByLogin(login);
+        // Verifica si el usuario existe y si el rol del usuario es ADMIN.
+        if (user != null && user.getRole() == Role.ADMIN) {
+            // Lee el CSV directamente del flujo de la petición: no se carga entero en memoria ni se escribe en disco.
+            try (InputStream csvStream = file.getInputStream()) {
+                // Llama al servicio de vehículos para cargar los vehículos desde el flujo CSV.
+                BulkUploadResult result = vehicleService.bulkUploadVehicles(csvStream, parallel);
+                // Retorna un mensaje de éxito con el resumen y el rendimiento de la carga.
+                return "Bulk upload successful! " + result;
+            } catch (Exception e) {
+                // Si ocurre algún error durante el proceso, retorna un mensaje de error con la descripción del problema.
+                return "Bulk upload failed: " + e.getMessage();
+            }
+        } else {
+            // Si el usuario no tiene el rol de ADMIN o no existe, lanza una excepción de acceso denegado con el mensaje adecuado.
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied. Admin role required.");
+        }
+    }
+
+    /**
+     * Endpoint para cargar vehículos en masa enviando el CSV como cuerpo de la petición (Content-Type: text/csv).
+     * A diferencia de la variante multipart, el servidor no guarda ninguna parte en disco: el CSV se procesa según llega.
+     * Solo accesible para administradores.
+     *
+     * @param request la petición HTTP cuyo cuerpo es el contenido CSV
+     * @param login el nombre de usuario del usuario que intenta realizar la carga en masa
+     * @param parallel true (por defecto) para analizar el CSV en paralelo, false para hacerlo de forma secuencial
+     * @return un mensaje de éxito si la carga en masa se realiza correctamente
+     */
+    @PostMapping(value = "/bulkUpload", consumes = "text/csv")
+    public String bulkUploadVehiclesStream(HttpServletRequest request, @RequestParam String login,
+                                           @RequestParam(defaultValue = "true") boolean parallel) {
+        User user = userService.getUserByLogin(login);
+        if (user != null && user.getRole() == Role.ADMIN) {
+            try (InputStream csvStream = request.getInputStream()) {
+                BulkUploadResult result = vehicleService.bulkUploadVehicles(csvStream, parallel);
+                return "Bulk upload successful! " + result;
+            } catch (Exception e) {
+                return "Bulk upload failed: " + e.getMessage();
+            }
+        } else {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied. Admin role required.");
+        }
+    }
+
+    /**
+     * Endpoint para enviar una carga masiva como trabajo en segundo plano (multipart).
+     * Responde de inmediato con el trabajo creado; su progreso se consulta con /bulkUpload/jobs/{jobId}.
+     * Solo accesible para administradores.
+     *
+     * @param file el archivo CSV que contiene los datos del vehículo
+     * @param login el nombre de usuario del usuario que envía la carga
+     * @param parallel true (por defecto) para analizar el CSV en paralelo
+     * @return el trabajo creado
+     */
+    @PostMapping(value = "/bulkUpload/jobs", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public BulkUploadJob submitBulkUploadJob(@RequestParam("file") MultipartFile file, @RequestParam String login,
+                                             @RequestParam(defaultValue = "true") boolean parallel) {
+        User user = userService.getUserByLogin(login);
+        if (user != null && user.getRole() == Role.ADMIN) {
+            try (InputStream csvStream = file.getInputStream()) {
+                return bulkUploadJobService.submit(csvStream, login, parallel);
+            } catch (IOException e) {
+                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Bulk upload could not be queued: " + e.getMessage());
+            }
+        } else {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied. Admin role required.");
+        }
+    }
+
+    /**
+     * Endpoint para enviar una carga masiva como trabajo en segundo plano con el CSV como cuerpo (Content-Type: text/csv).
+     * Solo accesible para administradores.
+     *
+     * @param request la petición HTTP cuyo cuerpo es el contenido CSV
+     * @param login el nombre de usuario del usuario que envía la carga
+     * @param parallel true (por defecto) para analizar el CSV en paralelo
+     * @return el trabajo creado
+     */
+    @PostMapping(value = "/bulkUpload/jobs", consumes = "text/csv")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public BulkUploadJob submitBulkUploadJobStream(HttpServletRequest request, @RequestParam String login,
+                                                   @RequestParam(defaultValue = "true") boolean parallel) {
+        User user = userService.getUserByLogin(login);
+        if (user != null && user.getRole() == Role.ADMIN) {
+            try (InputStream csvStream = request.getInputStream()) {
+                return bulkUploadJobService.submit(csvStream, login, parallel);
+            } catch (IOException e) {
+                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Bulk upload could not be queued: " + e.getMessage());
+            }
+        } else {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied. Admin role required.");
+        }
+    }
+
+    /**
+     * Endpoint para listar los trabajos de carga masiva recientes.
+     * Solo accesible para administradores.
+     *
+     * @param login el nombre de usuario del usuario que consulta los trabajos
+     * @return una lista con los trabajos, del más antiguo al más reciente
+     */
+    @GetMapping("/bulkUpload/jobs")
+    public List<BulkUploadJob> listBulkUploadJobs(@RequestParam String login) {
+        User user = userService.getUserByLogin(login);
+        if (user != null && user.getRole() == Role.ADMIN) {
+            return bulkUploadJobService.listJobs();
+        } else {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied. Admin role required.");
+        }
+    }
+
+    /**
+     * Endpoint para consultar el estado de un trabajo de carga masiva: filas leídas, aceptadas, rechazadas con su línea
+     * y rendimiento. Solo accesible para administradores.
+     *
+     * @param jobId el identificador del trabajo
+     * @param login el nombre de usuario del usuario que consulta el trabajo
+     * @return el trabajo con su progreso actual
+     */
+    @GetMapping("/bulkUpload/jobs/{jobId}")
+    public BulkUploadJob getBulkUploadJob(@PathVariable String jobId, @RequestParam String login) {
+        User user = userService.getUserByLogin(login);
+        if (user != null && user.getRole() == Role.ADMIN) {
+            BulkUploadJob job = bulkUploadJobService.getJob(jobId);
+            if (job == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Bulk upload job not found.");
+            }
+            return job;
+        } else {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied. Admin role required.");
+        }
+    }
+
+    /**
+     * Endpoint para cancelar un trabajo de carga masiva en cola o en ejecución.
+     * Los vehículos que ya se registraron se conservan. Solo accesible para administradores.
+     *
+     * @param jobId el identificador del trabajo
+     * @param login el nombre de usuario del usuario que cancela el trabajo
+     * @return un mensaje indicando si el trabajo se canceló
+     */
+    @PostMapping("/bulkUpload/jobs/{jobId}/cancel")
+    public String cancelBulkUploadJob(@PathVariable String jobId, @RequestParam String login) {
+        User user = userService.getUserByLogin(login);
+        if (user != null && user.getRole() == Role.ADMIN) {
+            boolean cancelled = bulkUploadJobService.cancel(jobId);
+            return cancelled ? "Bulk upload job cancelled." : "Bulk upload job could not be cancelled.";
+        } else {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied. Admin role required.");
+        }
+    }
+
+    /**
+     * Endpoint para buscar vehículos con varios criterios a la vez, por ejemplo
+     * /vehicles/search?type=car&electric=true&color=red&minRentalValue=50&maxRentalValue=120&available=true.
+     * Todos los criterios son opcionales; la respuesta incluye el total de coincidencias y el plan usado.
+     *
+     * @param criteria los criterios de búsqueda, tomados de los parámetros de la URL
+     * @param limit el número máximo de vehículos devueltos, entre 1 y 1000 (100 por defecto)
+     * @return el resultado de la búsqueda
+     */
+    @GetMapping("/search")
+    public VehicleSearchResult searchVehicles(VehicleSearchCriteria criteria, @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return vehicleService.searchVehicles(criteria, checkPageSize(limit));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Endpoint para listar vehículos por rango de kilometraje o de valor de alquiler, ordenados por ese valor, por ejemplo
+     * /vehicles/range/rentalValue?type=car&max=120&available=true o /vehicles/range/kilometers?type=van&max=10000.
+     *
+     * @param field el campo: kilometers o rentalValue
+     * @param type el tipo de vehículo (car, truck, van o motorcycle); si no se indica, se incluyen todos
+     * @param min el valor mínimo, inclusivo
+     * @param max el valor máximo, inclusivo
+     * @param available true o false para filtrar por disponibilidad
+     * @param descending true para ordenar de mayor a menor
+     * @param limit el número máximo de vehículos devueltos, entre 1 y 1000 (100 por defecto)
+     * @return los vehículos del rango en orden
+     */
+    @GetMapping("/range/{field}")
+    public List<AbstractVehicle> listVehiclesByRange(@PathVariable String field,
+                                                     @RequestParam(required = false) String type,
+                                                     @RequestParam(defaultValue = "-Infinity") double min,
+                                                     @RequestParam(defaultValue = "Infinity") double max,
+                                                     @RequestParam(required = false) Boolean available,
+                                                     @RequestParam(defaultValue = "false") boolean descending,
+                                                     @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return vehicleService.listVehiclesByRange(field, type, min, max, available, descending, checkPageSize(limit));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Endpoint para listar, por tipo, los k vehículos disponibles más baratos o con menos kilómetros, por ejemplo
+     * /vehicles/top?k=20 para la página de inicio o /vehicles/top?type=van&sortBy=rent&days=7.
+     *
+     * @param type el tipo de vehículo (car, truck, van o motorcycle); si no se indica, se devuelven todos los tipos
+     * @param k el número de vehículos por tipo, entre 1 y 1000 (20 por defecto)
+     * @param sortBy el criterio: rentalValue (por defecto), kilometers o rent
+     * @param days la duración del alquiler en días cuando sortBy es rent (1 por defecto); el alquiler lleva el multiplicador
+     *             por ocupación y las reglas de precio, como un presupuesto
+     * @return un mapa de nombre de tipo a sus k vehículos, cada uno con el valor por el que se ordenó
+     */
+    @GetMapping("/top")
+    public Map<String, List<RankedVehicle>> listTopAvailableVehicles(@RequestParam(required = false) String type,
+                                                                     @RequestParam(defaultValue = "20") int k,
+                                                                     @RequestParam(defaultValue = "rentalValue") String sortBy,
+                                                                     @RequestParam(defaultValue = "1") int days) {
+        try {
+            if ("rent".equalsIgnoreCase(sortBy)) {
+                return quoteService.listCheapestToRent(type, checkPageSize(k), days);  // El mismo precio que un presupuesto
+            }
+            return vehicleService.listTopAvailableVehicles(type, checkPageSize(k), sortBy);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Endpoint para listar los vehículos de un color, sin distinguir mayúsculas de minúsculas.
+     *
+     * @param color el color a consultar
+     * @return una lista con los vehículos de ese color
+     */
+    @GetMapping("/color/{color}")
+    public List<AbstractVehicle> getVehiclesByColor(@PathVariable String color) {
+        return vehicleService.getVehiclesByColor(color);
+    }
+
+    /**
+     * Endpoint para contar los vehículos de un color, sin distinguir mayúsculas de minúsculas.
+     *
+     * @param color el color a consultar
+     * @return el número de vehículos de ese color
+     */
+    @GetMapping("/color/{color}/count")
+    public long getVehicleCountByColor(@PathVariable String color) {
+        return vehicleService.countVehiclesByColor(color);
+    }
+
+    /**
+     * Arma el ETag fuerte de los listados de disponibles de un tipo a partir de su versión.
+     *
+     * @param vehicleType el tipo de vehículo, o AbstractVehicle.class para toda la flota
+     * @return el ETag entre comillas
+     */
+    private String listingETag(Class<? extends AbstractVehicle> vehicleType) {
+        return "\"" + vehicleService.getListingVersion(vehicleType) + "\"";
+    }
+
+    /**
+     * Valida el tamaño de página pedido.
+     *
+     * @param limit el tamaño pedido
+     * @return el mismo tamaño si es válido
+     */
+    private static int checkPageSize(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        return limit;
+    }
+
+    /**
+     * Escribe cada vehículo como una línea JSON, sin acumular la respuesta en memoria.
+     *
+     * @param vehicles los vehículos a escribir
+     * @param out la salida de la respuesta
+     * @throws IOException si el cliente cierra la conexión o falla la escritura
+     */
+    private void writeNdjson(Iterable<AbstractVehicle> vehicles, OutputStream out) throws IOException {
+        try (JsonGenerator generator = ndjsonWriter.createGenerator(out)) {
+            for (AbstractVehicle vehicle : vehicles) {
+                ndjsonWriter.writeValue(generator, vehicle);
+                generator.writeRaw('\n');
+            }
+        }
+    }
+}
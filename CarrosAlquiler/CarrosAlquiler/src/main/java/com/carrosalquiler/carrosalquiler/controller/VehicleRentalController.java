@@ -1,101 +1,172 @@
-package com.carrosalquiler.carrosalquiler.controller;
-
-// Importa las clases necesarias
-import com.carrosalquiler.carrosalquiler.models.RentedVehicle;
-import com.carrosalquiler.carrosalquiler.models.*;
-import java.util.ArrayList;
-
-/**
- * VehicleRentalController gestiona el alquiler y la devolución de vehículos.
- * Se encarga de las operaciones relacionadas con el alquiler, la devolución, el listado de vehículos alquilados y el registro de vehículos nuevos.
- */
-// Clase que gestiona las operaciones relacionadas con el alquiler de vehículos.
-public class VehicleRentalController {
-
-    // Attributes
-    private final ArrayList<RentedVehicle> rentedVehiclesList; // Lista para almacenar los vehículos alquilados.
-    private final VehicleManager vehicleManager;// El objeto encargado de la gestión de vehículos.
-// private final UserManager userManager; // Comentado en caso de no ser utilizado.
-
-    /**
-     * Constructor de la clase VehicleRentalController.
-     * Inicializa la lista de vehículos alquilados y el gestor de vehículos.
-     *
-     * @param vehicleManager El gestor de vehículos para gestionar las operaciones de vehículos.
-     */
-    public VehicleRentalController(VehicleManager vehicleManager) { // Elimina UserManager si no es necesario
-        this.rentedVehiclesList = new ArrayList<>(); // Inicializa la lista vacía de vehículos alquilados.
-        this.vehicleManager = vehicleManager;  // Asigna el gestor de vehículos proporcionado al atributo.
-        // this.userManager = userManager; // Comentado en caso de no ser utilizado
-    }
-
-    // Métodos
-
-    /**
-     * Alquila un vehículo a un usuario.
-     *
-     * @param vehicle El vehículo que se va a alquilar.
-     * @param user    El usuario que alquila el vehículo.
-     */
-
-    public void rentVehicle(AbstractVehicle vehicle, User user) {
-        // Verifica si el vehículo está disponible para alquilar.
-        if (vehicleManager.isVehicleAvailable(vehicle)) {
-            // Crea una nueva instancia de RentedVehicle para registrar el alquiler.
-            RentedVehicle rental = new RentedVehicle(user, vehicle);
-            rentedVehiclesList.add(rental);  // Añade el vehículo alquilado a la lista.
-            vehicleManager.markAsRented(vehicle);// Marca el vehículo como alquilado en el gestor de vehículos.
-            System.out.println("Vehicle successfully rented: " + vehicle); // Mensaje indicando que el alquiler fue exitoso.
-        } else {
-            System.out.println("The vehicle is not available for rent.");  // Mensaje indicando que el vehículo no está disponible.
-        }
-    }
-
-    /**
-     * Devuelve un vehículo alquilado.
-     *
-     * @param vehicle El vehículo que se va a devolver.
-     */
-
-    public void returnVehicle(AbstractVehicle vehicle) {
-        // Busca el vehículo en la lista de vehículos alquilados.
-        RentedVehicle rental = rentedVehiclesList.stream()
-                .filter(r -> r.getVehicle().equals(vehicle))// Filtra el vehículo que se desea devolver.
-                //r:es simplemente una variable temporal que representa cada elemento del flujo,el filtro verifica si el vehículo asociado a ese alquiler es el mismo que el vehículo proporcionado.
-                .findFirst() // Obtiene el primer elemento encontrado.
-                //findFirst(): encuentra el primer elemento de un flujo que cumple con los filtros aplicados y lo devuelve envuelto en un Optional.
-                .orElse(null);// Devuelve null si no se encuentra el vehículo.
-
-        if (rental != null) {  // Si el vehículo fue encontrado en la lista de alquilados.
-            rentedVehiclesList.remove(rental); // Elimina el vehículo de la lista de alquileres.
-            vehicleManager.markAsAvailable(vehicle); // Marca el vehículo como disponible en el gestor de vehículos.
-            System.out.println("Vehicle successfully returned: " + vehicle); // Mensaje indicando que el vehículo fue devuelto exitosamente.
-        } else {
-            System.out.println("The vehicle is not registered as rented."); // Mensaje indicando que el vehículo no está registrado como alquilado.
-        }
-    }
-
-    /**
-     * Lista todos los vehículos alquilados.
-     *
-     * @return Una lista de vehículos alquilados.
-     */
-    public ArrayList<AbstractVehicle> listRentedVehicles() {
-        ArrayList<AbstractVehicle> vehicles = new ArrayList<>();// Crea una nueva lista de vehículos alquilados.
-        //<> El compilador infiere automáticamente el tipo String para el tipo genérico,
-        for (RentedVehicle rental : rentedVehiclesList) { // Itera sobre la lista de vehículos alquilados.
-            vehicles.add(rental.getVehicle()); // Añade el vehículo alquilado a la lista de vehículos.
-        }
-        return vehicles;// Devuelve la lista de vehículos alquilados.
-    }
-
-    /**
-     * Registra un nuevo vehículo.
-     *
-     * @param vehicle El vehículo que se va a registrar.
-     */
-
-    public void registerVehicle(AbstractVehicle vehicle) {  // Asegúrate de pasar el argumento necesario.
-        vehicleManager.registerVehicle(vehicle); // Registra el vehículo en el gestor de vehículos.
-    }
-}
+package com.carrosalquiler.carrosalquiler.controller;
+
+// Importa las clases necesarias
+import com.carrosalquiler.carrosalquiler.models.RentalReport;
+import com.carrosalquiler.carrosalquiler.models.RentedVehicle;
+import com.carrosalquiler.carrosalquiler.models.Role;
+import com.carrosalquiler.carrosalquiler.models.User;
+import com.carrosalquiler.carrosalquiler.service.GestionUsuariosService;
+import com.carrosalquiler.carrosalquiler.service.RentalLedgerService;
+import com.carrosalquiler.carrosalquiler.service.RentalReportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.http.HttpStatus;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * VehicleRentalController es un controlador REST para consultar el libro de alquileres.
+ * Los alquileres se abren y se cierran con /vehicles/rent y /vehicles/return; aquí se consultan los alquileres activos
+ * por vehículo y por usuario, el historial de alquileres cerrados con sus fechas de alquiler y devolución, y los informes
+ * agrupados sobre todo el historial.
+ */
+@RestController
+@RequestMapping("/rentals")
+public class VehicleRentalController {
+    private final RentalLedgerService ledger;
+    private final GestionUsuariosService userService;
+    private final RentalReportService reportService;
+
+    /**
+     * Constructor con inyección de dependencias para el libro de alquileres, el servicio de usuarios y el de informes.
+     *
+     * @param ledger el libro de alquileres que se inyectará
+     * @param userService el servicio de usuarios que se inyectará, usado para validar administradores
+     * @param reportService el servicio de informes sobre el historial que se inyectará
+     */
+    @Autowired
+    public VehicleRentalController(RentalLedgerService ledger, GestionUsuariosService userService, RentalReportService reportService) {
+        this.ledger = ledger;
+        this.userService = userService;
+        this.reportService = reportService;
+    }
+
+    /**
+     * Endpoint para listar todos los alquileres activos. Solo accesible para administradores.
+     *
+     * @param login el inicio de sesión del usuario que hace la consulta
+     * @return una lista con los alquileres activos
+     */
+    @GetMapping("/active")
+    public List<RentedVehicle> listActiveRentals(@RequestParam String login) {
+        checkAdmin(login);
+        return ledger.listActiveRentals();
+    }
+
+    /**
+     * Endpoint para consultar el alquiler activo de un vehículo. Solo accesible para administradores y para el usuario
+     * que tiene el vehículo alquilado.
+     *
+     * @param licensePlate la matrícula del vehículo
+     * @param login el inicio de sesión del usuario que hace la consulta
+     * @return el alquiler activo del vehículo
+     */
+    @GetMapping("/active/{licensePlate}")
+    public RentedVehicle getActiveRental(@PathVariable String licensePlate, @RequestParam String login) {
+        User requester = userService.getUserByLogin(login);
+        if (requester == null) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied.");
+        }
+        RentedVehicle rental = ledger.getActiveRental(licensePlate);
+        if (rental == null && requester.getRole() == Role.ADMIN) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Vehicle " + licensePlate + " is not currently rented.");
+        }
+        // A los demás usuarios no se les dice si el vehículo está alquilado por otro
+        if (rental == null || (requester.getRole() != Role.ADMIN
+                && (rental.getUser() == null || !login.equals(rental.getUser().getLogin())))) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied.");
+        }
+        return rental;
+    }
+
+    /**
+     * Endpoint para listar los alquileres activos de un usuario. Solo accesible para administradores y para el propio usuario.
+     *
+     * @param userLogin el inicio de sesión del usuario
+     * @param login el inicio de sesión del usuario que hace la consulta
+     * @return una lista con sus alquileres activos
+     */
+    @GetMapping("/user/{userLogin}")
+    public List<RentedVehicle> listActiveRentalsByUser(@PathVariable String userLogin, @RequestParam String login) {
+        checkAdminOrSelf(login, userLogin);
+        return ledger.listActiveRentalsByUser(userLogin);
+    }
+
+    /**
+     * Endpoint para listar el historial de alquileres cerrados de un vehículo. Solo accesible para administradores.
+     *
+     * @param licensePlate la matrícula del vehículo
+     * @param login el inicio de sesión del usuario que hace la consulta
+     * @return una lista con los alquileres cerrados, del más antiguo al más reciente
+     */
+    @GetMapping("/history/vehicle/{licensePlate}")
+    public List<RentedVehicle> getVehicleRentalHistory(@PathVariable String licensePlate, @RequestParam String login) {
+        checkAdmin(login);
+        return ledger.getRentalHistory(licensePlate);
+    }
+
+    /**
+     * Endpoint para listar el historial de alquileres cerrados de un usuario. Solo accesible para administradores y para
+     * el propio usuario.
+     *
+     * @param userLogin el inicio de sesión del usuario
+     * @param login el inicio de sesión del usuario que hace la consulta
+     * @return una lista con sus alquileres cerrados, ordenados por fecha de alquiler
+     */
+    @GetMapping("/history/user/{userLogin}")
+    public List<RentedVehicle> getUserRentalHistory(@PathVariable String userLogin, @RequestParam String login) {
+        checkAdminOrSelf(login, userLogin);
+        return ledger.getRentalHistoryByUser(userLogin);
+    }
+
+    /**
+     * Endpoint para calcular un informe sobre todos los alquileres cerrados, agrupado por dimensiones del vehículo, del usuario
+     * y de la fecha del alquiler; por ejemplo groupBy=type,electric,month. Solo accesible para administradores.
+     *
+     * @param groupBy las dimensiones del informe, separadas por comas
+     * @param from el primer día de alquiler que se incluye, en formato ISO (yyyy-MM-dd); opcional
+     * @param to el último día de alquiler que se incluye; opcional
+     * @param login el inicio de sesión del usuario que hace la consulta
+     * @return el informe con una fila por grupo
+     */
+    @GetMapping("/report")
+    public RentalReport report(@RequestParam List<String> groupBy,
+                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                               @RequestParam String login) {
+        checkAdmin(login);
+        try {
+            return reportService.report(groupBy, from, to);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Verifica que el usuario sea administrador.
+     *
+     * @param login el inicio de sesión del usuario
+     */
+    private void checkAdmin(String login) {
+        User user = userService.getUserByLogin(login);
+        if (user == null || user.getRole() != Role.ADMIN) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied. Admin role required.");
+        }
+    }
+
+    /**
+     * Verifica que el usuario sea administrador o el usuario consultado.
+     *
+     * @param login el inicio de sesión del usuario que hace la consulta
+     * @param userLogin el inicio de sesión del usuario consultado
+     */
+    private void checkAdminOrSelf(String login, String userLogin) {
+        User user = userService.getUserByLogin(login);
+        if (user == null || (user.getRole() != Role.ADMIN && !login.equals(userLogin))) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied.");
+        }
+    }
+}
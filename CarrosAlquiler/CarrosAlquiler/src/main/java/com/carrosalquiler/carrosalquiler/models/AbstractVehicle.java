@@ -1,131 +1,339 @@
-package com.carrosalquiler.carrosalquiler.models;
-
-/**
- * AbstractVehicle es una clase abstracta que representa las propiedades y comportamientos comunes de los vehículos.
- * Esta clase incluye atributos como la matrícula, los kilómetros recorridos, el valor de alquiler y el estado eléctrico.
- * También incluye métodos para realizar mantenimiento y calcular el alquiler, los cuales deben ser implementados por las subclases.
- */
-public abstract class AbstractVehicle {
-    // Atributos
-    private String licensePlate;  // Matrícula del vehículo.
-    private int kilometers;  // Kilómetros recorridos por el vehículo.
-    private double rentalValue; // Valor de alquiler del vehículo.
-    private boolean isElectric; // Estado de si el vehículo es eléctrico
-    private boolean isAvailable = true; // Estado de disponibilidad del vehículo, por defecto disponible.
-
-    /**
-     * Constructor para inicializar un AbstractVehicle.
-     *
-     * @param licensePlate la matrícula del vehículo
-     * @param kilometers los kilómetros recorridos por el vehículo
-     * @param rentalValue el valor de alquiler del vehículo
-     * @param isElectric si el vehículo es eléctrico
-     */
-
-    public AbstractVehicle(String licensePlate, int kilometers, double rentalValue, boolean isElectric) {
-        this.licensePlate = licensePlate; // Asigna la matrícula al vehículo.
-        this.kilometers = kilometers; // Asigna los kilómetros recorridos al vehículo.
-        this.rentalValue = rentalValue;  // Asigna el valor de alquiler al vehículo.
-        this.isElectric = isElectric;  // Asigna el estado eléctrico del vehículo.
-    }
-
-    // Métodos getter y setter para los atributos
-
-    public String getLicensePlate() {
-        return licensePlate;
-    } // Devuelve la matrícula del vehículo.
-
-    public void setLicensePlate(String licensePlate) {
-        this.licensePlate = licensePlate;
-    } // Asigna una nueva matrícula al vehículo.
-
-    public int getKilometers() {
-        return kilometers;
-    } // Devuelve los kilómetros recorridos por el vehículo.
-
-    public void setKilometers(int kilometers) {
-        this.kilometers = kilometers;
-    }  // Asigna un nuevo valor para los kilómetros recorridos por el vehículo.
-
-    public double getRentalValue() {
-        return rentalValue;
-    }  // Devuelve el valor de alquiler del vehículo.
-
-    public void setRentalValue(double rentalValue) {
-        this.rentalValue = rentalValue;
-    }// Asigna un nuevo valor de alquiler al vehículo.
-
-    public boolean isElectric() {
-        return isElectric;
-    } // Devuelve si el vehículo es eléctrico.
-
-    public void setElectric(boolean electric) {
-        isElectric = electric;
-    }  // Asigna si el vehículo es eléctrico o no.
-
-    public boolean isAvailable() {
-        return isAvailable;
-    }   // Devuelve el valor de la variable isAvailable, que indica si el vehículo está disponible.
-
-    public void setAvailable(boolean available) {
-        isAvailable = available;
-    }   // Establece el valor de la variable isAvailable según el parámetro available.
-
-    /**
-     * Método abstracto para realizar el mantenimiento del vehículo.
-     * Las subclases deben proporcionar una implementación para este método.
-     */
-    public abstract void performMaintenance();
-// Método abstracto que debe ser implementado por las subclases para realizar el mantenimiento del vehículo.
-
-    /**
-     * Método abstracto para calcular el alquiler del vehículo.
-     * Las subclases deben proporcionar una implementación para este método.
-     *
-     * @param days el número de días por los cuales el vehículo es alquilado.
-     * @return el valor calculado del alquiler.
-     */
-    public abstract double calculateRent(int days);
-// Método abstracto que debe ser implementado por las subclases para calcular el alquiler del vehículo en función de los días alquilados.
-
-    /**
-     * Devuelve una representación en cadena del AbstractVehicle.
-     *
-     * @return una cadena que contiene los detalles del vehículo.
-     */
-    @Override
-    public String toString() {
-        // Sobrescribe el método toString para devolver una representación en cadena del objeto AbstractVehicle.
-        return "AbstractVehicle{" +
-                "licensePlate='" + licensePlate + '\'' + // Devuelve la matrícula del vehículo.
-                ", kilometers=" + kilometers + // Devuelve el número de kilómetros recorridos por el vehículo.
-                ", rentalValue=" + rentalValue +// Devuelve el valor del alquiler del vehículo.
-                ", isElectric=" + isElectric + // Devuelve si el vehículo es eléctrico o no.
-                ", isAvailable=" + isAvailable +  // Devuelve si el vehículo está disponible o no.
-                '}';
-    }
-    // Atributos
-    private String Registration;
-    private int km;
-    private boolean State; // true = disponible, false = alquilado
-    private double RentalValue;
-    private String color;
-
-    // Constructor
-    public AbstractVehicle(String Registration, int km, boolean State, double RentalValue, String color) {
-        this.Registration = Registration;
-        this.km = km;
-        this.State = State;
-        this.RentalValue = RentalValue;
-        this.color=color;
-    }
-
-    //Getter y Setters del color
-    public String getColor(){
-        return color;
-    }
-
-    public void setColor(String color) {
-        this.color = color;
-    }
-}
+package com.carrosalquiler.carrosalquiler.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AbstractVehicle es una clase abstracta que representa las propiedades y comportamientos comunes de los vehículos.
+ * Esta clase incluye atributos como la matrícula, los kilómetros recorridos, el valor de alquiler y el estado eléctrico.
+ * También incluye métodos para realizar mantenimiento y calcular el alquiler, los cuales deben ser implementados por las subclases.
+ */
+public abstract class AbstractVehicle {
+    private static final long AVAILABLE = 1;  // Bit 0 del estado de disponibilidad
+    private static final long CLAIMED = 2;  // Bit 1 del estado de disponibilidad
+    private static final int VERSION_SHIFT = 2;  // La versión ocupa los bits 2 a 63
+
+    // Atributos
+    private String licensePlate;  // Matrícula del vehículo.
+    private int kilometers;  // Kilómetros recorridos por el vehículo.
+    private double rentalValue; // Valor de alquiler del vehículo.
+    private boolean isElectric; // Estado de si el vehículo es eléctrico
+    // Estado de disponibilidad del vehículo, por defecto disponible, en una sola palabra atómica para que alquilar y devolver
+    // se resuelvan con compare-and-set, sin bloqueos globales:
+    //   bit 0: disponible (1) o alquilado (0), según el último cambio confirmado
+    //   bit 1: tomado; un alquiler, una devolución o un cambio de disponibilidad en curso lo tomó para sí, y hasta que lo
+    //          confirme o lo suelte nadie más puede cambiar la disponibilidad
+    //   bits 2 a 63: versión, que cuenta los cambios confirmados para poder ordenarlos al recuperarlos
+    private final AtomicLong availabilityState = new AtomicLong(AVAILABLE);
+    // Quien indexó el vehículo por kilómetros y valor de alquiler; se avisa cuando esos valores cambian sobre el mismo objeto
+    private volatile VehicleChangeListener changeListener;
+
+    /**
+     * Constructor para inicializar un AbstractVehicle.
+     *
+     * @param licensePlate la matrícula del vehículo
+     * @param kilometers los kilómetros recorridos por el vehículo
+     * @param rentalValue el valor de alquiler del vehículo
+     * @param isElectric si el vehículo es eléctrico
+     */
+
+    public AbstractVehicle(String licensePlate, int kilometers, double rentalValue, boolean isElectric) {
+        this.licensePlate = licensePlate; // Asigna la matrícula al vehículo.
+        this.kilometers = kilometers; // Asigna los kilómetros recorridos al vehículo.
+        this.rentalValue = rentalValue;  // Asigna el valor de alquiler al vehículo.
+        this.isElectric = isElectric;  // Asigna el estado eléctrico del vehículo.
+    }
+
+    // Métodos getter y setter para los atributos
+
+    public String getLicensePlate() {
+        return licensePlate;
+    } // Devuelve la matrícula del vehículo.
+
+    public void setLicensePlate(String licensePlate) {
+        this.licensePlate = licensePlate;
+    } // Asigna una nueva matrícula al vehículo.
+
+    public int getKilometers() {
+        return kilometers;
+    } // Devuelve los kilómetros recorridos por el vehículo.
+
+    public void setKilometers(int kilometers) {
+        int previous = this.kilometers;
+        changeIndexedValue(() -> this.kilometers = kilometers, () -> this.kilometers = previous);
+    }  // Asigna un nuevo valor para los kilómetros recorridos por el vehículo.
+
+    public double getRentalValue() {
+        return rentalValue;
+    }  // Devuelve el valor de alquiler del vehículo.
+
+    public void setRentalValue(double rentalValue) {
+        double previous = this.rentalValue;
+        changeIndexedValue(() -> this.rentalValue = rentalValue, () -> this.rentalValue = previous);
+    }// Asigna un nuevo valor de alquiler al vehículo.
+
+    public boolean isElectric() {
+        return isElectric;
+    } // Devuelve si el vehículo es eléctrico.
+
+    public void setElectric(boolean electric) {
+        boolean previous = isElectric;
+        changeIndexedValue(() -> isElectric = electric, () -> isElectric = previous);
+    }  // Asigna si el vehículo es eléctrico o no.
+
+    public boolean isAvailable() {
+        return (availabilityState.get() & (AVAILABLE | CLAIMED)) == AVAILABLE;
+    }   // Devuelve si el vehículo está disponible; uno tomado por una operación en curso no lo está.
+
+    public void setAvailable(boolean available) {
+        updateAvailability(available);
+    }   // Establece la disponibilidad del vehículo según el parámetro available.
+
+    /**
+     * Indica si una operación en curso tomó el vehículo para cambiar su disponibilidad.
+     *
+     * @return true si está tomado
+     */
+    @JsonIgnore
+    public boolean isClaimed() {
+        return (availabilityState.get() & CLAIMED) != 0;
+    }
+
+    /**
+     * Devuelve la disponibilidad del último cambio confirmado, sin tener en cuenta si el vehículo está tomado.
+     * Es la que se guarda al persistir el vehículo: una operación en curso todavía puede soltarlo sin cambiarla.
+     *
+     * @return true si el último cambio confirmado lo dejó disponible
+     */
+    public boolean committedAvailability() {
+        return (availabilityState.get() & AVAILABLE) != 0;
+    }
+
+    /**
+     * Toma el vehículo con un único compare-and-set, si no está tomado y su disponibilidad es la esperada.
+     * Si varios hilos lo intentan a la vez, solo uno gana; el resto falla inmediatamente sin esperar.
+     * Quien lo toma debe confirmarlo con {@link #completeClaim} o soltarlo con {@link #releaseClaim}.
+     *
+     * @param expected la disponibilidad que debe tener el vehículo
+     * @return true si este hilo tomó el vehículo
+     */
+    public boolean claim(boolean expected) {
+        long state = availabilityState.get();
+        if ((state & CLAIMED) != 0 || ((state & AVAILABLE) != 0) != expected) {
+            return false;
+        }
+        return availabilityState.compareAndSet(state, state | CLAIMED);
+    }
+
+    /**
+     * Toma el vehículo sea cual sea su disponibilidad, si no está tomado, con un único compare-and-set.
+     *
+     * @return true si este hilo tomó el vehículo
+     */
+    public boolean claimAny() {
+        long state = availabilityState.get();
+        return (state & CLAIMED) == 0 && availabilityState.compareAndSet(state, state | CLAIMED);
+    }
+
+    /**
+     * Confirma un cambio de disponibilidad sobre un vehículo que este hilo tomó, y lo suelta.
+     * Mientras el vehículo está tomado nadie más cambia su versión, así que la versión resultante es siempre
+     * la que había al tomarlo más uno: quien lo tomó puede anotarla antes de confirmar.
+     *
+     * @param available la nueva disponibilidad
+     * @return la versión resultante del cambio
+     */
+    public long completeClaim(boolean available) {
+        long state;
+        long next;
+        do {
+            state = availabilityState.get();
+            next = nextState(state, available);
+        } while (!availabilityState.compareAndSet(state, next));
+        return next >>> VERSION_SHIFT;
+    }
+
+    /**
+     * Suelta un vehículo que este hilo tomó, sin cambiar su disponibilidad ni su versión.
+     */
+    public void releaseClaim() {
+        long state;
+        do {
+            state = availabilityState.get();
+        } while (!availabilityState.compareAndSet(state, state & ~CLAIMED));
+    }
+
+    /**
+     * Intenta marcar el vehículo como alquilado con un único compare-and-set.
+     * Si varios hilos lo intentan a la vez, solo uno gana; el resto falla inmediatamente sin esperar.
+     *
+     * @return true si este hilo pasó el vehículo de disponible a alquilado, false si ya estaba alquilado
+     */
+    public boolean tryMarkAsRented() {
+        return compareAndSetAvailable(true, false) >= 0;
+    }
+
+    /**
+     * Intenta marcar el vehículo como disponible con un único compare-and-set.
+     *
+     * @return true si este hilo pasó el vehículo de alquilado a disponible, false si ya estaba disponible
+     */
+    public boolean tryMarkAsAvailable() {
+        return compareAndSetAvailable(false, true) >= 0;
+    }
+
+    /**
+     * Cambia la disponibilidad solo si tiene el valor esperado y el vehículo no está tomado, con un único compare-and-set.
+     *
+     * @param expected la disponibilidad que debe tener el vehículo
+     * @param available la nueva disponibilidad
+     * @return la versión resultante del cambio, o -1 si la disponibilidad no tenía el valor esperado o el vehículo está tomado
+     */
+    public long compareAndSetAvailable(boolean expected, boolean available) {
+        long state = availabilityState.get();
+        if ((state & CLAIMED) != 0 || ((state & AVAILABLE) != 0) != expected) {
+            return -1;
+        }
+        long next = nextState(state, available);
+        return availabilityState.compareAndSet(state, next) ? next >>> VERSION_SHIFT : -1;  // Si otro hilo cambió el estado, este pierde
+    }
+
+    /**
+     * Cambia la disponibilidad sin importar su valor actual, esperando a que nadie tenga tomado el vehículo.
+     *
+     * @param available la nueva disponibilidad
+     * @return la versión resultante del cambio
+     */
+    public long updateAvailability(boolean available) {
+        while (!claimAny()) {
+            Thread.onSpinWait();  // Quien lo tiene tomado lo suelta en cuanto termina su operación
+        }
+        return completeClaim(available);
+    }
+
+    /**
+     * Copia la disponibilidad confirmada y la versión de otro vehículo, sin tomar este. Se usa cuando este vehículo
+     * reemplaza a otro con los mismos datos actualizados, para que la versión siga avanzando desde la del anterior.
+     *
+     * @param previous el vehículo reemplazado
+     */
+    public void inheritAvailability(AbstractVehicle previous) {
+        availabilityState.set(previous.availabilityState.get() & ~CLAIMED);
+    }
+
+    /**
+     * Aplica una disponibilidad recuperada solo si su versión es más reciente que la actual.
+     * Así, los cambios recuperados producen el mismo estado final aunque lleguen desordenados o repetidos.
+     *
+     * @param available la disponibilidad recuperada
+     * @param version la versión de ese cambio
+     * @return true si se aplicó el cambio
+     */
+    public boolean applyAvailability(boolean available, long version) {
+        long state;
+        do {
+            state = availabilityState.get();
+            if ((state >>> VERSION_SHIFT) >= version) {
+                return false;
+            }
+        } while (!availabilityState.compareAndSet(state, (version << VERSION_SHIFT) | (state & CLAIMED) | (available ? AVAILABLE : 0)));
+        return true;
+    }
+
+    /**
+     * Devuelve la versión de la disponibilidad, que aumenta con cada cambio.
+     *
+     * @return el número de cambios de disponibilidad aplicados
+     */
+    public long availabilityVersion() {
+        return availabilityState.get() >>> VERSION_SHIFT;
+    }
+
+    /**
+     * Registra a quien aplica los cambios de los kilómetros, el valor de alquiler, el color o si es eléctrico.
+     * Un vehículo tiene un solo oyente; registrar otro reemplaza al anterior.
+     *
+     * @param listener el oyente, o null para dejar de avisar
+     */
+    public void attachChangeListener(VehicleChangeListener listener) {
+        this.changeListener = listener;
+    }
+
+    /**
+     * Cambia un valor indexado: directamente si el vehículo no está indexado, o a través de quien lo indexó, que deshace
+     * el cambio si no puede registrarlo.
+     */
+    private void changeIndexedValue(Runnable change, Runnable undo) {
+        VehicleChangeListener listener = changeListener;
+        if (listener == null) {
+            change.run();
+        } else {
+            listener.applyIndexedChange(this, change, undo);
+        }
+    }
+
+    private static long nextState(long state, boolean available) {
+        // Incrementa la versión, fija el bit de disponibilidad y suelta el vehículo
+        return (((state >>> VERSION_SHIFT) + 1) << VERSION_SHIFT) | (available ? AVAILABLE : 0);
+    }
+
+    /**
+     * Método abstracto para realizar el mantenimiento del vehículo.
+     * Las subclases deben proporcionar una implementación para este método.
+     */
+    public abstract void performMaintenance();
+// Método abstracto que debe ser implementado por las subclases para realizar el mantenimiento del vehículo.
+
+    /**
+     * Método abstracto para calcular el alquiler del vehículo.
+     * Las subclases deben proporcionar una implementación para este método.
+     *
+     * @param days el número de días por los cuales el vehículo es alquilado.
+     * @return el valor calculado del alquiler.
+     */
+    public abstract double calculateRent(int days);
+// Método abstracto que debe ser implementado por las subclases para calcular el alquiler del vehículo en función de los días alquilados.
+
+    /**
+     * Devuelve una representación en cadena del AbstractVehicle.
+     *
+     * @return una cadena que contiene los detalles del vehículo.
+     */
+    @Override
+    public String toString() {
+        // Sobrescribe el método toString para devolver una representación en cadena del objeto AbstractVehicle.
+        return "AbstractVehicle{" +
+                "licensePlate='" + licensePlate + '\'' + // Devuelve la matrícula del vehículo.
+                ", kilometers=" + kilometers + // Devuelve el número de kilómetros recorridos por el vehículo.
+                ", rentalValue=" + rentalValue +// Devuelve el valor del alquiler del vehículo.
+                ", isElectric=" + isElectric + // Devuelve si el vehículo es eléctrico o no.
+                ", isAvailable=" + isAvailable() +  // Devuelve si el vehículo está disponible o no.
+                '}';
+    }
+    // Atributos
+    private String Registration;
+    private int km;
+    private boolean State; // true = disponible, false = alquilado
+    private double RentalValue;
+    private String color;
+
+    // Constructor
+    public AbstractVehicle(String Registration, int km, boolean State, double RentalValue, String color) {
+        this.Registration = Registration;
+        this.km = km;
+        this.State = State;
+        this.RentalValue = RentalValue;
+        this.color=color;
+    }
+
+    //Getter y Setters del color
+    public String getColor(){
+        return color;
+    }
+
+    public void setColor(String color) {
+        String previous = this.color;
+        changeIndexedValue(() -> this.color = color, () -> this.color = previous);
+    }
+}
@@ -0,0 +1,27 @@
+package com.carrosalquiler.carrosalquiler.models;
+
+import java.util.List;
+
+/**
+ * BatchRentalRequest es el cuerpo de un alquiler por lotes: las matrículas de los vehículos y el usuario que los alquila.
+ */
+public class BatchRentalRequest {
+    private List<String> licensePlates;  // Matrículas a alquilar; las repetidas cuentan una vez
+    private User user;  // Usuario que alquila todos los vehículos del lote
+
+    public List<String> getLicensePlates() {
+        return licensePlates;
+    }  // Devuelve las matrículas del lote.
+
+    public void setLicensePlates(List<String> licensePlates) {
+        this.licensePlates = licensePlates;
+    }  // Establece las matrículas del lote.
+
+    public User getUser() {
+        return user;
+    }  // Devuelve el usuario que alquila.
+
+    public void setUser(User user) {
+        this.user = user;
+    }  // Establece el usuario que alquila.
+}
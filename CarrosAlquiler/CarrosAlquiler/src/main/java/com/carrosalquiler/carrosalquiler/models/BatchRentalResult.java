@@ -0,0 +1,39 @@
+package com.carrosalquiler.carrosalquiler.models;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BatchRentalResult es el resultado de un alquiler o una devolución por lotes. El lote se aplica entero o no se aplica:
+ * si algún vehículo no se pudo tomar, ninguno cambia y se indica cada matrícula que lo impidió con su motivo.
+ */
+public class BatchRentalResult {
+    private final boolean success;  // true si se alquilaron o devolvieron todos los vehículos del lote
+    private final List<String> licensePlates;  // Matrículas procesadas, en orden; vacía si el lote falló
+    private final Map<String, String> unavailable;  // Matrícula y motivo de cada vehículo que impidió el lote
+
+    /**
+     * Constructor para inicializar un BatchRentalResult.
+     *
+     * @param success si el lote se aplicó
+     * @param licensePlates las matrículas procesadas
+     * @param unavailable las matrículas que impidieron el lote, con su motivo
+     */
+    public BatchRentalResult(boolean success, List<String> licensePlates, Map<String, String> unavailable) {
+        this.success = success;
+        this.licensePlates = licensePlates;
+        this.unavailable = unavailable;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }  // Devuelve si el lote se aplicó.
+
+    public List<String> getLicensePlates() {
+        return licensePlates;
+    }  // Devuelve las matrículas procesadas.
+
+    public Map<String, String> getUnavailable() {
+        return unavailable;
+    }  // Devuelve las matrículas que impidieron el lote, con su motivo.
+}
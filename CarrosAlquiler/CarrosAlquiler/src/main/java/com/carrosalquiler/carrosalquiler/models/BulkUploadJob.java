@@ -0,0 +1,126 @@
+package com.carrosalquiler.carrosalquiler.models;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * BulkUploadJob representa una carga masiva de vehículos que se ejecuta en segundo plano.
+ * Guarda quién la envió, su estado, las fechas de inicio y fin y el resultado parcial de la carga, que se actualiza mientras avanza.
+ * Salir de QUEUED es una comparación atómica: si la ejecución y la cancelación llegan a la vez, solo una de las dos gana.
+ */
+public class BulkUploadJob {
+
+    /**
+     * Estados por los que pasa un trabajo de carga masiva.
+     */
+    public enum Status {
+        QUEUED,     // Esperando un hilo libre
+        RUNNING,    // Procesando el CSV
+        COMPLETED,  // Terminó de leer el CSV completo
+        FAILED,     // Terminó por un error de lectura
+        CANCELLED   // Cancelado por un administrador; lo ya registrado se conserva
+    }
+
+    private final String id;  // Identificador del trabajo
+    private final String submittedBy;  // Login del administrador que envió la carga
+    private final LocalDateTime submittedAt;  // Fecha y hora de envío
+    private final BulkUploadResult result = new BulkUploadResult();  // Contadores de la carga, actualizados en vivo
+    private final AtomicReference<Status> status = new AtomicReference<>(Status.QUEUED);
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;  // Mensaje de error si la carga falló
+
+    /**
+     * Constructor para inicializar un BulkUploadJob en estado QUEUED.
+     *
+     * @param id el identificador del trabajo
+     * @param submittedBy el login del administrador que envió la carga
+     */
+    public BulkUploadJob(String id, String submittedBy) {
+        this.id = id;
+        this.submittedBy = submittedBy;
+        this.submittedAt = LocalDateTime.now();
+    }
+
+    public String getId() {
+        return id;
+    }  // Devuelve el identificador del trabajo.
+
+    public String getSubmittedBy() {
+        return submittedBy;
+    }  // Devuelve el login de quien envió la carga.
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }  // Devuelve la fecha de envío.
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }  // Devuelve la fecha de inicio, o null si sigue en cola.
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }  // Devuelve la fecha de fin, o null si no ha terminado.
+
+    public Status getStatus() {
+        return status.get();
+    }  // Devuelve el estado actual del trabajo.
+
+    public String getError() {
+        return error;
+    }  // Devuelve el mensaje de error, si lo hubo.
+
+    public BulkUploadResult getResult() {
+        return result;
+    }  // Devuelve los contadores de la carga.
+
+    /**
+     * Indica si el trabajo ya terminó, con éxito o no.
+     *
+     * @return true si el trabajo está en un estado final
+     */
+    public boolean isFinished() {
+        Status current = status.get();
+        return current == Status.COMPLETED || current == Status.FAILED || current == Status.CANCELLED;
+    }
+
+    /**
+     * Pasa el trabajo de QUEUED a RUNNING.
+     *
+     * @return true si el trabajo estaba en cola; false si ya lo habían cancelado
+     */
+    public boolean markRunning() {
+        LocalDateTime now = LocalDateTime.now();
+        if (!status.compareAndSet(Status.QUEUED, Status.RUNNING)) {
+            return false;
+        }
+        startedAt = now;
+        return true;
+    }
+
+    /**
+     * Pasa el trabajo de QUEUED a CANCELLED.
+     *
+     * @return true si el trabajo seguía en cola; false si ya había empezado o terminado
+     */
+    public boolean cancelIfQueued() {
+        LocalDateTime now = LocalDateTime.now();
+        if (!status.compareAndSet(Status.QUEUED, Status.CANCELLED)) {
+            return false;
+        }
+        finishedAt = now;
+        return true;
+    }
+
+    /**
+     * Marca como terminado, con el estado indicado, un trabajo en ejecución.
+     *
+     * @param finalStatus el estado final del trabajo
+     * @param errorMessage el mensaje de error, o null si no lo hubo
+     */
+    public void markFinished(Status finalStatus, String errorMessage) {
+        error = errorMessage;
+        finishedAt = LocalDateTime.now();
+        status.set(finalStatus);
+    }
+}
@@ -0,0 +1,109 @@
+package com.carrosalquiler.carrosalquiler.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BulkUploadResult resume el resultado de una carga masiva de vehículos desde un archivo CSV.
+ * Incluye las filas leídas, aceptadas y rechazadas, el motivo de cada rechazo con su número de línea y el rendimiento de la carga.
+ * Un único hilo actualiza los contadores, pero pueden leerse desde otros hilos mientras la carga sigue en curso.
+ */
+public class BulkUploadResult {
+    public static final int MAX_REJECTED_DETAILS = 1000;  // Máximo de rechazos que se detallan, para acotar la memoria
+
+    private volatile long rowsParsed;  // Filas de datos leídas del archivo (sin contar la cabecera ni las líneas vacías)
+    private volatile long rowsAccepted;  // Filas convertidas en vehículos y registradas
+    private volatile long rowsRejected;  // Filas descartadas por errores de formato o matrícula repetida
+    private final List<String> rejectedRows = new ArrayList<>();  // Detalle de los primeros rechazos con su número de línea
+    private volatile long startNanos;  // Instante en que empezó la carga
+    private volatile long elapsedMillis = -1;  // Duración total de la carga en milisegundos, -1 mientras sigue en curso
+
+    /**
+     * Marca el inicio de la carga.
+     */
+    public void start() {
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Marca el final de la carga y fija su duración.
+     */
+    public void finish() {
+        elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Registra una fila aceptada.
+     */
+    public void accept() {
+        rowsParsed++;
+        rowsAccepted++;
+    }
+
+    /**
+     * Registra una fila rechazada con su número de línea y el motivo.
+     *
+     * @param lineNumber el número de línea dentro del archivo (empezando en 1)
+     * @param reason el motivo del rechazo
+     */
+    public void reject(long lineNumber, String reason) {
+        rowsParsed++;
+        rowsRejected++;
+        synchronized (rejectedRows) {
+            if (rejectedRows.size() < MAX_REJECTED_DETAILS) {
+                rejectedRows.add("line " + lineNumber + ": " + reason);
+            }
+        }
+    }
+
+    public long getRowsParsed() {
+        return rowsParsed;
+    }  // Devuelve las filas leídas.
+
+    public long getRowsAccepted() {
+        return rowsAccepted;
+    }  // Devuelve las filas aceptadas.
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }  // Devuelve las filas rechazadas.
+
+    public List<String> getRejectedRows() {
+        synchronized (rejectedRows) {
+            return new ArrayList<>(rejectedRows);
+        }
+    }  // Devuelve una copia del detalle de los rechazos.
+
+    /**
+     * Devuelve la duración de la carga; si sigue en curso, el tiempo transcurrido hasta ahora.
+     *
+     * @return la duración en milisegundos
+     */
+    public long getElapsedMillis() {
+        if (elapsedMillis >= 0) {
+            return elapsedMillis;
+        }
+        return startNanos == 0 ? 0 : (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Calcula el rendimiento de la carga en filas por segundo.
+     *
+     * @return las filas leídas por segundo
+     */
+    public long getRowsPerSecond() {
+        long elapsed = getElapsedMillis();
+        return elapsed == 0 ? rowsParsed : rowsParsed * 1000 / elapsed;
+    }
+
+    /**
+     * Devuelve una representación en cadena del resultado de la carga.
+     *
+     * @return una cadena con los contadores y el rendimiento
+     */
+    @Override
+    public String toString() {
+        return "accepted " + rowsAccepted + " of " + rowsParsed + " rows (" + rowsRejected + " rejected) in "
+                + getElapsedMillis() + " ms, " + getRowsPerSecond() + " rows/s";
+    }
+}
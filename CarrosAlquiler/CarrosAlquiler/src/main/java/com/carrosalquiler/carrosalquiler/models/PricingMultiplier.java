@@ -0,0 +1,64 @@
+package com.carrosalquiler.carrosalquiler.models;
+
+/**
+ * PricingMultiplier es el multiplicador de precio vigente de un grupo de vehículos, calculado a partir de su ocupación actual.
+ */
+public class PricingMultiplier {
+    private final String type;  // car, truck, van o motorcycle
+    private final String group;  // all, electric, non-electric o un color
+    private final int vehicles;  // Vehículos del grupo
+    private final int rented;  // Vehículos del grupo alquilados ahora
+    private final double utilization;  // Alquilados entre vehículos, de 0 a 1
+    private final double multiplier;  // Factor que se aplica al valor de alquiler según la curva de precios
+    private final boolean applied;  // true si los presupuestos usan los grupos de este nivel
+
+    /**
+     * Constructor para inicializar un PricingMultiplier.
+     *
+     * @param type el tipo de vehículo
+     * @param group el grupo dentro del tipo
+     * @param vehicles los vehículos del grupo
+     * @param rented los vehículos alquilados
+     * @param utilization la ocupación
+     * @param multiplier el multiplicador de precio
+     * @param applied si los presupuestos usan este nivel de grupos
+     */
+    public PricingMultiplier(String type, String group, int vehicles, int rented, double utilization, double multiplier,
+                             boolean applied) {
+        this.type = type;
+        this.group = group;
+        this.vehicles = vehicles;
+        this.rented = rented;
+        this.utilization = utilization;
+        this.multiplier = multiplier;
+        this.applied = applied;
+    }
+
+    public String getType() {
+        return type;
+    }  // Devuelve el tipo de vehículo.
+
+    public String getGroup() {
+        return group;
+    }  // Devuelve el grupo dentro del tipo.
+
+    public int getVehicles() {
+        return vehicles;
+    }  // Devuelve los vehículos del grupo.
+
+    public int getRented() {
+        return rented;
+    }  // Devuelve los vehículos alquilados.
+
+    public double getUtilization() {
+        return utilization;
+    }  // Devuelve la ocupación.
+
+    public double getMultiplier() {
+        return multiplier;
+    }  // Devuelve el multiplicador de precio.
+
+    public boolean isApplied() {
+        return applied;
+    }  // Devuelve si los presupuestos usan este nivel de grupos.
+}
@@ -0,0 +1,27 @@
+package com.carrosalquiler.carrosalquiler.models;
+
+import java.util.List;
+
+/**
+ * QuoteRequest es el cuerpo de una petición de presupuestos: los vehículos y las duraciones que se quieren presupuestar.
+ */
+public class QuoteRequest {
+    private List<String> licensePlates;  // Matrículas a presupuestar; vacía o null presupuesta todos los vehículos disponibles
+    private List<Integer> days;  // Duraciones del alquiler, en días
+
+    public List<String> getLicensePlates() {
+        return licensePlates;
+    }  // Devuelve las matrículas a presupuestar.
+
+    public void setLicensePlates(List<String> licensePlates) {
+        this.licensePlates = licensePlates;
+    }  // Establece las matrículas a presupuestar.
+
+    public List<Integer> getDays() {
+        return days;
+    }  // Devuelve las duraciones del alquiler.
+
+    public void setDays(List<Integer> days) {
+        this.days = days;
+    }  // Establece las duraciones del alquiler.
+}
@@ -0,0 +1,45 @@
+package com.carrosalquiler.carrosalquiler.models;
+
+import java.util.List;
+
+/**
+ * QuoteResult son los presupuestos de varios vehículos para varias duraciones, como una tabla: prices[i][j] es el precio
+ * del vehículo licensePlates[i] durante days[j] días.
+ */
+public class QuoteResult {
+    private final int[] days;  // Duraciones presupuestadas, en el orden de las columnas
+    private final List<String> licensePlates;  // Vehículos presupuestados, en el orden de las filas
+    private final double[][] prices;  // Precio de cada vehículo para cada duración
+    private final List<String> notFound;  // Matrículas pedidas que no están en la flota
+
+    /**
+     * Constructor para inicializar un QuoteResult.
+     *
+     * @param days las duraciones presupuestadas
+     * @param licensePlates los vehículos presupuestados
+     * @param prices el precio de cada vehículo para cada duración
+     * @param notFound las matrículas que no están en la flota
+     */
+    public QuoteResult(int[] days, List<String> licensePlates, double[][] prices, List<String> notFound) {
+        this.days = days;
+        this.licensePlates = licensePlates;
+        this.prices = prices;
+        this.notFound = notFound;
+    }
+
+    public int[] getDays() {
+        return days;
+    }  // Devuelve las duraciones presupuestadas.
+
+    public List<String> getLicensePlates() {
+        return licensePlates;
+    }  // Devuelve los vehículos presupuestados.
+
+    public double[][] getPrices() {
+        return prices;
+    }  // Devuelve el precio de cada vehículo para cada duración.
+
+    public List<String> getNotFound() {
+        return notFound;
+    }  // Devuelve las matrículas que no están en la flota.
+}
@@ -0,0 +1,29 @@
+package com.carrosalquiler.carrosalquiler.models;
+
+/**
+ * RankedVehicle es un vehículo de un ranking junto con el valor por el que se ordenó:
+ * su valor de alquiler, sus kilómetros o el alquiler calculado para una duración.
+ */
+public class RankedVehicle {
+    private final AbstractVehicle vehicle;  // El vehículo del ranking
+    private final double value;  // El valor por el que se ordenó el ranking
+
+    /**
+     * Constructor para inicializar un RankedVehicle.
+     *
+     * @param vehicle el vehículo
+     * @param value el valor por el que se ordenó
+     */
+    public RankedVehicle(AbstractVehicle vehicle, double value) {
+        this.vehicle = vehicle;
+        this.value = value;
+    }
+
+    public AbstractVehicle getVehicle() {
+        return vehicle;
+    }  // Devuelve el vehículo.
+
+    public double getValue() {
+        return value;
+    }  // Devuelve el valor por el que se ordenó.
+}
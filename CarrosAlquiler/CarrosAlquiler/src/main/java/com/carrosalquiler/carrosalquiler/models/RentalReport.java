@@ -0,0 +1,52 @@
+package com.carrosalquiler.carrosalquiler.models;
+
+import java.util.List;
+
+/**
+ * RentalReport es el resultado de un informe sobre el historial de alquileres cerrados: las dimensiones por las que se agrupó,
+ * una fila por cada combinación de valores encontrada y cuántos alquileres se recorrieron para calcularlo.
+ */
+public class RentalReport {
+    private final List<String> groupBy;  // Dimensiones del informe, en el orden pedido
+    private final List<RentalReportRow> rows;  // Una fila por grupo, ordenadas por sus valores
+    private final long scannedRentals;  // Alquileres cerrados recorridos, incluidos los que no pasaron los filtros
+    private final int parallelism;  // Hilos que pudieron recorrer el historial a la vez
+    private final long elapsedMillis;  // Tiempo que tardó el recorrido
+
+    /**
+     * Constructor para inicializar un RentalReport.
+     *
+     * @param groupBy las dimensiones del informe
+     * @param rows las filas del informe
+     * @param scannedRentals los alquileres recorridos
+     * @param parallelism los hilos usados
+     * @param elapsedMillis el tiempo del recorrido en milisegundos
+     */
+    public RentalReport(List<String> groupBy, List<RentalReportRow> rows, long scannedRentals, int parallelism, long elapsedMillis) {
+        this.groupBy = groupBy;
+        this.rows = rows;
+        this.scannedRentals = scannedRentals;
+        this.parallelism = parallelism;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public List<String> getGroupBy() {
+        return groupBy;
+    }  // Devuelve las dimensiones del informe.
+
+    public List<RentalReportRow> getRows() {
+        return rows;
+    }  // Devuelve las filas del informe.
+
+    public long getScannedRentals() {
+        return scannedRentals;
+    }  // Devuelve los alquileres recorridos.
+
+    public int getParallelism() {
+        return parallelism;
+    }  // Devuelve los hilos usados.
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }  // Devuelve el tiempo del recorrido en milisegundos.
+}
@@ -0,0 +1,50 @@
+package com.carrosalquiler.carrosalquiler.models;
+
+import java.util.Map;
+
+/**
+ * RentalReportRow es una fila de un RentalReport: los valores de sus dimensiones y las cifras de los alquileres del grupo.
+ */
+public class RentalReportRow {
+    private final Map<String, String> group;  // Valor de cada dimensión, en el orden del informe
+    private final long rentals;  // Alquileres cerrados del grupo
+    private final double rentedDays;  // Días alquilados en total
+    private final double revenue;  // Ingresos: lo que se cobró en cada devolución
+    private final double averageDays;  // Días alquilados de media por alquiler
+
+    /**
+     * Constructor para inicializar un RentalReportRow.
+     *
+     * @param group el valor de cada dimensión
+     * @param rentals los alquileres del grupo
+     * @param rentedDays los días alquilados
+     * @param revenue los ingresos
+     */
+    public RentalReportRow(Map<String, String> group, long rentals, double rentedDays, double revenue) {
+        this.group = group;
+        this.rentals = rentals;
+        this.rentedDays = rentedDays;
+        this.revenue = revenue;
+        this.averageDays = rentals == 0 ? 0 : rentedDays / rentals;
+    }
+
+    public Map<String, String> getGroup() {
+        return group;
+    }  // Devuelve el valor de cada dimensión.
+
+    public long getRentals() {
+        return rentals;
+    }  // Devuelve los alquileres del grupo.
+
+    public double getRentedDays() {
+        return rentedDays;
+    }  // Devuelve los días alquilados.
+
+    public double getRevenue() {
+        return revenue;
+    }  // Devuelve los ingresos.
+
+    public double getAverageDays() {
+        return averageDays;
+    }  // Devuelve los días alquilados de media por alquiler.
+}
@@ -1,71 +1,151 @@
-package com.carrosalquiler.carrosalquiler.models;
-
-import java.time.LocalDateTime;
-
-/**
- * La clase RentedVehicle representa un vehículo alquilado por un usuario.
- * Contiene detalles sobre el usuario, el vehículo y la fecha de alquiler.
- */
-public class RentedVehicle {
-    private User user;  // Variable de instancia para almacenar el usuario que alquiló el vehículo
-    private AbstractVehicle vehicle;  // Variable de instancia para almacenar el vehículo alquilado
-    private LocalDateTime rentalDate;  // Variable de instancia para almacenar la fecha y hora del alquiler
-
-    /**
-     * Constructor para inicializar un RentedVehicle.
-     * Establece la fecha de alquiler con la marca de tiempo actual.
-     *
-     * @param user el usuario que alquila el vehículo
-     * @param vehicle el vehículo que está siendo alquilado
-     */
-    public RentedVehicle(User user, AbstractVehicle vehicle) {
-        this.user = user;  // Inicializa el atributo user con el usuario proporcionado
-        this.vehicle = vehicle;  // Inicializa el atributo vehicle con el vehículo proporcionado
-        this.rentalDate = LocalDateTime.now(); // Establece la fecha de alquiler con la hora actual
-    }
-
-    // Métodos getter para los atributos
-
-    /**
-     * Obtiene el usuario que alquiló el vehículo.
-     *
-     * @return el usuario que alquiló el vehículo
-     */
-    public User getUser() {
-        // Devuelve el usuario que alquiló el vehículo
-        return user;
-    }
-
-    /**
-     * Obtiene el vehículo que fue alquilado.
-     *
-     * @return el vehículo alquilado
-     */
-    public AbstractVehicle getVehicle() {
-        // Devuelve el vehículo que fue alquilado
-        return vehicle;
-    }
-
-    /**
-     * Obtiene la fecha y hora en que el vehículo fue alquilado.
-     *
-     * @return la fecha y hora del alquiler
-     */
-    public LocalDateTime getRentalDate() {
-        // Devuelve la fecha y hora del alquiler
-        return rentalDate;
-    }
-
-    /**
-     * Devuelve una representación en cadena de RentedVehicle.
-     *
-     * @return una cadena que contiene los detalles del vehículo alquilado, los detalles del usuario y la fecha de alquiler
-     */
-    @Override
-    public String toString() {
-        // Devuelve una representación en cadena de los detalles del vehículo, los detalles del usuario y la fecha de alquiler
-        return "Rented Vehicle: " + vehicle.toString() +
-                ", Rented By: " + user.toString() +
-                ", Rental Date: " + rentalDate;
-    }
-}
+package com.carrosalquiler.carrosalquiler.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * La clase RentedVehicle representa un vehículo alquilado por un usuario.
+ * Contiene detalles sobre el usuario, el vehículo, la fecha de alquiler y, cuando el alquiler se cierra, la fecha de devolución.
+ */
+public class RentedVehicle {
+    private User user;  // Variable de instancia para almacenar el usuario que alquiló el vehículo
+    private AbstractVehicle vehicle;  // Variable de instancia para almacenar el vehículo alquilado
+    private LocalDateTime rentalDate;  // Variable de instancia para almacenar la fecha y hora del alquiler
+    private LocalDateTime returnDate;  // Fecha y hora de la devolución, o null mientras el alquiler sigue activo
+    private long rentalVersion;  // Versión de disponibilidad que produjo el alquiler; junto con la fecha identifica el alquiler
+    private double dailyRate;  // Valor diario fijado al alquilar, con el multiplicador por ocupación; 0 si no se conoce
+
+    /**
+     * Constructor para inicializar un RentedVehicle.
+     * Establece la fecha de alquiler con la marca de tiempo actual.
+     *
+     * @param user el usuario que alquila el vehículo
+     * @param vehicle el vehículo que está siendo alquilado
+     */
+    public RentedVehicle(User user, AbstractVehicle vehicle) {
+        this.user = user;  // Inicializa el atributo user con el usuario proporcionado
+        this.vehicle = vehicle;  // Inicializa el atributo vehicle con el vehículo proporcionado
+        this.rentalDate = LocalDateTime.now(); // Establece la fecha de alquiler con la hora actual
+    }
+
+    /**
+     * Constructor para inicializar un RentedVehicle con una fecha de alquiler y una versión conocidas,
+     * por ejemplo al registrarlo en el libro de alquileres o al recuperarlo tras un reinicio.
+     *
+     * @param user el usuario que alquila el vehículo
+     * @param vehicle el vehículo que está siendo alquilado
+     * @param rentalDate la fecha y hora del alquiler
+     * @param rentalVersion la versión de disponibilidad que produjo el alquiler
+     */
+    public RentedVehicle(User user, AbstractVehicle vehicle, LocalDateTime rentalDate, long rentalVersion) {
+        this(user, vehicle, rentalDate, rentalVersion, 0);
+    }
+
+    /**
+     * Constructor para inicializar un RentedVehicle con el valor diario fijado al alquilar.
+     *
+     * @param user el usuario que alquila el vehículo
+     * @param vehicle el vehículo que está siendo alquilado
+     * @param rentalDate la fecha y hora del alquiler
+     * @param rentalVersion la versión de disponibilidad que produjo el alquiler
+     * @param dailyRate el valor de alquiler diario que se cobra, o 0 si no se conoce
+     */
+    public RentedVehicle(User user, AbstractVehicle vehicle, LocalDateTime rentalDate, long rentalVersion, double dailyRate) {
+        this.user = user;
+        this.vehicle = vehicle;
+        this.rentalDate = rentalDate;
+        this.rentalVersion = rentalVersion;
+        this.dailyRate = dailyRate;
+    }
+
+    // Métodos getter para los atributos
+
+    /**
+     * Obtiene el usuario que alquiló el vehículo.
+     *
+     * @return el usuario que alquiló el vehículo
+     */
+    public User getUser() {
+        // Devuelve el usuario que alquiló el vehículo
+        return user;
+    }
+
+    /**
+     * Obtiene el vehículo que fue alquilado.
+     *
+     * @return el vehículo alquilado
+     */
+    public AbstractVehicle getVehicle() {
+        // Devuelve el vehículo que fue alquilado
+        return vehicle;
+    }
+
+    /**
+     * Obtiene la fecha y hora en que el vehículo fue alquilado.
+     *
+     * @return la fecha y hora del alquiler
+     */
+    public LocalDateTime getRentalDate() {
+        // Devuelve la fecha y hora del alquiler
+        return rentalDate;
+    }
+
+    /**
+     * Obtiene la fecha y hora en que el vehículo fue devuelto.
+     *
+     * @return la fecha y hora de la devolución, o null si el alquiler sigue activo
+     */
+    public LocalDateTime getReturnDate() {
+        return returnDate;
+    }
+
+    /**
+     * Establece la fecha y hora de la devolución, cerrando el alquiler.
+     *
+     * @param returnDate la fecha y hora de la devolución
+     */
+    public void setReturnDate(LocalDateTime returnDate) {
+        this.returnDate = returnDate;
+    }
+
+    /**
+     * Obtiene la versión de disponibilidad que produjo el alquiler.
+     *
+     * @return la versión del alquiler
+     */
+    public long getRentalVersion() {
+        return rentalVersion;
+    }
+
+    /**
+     * Obtiene el valor de alquiler diario fijado al alquilar, con el multiplicador por ocupación de ese momento.
+     * Los alquileres anteriores a que se guardara este valor devuelven 0 y se cobran con el valor de alquiler del vehículo.
+     *
+     * @return el valor diario, o 0 si no se conoce
+     */
+    public double getDailyRate() {
+        return dailyRate;
+    }
+
+    /**
+     * Indica si el alquiler sigue activo, es decir, si el vehículo no se ha devuelto.
+     *
+     * @return true si el alquiler no tiene fecha de devolución
+     */
+    public boolean isActive() {
+        return returnDate == null;
+    }
+
+    /**
+     * Devuelve una representación en cadena de RentedVehicle.
+     *
+     * @return una cadena que contiene los detalles del vehículo alquilado, los detalles del usuario y las fechas de alquiler y devolución
+     */
+    @Override
+    public String toString() {
+        // Devuelve una representación en cadena de los detalles del vehículo, los detalles del usuario y la fecha de alquiler
+        return "Rented Vehicle: " + vehicle.toString() +
+                ", Rented By: " + user +
+                ", Rental Date: " + rentalDate +
+                (returnDate == null ? "" : ", Return Date: " + returnDate);
+    }
+}
@@ -0,0 +1,79 @@
+package com.carrosalquiler.carrosalquiler.models;
+
+/**
+ * ReportCacheStats son las métricas de la caché de informes de uso: cuántos informes guarda, cuántas consultas acertaron
+ * y cuánta memoria ocupan aproximadamente.
+ */
+public class ReportCacheStats {
+    private final int entries;  // Informes guardados ahora
+    private final int maxEntries;  // Informes que caben antes de expulsar el usado hace más tiempo
+    private final long hits;  // Consultas servidas desde la caché
+    private final long misses;  // Consultas que tuvieron que calcular el informe
+    private final double hitRatio;  // Aciertos entre consultas, de 0 a 1
+    private final long evictions;  // Informes expulsados por falta de sitio
+    private final long invalidations;  // Informes descartados porque cambiaron sus datos
+    private final long expirations;  // Informes hasta el momento actual descartados por antigüedad
+    private final long estimatedBytes;  // Memoria estimada de los informes guardados
+
+    /**
+     * Constructor para inicializar un ReportCacheStats.
+     *
+     * @param entries los informes guardados
+     * @param maxEntries la capacidad de la caché
+     * @param hits las consultas acertadas
+     * @param misses las consultas falladas
+     * @param hitRatio la proporción de aciertos
+     * @param evictions los informes expulsados
+     * @param invalidations los informes invalidados
+     * @param expirations los informes caducados
+     * @param estimatedBytes la memoria estimada en bytes
+     */
+    public ReportCacheStats(int entries, int maxEntries, long hits, long misses, double hitRatio, long evictions,
+                            long invalidations, long expirations, long estimatedBytes) {
+        this.entries = entries;
+        this.maxEntries = maxEntries;
+        this.hits = hits;
+        this.misses = misses;
+        this.hitRatio = hitRatio;
+        this.evictions = evictions;
+        this.invalidations = invalidations;
+        this.expirations = expirations;
+        this.estimatedBytes = estimatedBytes;
+    }
+
+    public int getEntries() {
+        return entries;
+    }  // Devuelve los informes guardados.
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }  // Devuelve la capacidad de la caché.
+
+    public long getHits() {
+        return hits;
+    }  // Devuelve las consultas acertadas.
+
+    public long getMisses() {
+        return misses;
+    }  // Devuelve las consultas falladas.
+
+    public double getHitRatio() {
+        return hitRatio;
+    }  // Devuelve la proporción de aciertos.
+
+    public long getEvictions() {
+        return evictions;
+    }  // Devuelve los informes expulsados.
+
+    public long getInvalidations() {
+        return invalidations;
+    }  // Devuelve los informes invalidados.
+
+    public long getExpirations() {
+        return expirations;
+    }  // Devuelve los informes caducados.
+
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }  // Devuelve la memoria estimada en bytes.
+}
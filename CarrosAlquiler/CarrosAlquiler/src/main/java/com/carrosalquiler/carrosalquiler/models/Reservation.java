@@ -0,0 +1,63 @@
+package com.carrosalquiler.carrosalquiler.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * La clase Reservation representa la reserva de un vehículo para un periodo futuro.
+ * El periodo es semiabierto: empieza en la fecha de recogida y termina justo antes de la fecha de entrega,
+ * así que una reserva puede empezar en el mismo instante en que termina otra.
+ */
+public class Reservation {
+    private final String id;  // Identificador de la reserva, usado para cancelarla
+    private final String licensePlate;  // Matrícula del vehículo reservado
+    private final String userLogin;  // Inicio de sesión del usuario que hizo la reserva
+    private final LocalDateTime pickupDate;  // Fecha y hora de recogida, incluida en el periodo
+    private final LocalDateTime dropOffDate;  // Fecha y hora de entrega, excluida del periodo
+
+    /**
+     * Constructor para inicializar una Reservation.
+     *
+     * @param id el identificador de la reserva
+     * @param licensePlate la matrícula del vehículo reservado
+     * @param userLogin el inicio de sesión del usuario que reserva
+     * @param pickupDate la fecha y hora de recogida
+     * @param dropOffDate la fecha y hora de entrega
+     */
+    public Reservation(String id, String licensePlate, String userLogin, LocalDateTime pickupDate, LocalDateTime dropOffDate) {
+        this.id = id;
+        this.licensePlate = licensePlate;
+        this.userLogin = userLogin;
+        this.pickupDate = pickupDate;
+        this.dropOffDate = dropOffDate;
+    }
+
+    public String getId() {
+        return id;
+    }  // Devuelve el identificador de la reserva.
+
+    public String getLicensePlate() {
+        return licensePlate;
+    }  // Devuelve la matrícula del vehículo reservado.
+
+    public String getUserLogin() {
+        return userLogin;
+    }  // Devuelve el inicio de sesión del usuario que hizo la reserva.
+
+    public LocalDateTime getPickupDate() {
+        return pickupDate;
+    }  // Devuelve la fecha y hora de recogida.
+
+    public LocalDateTime getDropOffDate() {
+        return dropOffDate;
+    }  // Devuelve la fecha y hora de entrega.
+
+    /**
+     * Devuelve una representación en cadena de Reservation.
+     *
+     * @return una cadena con el vehículo, el usuario y el periodo reservado
+     */
+    @Override
+    public String toString() {
+        return "Reservation " + id + ": " + licensePlate + " for " + userLogin + " from " + pickupDate + " to " + dropOffDate;
+    }
+}
@@ -0,0 +1,80 @@
+package com.carrosalquiler.carrosalquiler.models;
+
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * UsageReport es el informe de uso de la flota entre dos fechas, ambas incluidas: las cifras totales, las de cada tipo de vehículo
+ * y, si se pidieron, las de cada vehículo.
+ */
+public class UsageReport {
+    private final LocalDate startDate;  // Primer día del informe
+    private final LocalDate endDate;  // Último día del informe, incluido
+    private final UsageStats total;  // Cifras de toda la flota
+    private final Map<String, UsageStats> byType;  // Cifras por tipo de vehículo
+    private final Map<String, UsageStats> byVehicle;  // Cifras por matrícula, o null si no se pidieron
+
+    /**
+     * Constructor para inicializar un UsageReport.
+     *
+     * @param startDate el primer día del informe
+     * @param endDate el último día del informe, incluido
+     * @param total las cifras de toda la flota
+     * @param byType las cifras por tipo de vehículo
+     * @param byVehicle las cifras por matrícula, o null
+     */
+    public UsageReport(LocalDate startDate, LocalDate endDate, UsageStats total, Map<String, UsageStats> byType,
+                       Map<String, UsageStats> byVehicle) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.total = total;
+        this.byType = byType;
+        this.byVehicle = byVehicle;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }  // Devuelve el primer día del informe.
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }  // Devuelve el último día del informe.
+
+    public UsageStats getTotal() {
+        return total;
+    }  // Devuelve las cifras de toda la flota.
+
+    public Map<String, UsageStats> getByType() {
+        return byType;
+    }  // Devuelve las cifras por tipo de vehículo.
+
+    public Map<String, UsageStats> getByVehicle() {
+        return byVehicle;
+    }  // Devuelve las cifras por matrícula, o null si no se pidieron.
+
+    /**
+     * Escribe el informe como CSV: una fila para el total, una por tipo y, si se pidieron, una por vehículo.
+     *
+     * @return el informe en formato CSV con cabecera
+     */
+    public String toCsv() {
+        StringBuilder csv = new StringBuilder("group,key,startDate,endDate,rentals,rentedDays,revenue,utilization\n");
+        appendRow(csv, "total", "fleet", total);
+        byType.forEach((type, stats) -> appendRow(csv, "type", type, stats));
+        if (byVehicle != null) {
+            byVehicle.forEach((plate, stats) -> appendRow(csv, "vehicle", plate, stats));
+        }
+        return csv.toString();
+    }
+
+    private void appendRow(StringBuilder csv, String group, String key, UsageStats stats) {
+        // Las matrículas pueden traer comas o comillas: se escapan como en cualquier CSV
+        String escaped = key.indexOf(',') >= 0 || key.indexOf('"') >= 0 || key.indexOf('\n') >= 0
+                ? '"' + key.replace("\"", "\"\"") + '"' : key;
+        csv.append(group).append(',').append(escaped).append(',').append(startDate).append(',').append(endDate).append(',')
+                .append(stats.getRentals()).append(',')
+                .append(String.format(Locale.ROOT, "%.4f,%.2f,%.4f", stats.getRentedDays(), stats.getRevenue(), stats.getUtilization()))
+                .append('\n');
+    }
+}
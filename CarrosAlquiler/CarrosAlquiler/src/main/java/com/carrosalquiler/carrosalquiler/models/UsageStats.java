@@ -0,0 +1,43 @@
+package com.carrosalquiler.carrosalquiler.models;
+
+/**
+ * UsageStats son las cifras de uso de un vehículo, de un tipo de vehículo o de toda la flota en un periodo:
+ * alquileres empezados, días alquilados, ingresos de los alquileres cerrados y porcentaje de utilización.
+ */
+public class UsageStats {
+    private final long rentals;  // Alquileres que empezaron en el periodo
+    private final double rentedDays;  // Días alquilados dentro del periodo, incluidos los alquileres aún activos
+    private final double revenue;  // Ingresos de los alquileres devueltos en el periodo: lo que se cobró en cada devolución
+    private final double utilization;  // Días alquilados entre días disponibles en la flota, de 0 a 1
+
+    /**
+     * Constructor para inicializar un UsageStats.
+     *
+     * @param rentals los alquileres empezados en el periodo
+     * @param rentedDays los días alquilados dentro del periodo
+     * @param revenue los ingresos de los alquileres devueltos en el periodo
+     * @param utilization la fracción del tiempo que los vehículos estuvieron alquilados
+     */
+    public UsageStats(long rentals, double rentedDays, double revenue, double utilization) {
+        this.rentals = rentals;
+        this.rentedDays = rentedDays;
+        this.revenue = revenue;
+        this.utilization = utilization;
+    }
+
+    public long getRentals() {
+        return rentals;
+    }  // Devuelve los alquileres empezados en el periodo.
+
+    public double getRentedDays() {
+        return rentedDays;
+    }  // Devuelve los días alquilados dentro del periodo.
+
+    public double getRevenue() {
+        return revenue;
+    }  // Devuelve los ingresos de los alquileres devueltos en el periodo.
+
+    public double getUtilization() {
+        return utilization;
+    }  // Devuelve la fracción del tiempo que los vehículos estuvieron alquilados.
+}
@@ -0,0 +1,18 @@
+package com.carrosalquiler.carrosalquiler.models;
+
+/**
+ * VehicleChangeListener aplica el cambio de un valor indexado de un vehículo (los kilómetros, el valor de alquiler,
+ * el color o si es eléctrico) sobre el mismo objeto, para que quien lo indexó pueda sacarlo de sus índices con el valor
+ * anterior y volver a agregarlo con el nuevo.
+ */
+@FunctionalInterface
+public interface VehicleChangeListener {
+    /**
+     * Aplica el cambio de uno de los valores indexados del vehículo.
+     *
+     * @param vehicle el vehículo que cambia
+     * @param change el cambio, que el oyente ejecuta una vez
+     * @param undo deshace el cambio, si el oyente no pudo completarlo
+     */
+    void applyIndexedChange(AbstractVehicle vehicle, Runnable change, Runnable undo);
+}
@@ -0,0 +1,31 @@
+package com.carrosalquiler.carrosalquiler.models;
+
+import java.util.List;
+
+/**
+ * VehiclePage representa una página de vehículos ordenados por matrícula.
+ * Para pedir la página siguiente se envía nextCursor como cursor; cuando es null no quedan más vehículos.
+ */
+public class VehiclePage {
+    private final List<AbstractVehicle> vehicles;  // Vehículos de la página, en orden de matrícula
+    private final String nextCursor;  // Matrícula del último vehículo de la página, o null si es la última página
+
+    /**
+     * Constructor para inicializar un VehiclePage.
+     *
+     * @param vehicles los vehículos de la página
+     * @param nextCursor el cursor de la página siguiente, o null si no hay más
+     */
+    public VehiclePage(List<AbstractVehicle> vehicles, String nextCursor) {
+        this.vehicles = vehicles;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<AbstractVehicle> getVehicles() {
+        return vehicles;
+    }  // Devuelve los vehículos de la página.
+
+    public String getNextCursor() {
+        return nextCursor;
+    }  // Devuelve el cursor de la página siguiente.
+}
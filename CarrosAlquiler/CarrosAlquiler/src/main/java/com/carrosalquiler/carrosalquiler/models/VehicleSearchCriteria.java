@@ -0,0 +1,126 @@
+package com.carrosalquiler.carrosalquiler.models;
+
+/**
+ * VehicleSearchCriteria agrupa los filtros de una búsqueda de vehículos. Todos son opcionales; un filtro en null no restringe.
+ * Los rangos son inclusivos. Los atributos propios de un subtipo (puertas, asientos, carga, sidecar) solo coinciden
+ * con vehículos de ese subtipo.
+ */
+public class VehicleSearchCriteria {
+    private String type;  // car, truck, van o motorcycle, sin distinguir mayúsculas
+    private Boolean electric;
+    private String color;  // Sin distinguir mayúsculas ni espacios alrededor
+    private Integer minKilometers;
+    private Integer maxKilometers;
+    private Double minRentalValue;
+    private Double maxRentalValue;
+    private Integer numberOfDoors;  // Solo autos
+    private Integer seatingCapacity;  // Solo furgonetas
+    private Double minCargoCapacity;  // Solo camiones
+    private Double maxCargoCapacity;  // Solo camiones
+    private Boolean hasSidecar;  // Solo motocicletas
+    private Boolean available;  // true para buscar solo vehículos disponibles
+
+    public String getType() {
+        return type;
+    }  // Devuelve el tipo de vehículo buscado.
+
+    public void setType(String type) {
+        this.type = type;
+    }  // Establece el tipo de vehículo buscado.
+
+    public Boolean getElectric() {
+        return electric;
+    }  // Devuelve si se buscan vehículos eléctricos.
+
+    public void setElectric(Boolean electric) {
+        this.electric = electric;
+    }  // Establece si se buscan vehículos eléctricos.
+
+    public String getColor() {
+        return color;
+    }  // Devuelve el color buscado.
+
+    public void setColor(String color) {
+        this.color = color;
+    }  // Establece el color buscado.
+
+    public Integer getMinKilometers() {
+        return minKilometers;
+    }  // Devuelve el mínimo de kilómetros.
+
+    public void setMinKilometers(Integer minKilometers) {
+        this.minKilometers = minKilometers;
+    }  // Establece el mínimo de kilómetros.
+
+    public Integer getMaxKilometers() {
+        return maxKilometers;
+    }  // Devuelve el máximo de kilómetros.
+
+    public void setMaxKilometers(Integer maxKilometers) {
+        this.maxKilometers = maxKilometers;
+    }  // Establece el máximo de kilómetros.
+
+    public Double getMinRentalValue() {
+        return minRentalValue;
+    }  // Devuelve el valor de alquiler mínimo.
+
+    public void setMinRentalValue(Double minRentalValue) {
+        this.minRentalValue = minRentalValue;
+    }  // Establece el valor de alquiler mínimo.
+
+    public Double getMaxRentalValue() {
+        return maxRentalValue;
+    }  // Devuelve el valor de alquiler máximo.
+
+    public void setMaxRentalValue(Double maxRentalValue) {
+        this.maxRentalValue = maxRentalValue;
+    }  // Establece el valor de alquiler máximo.
+
+    public Integer getNumberOfDoors() {
+        return numberOfDoors;
+    }  // Devuelve el número de puertas buscado.
+
+    public void setNumberOfDoors(Integer numberOfDoors) {
+        this.numberOfDoors = numberOfDoors;
+    }  // Establece el número de puertas buscado.
+
+    public Integer getSeatingCapacity() {
+        return seatingCapacity;
+    }  // Devuelve la capacidad de asientos buscada.
+
+    public void setSeatingCapacity(Integer seatingCapacity) {
+        this.seatingCapacity = seatingCapacity;
+    }  // Establece la capacidad de asientos buscada.
+
+    public Double getMinCargoCapacity() {
+        return minCargoCapacity;
+    }  // Devuelve la capacidad de carga mínima.
+
+    public void setMinCargoCapacity(Double minCargoCapacity) {
+        this.minCargoCapacity = minCargoCapacity;
+    }  // Establece la capacidad de carga mínima.
+
+    public Double getMaxCargoCapacity() {
+        return maxCargoCapacity;
+    }  // Devuelve la capacidad de carga máxima.
+
+    public void setMaxCargoCapacity(Double maxCargoCapacity) {
+        this.maxCargoCapacity = maxCargoCapacity;
+    }  // Establece la capacidad de carga máxima.
+
+    public Boolean getHasSidecar() {
+        return hasSidecar;
+    }  // Devuelve si se buscan motocicletas con sidecar.
+
+    public void setHasSidecar(Boolean hasSidecar) {
+        this.hasSidecar = hasSidecar;
+    }  // Establece si se buscan motocicletas con sidecar.
+
+    public Boolean getAvailable() {
+        return available;
+    }  // Devuelve si se buscan solo vehículos disponibles.
+
+    public void setAvailable(Boolean available) {
+        this.available = available;
+    }  // Establece si se buscan solo vehículos disponibles.
+}
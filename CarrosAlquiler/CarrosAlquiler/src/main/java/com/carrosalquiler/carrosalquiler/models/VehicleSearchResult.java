@@ -0,0 +1,38 @@
+package com.carrosalquiler.carrosalquiler.models;
+
+import java.util.List;
+
+/**
+ * VehicleSearchResult es el resultado de una búsqueda de vehículos: cuántos coinciden en total,
+ * los primeros vehículos hasta el límite pedido y una descripción del plan que usó el motor de búsqueda.
+ */
+public class VehicleSearchResult {
+    private final int totalMatches;  // Vehículos que cumplen todos los filtros
+    private final List<AbstractVehicle> vehicles;  // Los primeros vehículos que cumplen, hasta el límite
+    private final String plan;  // Índices usados, en orden, y filtros aplicados sobre los candidatos
+
+    /**
+     * Constructor para inicializar un VehicleSearchResult.
+     *
+     * @param totalMatches el número total de vehículos que cumplen los filtros
+     * @param vehicles los vehículos devueltos
+     * @param plan la descripción del plan de la consulta
+     */
+    public VehicleSearchResult(int totalMatches, List<AbstractVehicle> vehicles, String plan) {
+        this.totalMatches = totalMatches;
+        this.vehicles = vehicles;
+        this.plan = plan;
+    }
+
+    public int getTotalMatches() {
+        return totalMatches;
+    }  // Devuelve el número total de coincidencias.
+
+    public List<AbstractVehicle> getVehicles() {
+        return vehicles;
+    }  // Devuelve los vehículos devueltos.
+
+    public String getPlan() {
+        return plan;
+    }  // Devuelve la descripción del plan de la consulta.
+}
@@ -0,0 +1,218 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.BulkUploadJob;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BulkUploadJobService ejecuta las cargas masivas de vehículos como trabajos en segundo plano.
+ * Cada envío devuelve de inmediato un trabajo con su identificador; la carga corre en un pool propio y acotado,
+ * de modo que varias importaciones no ocupan los hilos de Tomcat. Los trabajos se pueden consultar y cancelar.
+ */
+@Service
+public class BulkUploadJobService {
+    private static final int MAX_RETAINED_JOBS = 100;  // Trabajos que se recuerdan para consultar su estado
+
+    private final GestionVehiculoService vehicleService;
+    private final ExecutorService executor;  // Pool acotado donde corren las cargas
+    private final Map<String, BulkUploadJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, FutureTask<?>> running = new ConcurrentHashMap<>();  // Trabajos en cola o en ejecución
+    private final Map<String, Path> spoolFiles = new ConcurrentHashMap<>();  // Archivo CSV de cada trabajo no terminado
+    private final Queue<String> submissionOrder = new ConcurrentLinkedQueue<>();  // Para olvidar primero los trabajos más viejos
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param vehicleService el servicio de vehículos donde se registran los vehículos cargados
+     * @param maxConcurrentJobs el número máximo de cargas que se ejecutan a la vez
+     */
+    public BulkUploadJobService(GestionVehiculoService vehicleService,
+                                @Value("${carros.bulk-upload.max-concurrent-jobs:2}") int maxConcurrentJobs) {
+        this.vehicleService = vehicleService;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, maxConcurrentJobs), runnable -> {
+            Thread thread = new Thread(runnable, "bulk-upload-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Envía una carga masiva como trabajo en segundo plano.
+     * El contenido se copia primero a un archivo temporal propio del trabajo, porque el flujo de la petición deja de existir
+     * cuando la petición termina; el archivo se borra al terminar la carga.
+     *
+     * @param csvStream el flujo con el contenido CSV; no se cierra aquí
+     * @param submittedBy el login del administrador que envía la carga
+     * @param parallel true para analizar el CSV en paralelo
+     * @return el trabajo creado, en estado QUEUED
+     * @throws IOException si no se puede guardar el contenido
+     */
+    public BulkUploadJob submit(InputStream csvStream, String submittedBy, boolean parallel) throws IOException {
+        Path spool = Files.createTempFile("bulk-upload-", ".csv");
+        try {
+            Files.copy(csvStream, spool, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+        return submit(spool, submittedBy, parallel);
+    }
+
+    /**
+     * Envía como trabajo en segundo plano la carga de un archivo CSV que pasa a ser propiedad del trabajo.
+     *
+     * @param csvFile el archivo CSV; se borra cuando termina la carga
+     * @param submittedBy el login del administrador que envía la carga
+     * @param parallel true para analizar el CSV en paralelo
+     * @return el trabajo creado, en estado QUEUED
+     */
+    public BulkUploadJob submit(Path csvFile, String submittedBy, boolean parallel) {
+        BulkUploadJob job = new BulkUploadJob(UUID.randomUUID().toString(), submittedBy);
+        jobs.put(job.getId(), job);
+        submissionOrder.add(job.getId());
+        forgetOldJobs();
+        FutureTask<?> task = new FutureTask<>(() -> run(job, csvFile, parallel), null);
+        spoolFiles.put(job.getId(), csvFile);
+        running.put(job.getId(), task);  // Se guarda antes de ejecutarlo para que nunca termine sin estar registrado
+        executor.execute(task);
+        return job;
+    }
+
+    /**
+     * Busca un trabajo por su identificador.
+     *
+     * @param jobId el identificador del trabajo
+     * @return el trabajo, o null si no existe
+     */
+    public BulkUploadJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * Lista los trabajos recordados, del más antiguo al más reciente.
+     *
+     * @return una lista con los trabajos
+     */
+    public List<BulkUploadJob> listJobs() {
+        List<BulkUploadJob> result = new ArrayList<>();
+        for (String jobId : submissionOrder) {
+            BulkUploadJob job = jobs.get(jobId);
+            if (job != null) {
+                result.add(job);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Cancela un trabajo en cola o en ejecución. Los vehículos que ya se registraron no se deshacen.
+     *
+     * @param jobId el identificador del trabajo
+     * @return true si el trabajo existía y no había terminado
+     */
+    public boolean cancel(String jobId) {
+        BulkUploadJob job = jobs.get(jobId);
+        if (job == null) {
+            return false;
+        }
+        FutureTask<?> task = running.get(jobId);
+        if (job.cancelIfQueued()) {
+            // Ganó a la ejecución: run ya no abrirá el archivo, así que se libera aquí
+            if (task != null) {
+                task.cancel(false);
+            }
+            release(jobId);
+            return true;
+        }
+        if (job.getStatus() != BulkUploadJob.Status.RUNNING || task == null) {
+            return false;
+        }
+        task.cancel(true);  // Interrumpe el hilo; la carga se detiene al empezar el siguiente bloque y run libera el archivo
+        return true;
+    }
+
+    /**
+     * Ejecuta la carga de un trabajo y registra su estado final.
+     * El archivo solo se abre después de pasar a RUNNING; si una cancelación ganó antes, no se toca.
+     */
+    private void run(BulkUploadJob job, Path csvFile, boolean parallel) {
+        if (!job.markRunning()) {
+            release(job.getId());  // Cancelado mientras esperaba en la cola: el archivo no se abre
+            return;
+        }
+        BulkUploadJob.Status finalStatus;
+        String error = null;
+        try (InputStream in = Files.newInputStream(csvFile)) {
+            vehicleService.bulkUploadVehicles(in, parallel, job.getResult());
+            finalStatus = BulkUploadJob.Status.COMPLETED;
+        } catch (CancellationException e) {
+            finalStatus = BulkUploadJob.Status.CANCELLED;
+        } catch (Exception e) {
+            // Leer un archivo con el hilo interrumpido cierra el canal: también es una cancelación
+            boolean cancelled = Thread.currentThread().isInterrupted();
+            finalStatus = cancelled ? BulkUploadJob.Status.CANCELLED : BulkUploadJob.Status.FAILED;
+            error = cancelled ? null : e.getMessage();
+        } finally {
+            release(job.getId());
+        }
+        job.markFinished(finalStatus, error);  // Después de liberar: un trabajo terminado ya no tiene archivo
+    }
+
+    /**
+     * Libera los recursos de un trabajo terminado y borra su archivo CSV. Se puede llamar más de una vez.
+     */
+    private void release(String jobId) {
+        running.remove(jobId);
+        Path csvFile = spoolFiles.remove(jobId);
+        if (csvFile != null) {
+            try {
+                Files.deleteIfExists(csvFile);
+            } catch (IOException ignored) {
+                // El archivo temporal quedará en el directorio temporal del sistema
+            }
+        }
+    }
+
+    /**
+     * Olvida los trabajos terminados más antiguos cuando se supera el máximo de trabajos recordados.
+     */
+    private void forgetOldJobs() {
+        while (submissionOrder.size() > MAX_RETAINED_JOBS) {
+            String oldest = submissionOrder.peek();
+            BulkUploadJob job = oldest == null ? null : jobs.get(oldest);
+            if (job != null && !job.isFinished()) {
+                return;  // No se olvidan trabajos que siguen en curso
+            }
+            submissionOrder.remove(oldest);
+            jobs.remove(oldest);
+        }
+    }
+
+    /**
+     * Detiene el pool de cargas al cerrar la aplicación.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
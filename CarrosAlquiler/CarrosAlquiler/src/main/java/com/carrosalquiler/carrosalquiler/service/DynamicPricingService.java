@@ -0,0 +1,189 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.AbstractVehicle;
+import com.carrosalquiler.carrosalquiler.models.PricingMultiplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * DynamicPricingService sube el precio de un grupo de vehículos a medida que se llena: el valor de alquiler de cada vehículo
+ * se multiplica por un factor que sale de la ocupación actual de su grupo según una curva configurable.
+ *
+ * La ocupación se lee de contadores que el índice de disponibilidad mantiene con cada alta, baja, alquiler y devolución,
+ * y la curva se guarda como una tabla por milésimas de ocupación, así que el precio de un vehículo cuesta dos lecturas
+ * de contadores y un acceso a la tabla, sin recorrer la flota.
+ *
+ * Los grupos pueden ser el tipo de vehículo, el tipo separado en eléctricos y no eléctricos, o el tipo separado por color.
+ * Un vehículo sin color usa la ocupación de su tipo. Al alquilar un vehículo se fija el valor dinámico de ese momento,
+ * que es el que se cobra en la devolución.
+ */
+@Service
+public class DynamicPricingService {
+    private static final int CURVE_STEPS = 1000;  // Resolución de la tabla de la curva: una milésima de ocupación
+    private static final List<String> SCOPES = List.of("type", "electric", "color");
+
+    private final VehicleUtilizationCounters counters;
+    private final boolean enabled;
+    private final String scope;
+    private final double[] curve = new double[CURVE_STEPS + 1];  // Multiplicador para cada milésima de ocupación
+    private double lowestMultiplier;  // Menor y mayor multiplicador de la curva
+    private double highestMultiplier;
+
+    /**
+     * Constructor con inyección de dependencias y la configuración de la curva.
+     *
+     * @param vehicleService el servicio de vehículos, que mantiene los contadores de ocupación
+     * @param enabled si false, el multiplicador es siempre 1 y los alquileres fijan el valor diario del vehículo; sin
+     *                configurarlo, no está activo
+     * @param scope los grupos: type, electric (tipo y eléctrico) o color (tipo y color)
+     * @param curve los puntos de la curva como ocupación:multiplicador separados por comas, por ejemplo 0:1,0.7:1,1:1.5;
+     *              entre dos puntos el multiplicador se interpola linealmente
+     * @throws IllegalArgumentException si el grupo o la curva no son válidos
+     */
+    @Autowired
+    public DynamicPricingService(GestionVehiculoService vehicleService,
+                                 @Value("${carros.pricing.utilization.enabled:false}") boolean enabled,
+                                 @Value("${carros.pricing.utilization.scope:type}") String scope,
+                                 @Value("${carros.pricing.utilization.curve:0:1.0,0.7:1.0,0.9:1.25,1:1.5}") String curve) {
+        this.counters = vehicleService.utilizationCounters();
+        this.enabled = enabled;
+        this.scope = scope.trim().toLowerCase(Locale.ROOT);
+        if (!SCOPES.contains(this.scope)) {
+            throw new IllegalArgumentException("Unknown pricing scope '" + scope + "'. Use type, electric or color.");
+        }
+        buildCurve(curve);
+        if (enabled) {
+            vehicleService.useRentalRates(this::rentalValue);  // Los alquileres fijan el mismo valor diario que los presupuestos
+        }
+    }
+
+    /**
+     * Devuelve el multiplicador vigente de un vehículo según la ocupación de su grupo.
+     *
+     * @param vehicle el vehículo
+     * @return el multiplicador, 1 si los precios dinámicos están desactivados
+     */
+    public double multiplier(AbstractVehicle vehicle) {
+        if (!enabled) {
+            return 1;
+        }
+        VehicleUtilizationCounters.Counts counts = switch (scope) {
+            case "electric" -> counters.byElectric(vehicle);
+            case "color" -> counters.byColor(vehicle);
+            default -> null;
+        };
+        if (counts == null || counts.total() == 0) {
+            counts = counters.byType(vehicle);  // Sin color, o un grupo que aún no tiene vehículos indexados
+        }
+        return counts == null ? 1 : multiplierAt(counts.utilization());
+    }
+
+    /**
+     * Devuelve el valor de alquiler de un vehículo con el multiplicador de su grupo aplicado.
+     *
+     * @param vehicle el vehículo
+     * @return el valor de alquiler dinámico
+     */
+    public double rentalValue(AbstractVehicle vehicle) {
+        return vehicle.getRentalValue() * multiplier(vehicle);
+    }
+
+    /**
+     * Devuelve el menor multiplicador que puede tener un vehículo, sea cual sea la ocupación.
+     *
+     * @return el menor multiplicador, 1 si los precios dinámicos están desactivados
+     */
+    public double lowestMultiplier() {
+        return enabled ? lowestMultiplier : 1;
+    }
+
+    /**
+     * Devuelve el mayor multiplicador que puede tener un vehículo, sea cual sea la ocupación.
+     *
+     * @return el mayor multiplicador, 1 si los precios dinámicos están desactivados
+     */
+    public double highestMultiplier() {
+        return enabled ? highestMultiplier : 1;
+    }
+
+    /**
+     * Publica la ocupación y el multiplicador vigentes de cada grupo en los tres niveles: por tipo, por tipo y eléctrico,
+     * y por tipo y color. Los del nivel configurado llevan applied en true.
+     *
+     * @return un multiplicador por grupo
+     */
+    public List<PricingMultiplier> currentMultipliers() {
+        List<PricingMultiplier> result = new ArrayList<>();
+        for (int type = 0; type < VehicleSearchIndex.TYPE_NAMES.size(); type++) {
+            String name = VehicleSearchIndex.TYPE_NAMES.get(type);
+            result.add(toMultiplier(name, "all", counters.byType(type), scope.equals("type")));
+            result.add(toMultiplier(name, "electric", counters.byElectric(type, true), scope.equals("electric")));
+            result.add(toMultiplier(name, "non-electric", counters.byElectric(type, false), scope.equals("electric")));
+            for (Map.Entry<String, VehicleUtilizationCounters.Counts> color : new TreeMap<>(counters.byColor(type)).entrySet()) {
+                if (color.getValue().total() > 0) {
+                    result.add(toMultiplier(name, color.getKey(), color.getValue(), scope.equals("color")));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Multiplicador de la curva para una ocupación, por la milésima inferior.
+     */
+    double multiplierAt(double utilization) {
+        return curve[(int) (Math.max(0, Math.min(1, utilization)) * CURVE_STEPS)];
+    }
+
+    private PricingMultiplier toMultiplier(String type, String group, VehicleUtilizationCounters.Counts counts, boolean applied) {
+        double utilization = counts.utilization();
+        return new PricingMultiplier(type, group, counts.total(), counts.rented(), utilization,
+                enabled ? multiplierAt(utilization) : 1, applied);
+    }
+
+    /**
+     * Interpreta los puntos de la curva y rellena la tabla. Antes del primer punto y después del último, el multiplicador
+     * es el de ese punto.
+     */
+    private void buildCurve(String spec) {
+        TreeMap<Double, Double> points = new TreeMap<>();
+        try {
+            for (String point : spec.split(",")) {
+                String[] parts = point.trim().split(":");
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException();
+                }
+                double utilization = Double.parseDouble(parts[0].trim());
+                double multiplier = Double.parseDouble(parts[1].trim());
+                if (utilization < 0 || utilization > 1 || !(multiplier > 0)) {
+                    throw new IllegalArgumentException();
+                }
+                points.put(utilization, multiplier);
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid pricing curve '" + spec
+                    + "'. Use utilization:multiplier pairs with utilization between 0 and 1, for example 0:1,0.9:1.25,1:1.5.");
+        }
+        for (int step = 0; step <= CURVE_STEPS; step++) {
+            double utilization = (double) step / CURVE_STEPS;
+            Map.Entry<Double, Double> below = points.floorEntry(utilization);
+            Map.Entry<Double, Double> above = points.ceilingEntry(utilization);
+            if (below == null || above == null || below.getKey().equals(above.getKey())) {
+                curve[step] = (below != null ? below : above).getValue();
+            } else {
+                double fraction = (utilization - below.getKey()) / (above.getKey() - below.getKey());
+                curve[step] = below.getValue() + fraction * (above.getValue() - below.getValue());
+            }
+        }
+        lowestMultiplier = Arrays.stream(curve).min().orElse(1);
+        highestMultiplier = Arrays.stream(curve).max().orElse(1);
+    }
+}
@@ -0,0 +1,153 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.*;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * FleetBinaryCodec convierte vehículos y usuarios a un formato binario compacto y de vuelta.
+ * Se escribe sobre un DataOutput y se lee desde un ByteBuffer, de modo que sirve tanto para el registro de escritura anticipada
+ * como para archivos mapeados en memoria. Las cadenas se guardan como longitud más bytes UTF-8 (-1 para null).
+ */
+final class FleetBinaryCodec {
+    // Códigos de tipo de vehículo
+    private static final byte CAR = 1;
+    private static final byte TRUCK = 2;
+    private static final byte VAN = 3;
+    private static final byte MOTORCYCLE = 4;
+
+    private FleetBinaryCodec() {
+    }
+
+    /**
+     * Escribe un vehículo con todos sus atributos comunes y el atributo propio de su subtipo.
+     *
+     * @param out el destino
+     * @param vehicle el vehículo a escribir
+     * @throws IOException si falla la escritura
+     */
+    static void writeVehicle(DataOutput out, AbstractVehicle vehicle) throws IOException {
+        if (vehicle instanceof Car car) {
+            out.writeByte(CAR);
+            writeCommon(out, vehicle);
+            out.writeInt(car.getNumberOfDoors());
+        } else if (vehicle instanceof Truck truck) {
+            out.writeByte(TRUCK);
+            writeCommon(out, vehicle);
+            out.writeDouble(truck.getCargoCapacity());
+        } else if (vehicle instanceof Van van) {
+            out.writeByte(VAN);
+            writeCommon(out, vehicle);
+            out.writeInt(van.getSeatingCapacity());
+        } else if (vehicle instanceof Motorcycle motorcycle) {
+            out.writeByte(MOTORCYCLE);
+            writeCommon(out, vehicle);
+            out.writeBoolean(motorcycle.isHasSidecar());
+        } else {
+            throw new IllegalArgumentException("Unsupported vehicle type: " + vehicle.getClass().getName());
+        }
+    }
+
+    /**
+     * Lee un vehículo escrito con {@link #writeVehicle}.
+     *
+     * @param in el origen, posicionado al inicio del vehículo
+     * @return el vehículo leído, con su disponibilidad y versión
+     */
+    static AbstractVehicle readVehicle(ByteBuffer in) {
+        byte type = in.get();
+        String licensePlate = readString(in);
+        int kilometers = in.getInt();
+        double rentalValue = in.getDouble();
+        boolean isElectric = in.get() != 0;
+        boolean available = in.get() != 0;
+        long version = in.getLong();
+        String color = readString(in);
+        AbstractVehicle vehicle = switch (type) {
+            case CAR -> new Car(licensePlate, kilometers, rentalValue, isElectric, in.getInt());
+            case TRUCK -> new Truck(licensePlate, kilometers, rentalValue, isElectric, in.getDouble());
+            case VAN -> new Van(licensePlate, kilometers, rentalValue, isElectric, in.getInt());
+            case MOTORCYCLE -> new Motorcycle(licensePlate, kilometers, rentalValue, isElectric, in.get() != 0);
+            default -> throw new IllegalArgumentException("Unknown vehicle type code: " + type);
+        };
+        vehicle.setColor(color);
+        vehicle.applyAvailability(available, version);
+        return vehicle;
+    }
+
+    /**
+     * Escribe un usuario con todos sus atributos.
+     *
+     * @param out el destino
+     * @param user el usuario a escribir
+     * @throws IOException si falla la escritura
+     */
+    static void writeUser(DataOutput out, User user) throws IOException {
+        writeString(out, user.getId());
+        writeString(out, user.getName());
+        out.writeInt(user.getAge());
+        writeString(out, user.getRole() == null ? null : user.getRole().name());
+        out.writeBoolean(user.isHasVisionImpairment());
+        out.writeBoolean(user.isHasHearingImpairment());
+        writeString(out, user.getLogin());
+        writeString(out, user.getPasswd());
+    }
+
+    /**
+     * Lee un usuario escrito con {@link #writeUser}.
+     *
+     * @param in el origen, posicionado al inicio del usuario
+     * @return el usuario leído
+     */
+    static User readUser(ByteBuffer in) {
+        String id = readString(in);
+        String name = readString(in);
+        int age = in.getInt();
+        String role = readString(in);
+        boolean hasVisionImpairment = in.get() != 0;
+        boolean hasHearingImpairment = in.get() != 0;
+        String login = readString(in);
+        String passwd = readString(in);
+        return new User(id, name, age, role == null ? null : Role.valueOf(role), hasVisionImpairment, hasHearingImpairment, login, passwd);
+    }
+
+    /**
+     * Escribe una cadena como longitud en bytes seguida de sus bytes UTF-8; null se escribe como longitud -1.
+     */
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Lee una cadena escrita con {@link #writeString}.
+     */
+    static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeCommon(DataOutput out, AbstractVehicle vehicle) throws IOException {
+        writeString(out, vehicle.getLicensePlate());
+        out.writeInt(vehicle.getKilometers());
+        out.writeDouble(vehicle.getRentalValue());
+        out.writeBoolean(vehicle.isElectric());
+        long version = vehicle.availabilityVersion();  // Se lee antes que el bit para no guardar un bit más nuevo que su versión
+        out.writeBoolean(vehicle.committedAvailability());  // Un vehículo tomado aún puede soltarse sin cambiar
+        out.writeLong(version);
+        writeString(out, vehicle.getColor());
+    }
+}
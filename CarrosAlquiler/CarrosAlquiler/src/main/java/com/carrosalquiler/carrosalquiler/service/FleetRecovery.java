@@ -0,0 +1,120 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.AbstractVehicle;
+import com.carrosalquiler.carrosalquiler.models.User;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * FleetRecovery reconstruye la flota, los usuarios, el libro de alquileres y las reservas al arrancar la aplicación:
+ * carga la instantánea más reciente, reproduce los segmentos del registro de escritura anticipada posteriores a ella,
+ * abre el registro para que las mutaciones nuevas se sigan anotando y programa las instantáneas periódicas.
+ */
+@Component
+public class FleetRecovery implements FleetWriteAheadLog.Handler {
+    private final FleetWriteAheadLog wal;
+    private final GestionVehiculoService vehicleService;
+    private final GestionUsuariosService userService;
+    private final FleetSnapshotStore snapshots;
+    // Usuarios ya resueltos por login durante la reproducción, para no recorrer la lista de usuarios en cada alquiler
+    private final Map<String, User> usersByLogin = new HashMap<>();
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param wal el registro de escritura anticipada
+     * @param vehicleService el servicio de vehículos que se reconstruye
+     * @param userService el servicio de usuarios que se reconstruye
+     * @param snapshots el almacén de instantáneas
+     */
+    public FleetRecovery(FleetWriteAheadLog wal, GestionVehiculoService vehicleService, GestionUsuariosService userService,
+                         FleetSnapshotStore snapshots) {
+        this.wal = wal;
+        this.vehicleService = vehicleService;
+        this.userService = userService;
+        this.snapshots = snapshots;
+    }
+
+    /**
+     * Carga la instantánea, reproduce el resto del registro y lo abre. Mientras tanto el registro sigue cerrado,
+     * así que las mutaciones que provoca la recuperación no se vuelven a anotar.
+     */
+    @PostConstruct
+    public void recover() {
+        if (!wal.isEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        long firstSegment = snapshots.load();
+        long records = wal.replay(this, firstSegment);
+        System.out.println("Fleet recovered: " + records + " write-ahead log records replayed, "
+                + vehicleService.listAllVehicles().size() + " vehicles, " + userService.listAllUsers().size() + " users in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+        wal.open();
+        snapshots.start();
+    }
+
+    @Override
+    public void onPutVehicle(AbstractVehicle vehicle) {
+        vehicleService.registerVehicle(vehicle);
+    }
+
+    @Override
+    public void onDeleteVehicle(String licensePlate) {
+        vehicleService.deleteVehicle(licensePlate);
+    }
+
+    @Override
+    public void onAvailability(String licensePlate, boolean available, long version) {
+        vehicleService.restoreAvailability(licensePlate, available, version);
+    }
+
+    @Override
+    public void onRent(String licensePlate, long version, String login, long epochMillis, double dailyRate) {
+        vehicleService.restoreRent(licensePlate, version, resolveUser(login), epochMillis, dailyRate);
+    }
+
+    @Override
+    public void onReturn(String licensePlate, long version, long epochMillis) {
+        vehicleService.restoreReturn(licensePlate, version, epochMillis);
+    }
+
+    @Override
+    public void onReserve(String reservationId, String licensePlate, String login, long pickupMillis, long dropOffMillis) {
+        vehicleService.restoreReservation(reservationId, licensePlate, login, pickupMillis, dropOffMillis);
+    }
+
+    @Override
+    public void onCancelReservation(String reservationId) {
+        vehicleService.cancelReservation(reservationId);
+    }
+
+    @Override
+    public void onPutUser(User user) {
+        userService.restoreUser(user);  // Conserva el hash de la contraseña tal como se anotó
+        usersByLogin.clear();  // El usuario nuevo puede reemplazar a uno ya resuelto
+    }
+
+    /**
+     * Busca el usuario de un alquiler por su inicio de sesión. Si ya no está registrado, se conserva al menos su login.
+     *
+     * @param login el inicio de sesión anotado en el registro, o null
+     * @return el usuario, o null si el alquiler no tenía usuario
+     */
+    private User resolveUser(String login) {
+        if (login == null) {
+            return null;
+        }
+        return usersByLogin.computeIfAbsent(login, key -> {
+            User user = userService.getUserByLogin(key);
+            if (user == null) {
+                user = new User();
+                user.setLogin(key);
+            }
+            return user;
+        });
+    }
+}
@@ -0,0 +1,343 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.AbstractVehicle;
+import com.carrosalquiler.carrosalquiler.models.RentedVehicle;
+import com.carrosalquiler.carrosalquiler.models.Reservation;
+import com.carrosalquiler.carrosalquiler.models.User;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * FleetSnapshotStore guarda periódicamente una instantánea binaria y compacta de la flota, los usuarios, el libro de alquileres
+ * y las reservas, para que al arrancar no haga falta reproducir todo el historial del registro de escritura anticipada.
+ *
+ * Antes de escribir una instantánea se cambia de segmento en el registro; la instantánea se escribe en segundo plano
+ * recorriendo el índice concurrente, sin bloquear alquileres ni devoluciones, y al arrancar se reproducen solo los segmentos
+ * desde ese cambio. Como los registros de disponibilidad llevan versión y las altas reemplazan el vehículo completo,
+ * reproducir esos segmentos sobre una instantánea algo más nueva que el cambio de segmento deja el mismo estado final.
+ * Los alquileres de cada matrícula se copian de forma consistente y el libro ignora los alquileres que ya tiene,
+ * así que con ellos pasa lo mismo. Las reservas se identifican por su id y restaurar una que ya está no tiene efecto.
+ *
+ * Los alquileres se guardan con la matrícula de su vehículo, no con una copia del vehículo: al cargarlos apuntan al vehículo
+ * de la flota con esa matrícula. Si la matrícula ya no está en la flota, su último vehículo se guarda una sola vez.
+ *
+ * La configuración solo decide si se escriben instantáneas nuevas: una que ya existe se carga siempre, porque los segmentos
+ * que cubre ya se borraron.
+ */
+@Component
+public class FleetSnapshotStore {
+    private static final int MAGIC = 0x464C5453;  // "FLTS"
+    // La 1 no tenía alquileres, la 2 no tenía reservas y la 3 guardaba una copia del vehículo en cada alquiler; se siguen pudiendo leer
+    private static final int FORMAT_VERSION = 5;
+    private static final byte VEHICLE = 'V';
+    private static final byte USER = 'U';
+    private static final byte RENTAL = 'R';
+    private static final byte RESERVATION = 'B';  // Reserva (booking)
+    private static final byte RETIRED_VEHICLE = 'D';  // Último vehículo de una matrícula con alquileres que ya no está en la flota
+    private static final byte END = 'E';  // Marca el final de una instantánea completa
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    private final FleetWriteAheadLog wal;
+    private final GestionVehiculoService vehicleService;
+    private final GestionUsuariosService userService;
+    private final RentalLedgerService ledger;
+    private final ReservationService reservations;
+    private final boolean enabled;  // Si se escriben instantáneas; las que ya existen se cargan igualmente
+    private final long intervalMillis;  // Tiempo entre instantáneas
+    private ScheduledExecutorService scheduler;
+    private long lastSnapshotRecords = -1;  // Registros escritos o fallidos en el registro cuando se tomó la última instantánea
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param wal el registro de escritura anticipada, en cuyo directorio se guardan las instantáneas
+     * @param vehicleService el servicio de vehículos
+     * @param userService el servicio de usuarios
+     * @param ledger el libro de alquileres
+     * @param reservations las reservas de los vehículos
+     * @param enabled si se toman instantáneas nuevas
+     * @param intervalMillis el tiempo entre instantáneas en milisegundos
+     */
+    public FleetSnapshotStore(FleetWriteAheadLog wal, GestionVehiculoService vehicleService, GestionUsuariosService userService,
+                              RentalLedgerService ledger, ReservationService reservations,
+                              @Value("${carros.snapshot.enabled:true}") boolean enabled,
+                              @Value("${carros.snapshot.interval-ms:300000}") long intervalMillis) {
+        this.wal = wal;
+        this.vehicleService = vehicleService;
+        this.userService = userService;
+        this.ledger = ledger;
+        this.reservations = reservations;
+        this.enabled = enabled && wal.isEnabled();  // Sin registro no hay forma de completar una instantánea
+        this.intervalMillis = Math.max(1000, intervalMillis);
+    }
+
+    /**
+     * Carga la instantánea más reciente, leyéndola a través de un archivo mapeado en memoria. Se carga aunque las
+     * instantáneas estén desactivadas: los segmentos anteriores a ella ya no existen.
+     *
+     * @return el número del primer segmento del registro que hay que reproducir después, o 0 si no hay instantánea
+     */
+    public long load() {
+        if (!wal.isEnabled()) {
+            return 0;
+        }
+        List<Path> snapshots = listSnapshots();
+        if (snapshots.isEmpty()) {
+            return 0;
+        }
+        Path snapshot = snapshots.get(snapshots.size() - 1);
+        long start = System.nanoTime();
+        int vehicles = 0;
+        int users = 0;
+        int rentals = 0;
+        int bookings = 0;
+        Map<String, User> usersByLogin = new HashMap<>();
+        Map<String, AbstractVehicle> retired = new HashMap<>();
+        try (FileChannel in = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            // Un único mapeo admite archivos de hasta 2 GB, del orden de decenas de millones de vehículos
+            ByteBuffer data = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            int format;
+            if (data.getInt() != MAGIC || (format = data.getInt()) < 1 || format > FORMAT_VERSION) {
+                throw new IllegalStateException("Unrecognized snapshot file " + snapshot);
+            }
+            long firstSegment = data.getLong();
+            byte tag;
+            while ((tag = data.get()) != END) {
+                if (tag == VEHICLE) {
+                    vehicleService.registerVehicle(FleetBinaryCodec.readVehicle(data));
+                    vehicles++;
+                } else if (tag == USER) {
+                    User user = FleetBinaryCodec.readUser(data);
+                    userService.restoreUser(user);
+                    usersByLogin.put(user.getLogin(), user);
+                    users++;
+                } else if (tag == RETIRED_VEHICLE) {
+                    AbstractVehicle vehicle = FleetBinaryCodec.readVehicle(data);
+                    retired.put(vehicle.getLicensePlate(), vehicle);
+                } else if (tag == RENTAL) {
+                    ledger.restore(format < 4 ? readLegacyRental(data, usersByLogin) : readRental(data, format, usersByLogin, retired));
+                    rentals++;
+                } else if (tag == RESERVATION) {
+                    vehicleService.restoreReservation(FleetBinaryCodec.readString(data), FleetBinaryCodec.readString(data),
+                            FleetBinaryCodec.readString(data), data.getLong(), data.getLong());
+                    bookings++;
+                } else {
+                    throw new IllegalStateException("Corrupt snapshot file " + snapshot);
+                }
+            }
+            System.out.println("Snapshot loaded: " + vehicles + " vehicles, " + users + " users, " + rentals + " rentals, "
+                    + bookings + " reservations in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            return firstSegment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load snapshot " + snapshot, e);
+        }
+    }
+
+    /**
+     * Programa las instantáneas periódicas. Se llama una vez recuperado el estado y abierto el registro.
+     */
+    public synchronized void start() {
+        if (!enabled || scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fleet-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::snapshotQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        // Cuando el registro se reanuda tras un fallo de escritura, lo que no llegó a disco sigue en memoria: se guarda enseguida
+        ScheduledExecutorService executor = scheduler;
+        wal.addResumeListener(() -> executor.execute(this::snapshotQuietly));
+    }
+
+    private void snapshotQuietly() {
+        try {
+            takeSnapshot();
+        } catch (Exception e) {
+            System.out.println("Snapshot failed: " + e.getMessage());  // Se reintenta en el siguiente intervalo
+        }
+    }
+
+    /**
+     * Toma una instantánea si hubo mutaciones desde la anterior, y después borra los segmentos e instantáneas que cubre.
+     *
+     * @return la ruta de la instantánea escrita, o null si no hacía falta
+     * @throws IOException si falla la escritura
+     */
+    public synchronized Path takeSnapshot() throws IOException {
+        long records = wal.getRecordsWritten() + wal.getRecordsFailed();  // Un fallo también deja algo que guardar
+        if (!enabled || records == lastSnapshotRecords) {
+            return null;
+        }
+        long start = System.nanoTime();
+        long firstSegment = wal.rollSegment();
+        Path target = wal.getDirectory().resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, firstSegment, SNAPSHOT_SUFFIX));
+        Path temporary = wal.getDirectory().resolve(target.getFileName() + ".tmp");
+        int vehicles = 0;
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(firstSegment);
+            for (User user : userService.listAllUsers()) {
+                out.writeByte(USER);
+                FleetBinaryCodec.writeUser(out, user);
+            }
+            for (AbstractVehicle vehicle : vehicleService.listAllVehicles()) {
+                out.writeByte(VEHICLE);
+                FleetBinaryCodec.writeVehicle(out, vehicle);
+                vehicles++;
+            }
+            // Los alquileres van después de los vehículos, así al cargarlos su vehículo ya está en la flota
+            for (String plate : ledger.rentedPlates()) {
+                List<RentedVehicle> rentals = ledger.copyRentals(plate);
+                if (rentals.isEmpty()) {
+                    continue;
+                }
+                if (vehicleService.getVehicle(plate) == null) {
+                    out.writeByte(RETIRED_VEHICLE);
+                    FleetBinaryCodec.writeVehicle(out, rentals.get(rentals.size() - 1).getVehicle());
+                }
+                for (RentedVehicle rental : rentals) {
+                    out.writeByte(RENTAL);
+                    writeRental(out, plate, rental);
+                }
+            }
+            long now = System.currentTimeMillis();
+            for (String plate : reservations.reservedPlates()) {
+                for (Reservation reservation : reservations.listReservations(plate, now)) {
+                    out.writeByte(RESERVATION);
+                    FleetBinaryCodec.writeString(out, reservation.getId());
+                    FleetBinaryCodec.writeString(out, reservation.getLicensePlate());
+                    FleetBinaryCodec.writeString(out, reservation.getUserLogin());
+                    out.writeLong(RentalLedgerService.toEpochMillis(reservation.getPickupDate()));
+                    out.writeLong(RentalLedgerService.toEpochMillis(reservation.getDropOffDate()));
+                }
+            }
+            out.writeByte(END);
+            out.flush();
+            channel.force(true);
+        }
+        // El cambio de nombre es atómico: nunca queda una instantánea a medio escribir con el nombre definitivo
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        wal.deleteSegmentsBefore(firstSegment);
+        for (Path older : listSnapshots()) {
+            if (!older.equals(target)) {
+                Files.deleteIfExists(older);
+            }
+        }
+        lastSnapshotRecords = records;
+        System.out.println("Snapshot written: " + vehicles + " vehicles in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return target;
+    }
+
+    /**
+     * Escribe un alquiler: la matrícula de su vehículo, el login del usuario, la fecha y versión del alquiler, la fecha
+     * de devolución (-1 si sigue activo) y el valor diario fijado al alquilar.
+     */
+    private static void writeRental(DataOutputStream out, String plate, RentedVehicle rental) throws IOException {
+        FleetBinaryCodec.writeString(out, plate);
+        FleetBinaryCodec.writeString(out, rental.getUser() == null ? null : rental.getUser().getLogin());
+        out.writeLong(RentalLedgerService.toEpochMillis(rental.getRentalDate()));
+        out.writeLong(rental.getRentalVersion());
+        out.writeLong(rental.getReturnDate() == null ? -1 : RentalLedgerService.toEpochMillis(rental.getReturnDate()));
+        out.writeDouble(rental.getDailyRate());
+    }
+
+    /**
+     * Lee un alquiler escrito con {@link #writeRental}. Apunta al vehículo de la flota con su matrícula o, si la matrícula
+     * ya no está en la flota, a su último vehículo guardado. El formato 4 no tenía el valor diario.
+     */
+    private RentedVehicle readRental(ByteBuffer data, int format, Map<String, User> usersByLogin, Map<String, AbstractVehicle> retired) {
+        String plate = FleetBinaryCodec.readString(data);
+        AbstractVehicle vehicle = vehicleService.getVehicle(plate);
+        if (vehicle == null) {
+            vehicle = retired.get(plate);
+        }
+        if (vehicle == null) {
+            throw new IllegalStateException("Snapshot rental references unknown vehicle " + plate);
+        }
+        return readRentalFields(data, vehicle, usersByLogin, format >= 5);
+    }
+
+    /**
+     * Lee un alquiler de los formatos 1 a 3, que llevaba una copia de su vehículo. Un alquiler activo apunta al vehículo
+     * de la flota con su matrícula; uno cerrado, o uno cuyo vehículo ya no está, conserva la copia guardada.
+     */
+    private RentedVehicle readLegacyRental(ByteBuffer data, Map<String, User> usersByLogin) {
+        RentedVehicle rental = readRentalFields(data, FleetBinaryCodec.readVehicle(data), usersByLogin, false);
+        AbstractVehicle current = vehicleService.getVehicle(rental.getVehicle().getLicensePlate());
+        if (rental.isActive() && current != null) {
+            return new RentedVehicle(rental.getUser(), current, rental.getRentalDate(), rental.getRentalVersion());
+        }
+        return rental;
+    }
+
+    private static RentedVehicle readRentalFields(ByteBuffer data, AbstractVehicle vehicle, Map<String, User> usersByLogin,
+                                                  boolean priced) {
+        String login = FleetBinaryCodec.readString(data);
+        long rentalMillis = data.getLong();
+        long version = data.getLong();
+        long returnMillis = data.getLong();
+        double dailyRate = priced ? data.getDouble() : 0;  // Sin valor diario se cobra con el valor de alquiler del vehículo
+        User user = login == null ? null : usersByLogin.get(login);
+        if (login != null && user == null) {
+            user = new User();
+            user.setLogin(login);
+        }
+        RentedVehicle rental = new RentedVehicle(user, vehicle, RentalLedgerService.toDateTime(rentalMillis), version, dailyRate);
+        if (returnMillis >= 0) {
+            rental.setReturnDate(RentalLedgerService.toDateTime(returnMillis));
+        }
+        return rental;
+    }
+
+    private List<Path> listSnapshots() {
+        if (!Files.isDirectory(wal.getDirectory())) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(wal.getDirectory())) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list snapshots in " + wal.getDirectory(), e);
+        }
+    }
+
+    /**
+     * Detiene las instantáneas periódicas al cerrar la aplicación, esperando a que termine la que esté en curso.
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+}
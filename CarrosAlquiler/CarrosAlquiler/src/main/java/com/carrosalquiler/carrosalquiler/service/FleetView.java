@@ -0,0 +1,250 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.AbstractVehicle;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * FleetView es una vista inmutable de la flota ordenada por matrícula: un árbol AVL persistente.
+ * Cada alta o baja devuelve una vista nueva que copia solo el camino desde la raíz hasta el nodo cambiado
+ * y comparte el resto con la vista anterior, así que publicarla cuesta O(log n) y nadie necesita copiar la flota para leerla.
+ * Quien tiene una vista puede recorrerla sin bloqueos el tiempo que quiera; los cambios posteriores no la afectan.
+ * Los vehículos en sí no se copian: su disponibilidad se sigue leyendo en vivo.
+ */
+final class FleetView implements Iterable<AbstractVehicle> {
+    static final FleetView EMPTY = new FleetView(null);
+
+    private final Node root;
+
+    private FleetView(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Devuelve el número de vehículos de la vista en tiempo constante.
+     */
+    int size() {
+        return root == null ? 0 : root.size;
+    }
+
+    /**
+     * Busca un vehículo por su matrícula.
+     *
+     * @param licensePlate la matrícula
+     * @return el vehículo, o null si no está en la vista
+     */
+    AbstractVehicle get(String licensePlate) {
+        Node node = root;
+        while (node != null) {
+            int comparison = licensePlate.compareTo(node.key);
+            if (comparison == 0) {
+                return node.value;
+            }
+            node = comparison < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    /**
+     * Devuelve una vista con el vehículo agregado o reemplazado bajo su matrícula.
+     */
+    FleetView put(String licensePlate, AbstractVehicle vehicle) {
+        Node updated = put(root, licensePlate, vehicle);
+        return updated == root ? this : new FleetView(updated);
+    }
+
+    /**
+     * Devuelve una vista sin el vehículo de la matrícula dada.
+     */
+    FleetView remove(String licensePlate) {
+        Node updated = remove(root, licensePlate);
+        return updated == root ? this : new FleetView(updated);
+    }
+
+    /**
+     * Recorre los vehículos en orden de matrícula.
+     */
+    @Override
+    public Iterator<AbstractVehicle> iterator() {
+        return new InOrderIterator(root, null);
+    }
+
+    /**
+     * Recorre en orden los vehículos con matrícula estrictamente mayor que la dada.
+     *
+     * @param licensePlate la matrícula desde la que se empieza, o null para empezar desde el principio
+     * @return un iterador en orden de matrícula
+     */
+    Iterator<AbstractVehicle> iteratorAfter(String licensePlate) {
+        return new InOrderIterator(root, licensePlate);
+    }
+
+    /**
+     * Devuelve la vista como una lista inmutable, sin copiarla.
+     * El acceso por posición cuesta O(log n) gracias al tamaño guardado en cada nodo; el recorrido es lineal.
+     */
+    List<AbstractVehicle> asList() {
+        return new AbstractList<>() {
+            @Override
+            public AbstractVehicle get(int index) {
+                if (index < 0 || index >= size()) {
+                    throw new IndexOutOfBoundsException(index);
+                }
+                Node node = root;
+                while (true) {
+                    int leftSize = FleetView.size(node.left);
+                    if (index < leftSize) {
+                        node = node.left;
+                    } else if (index == leftSize) {
+                        return node.value;
+                    } else {
+                        index -= leftSize + 1;
+                        node = node.right;
+                    }
+                }
+            }
+
+            @Override
+            public int size() {
+                return FleetView.this.size();
+            }
+
+            @Override
+            public Iterator<AbstractVehicle> iterator() {
+                return FleetView.this.iterator();
+            }
+        };
+    }
+
+    private static Node put(Node node, String key, AbstractVehicle value) {
+        if (node == null) {
+            return new Node(key, value, null, null);
+        }
+        int comparison = key.compareTo(node.key);
+        if (comparison < 0) {
+            return balance(node.key, node.value, put(node.left, key, value), node.right);
+        } else if (comparison > 0) {
+            return balance(node.key, node.value, node.left, put(node.right, key, value));
+        }
+        return node.value == value ? node : new Node(key, value, node.left, node.right);
+    }
+
+    private static Node remove(Node node, String key) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = key.compareTo(node.key);
+        if (comparison < 0) {
+            Node left = remove(node.left, key);
+            return left == node.left ? node : balance(node.key, node.value, left, node.right);
+        } else if (comparison > 0) {
+            Node right = remove(node.right, key);
+            return right == node.right ? node : balance(node.key, node.value, node.left, right);
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        Node successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.key, successor.value, node.left, remove(node.right, successor.key));
+    }
+
+    /**
+     * Arma un nodo con los hijos dados y lo rota si sus alturas difieren en más de uno.
+     */
+    private static Node balance(String key, AbstractVehicle value, Node left, Node right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        if (leftHeight > rightHeight + 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node(left.key, left.value, left.left, new Node(key, value, left.right, right));
+            }
+            Node pivot = left.right;
+            return new Node(pivot.key, pivot.value,
+                    new Node(left.key, left.value, left.left, pivot.left), new Node(key, value, pivot.right, right));
+        }
+        if (rightHeight > leftHeight + 1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node(right.key, right.value, new Node(key, value, left, right.left), right.right);
+            }
+            Node pivot = right.left;
+            return new Node(pivot.key, pivot.value,
+                    new Node(key, value, left, pivot.left), new Node(right.key, right.value, pivot.right, right.right));
+        }
+        return new Node(key, value, left, right);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Nodo inmutable del árbol; guarda su altura para equilibrar y su tamaño para contar y acceder por posición.
+     */
+    private static final class Node {
+        private final String key;
+        private final AbstractVehicle value;
+        private final Node left;
+        private final Node right;
+        private final int height;
+        private final int size;
+
+        Node(String key, AbstractVehicle value, Node left, Node right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+    }
+
+    /**
+     * Recorrido en orden con una pila explícita de los nodos pendientes.
+     */
+    private static final class InOrderIterator implements Iterator<AbstractVehicle> {
+        private final ArrayDeque<Node> stack = new ArrayDeque<>();
+
+        InOrderIterator(Node root, String after) {
+            Node node = root;
+            while (node != null) {
+                if (after == null || node.key.compareTo(after) > 0) {
+                    stack.push(node);  // Este nodo y su subárbol derecho quedan por recorrer
+                    node = node.left;
+                } else {
+                    node = node.right;  // Este nodo y su subárbol izquierdo quedan antes del cursor
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public AbstractVehicle next() {
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node node = stack.pop();
+            for (Node child = node.right; child != null; child = child.left) {
+                stack.push(child);
+            }
+            return node.value;
+        }
+    }
+}
@@ -0,0 +1,691 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.AbstractVehicle;
+import com.carrosalquiler.carrosalquiler.models.User;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * FleetWriteAheadLog es un registro de escritura anticipada (solo se agrega al final) de las mutaciones de la flota y de los usuarios:
+ * registro, actualización y eliminación de vehículos, cambios de disponibilidad, alquileres, devoluciones, reservas y registro de usuarios.
+ * Los hilos que mutan solo codifican el registro y lo encolan; un hilo escritor agrupa los registros pendientes, los escribe juntos
+ * y hace fsync por lotes (group commit) según el intervalo y el tamaño de lote configurados.
+ * Al arrancar, los registros se reproducen en orden para reconstruir el estado en memoria.
+ *
+ * Cada registro en disco tiene la forma [longitud][crc32][tipo][datos]. Si la aplicación se detuvo a mitad de una escritura,
+ * la reproducción se detiene en el primer registro incompleto de ese segmento. Cada arranque escribe en un segmento nuevo.
+ *
+ * Con sync-commit, quien muta anota el registro dentro de su bloqueo y espera al fsync después de soltarlo, con
+ * {@link #awaitDurable()}. Si una escritura falla, los registros del lote fallan, el segmento se recorta hasta el último
+ * lote completo y el escritor pasa a un segmento nuevo; mientras no pueda abrirlo, el registro rechaza las mutaciones.
+ *
+ * Un cambio que puede fallar a medias prepara su registro antes de tocar nada y lo encola con {@link #append(PreparedRecord)}
+ * cuando ya lo aplicó: si el registro no está disponible falla antes del cambio, y si el cambio falla el registro no se encola,
+ * así que nunca queda anotado un cambio que no ocurrió.
+ */
+@Component
+public class FleetWriteAheadLog {
+    // Tipos de registro
+    static final byte PUT_VEHICLE = 1;  // Alta, reemplazo o actualización de un vehículo
+    static final byte DELETE_VEHICLE = 2;
+    static final byte SET_AVAILABILITY = 3;
+    static final byte RENT = 4;
+    static final byte RETURN = 5;
+    static final byte PUT_USER = 6;
+    static final byte RESERVE = 7;
+    static final byte CANCEL_RESERVATION = 8;
+    static final byte RENT_BATCH = 9;  // Alquiler de varios vehículos que se reproduce entero o no se reproduce
+    static final byte RETURN_BATCH = 10;
+    static final byte RENT_PRICED = 11;  // Alquiler con el valor diario que se cobra; RENT es el de los registros anteriores
+    static final byte RENT_BATCH_PRICED = 12;
+
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_BYTES = 8;  // Longitud y crc32 de cada registro
+    private static final long RETRY_MILLIS = 1000;  // Espera entre intentos de abrir un segmento nuevo tras un fallo
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long fsyncIntervalMillis;  // Tiempo máximo entre un registro escrito y su fsync
+    private final int fsyncBatchSize;  // Registros escritos que fuerzan un fsync aunque no haya pasado el intervalo
+    private final boolean syncCommit;  // Si es true, quien muta espera a que su registro esté en disco
+
+    private final LinkedBlockingQueue<PendingRecord> queue = new LinkedBlockingQueue<>();
+    private volatile boolean open;  // Solo se aceptan registros después de reproducir el registro existente
+    private volatile boolean closing;
+    private Thread writer;
+    private final Object channelLock = new Object();  // Protege el segmento actual frente a un cambio de segmento
+    private FileChannel channel;
+    private long segmentNumber;
+    private volatile long recordsWritten;  // Registros escritos desde que se abrió; solo lo actualiza el hilo escritor
+    private volatile long recordsFailed;  // Registros que no llegaron a disco por un fallo de escritura; solo lo actualiza el hilo escritor
+    private volatile IOException unavailable;  // Último fallo de escritura, mientras no se haya podido abrir un segmento nuevo
+    private final List<Runnable> resumeListeners = new CopyOnWriteArrayList<>();
+    // Registros de cada hilo que esperan fsync y que el hilo aún no ha esperado con awaitDurable
+    private final ThreadLocal<List<CompletableFuture<Void>>> unawaited = ThreadLocal.withInitial(ArrayList::new);
+
+    /**
+     * Constructor para un registro desactivado, que descarta todas las mutaciones.
+     * Útil cuando los servicios se usan fuera de Spring.
+     */
+    public FleetWriteAheadLog() {
+        this(false, System.getProperty("java.io.tmpdir"), 10, 1000, false);  // El directorio no se usa
+    }
+
+    /**
+     * Constructor con la configuración del registro.
+     *
+     * @param enabled si el registro está activo; sin configurarlo, no lo está
+     * @param directory el directorio donde se guardan los segmentos; sin configurarlo, uno dentro del directorio del usuario
+     * @param fsyncIntervalMillis el tiempo máximo entre la escritura de un registro y su fsync; 0 hace fsync en cada lote
+     * @param fsyncBatchSize el número de registros escritos que fuerza un fsync antes de que pase el intervalo
+     * @param syncCommit si quien muta debe esperar a que su registro esté en disco
+     */
+    @Autowired
+    public FleetWriteAheadLog(@Value("${carros.wal.enabled:false}") boolean enabled,
+                              @Value("${carros.wal.dir:${user.home}/.carros-alquiler/wal}") String directory,
+                              @Value("${carros.wal.fsync-interval-ms:10}") long fsyncIntervalMillis,
+                              @Value("${carros.wal.fsync-batch-size:1000}") int fsyncBatchSize,
+                              @Value("${carros.wal.sync-commit:false}") boolean syncCommit) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.fsyncIntervalMillis = Math.max(0, fsyncIntervalMillis);
+        this.fsyncBatchSize = Math.max(1, fsyncBatchSize);
+        this.syncCommit = syncCommit;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }  // Indica si el registro está activo.
+
+    public Path getDirectory() {
+        return directory;
+    }  // Devuelve el directorio de los segmentos.
+
+    public long getRecordsWritten() {
+        return recordsWritten;
+    }  // Devuelve el número de registros escritos desde que se abrió el registro.
+
+    public long getRecordsFailed() {
+        return recordsFailed;
+    }  // Devuelve el número de registros que se perdieron por un fallo de escritura.
+
+    /**
+     * Añade una acción que se ejecuta cada vez que el registro vuelve a escribir tras un fallo, en el hilo escritor.
+     * Sirve para volver a guardar el estado en memoria que los registros fallidos no dejaron en disco.
+     *
+     * @param listener la acción
+     */
+    public void addResumeListener(Runnable listener) {
+        resumeListeners.add(listener);
+    }
+
+    /**
+     * Espera a que estén en disco los registros que este hilo anotó desde la última llamada. Sin sync-commit no espera.
+     * Se llama después de soltar los bloqueos de la flota, para que un fsync lento no detenga a los demás hilos.
+     * Si un registro falla, la mutación ya está en memoria y la guarda la instantánea que se toma al reanudar el registro.
+     *
+     * @throws UncheckedIOException si alguno de esos registros no se pudo escribir
+     */
+    public void awaitDurable() {
+        if (!syncCommit) {
+            return;
+        }
+        List<CompletableFuture<Void>> pending = unawaited.get();
+        try {
+            for (CompletableFuture<Void> durable : pending) {
+                durable.join();
+            }
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof IOException cause ? new UncheckedIOException("Write-ahead log write failed", cause) : e;
+        } finally {
+            pending.clear();
+        }
+    }
+
+    /**
+     * Reproduce todos los segmentos existentes en orden, entregando cada registro al manejador.
+     * Debe llamarse antes de {@link #open()}; mientras tanto las mutaciones que provoca la reproducción no se vuelven a registrar.
+     *
+     * @param handler el manejador que aplica cada registro
+     * @return el número de registros reproducidos
+     */
+    public long replay(Handler handler) {
+        return replay(handler, 0);
+    }
+
+    /**
+     * Reproduce en orden los segmentos a partir del número dado, por ejemplo los posteriores a una instantánea.
+     *
+     * @param handler el manejador que aplica cada registro
+     * @param firstSegment el número del primer segmento que se reproduce
+     * @return el número de registros reproducidos
+     */
+    public long replay(Handler handler, long firstSegment) {
+        if (!enabled || !Files.isDirectory(directory)) {
+            return 0;
+        }
+        long records = 0;
+        for (Path segment : listSegments()) {
+            if (segmentNumber(segment) >= firstSegment) {
+                records += replaySegment(segment, handler);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Abre un segmento nuevo y arranca el hilo escritor. A partir de aquí las mutaciones se registran.
+     */
+    public synchronized void open() {
+        if (!enabled || open) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            List<Path> segments = listSegments();
+            segmentNumber = segments.isEmpty() ? 1 : segmentNumber(segments.get(segments.size() - 1)) + 1;
+            channel = FileChannel.open(segmentPath(segmentNumber), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open write-ahead log in " + directory, e);
+        }
+        writer = new Thread(this::writeLoop, "fleet-wal-writer");
+        writer.setDaemon(true);
+        open = true;
+        writer.start();
+    }
+
+    /**
+     * Cierra el segmento actual, con fsync, y empieza uno nuevo. Todo registro anotado antes de la llamada queda
+     * en un segmento anterior al devuelto o en el propio segmento devuelto, nunca después.
+     *
+     * @return el número del segmento nuevo
+     * @throws IOException si no se puede cerrar el segmento actual o crear el nuevo
+     */
+    public long rollSegment() throws IOException {
+        synchronized (channelLock) {
+            if (!open) {
+                throw new IllegalStateException("Write-ahead log is not open");
+            }
+            if (unavailable != null) {
+                throw new IOException("Write-ahead log is unavailable", unavailable);
+            }
+            channel.force(false);
+            channel.close();
+            segmentNumber++;
+            channel = FileChannel.open(segmentPath(segmentNumber), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            return segmentNumber;
+        }
+    }
+
+    /**
+     * Borra los segmentos anteriores al número dado, una vez que una instantánea los cubre.
+     *
+     * @param segment el número del primer segmento que se conserva
+     * @throws IOException si no se puede borrar algún segmento
+     */
+    public void deleteSegmentsBefore(long segment) throws IOException {
+        for (Path path : listSegments()) {
+            if (segmentNumber(path) < segment) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    public void logPutVehicle(AbstractVehicle vehicle) {
+        append(preparePutVehicle(vehicle));
+    }  // Registra el alta, reemplazo o actualización de un vehículo.
+
+    PreparedRecord preparePutVehicle(AbstractVehicle vehicle) {
+        return prepare(PUT_VEHICLE, out -> FleetBinaryCodec.writeVehicle(out, vehicle));
+    }  // Codifica el alta, reemplazo o actualización de un vehículo, con su estado en este momento.
+
+    public void logDeleteVehicle(String licensePlate) {
+        append(prepareDeleteVehicle(licensePlate));
+    }  // Registra la eliminación de un vehículo.
+
+    PreparedRecord prepareDeleteVehicle(String licensePlate) {
+        return prepare(DELETE_VEHICLE, out -> FleetBinaryCodec.writeString(out, licensePlate));
+    }  // Codifica la eliminación de un vehículo.
+
+    public void logAvailability(String licensePlate, boolean available, long version) {
+        append(prepareAvailability(licensePlate, available, version));
+    }  // Registra un cambio de disponibilidad hecho por un administrador.
+
+    PreparedRecord prepareAvailability(String licensePlate, boolean available, long version) {
+        return prepare(SET_AVAILABILITY, out -> {
+            FleetBinaryCodec.writeString(out, licensePlate);
+            out.writeBoolean(available);
+            out.writeLong(version);
+        });
+    }  // Codifica un cambio de disponibilidad hecho por un administrador.
+
+    public void logRent(String licensePlate, long version, String login, long epochMillis, double dailyRate) {
+        append(prepareRent(licensePlate, version, login, epochMillis, dailyRate));
+    }  // Registra un alquiler con la versión de disponibilidad que produjo y el valor diario que se cobra.
+
+    PreparedRecord prepareRent(String licensePlate, long version, String login, long epochMillis, double dailyRate) {
+        return prepare(RENT_PRICED, out -> {
+            FleetBinaryCodec.writeString(out, licensePlate);
+            out.writeLong(version);
+            FleetBinaryCodec.writeString(out, login);
+            out.writeLong(epochMillis);
+            out.writeDouble(dailyRate);
+        });
+    }  // Codifica un alquiler con la versión de disponibilidad que produjo y el valor diario que se cobra.
+
+    public void logReturn(String licensePlate, long version, long epochMillis) {
+        append(prepareReturn(licensePlate, version, epochMillis));
+    }  // Registra una devolución con la versión de disponibilidad que produjo.
+
+    PreparedRecord prepareReturn(String licensePlate, long version, long epochMillis) {
+        return prepare(RETURN, out -> {
+            FleetBinaryCodec.writeString(out, licensePlate);
+            out.writeLong(version);
+            out.writeLong(epochMillis);
+        });
+    }  // Codifica una devolución con la versión de disponibilidad que produjo.
+
+    public void logRentBatch(List<String> licensePlates, long[] versions, double[] dailyRates, String login, long epochMillis) {
+        append(RENT_BATCH_PRICED, out -> {
+            FleetBinaryCodec.writeString(out, login);
+            out.writeLong(epochMillis);
+            out.writeInt(licensePlates.size());
+            for (int i = 0; i < licensePlates.size(); i++) {
+                FleetBinaryCodec.writeString(out, licensePlates.get(i));
+                out.writeLong(versions[i]);
+                out.writeDouble(dailyRates[i]);
+            }
+        });
+    }  // Registra en un solo registro el alquiler de varios vehículos, con la versión y el valor diario de cada uno.
+
+    public void logReturnBatch(List<String> licensePlates, long[] versions, long epochMillis) {
+        append(RETURN_BATCH, out -> {
+            out.writeLong(epochMillis);
+            out.writeInt(licensePlates.size());
+            for (int i = 0; i < licensePlates.size(); i++) {
+                FleetBinaryCodec.writeString(out, licensePlates.get(i));
+                out.writeLong(versions[i]);
+            }
+        });
+    }  // Registra en un solo registro la devolución de varios vehículos.
+
+    public void logPutUser(User user) {
+        append(PUT_USER, out -> FleetBinaryCodec.writeUser(out, user));
+    }  // Registra el alta de un usuario.
+
+    public void logReserve(String reservationId, String licensePlate, String login, long pickupMillis, long dropOffMillis) {
+        append(RESERVE, out -> {
+            FleetBinaryCodec.writeString(out, reservationId);
+            FleetBinaryCodec.writeString(out, licensePlate);
+            FleetBinaryCodec.writeString(out, login);
+            out.writeLong(pickupMillis);
+            out.writeLong(dropOffMillis);
+        });
+    }  // Registra una reserva con su periodo.
+
+    public void logCancelReservation(String reservationId) {
+        append(CANCEL_RESERVATION, out -> FleetBinaryCodec.writeString(out, reservationId));
+    }  // Registra la cancelación de una reserva.
+
+    /**
+     * Codifica un registro y lo encola para el hilo escritor, sin esperar.
+     *
+     * @throws UncheckedIOException si el registro no puede escribir desde un fallo anterior
+     */
+    private void append(byte type, RecordWriter body) {
+        append(prepare(type, body));
+    }
+
+    /**
+     * Encola un registro preparado para el hilo escritor, sin esperar. No falla: los fallos se detectaron al prepararlo.
+     * Con sync-commit activado, el registro queda pendiente para el próximo {@link #awaitDurable()} de este hilo.
+     *
+     * @param prepared el registro, o null si el registro no estaba activo al prepararlo
+     */
+    void append(PreparedRecord prepared) {
+        if (prepared == null) {
+            return;
+        }
+        PendingRecord pending = new PendingRecord(prepared.data, syncCommit ? new CompletableFuture<>() : null);
+        queue.add(pending);
+        if (pending.durable != null) {
+            unawaited.get().add(pending.durable);
+        }
+    }
+
+    /**
+     * Codifica un registro sin encolarlo.
+     *
+     * @return el registro, o null si el registro no está activo
+     * @throws UncheckedIOException si el registro no puede escribir desde un fallo anterior
+     */
+    private PreparedRecord prepare(byte type, RecordWriter body) {
+        if (!open) {
+            return null;  // Registro desactivado, o reproducción en curso
+        }
+        IOException failure = unavailable;
+        if (failure != null) {
+            throw new UncheckedIOException("Write-ahead log is unavailable", failure);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(0);  // Longitud, se completa abajo
+            out.writeInt(0);  // crc32, se completa abajo
+            out.writeByte(type);
+            body.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);  // No ocurre al escribir en memoria
+        }
+        byte[] record = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(record, HEADER_BYTES, record.length - HEADER_BYTES);
+        ByteBuffer header = ByteBuffer.wrap(record, 0, HEADER_BYTES);
+        header.putInt(record.length - HEADER_BYTES);
+        header.putInt((int) crc.getValue());
+        return new PreparedRecord(record);
+    }
+
+    /**
+     * Bucle del hilo escritor: agrupa los registros pendientes, los escribe de una vez y hace fsync por lotes.
+     * Si una escritura o un fsync fallan, los registros afectados fallan y el escritor pasa a un segmento nuevo.
+     */
+    private void writeLoop() {
+        List<PendingRecord> batch = new ArrayList<>();
+        List<PendingRecord> awaitingSync = new ArrayList<>();
+        long lastSync = System.nanoTime();
+        while (true) {
+            try {
+                if (unavailable != null && !resume()) {
+                    // Sin segmento donde escribir: los registros que ya estaban en la cola fallan hasta poder abrir uno
+                    PendingRecord first = queue.poll(RETRY_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first != null) {
+                        batch.add(first);
+                        queue.drainTo(batch);
+                        fail(batch, unavailable);
+                    }
+                    if (closing && queue.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+                long waitMillis = awaitingSync.isEmpty() ? 100
+                        : Math.max(0, fsyncIntervalMillis - (System.nanoTime() - lastSync) / 1_000_000);
+                PendingRecord first = queue.poll(waitMillis, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch);
+                    synchronized (channelLock) {
+                        writeBatch(batch);
+                    }
+                    recordsWritten += batch.size();
+                    awaitingSync.addAll(batch);
+                    batch.clear();
+                }
+                boolean intervalElapsed = (System.nanoTime() - lastSync) / 1_000_000 >= fsyncIntervalMillis;
+                if (!awaitingSync.isEmpty() && (awaitingSync.size() >= fsyncBatchSize || intervalElapsed || closing)) {
+                    synchronized (channelLock) {
+                        channel.force(false);  // Si entretanto cambió el segmento, el anterior ya se sincronizó al cerrarse
+                    }
+                    lastSync = System.nanoTime();
+                    for (PendingRecord record : awaitingSync) {
+                        if (record.durable != null) {
+                            record.durable.complete(null);
+                        }
+                    }
+                    awaitingSync.clear();
+                }
+                if (closing && awaitingSync.isEmpty() && queue.isEmpty()) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                closing = true;
+            } catch (IOException e) {
+                // Ni el lote a medio escribir ni los que esperaban su fsync se pueden dar por escritos
+                System.out.println("Write-ahead log write failed: " + e.getMessage());
+                unavailable = e;
+                fail(batch, e);
+                fail(awaitingSync, e);
+            }
+        }
+    }
+
+    /**
+     * Hace fallar los registros de una lista, cuenta los perdidos y vacía la lista.
+     */
+    private void fail(List<PendingRecord> records, IOException cause) {
+        for (PendingRecord record : records) {
+            if (record.durable != null) {
+                record.durable.completeExceptionally(cause);
+            }
+        }
+        recordsFailed += records.size();
+        records.clear();
+    }
+
+    /**
+     * Tras un fallo, cierra el segmento actual y abre el siguiente. Si lo consigue, avisa a los interesados para que vuelvan
+     * a guardar lo que se perdió.
+     *
+     * @return si el registro puede volver a escribir
+     */
+    private boolean resume() {
+        synchronized (channelLock) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // El segmento fallido ya no se usa; lo que tenga se reproduce hasta el último registro completo
+            }
+            try {
+                channel = FileChannel.open(segmentPath(segmentNumber + 1), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                segmentNumber++;
+            } catch (IOException e) {
+                unavailable = e;
+                return false;
+            }
+            unavailable = null;
+        }
+        System.out.println("Write-ahead log resumed in segment " + segmentNumber);
+        for (Runnable listener : resumeListeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                System.out.println("Write-ahead log resume listener failed: " + e.getMessage());  // El escritor sigue
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Escribe un lote entero. Si la escritura falla a medias, recorta el segmento hasta donde empezaba el lote, para que
+     * la reproducción no aplique registros de los que se avisó que fallaron.
+     */
+    private void writeBatch(List<PendingRecord> batch) throws IOException {
+        ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            buffers[i] = ByteBuffer.wrap(batch.get(i).data);
+        }
+        long remaining = 0;
+        for (ByteBuffer buffer : buffers) {
+            remaining += buffer.remaining();
+        }
+        long start = channel.position();
+        try {
+            while (remaining > 0) {
+                remaining -= channel.write(buffers);  // Una sola escritura agrupada para todo el lote
+            }
+        } catch (IOException e) {
+            try {
+                channel.truncate(start);
+            } catch (IOException ignored) {
+                // Si no se puede recortar, la reproducción se detiene igualmente en el primer registro incompleto
+            }
+            throw e;
+        }
+    }
+
+    private long replaySegment(Path segment, Handler handler) {
+        long records = 0;
+        try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer data = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            CRC32 crc = new CRC32();
+            while (data.remaining() >= HEADER_BYTES) {
+                int length = data.getInt();
+                int checksum = data.getInt();
+                if (length <= 0 || length > data.remaining()) {
+                    break;  // Registro incompleto al final del segmento
+                }
+                ByteBuffer record = data.slice(data.position(), length);
+                crc.reset();
+                crc.update(record.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    break;  // Registro dañado: se descarta el resto del segmento
+                }
+                data.position(data.position() + length);
+                apply(record, handler);
+                records++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not replay write-ahead log segment " + segment, e);
+        }
+        return records;
+    }
+
+    private static void apply(ByteBuffer record, Handler handler) {
+        byte type = record.get();
+        switch (type) {
+            case PUT_VEHICLE -> handler.onPutVehicle(FleetBinaryCodec.readVehicle(record));
+            case DELETE_VEHICLE -> handler.onDeleteVehicle(FleetBinaryCodec.readString(record));
+            case SET_AVAILABILITY -> handler.onAvailability(FleetBinaryCodec.readString(record), record.get() != 0, record.getLong());
+            case RENT -> handler.onRent(FleetBinaryCodec.readString(record), record.getLong(), FleetBinaryCodec.readString(record),
+                    record.getLong(), 0);  // Sin valor diario: se cobra con el valor de alquiler del vehículo
+            case RENT_PRICED -> handler.onRent(FleetBinaryCodec.readString(record), record.getLong(), FleetBinaryCodec.readString(record),
+                    record.getLong(), record.getDouble());
+            case RETURN -> handler.onReturn(FleetBinaryCodec.readString(record), record.getLong(), record.getLong());
+            case PUT_USER -> handler.onPutUser(FleetBinaryCodec.readUser(record));
+            case RESERVE -> handler.onReserve(FleetBinaryCodec.readString(record), FleetBinaryCodec.readString(record),
+                    FleetBinaryCodec.readString(record), record.getLong(), record.getLong());
+            case CANCEL_RESERVATION -> handler.onCancelReservation(FleetBinaryCodec.readString(record));
+            case RENT_BATCH, RENT_BATCH_PRICED -> {
+                // Un lote se reproduce como sus alquileres sueltos: el crc32 ya garantiza que el registro está entero
+                String login = FleetBinaryCodec.readString(record);
+                long epochMillis = record.getLong();
+                for (int i = record.getInt(); i > 0; i--) {
+                    handler.onRent(FleetBinaryCodec.readString(record), record.getLong(), login, epochMillis,
+                            type == RENT_BATCH_PRICED ? record.getDouble() : 0);
+                }
+            }
+            case RETURN_BATCH -> {
+                long epochMillis = record.getLong();
+                for (int i = record.getInt(); i > 0; i--) {
+                    handler.onReturn(FleetBinaryCodec.readString(record), record.getLong(), epochMillis);
+                }
+            }
+            default -> throw new IllegalStateException("Unknown write-ahead log record type: " + type);
+        }
+    }
+
+    private List<Path> listSegments() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()  // El número de segmento lleva ceros a la izquierda, así que el orden alfabético es el cronológico
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list write-ahead log segments in " + directory, e);
+        }
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Vacía los registros pendientes, hace fsync y cierra el segmento al detener la aplicación.
+     */
+    @PreDestroy
+    public synchronized void close() {
+        if (!open) {
+            return;
+        }
+        closing = true;
+        try {
+            writer.join();
+            synchronized (channelLock) {
+                channel.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.out.println("Write-ahead log close failed: " + e.getMessage());
+        }
+        open = false;
+    }
+
+    /**
+     * Recibe los registros durante la reproducción del registro.
+     */
+    public interface Handler {
+        void onPutVehicle(AbstractVehicle vehicle);
+
+        void onDeleteVehicle(String licensePlate);
+
+        void onAvailability(String licensePlate, boolean available, long version);
+
+        void onRent(String licensePlate, long version, String login, long epochMillis, double dailyRate);
+
+        void onReturn(String licensePlate, long version, long epochMillis);
+
+        void onPutUser(User user);
+
+        void onReserve(String reservationId, String licensePlate, String login, long pickupMillis, long dropOffMillis);
+
+        void onCancelReservation(String reservationId);
+    }
+
+    @FunctionalInterface
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Registro codificado que todavía no se encoló.
+     */
+    record PreparedRecord(byte[] data) {
+    }
+
+    /**
+     * Registro codificado a la espera de ser escrito; durable se completa tras el fsync si sync-commit está activo.
+     */
+    private record PendingRecord(byte[] data, CompletableFuture<Void> durable) {
+    }
+}
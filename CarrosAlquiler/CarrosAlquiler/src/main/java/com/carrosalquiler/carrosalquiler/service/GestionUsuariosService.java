@@ -1,85 +1,124 @@
-package com.carrosalquiler.carrosalquiler.service;
-
-import com.carrosalquiler.carrosalquiler.models.User;
-import org.springframework.stereotype.Service;
-
-import java.util.ArrayList;
-import java.util.List;
-
-/**
- * GestionUsuariosService es una clase de servicio que gestiona las operaciones relacionadas con los usuarios.
- * Incluye métodos para el registro de usuarios, validación, creación de restricciones, listar todos los usuarios,
- * recuperar un usuario por su login y verificar los roles de usuario.
- */
-@Service
-public class GestionUsuariosService {
-    private final List<User> userList;  // Lista de usuarios registrados
-
-    /**
-     * Constructor para inicializar el GestionUsuariosService.
-     * Inicializa la lista de usuarios.
-     */
-    public GestionUsuariosService() {
-        this.userList = new ArrayList<>();  // Inicializa la lista de usuarios como una lista vacía
-    }
-
-    /**
-     * Registra un nuevo usuario agregándolo a la lista de usuarios.
-     *
-     * @param user el usuario que se va a registrar
-     */
-    public void registerUser(User user) {
-        userList.add(user);  // Agrega el usuario a la lista de usuarios
-        System.out.println("User registered: " + user.getName());  // Imprime un mensaje confirmando que el usuario ha sido registrado
-    }
-
-    /**
-     * Valida a un usuario verificando su login y contraseña.
-     *
-     * @param login el nombre de usuario para el login
-     * @param passwd la contraseña del usuario
-     * @return true si el usuario es validado correctamente, false en caso contrario
-     */
-    public boolean validateUser(String login, String passwd) {
-        for (User user : userList) {
-            if (user.getLogin().equals(login) && user.getPasswd().equals(passwd)) {
-                return true;  // Si el login y la contraseña coinciden, retorna verdadero
-            }
-        }
-        return false;  // Si no se encuentra un usuario con las credenciales correctas, retorna falso
-    }
-
-    /**
-     * Crea restricciones para un usuario basado en su edad y condiciones de visión o audición.
-     * (La implementación se puede agregar según los requisitos específicos)
-     *
-     * @param user el usuario para el cual se deben crear restricciones
-     */
-    public void createRestrictions(User user) {
-        // Lógica para crear restricciones basadas en la edad y condiciones de visión o audición
-    }
-
-    /**
-     * Lista todos los usuarios registrados.
-     *
-     * @return una lista de todos los usuarios registrados
-     */
-    public List<User> listAllUsers() {
-        return new ArrayList<>(userList);  // Devuelve una nueva lista con todos los usuarios registrados
-    }
-
-    /**
-     * Recupera un usuario por su nombre de usuario (login).
-     *
-     * @param login el nombre de usuario para el login
-     * @return el usuario con el nombre de usuario especificado, o null si no se encuentra
-     */
-    public User getUserByLogin(String login) {
-        for (User user : userList) {
-            if (user.getLogin().equals(login)) {
-                return user;  // Retorna el usuario que coincide con el login
-            }
-        }
-        return null;  // Si no se encuentra el usuario, retorna null
-    }
-}
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * GestionUsuariosService es una clase de servicio que gestiona las operaciones relacionadas con los usuarios.
+ * Incluye métodos para el registro de usuarios, validación, creación de restricciones, listar todos los usuarios,
+ * recuperar un usuario por su login y verificar los roles de usuario.
+ */
+@Service
+public class GestionUsuariosService {
+    // Lista de usuarios registrados. Las altas son raras y las lecturas, como la copia de una instantánea, llegan desde
+    // otros hilos, así que se copia al escribir y se recorre sin bloqueos
+    private final List<User> userList;
+    // Usuarios por login; si un login se registró varias veces, el primero, igual que al recorrer la lista
+    private final Map<String, User> usersByLogin = new ConcurrentHashMap<>();
+    private final FleetWriteAheadLog wal;  // Registro donde se anotan los usuarios para reconstruirlos al reiniciar
+
+    /**
+     * Constructor para inicializar el GestionUsuariosService.
+     * Inicializa la lista de usuarios.
+     */
+    public GestionUsuariosService() {
+        this(new FleetWriteAheadLog());
+    }
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param wal el registro de escritura anticipada donde se anotan los usuarios registrados
+     */
+    @Autowired
+    public GestionUsuariosService(FleetWriteAheadLog wal) {
+        this.userList = new CopyOnWriteArrayList<>();  // Inicializa la lista de usuarios como una lista vacía
+        this.wal = wal;
+    }
+
+    /**
+     * Registra un nuevo usuario agregándolo a la lista de usuarios.
+     * La contraseña se reemplaza por su hash antes de guardarla o anotarla en el registro.
+     *
+     * @param user el usuario que se va a registrar
+     */
+    public void registerUser(User user) {
+        user.setPasswd(PasswordHasher.hash(user.getPasswd()));
+        wal.logPutUser(user);  // Primero el registro: si falla, el usuario no queda a medias
+        add(user);  // Agrega el usuario a la lista de usuarios
+        wal.awaitDurable();
+        System.out.println("User registered: " + user.getName());  // Imprime un mensaje confirmando que el usuario ha sido registrado
+    }
+
+    /**
+     * Restaura un usuario al reproducir el registro de escritura anticipada o al cargar una instantánea.
+     * La contraseña guardada ya es un hash y se conserva; si es de antes de guardar hashes, se calcula ahora.
+     *
+     * @param user el usuario restaurado
+     */
+    public void restoreUser(User user) {
+        if (!PasswordHasher.isHashed(user.getPasswd())) {
+            user.setPasswd(PasswordHasher.hash(user.getPasswd()));
+        }
+        add(user);
+    }
+
+    private void add(User user) {
+        userList.add(user);
+        if (user.getLogin() != null) {
+            usersByLogin.putIfAbsent(user.getLogin(), user);
+        }
+    }
+
+    /**
+     * Valida a un usuario verificando su login y contraseña contra el hash guardado.
+     *
+     * @param login el nombre de usuario para el login
+     * @param passwd la contraseña del usuario
+     * @return true si el usuario es validado correctamente, false en caso contrario
+     */
+    public boolean validateUser(String login, String passwd) {
+        for (User user : userList) {
+            if (login != null && login.equals(user.getLogin()) && PasswordHasher.matches(passwd, user.getPasswd())) {
+                return true;  // Si el login y la contraseña coinciden, retorna verdadero
+            }
+        }
+        return false;  // Si no se encuentra un usuario con las credenciales correctas, retorna falso
+    }
+
+    /**
+     * Crea restricciones para un usuario basado en su edad y condiciones de visión o audición.
+     * (La implementación se puede agregar según los requisitos específicos)
+     *
+     * @param user el usuario para el cual se deben crear restricciones
+     */
+    public void createRestrictions(User user) {
+        // Lógica para crear restricciones basadas en la edad y condiciones de visión o audición
+    }
+
+    /**
+     * Lista todos los usuarios registrados.
+     *
+     * @return una lista de todos los usuarios registrados
+     */
+    public List<User> listAllUsers() {
+        return new ArrayList<>(userList);  // Devuelve una nueva lista con todos los usuarios registrados
+    }
+
+    /**
+     * Recupera un usuario por su nombre de usuario (login).
+     *
+     * @param login el nombre de usuario para el login
+     * @return el usuario con el nombre de usuario especificado, o null si no se encuentra
+     */
+    public User getUserByLogin(String login) {
+        return login == null ? null : usersByLogin.get(login);  // Búsqueda O(1); null si no se encuentra
+    }
+}
@@ -1,190 +1,1364 @@
-package com.carrosalquiler.carrosalquiler.service;
-
-import com.carrosalquiler.carrosalquiler.models.*;
-import org.springframework.stereotype.Service;
-
-import java.io.File;
-import java.util.ArrayList;
-import java.util.List;
-
-/**
- * GestionVehiculoService es una clase de servicio que gestiona las operaciones relacionadas con los vehículos.
- * Incluye métodos para registrar, actualizar disponibilidad, validar condiciones, listar por tipo, actualizar, eliminar, alquilar, devolver,
- * generar informes de uso, cargar en masa desde un archivo y listar vehículos disponibles.
- */
-@Service
-public class GestionVehiculoService {
-    private final List<AbstractVehicle> vehiculos = new ArrayList<>();  // Lista de vehículos registrados
-
-    /**
-     * Registra un nuevo vehículo agregándolo a la lista.
-     *
-     * @param vehiculo el vehículo que se va a registrar
-     */
-    public void registerVehicle(AbstractVehicle vehiculo) {
-        vehiculos.add(vehiculo);  // Agrega el vehículo a la lista
-    }
-
-    /**
-     * Actualiza el estado de disponibilidad de un vehículo.
-     *
-     * @param licensePlate la matrícula del vehículo
-     * @param isAvailable el nuevo estado de disponibilidad
-     */
-    public void updateVehicleAvailability(String licensePlate, boolean isAvailable) {
-        for (AbstractVehicle vehiculo : vehiculos) {
-            if (vehiculo.getLicensePlate().equals(licensePlate)) {
-                vehiculo.setAvailable(isAvailable);  // Actualiza la disponibilidad del vehículo
-                return;
-            }
-        }
-    }
-
-    /**
-     * Valida las condiciones de un vehículo.
-     *
-     * @param licensePlate la matrícula del vehículo
-     * @param conditions las condiciones a validar
-     * @return true si las condiciones son validadas, false en caso contrario
-     */
-    public boolean validateVehicleConditions(String licensePlate, String conditions) {
-        for (AbstractVehicle vehiculo : vehiculos) {
-            if (vehiculo.getLicensePlate().equals(licensePlate)) {
-                // Lógica para validar las condiciones
-                // Se pueden comparar las condiciones recibidas con las esperadas
-                return true; // o false dependiendo de la validación
-            }
-        }
-        return false;  // Retorna false si no se encuentra el vehículo
-    }
-
-    /**
-     * Lista los vehículos filtrados por tipo y disponibilidad.
-     *
-     * @param vehicleType el tipo de vehículo para filtrar
-     * @return una lista de vehículos filtrados
-     */
-    public List<AbstractVehicle> listVehiclesByType(Class<? extends AbstractVehicle> vehicleType) {
-        List<AbstractVehicle> filteredVehicles = new ArrayList<>();
-        for (AbstractVehicle vehiculo : vehiculos) {
-            if (vehicleType.isInstance(vehiculo) && vehiculo.isAvailable()) {
-                filteredVehicles.add(vehiculo);  // Agrega vehículos disponibles del tipo especificado
-            }
-        }
-        return filteredVehicles;  // Retorna la lista de vehículos filtrados
-    }
-
-    /**
-     * Actualiza los detalles de un vehículo.
-     *
-     * @param licensePlate la matrícula del vehículo a actualizar
-     * @param updatedVehiculo los nuevos detalles del vehículo
-     */
-    public void updateVehicle(String licensePlate, AbstractVehicle updatedVehiculo) {
-        for (int i = 0; i < vehiculos.size(); i++) {
-            if (vehiculos.get(i).getLicensePlate().equals(licensePlate)) {
-                vehiculos.set(i, updatedVehiculo);  // Reemplaza el vehículo viejo por el actualizado
-                return;
-            }
-        }
-    }
-
-    /**
-     * Elimina un vehículo por su matrícula.
-     *
-     * @param licensePlate la matrícula del vehículo a eliminar
-     */
-    public void deleteVehicle(String licensePlate) {
-        vehiculos.removeIf(vehiculo -> vehiculo.getLicensePlate().equals(licensePlate));  // Elimina el vehículo de la lista si coincide la matrícula
-    }
-
-    /**
-     * Lista todos los vehículos registrados.
-     *
-     * @return una lista de todos los vehículos
-     */
-    public List<AbstractVehicle> listAllVehicles() {
-        return new ArrayList<>(vehiculos);  // Retorna una nueva lista con todos los vehículos
-    }
-
-    /**
-     * Alquila un vehículo a un usuario.
-     *
-     * @param licensePlate la matrícula del vehículo a alquilar
-     * @param user el usuario que alquila el vehículo
-     * @return true si el vehículo se alquila con éxito, false en caso contrario
-     */
-    public boolean rentVehicle(String licensePlate, User user) {
-        for (AbstractVehicle vehiculo : vehiculos) {
-            if (vehiculo.getLicensePlate().equals(licensePlate) && vehiculo.isAvailable()) {
-                vehiculo.setAvailable(false);  // Marca el vehículo como no disponible
-                // Lógica adicional para registrar el alquiler
-                return true;
-            }
-        }
-        return false;  // Retorna false si el vehículo no está disponible
-    }
-
-    /**
-     * Devuelve un vehículo alquilado.
-     *
-     * @param licensePlate la matrícula del vehículo a devolver
-     * @return true si el vehículo se devuelve con éxito, false en caso contrario
-     */
-    public boolean returnVehicle(String licensePlate) {
-        for (AbstractVehicle vehiculo : vehiculos) {
-            if (vehiculo.getLicensePlate().equals(licensePlate) && !vehiculo.isAvailable()) {
-                vehiculo.setAvailable(true);  // Marca el vehículo como disponible nuevamente
-                // Lógica adicional para registrar la devolución
-                return true;
-            }
-        }
-        return false;  // Retorna false si el vehículo no estaba alquilado
-    }
-
-    /**
-     * Genera un informe de uso de los vehículos.
-     *
-     * @param startDate la fecha de inicio del informe
-     * @param endDate la fecha de fin del informe
-     * @return el informe de uso como una cadena de texto
-     */
-    public String generateUsageReport(String startDate, String endDate) {
-        // Lógica para generar el informe de uso
-        return "Usage report from " + startDate + " to " + endDate;  // Retorna un informe de uso simple
-    }
-
-    /**
-     * Carga vehículos en masa desde un archivo CSV.
-     *
-     * @param csvFile el archivo CSV que contiene los datos de los vehículos
-     */
-    public void bulkUploadVehicles(File csvFile) {
-        // Lógica para leer y procesar el archivo CSV
-    }
-
-    /**
-     * Lista todos los vehículos disponibles.
-     *
-     * @return una lista de vehículos disponibles
-     */
-    public List<AbstractVehicle> listAvailableVehicles() {
-        List<AbstractVehicle> availableVehicles = new ArrayList<>();
-        for (AbstractVehicle vehiculo : vehiculos) {
-            if (vehiculo.isAvailable()) {
-                availableVehicles.add(vehiculo);  // Agrega el vehículo a la lista si está disponible
-            }
-        }
-        return availableVehicles;  // Retorna la lista de vehículos disponibles
-    }
-    // Método para obtener vehículos de un color específico
-    public List<AbstractVehicle> getVehiclesByColor(String color, Iterable<? extends AbstractVehicle> vehicleList) {
-        List<AbstractVehicle> filteredVehicles = new ArrayList<>();
-        for (AbstractVehicle vehicle : vehicleList) {
-            if (vehicle.getColor().equalsIgnoreCase(color)) {
-                filteredVehicles.add(vehicle);
-            }
-        }
-        return filteredVehicles;
-    }
-}
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleBiFunction;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.StreamSupport;
+
+/**
+ * GestionVehiculoService es una clase de servicio que gestiona las operaciones relacionadas con los vehículos.
+ * Incluye métodos para registrar, actualizar disponibilidad, validar condiciones, listar por tipo, actualizar, eliminar, alquilar, devolver,
+ * generar informes de uso, cargar en masa desde un archivo y listar vehículos disponibles.
+ */
+@Service
+public class GestionVehiculoService {
+    public static final int MAX_BATCH_SIZE = 1000;  // Máximo de vehículos en un alquiler o una devolución por lotes
+
+    // Índice primario de vehículos registrados, indexado por matrícula.
+    // ConcurrentHashMap permite búsquedas O(1) y es seguro con varios hilos de Tomcat atendiendo peticiones a la vez.
+    private final Map<String, AbstractVehicle> vehiculos = new ConcurrentHashMap<>();
+    // Vista inmutable de la flota ordenada por matrícula. Los lectores toman la vista actual y la recorren sin bloqueos ni copias;
+    // quien escribe publica una vista nueva que comparte casi toda su estructura con la anterior.
+    private final AtomicReference<FleetView> fleetView = new AtomicReference<>(FleetView.EMPTY);
+    // Vehículos y alquilados por tipo, eléctrico y color, para los precios según la ocupación; los mantiene el índice de disponibilidad
+    private final VehicleUtilizationCounters utilization = new VehicleUtilizationCounters();
+    // Índice secundario con un mapa de bits de disponibilidad por tipo de vehículo
+    private final VehicleAvailabilityIndex availabilityIndex = new VehicleAvailabilityIndex(utilization);
+    // Índice secundario de vehículos por color, sin distinguir mayúsculas de minúsculas
+    private final VehicleColorIndex colorIndex = new VehicleColorIndex();
+    // Ocupación por días de las reservas, por tipo de vehículo, para buscar vehículos libres en un periodo
+    private final VehicleOccupancyIndex occupancyIndex = new VehicleOccupancyIndex();
+    // Índices por atributo para las búsquedas con varios criterios, con índices ordenados de kilómetros y valor de alquiler
+    private final VehicleSearchIndex searchIndex = new VehicleSearchIndex();
+    // Reordena un vehículo en los índices cuando sus kilómetros, valor de alquiler, color o si es eléctrico cambian sobre el mismo objeto
+    private final VehicleChangeListener changeListener = this::reindexValues;
+    // Registro de escritura anticipada donde se anotan las mutaciones para reconstruir la flota al reiniciar
+    private final FleetWriteAheadLog wal;
+    // Libro de alquileres: quién tiene cada vehículo alquilado y el historial de alquileres cerrados
+    private final RentalLedgerService ledger;
+    // Reservas futuras de cada vehículo
+    private final ReservationService reservations;
+    // Informes de uso ya calculados; el libro de alquileres invalida los de los días que cambian
+    private final UsageReportCache usageReports;
+    // Valor diario que se fija al alquilar un vehículo; DynamicPricingService le aplica el multiplicador por ocupación
+    private volatile ToDoubleFunction<AbstractVehicle> rentalRates = AbstractVehicle::getRentalValue;
+    // Versión de la flota: aumenta con cada alta, baja, actualización o cambio de disponibilidad
+    private final AtomicLong fleetVersion = new AtomicLong();
+    // Versión de cada tipo de vehículo, que solo aumenta cuando cambia un vehículo de ese tipo
+    private final Map<Class<?>, AtomicLong> typeVersions = new ConcurrentHashMap<>();
+    // Distingue las versiones de cada arranque, porque los contadores vuelven a empezar al reiniciar
+    private final String versionEpoch = Long.toString(System.currentTimeMillis(), 36);
+
+    /**
+     * Constructor sin registro de escritura anticipada: la flota y los alquileres solo viven en memoria.
+     */
+    public GestionVehiculoService() {
+        this(new FleetWriteAheadLog(), new RentalLedgerService(), new ReservationService(), new UsageReportCache());
+    }
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param wal el registro de escritura anticipada donde se anotan las mutaciones
+     * @param ledger el libro de alquileres donde se registran los alquileres y devoluciones
+     * @param reservations las reservas futuras de los vehículos
+     * @param usageReports la caché de informes de uso
+     */
+    @Autowired
+    public GestionVehiculoService(FleetWriteAheadLog wal, RentalLedgerService ledger, ReservationService reservations,
+                                  UsageReportCache usageReports) {
+        this.wal = wal;
+        this.ledger = ledger;
+        this.reservations = reservations;
+        this.usageReports = usageReports;
+        ledger.addUsageListener(usageReports::invalidate);
+    }
+
+    /**
+     * Registra un nuevo vehículo agregándolo al índice por matrícula.
+     * Si ya existe un vehículo con la misma matrícula, se reemplaza y el nuevo conserva la disponibilidad y la versión
+     * del anterior, igual que en updateVehicle: un vehículo alquilado sigue alquilado y no se puede volver a alquilar.
+     *
+     * @param vehiculo el vehículo que se va a registrar
+     * @throws IllegalArgumentException si el vehículo no tiene matrícula
+     */
+    public void registerVehicle(AbstractVehicle vehiculo) {
+        putVehicle(vehiculo);
+        wal.awaitDurable();  // Fuera de compute: el fsync no retiene el bloqueo de la matrícula
+    }
+
+    /**
+     * Registra un vehículo sin esperar a que su registro esté en disco.
+     */
+    private void putVehicle(AbstractVehicle vehiculo) {
+        if (vehiculo == null || vehiculo.getLicensePlate() == null) {
+            throw new IllegalArgumentException("A license plate is required to register a vehicle.");
+        }
+        // compute serializa los cambios sobre una misma matrícula, así los índices secundarios no se desordenan
+        whenUnclaimed(vehiculo.getLicensePlate(), (plate, previous) -> {
+            if (previous != null && previous.availabilityVersion() >= vehiculo.availabilityVersion()) {
+                // Al reproducir el registro el vehículo ya trae su versión; solo se hereda si la del anterior no es menor
+                vehiculo.inheritAvailability(previous);  // Antes del registro, que guarda la disponibilidad
+            }
+            // Se prepara antes de tocar nada, así un registro que no puede escribir aborta compute sin cambios, y se
+            // encola dentro de compute después del cambio, así el orden en el registro es el mismo que en el índice
+            FleetWriteAheadLog.PreparedRecord record = wal.preparePutVehicle(vehiculo);
+            replaceVehicle(plate, previous, vehiculo);
+            wal.append(record);
+            return vehiculo;  // Agrega el vehículo al índice
+        });
+    }
+
+    /**
+     * Publica un vehículo en lugar del anterior de su matrícula y pone al día los índices. Se llama dentro de compute.
+     *
+     * @param plate la matrícula
+     * @param previous el vehículo anterior, o null si no había
+     * @param vehiculo el vehículo nuevo
+     */
+    private void replaceVehicle(String plate, AbstractVehicle previous, AbstractVehicle vehiculo) {
+        publish(plate, vehiculo);
+        if (previous != null) {
+            unindexVehicle(previous);
+        }
+        indexVehicle(vehiculo);
+        if (previous == null || previous.getClass() != vehiculo.getClass()) {
+            usageReports.invalidateAll();  // Cambió el número de vehículos de un tipo, que reparte la utilización
+        }
+    }
+
+    /**
+     * Registra un lote de vehículos.
+     *
+     * @param batch los vehículos que se van a registrar
+     */
+    public void registerVehicles(List<? extends AbstractVehicle> batch) {
+        for (AbstractVehicle vehiculo : batch) {
+            putVehicle(vehiculo);
+        }
+        wal.awaitDurable();  // Un solo fsync esperado para todo el lote
+    }
+
+    /**
+     * Busca un vehículo por su matrícula en tiempo constante.
+     *
+     * @param licensePlate la matrícula del vehículo
+     * @return el vehículo encontrado, o null si no existe
+     */
+    public AbstractVehicle getVehicle(String licensePlate) {
+        return licensePlate == null ? null : vehiculos.get(licensePlate);  // ConcurrentHashMap no admite claves nulas
+    }
+
+    /**
+     * Actualiza el estado de disponibilidad de un vehículo.
+     *
+     * @param licensePlate la matrícula del vehículo
+     * @param isAvailable el nuevo estado de disponibilidad
+     */
+    public void updateVehicleAvailability(String licensePlate, boolean isAvailable) {
+        while (true) {
+            AbstractVehicle vehiculo = getVehicle(licensePlate);
+            if (vehiculo == null) {
+                return;
+            }
+            if (!vehiculo.claimAny()) {
+                Thread.yield();  // Lo tiene tomado un alquiler, una devolución o un lote, que lo suelta al terminar
+                continue;
+            }
+            // Dentro de computeIfPresent, para que el registro no quede detrás del alta de un vehículo que reemplazó a este,
+            // lo que al reproducir aplicaría el cambio al vehículo equivocado
+            Boolean updated = finishClaim(licensePlate, vehiculo, current -> {
+                long version = current.availabilityVersion() + 1;
+                FleetWriteAheadLog.PreparedRecord record = wal.prepareAvailability(licensePlate, isAvailable, version);
+                current.completeClaim(isAvailable);  // Actualiza la disponibilidad del vehículo
+                refreshAvailability(current);
+                wal.append(record);  // Después del cambio, todavía dentro de computeIfPresent
+                return true;
+            });
+            wal.awaitDurable();
+            if (updated != null) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Restaura la disponibilidad de un vehículo al reproducir el registro de escritura anticipada.
+     * El cambio solo se aplica si su versión es más nueva que la actual, así que repetir un registro no tiene efecto.
+     *
+     * @param licensePlate la matrícula del vehículo
+     * @param isAvailable el estado de disponibilidad registrado
+     * @param version la versión de disponibilidad registrada
+     */
+    public void restoreAvailability(String licensePlate, boolean isAvailable, long version) {
+        AbstractVehicle vehiculo = getVehicle(licensePlate);
+        if (vehiculo != null && vehiculo.applyAvailability(isAvailable, version)) {
+            refreshAvailability(vehiculo);
+        }
+    }
+
+    /**
+     * Valida las condiciones de un vehículo.
+     *
+     * @param licensePlate la matrícula del vehículo
+     * @param conditions las condiciones a validar
+     * @return true si las condiciones son validadas, false en caso contrario
+     */
+    public boolean validateVehicleConditions(String licensePlate, String conditions) {
+        AbstractVehicle vehiculo = getVehicle(licensePlate);
+        if (vehiculo != null) {
+            // Lógica para validar las condiciones
+            // Se pueden comparar las condiciones recibidas con las esperadas
+            return true; // o false dependiendo de la validación
+        }
+        return false;  // Retorna false si no se encuentra el vehículo
+    }
+
+    /**
+     * Lista los vehículos filtrados por tipo y disponibilidad.
+     *
+     * @param vehicleType el tipo de vehículo para filtrar
+     * @return una lista de vehículos filtrados
+     */
+    public List<AbstractVehicle> listVehiclesByType(Class<? extends AbstractVehicle> vehicleType) {
+        return availabilityIndex.listAvailable(vehicleType);  // Recorre solo los bits encendidos del tipo especificado
+    }
+
+    /**
+     * Cuenta los vehículos disponibles de un tipo sin recorrer la flota.
+     *
+     * @param vehicleType el tipo de vehículo
+     * @return el número de vehículos disponibles de ese tipo
+     */
+    public int countAvailableVehicles(Class<? extends AbstractVehicle> vehicleType) {
+        return availabilityIndex.countAvailable(vehicleType);
+    }
+
+    /**
+     * Cuenta los vehículos disponibles agrupados por tipo.
+     *
+     * @return un mapa de nombre de tipo a número de vehículos disponibles
+     */
+    public Map<String, Integer> countAvailableVehiclesByType() {
+        return availabilityIndex.countAvailableByType();
+    }
+
+    /**
+     * Devuelve la versión actual de los listados de un tipo de vehículo. Cambia siempre que cambia algún vehículo del tipo,
+     * así que sirve como ETag: si dos lecturas devuelven la misma versión, el listado no cambió entre ellas.
+     * Debe leerse antes de armar el listado, nunca después.
+     *
+     * @param vehicleType el tipo de vehículo, o AbstractVehicle.class para toda la flota
+     * @return la versión, única también entre reinicios
+     */
+    public String getListingVersion(Class<? extends AbstractVehicle> vehicleType) {
+        long version;
+        if (vehicleType == AbstractVehicle.class) {
+            version = fleetVersion.get();
+        } else {
+            AtomicLong typeVersion = typeVersions.get(vehicleType);
+            version = typeVersion == null ? 0 : typeVersion.get();
+        }
+        return versionEpoch + "-" + version;
+    }
+
+    /**
+     * Actualiza los detalles de un vehículo. El vehículo actualizado conserva la disponibilidad y la versión del anterior,
+     * así un vehículo alquilado sigue alquilado y los cambios registrados después se aplican en orden al reiniciar.
+     *
+     * Si cambia la matrícula, el vehículo pasa a la nueva y se da de baja la anterior. No se permite si está alquilado
+     * o tiene reservas, porque el alquiler activo y las reservas están guardados con la matrícula anterior; el historial
+     * de alquileres cerrados se queda con la matrícula anterior.
+     *
+     * @param licensePlate la matrícula del vehículo a actualizar
+     * @param updatedVehiculo los nuevos detalles del vehículo
+     * @throws IllegalStateException si cambia la matrícula y el vehículo está alquilado, tiene reservas, o la nueva matrícula ya existe
+     */
+    public void updateVehicle(String licensePlate, AbstractVehicle updatedVehiculo) {
+        if (licensePlate == null) {
+            return;
+        }
+        String newPlate = updatedVehiculo.getLicensePlate();
+        if (newPlate == null || newPlate.equals(licensePlate)) {
+            updatedVehiculo.setLicensePlate(licensePlate);
+            whenUnclaimed(licensePlate, (plate, previous) -> {
+                if (previous == null) {
+                    return null;
+                }
+                updatedVehiculo.inheritAvailability(previous);  // Antes del registro, que guarda la disponibilidad
+                FleetWriteAheadLog.PreparedRecord record = wal.preparePutVehicle(updatedVehiculo);
+                replaceVehicle(plate, previous, updatedVehiculo);
+                wal.append(record);
+                return updatedVehiculo;  // Reemplaza el vehículo viejo por el actualizado
+            });
+        } else {
+            changePlate(licensePlate, updatedVehiculo);
+        }
+        wal.awaitDurable();
+    }
+
+    /**
+     * Pasa un vehículo a otra matrícula. El vehículo anterior se toma mientras dura el cambio, así nadie lo alquila
+     * ni lo reserva entre la comprobación y la baja.
+     */
+    private void changePlate(String licensePlate, AbstractVehicle updatedVehiculo) {
+        while (true) {
+            AbstractVehicle previous = getVehicle(licensePlate);
+            if (previous == null) {
+                return;
+            }
+            if (!previous.claimAny()) {
+                Thread.yield();  // Lo tiene tomado un alquiler, una devolución o un lote, que lo suelta al terminar
+                continue;
+            }
+            try {
+                if (getVehicle(licensePlate) != previous) {
+                    continue;  // Lo reemplazaron antes de tomarlo: se vuelve a empezar con el nuevo
+                }
+                if (ledger.getActiveRental(licensePlate) != null) {
+                    throw new IllegalStateException("Vehicle " + licensePlate + " is rented and cannot change its license plate.");
+                }
+                if (!reservations.listReservations(licensePlate, System.currentTimeMillis()).isEmpty()) {
+                    throw new IllegalStateException("Vehicle " + licensePlate + " has reservations and cannot change its license plate.");
+                }
+                boolean[] exists = new boolean[1];
+                whenUnclaimed(updatedVehiculo.getLicensePlate(), (plate, current) -> {
+                    if (current != null) {
+                        exists[0] = true;
+                        return current;
+                    }
+                    updatedVehiculo.inheritAvailability(previous);
+                    FleetWriteAheadLog.PreparedRecord record = wal.preparePutVehicle(updatedVehiculo);
+                    publish(plate, updatedVehiculo);
+                    indexVehicle(updatedVehiculo);
+                    wal.append(record);
+                    return updatedVehiculo;
+                });
+                if (exists[0]) {
+                    throw new IllegalStateException("A vehicle with license plate " + updatedVehiculo.getLicensePlate() + " already exists.");
+                }
+                // El vehículo anterior sigue tomado por este hilo, así que se quita directamente en lugar de esperar a que se suelte
+                vehiculos.computeIfPresent(licensePlate, (plate, current) -> {
+                    if (current != previous) {
+                        return current;
+                    }
+                    FleetWriteAheadLog.PreparedRecord record = wal.prepareDeleteVehicle(licensePlate);
+                    removeVehicle(plate, current);  // Como en una baja: una reserva hecha durante el cambio ya no se puede cumplir
+                    wal.append(record);
+                    return null;
+                });
+                return;
+            } finally {
+                previous.releaseClaim();
+            }
+        }
+    }
+
+    /**
+     * Elimina un vehículo por su matrícula.
+     *
+     * @param licensePlate la matrícula del vehículo a eliminar
+     */
+    public void deleteVehicle(String licensePlate) {
+        if (licensePlate != null) {
+            whenUnclaimed(licensePlate, (plate, previous) -> {
+                if (previous == null) {
+                    return null;
+                }
+                FleetWriteAheadLog.PreparedRecord record = wal.prepareDeleteVehicle(licensePlate);
+                removeVehicle(plate, previous);
+                wal.append(record);
+                return null;  // Elimina el vehículo del índice si coincide la matrícula
+            });
+            wal.awaitDurable();
+        }
+    }
+
+    /**
+     * Quita un vehículo de la vista y de los índices. Se llama dentro de compute.
+     * Sus reservas también se quitan, porque las de un vehículo dado de baja ya no se pueden cumplir.
+     *
+     * @param plate la matrícula
+     * @param vehiculo el vehículo que se quita
+     */
+    private void removeVehicle(String plate, AbstractVehicle vehiculo) {
+        publish(plate, null);
+        unindexVehicle(vehiculo);
+        reservations.removeAll(plate);
+        usageReports.invalidateAll();
+    }
+
+    /**
+     * Lista todos los vehículos registrados, en orden de matrícula.
+     * La lista es la vista inmutable actual de la flota, no una copia: no cambia aunque la flota cambie después.
+     *
+     * @return una lista inmutable de todos los vehículos
+     */
+    public List<AbstractVehicle> listAllVehicles() {
+        return fleetView.get().asList();
+    }
+
+    /**
+     * Cuenta los vehículos registrados en tiempo constante.
+     *
+     * @return el número de vehículos de la flota
+     */
+    public int countVehicles() {
+        return fleetView.get().size();
+    }
+
+    /**
+     * Lista una página de vehículos en orden de matrícula, empezando después del cursor.
+     *
+     * @param cursor la matrícula del último vehículo de la página anterior, o null para empezar desde el principio
+     * @param limit el número máximo de vehículos de la página
+     * @return la página con los vehículos y el cursor de la siguiente
+     */
+    public VehiclePage listVehiclesPage(String cursor, int limit) {
+        return page(cursor, limit, false);
+    }
+
+    /**
+     * Lista una página de vehículos disponibles en orden de matrícula, empezando después del cursor.
+     *
+     * @param cursor la matrícula del último vehículo de la página anterior, o null para empezar desde el principio
+     * @param limit el número máximo de vehículos de la página
+     * @return la página con los vehículos disponibles y el cursor de la siguiente
+     */
+    public VehiclePage listAvailableVehiclesPage(String cursor, int limit) {
+        return page(cursor, limit, true);
+    }
+
+    /**
+     * Recorre todos los vehículos en orden de matrícula sin copiarlos a una lista.
+     * El recorrido es sobre la vista de la flota al momento de la llamada; las altas y bajas posteriores no lo afectan.
+     *
+     * @return un iterable sobre los vehículos
+     */
+    public Iterable<AbstractVehicle> iterateAllVehicles() {
+        return fleetView.get();
+    }
+
+    /**
+     * Devuelve los contadores de vehículos y alquilados por grupo, actualizados con cada alta, baja, alquiler y devolución.
+     */
+    VehicleUtilizationCounters utilizationCounters() {
+        return utilization;
+    }
+
+    /**
+     * Establece cómo se calcula el valor diario que un alquiler fija al empezar, el mismo que usan los presupuestos.
+     *
+     * @param rentalRates el valor diario de un vehículo en este momento
+     */
+    void useRentalRates(ToDoubleFunction<AbstractVehicle> rentalRates) {
+        this.rentalRates = rentalRates;
+    }
+
+    /**
+     * Recorre los vehículos disponibles en orden de matrícula sin copiarlos a una lista.
+     *
+     * @return un iterable sobre los vehículos disponibles
+     */
+    public Iterable<AbstractVehicle> iterateAvailableVehicles() {
+        FleetView view = fleetView.get();
+        return () -> StreamSupport.stream(view.spliterator(), false).filter(AbstractVehicle::isAvailable).iterator();
+    }
+
+    /**
+     * Arma una página recorriendo el índice ordenado desde el cursor.
+     */
+    private VehiclePage page(String cursor, int limit, boolean onlyAvailable) {
+        List<AbstractVehicle> vehicles = new ArrayList<>(Math.min(limit, 1024));
+        Iterator<AbstractVehicle> iterator = fleetView.get().iteratorAfter(cursor);
+        while (iterator.hasNext()) {
+            AbstractVehicle vehiculo = iterator.next();
+            if (onlyAvailable && !vehiculo.isAvailable()) {
+                continue;
+            }
+            if (vehicles.size() == limit) {
+                // Hay al menos un vehículo más: la página siguiente empieza después del último devuelto
+                return new VehiclePage(vehicles, vehicles.get(limit - 1).getLicensePlate());
+            }
+            vehicles.add(vehiculo);
+        }
+        return new VehiclePage(vehicles, null);
+    }
+
+    /**
+     * Alquila un vehículo a un usuario y registra el alquiler en el libro de alquileres.
+     * Si el vehículo está reservado en este momento, solo puede alquilarlo el usuario de la reserva.
+     *
+     * El vehículo se toma con un único compare-and-set fuera de cualquier bloqueo: si varios clientes alquilan el mismo
+     * vehículo a la vez, solo uno lo toma y los demás fallan enseguida, sin esperar al bloqueo de la matrícula ni al registro.
+     * Quien lo toma abre el alquiler en el libro y el índice dentro de computeIfPresent y solo después encola su registro,
+     * así queda en el mismo orden que los demás cambios de la matrícula y nunca se anota un alquiler que no ocurrió;
+     * espera al fsync después de soltar el bloqueo.
+     *
+     * @param licensePlate la matrícula del vehículo a alquilar
+     * @param user el usuario que alquila el vehículo
+     * @return true si el vehículo se alquila con éxito, false en caso contrario
+     */
+    public boolean rentVehicle(String licensePlate, User user) {
+        while (true) {
+            AbstractVehicle vehiculo = getVehicle(licensePlate);
+            if (vehiculo == null || !vehiculo.claim(true)) {
+                return false;  // Retorna false si el vehículo no está disponible, sin esperar a nadie
+            }
+            Boolean rented = finishClaim(licensePlate, vehiculo, current -> {
+                long now = System.currentTimeMillis();
+                Reservation reservation = reservations.reservationAt(licensePlate, now);
+                if (reservation != null && (user == null || !reservation.getUserLogin().equals(user.getLogin()))) {
+                    return false;  // El vehículo está reservado para otro usuario durante este periodo
+                }
+                long version = current.availabilityVersion() + 1;  // La que dejará completeClaim
+                double dailyRate = rentalRates.applyAsDouble(current);  // Con la ocupación de antes del alquiler, como el presupuesto
+                // Si el registro no puede escribir, falla aquí y el vehículo se suelta sin cambios
+                FleetWriteAheadLog.PreparedRecord record =
+                        wal.prepareRent(licensePlate, version, user == null ? null : user.getLogin(), now, dailyRate);
+                ledger.open(current, user, version, now, dailyRate);
+                current.completeClaim(false);
+                refreshAvailability(current);
+                wal.append(record);  // Solo cuando el alquiler ya está en el libro y el índice
+                return true;
+            });
+            wal.awaitDurable();  // Después de soltar la matrícula, para que el fsync no bloquee a quien la use después
+            if (rented != null) {
+                return rented;
+            }
+            // Otro vehículo ocupó la matrícula entre la lectura y la toma: se intenta con el nuevo
+        }
+    }
+
+    /**
+     * Devuelve un vehículo alquilado y pasa su alquiler al historial. Como el alquiler, toma el vehículo con un único
+     * compare-and-set y completa la devolución dentro de computeIfPresent.
+     *
+     * @param licensePlate la matrícula del vehículo a devolver
+     * @return true si el vehículo se devuelve con éxito, false en caso contrario
+     */
+    public boolean returnVehicle(String licensePlate) {
+        while (true) {
+            AbstractVehicle vehiculo = getVehicle(licensePlate);
+            if (vehiculo == null || !vehiculo.claim(false)) {
+                return false;  // Retorna false si el vehículo no estaba alquilado
+            }
+            Boolean returned = finishClaim(licensePlate, vehiculo, current -> {
+                long version = current.availabilityVersion() + 1;
+                long now = System.currentTimeMillis();
+                FleetWriteAheadLog.PreparedRecord record = wal.prepareReturn(licensePlate, version, now);
+                ledger.close(licensePlate, version, now);  // O(1): el alquiler activo se busca por matrícula
+                current.completeClaim(true);  // Marca el vehículo como disponible nuevamente
+                refreshAvailability(current);
+                wal.append(record);
+                return true;
+            });
+            wal.awaitDurable();
+            if (returned != null) {
+                return returned;
+            }
+        }
+    }
+
+    /**
+     * Termina, dentro de computeIfPresent, una operación sobre un vehículo que este hilo tomó. La operación devuelve true
+     * si confirmó el cambio con completeClaim, y después de confirmarlo no debe fallar. Si no lo confirma, si falla o si
+     * la matrícula ya tiene otro vehículo, el vehículo se suelta sin cambiar.
+     *
+     * @param licensePlate la matrícula
+     * @param vehiculo el vehículo tomado
+     * @param operation la operación, que recibe el vehículo
+     * @return el resultado de la operación, o null si el vehículo ya no estaba registrado con esa matrícula
+     */
+    private Boolean finishClaim(String licensePlate, AbstractVehicle vehiculo, Predicate<AbstractVehicle> operation) {
+        Boolean[] result = new Boolean[1];
+        try {
+            vehiculos.computeIfPresent(licensePlate, (plate, current) -> {
+                if (current == vehiculo) {
+                    result[0] = operation.test(current);
+                }
+                return current;
+            });
+        } finally {
+            if (!Boolean.TRUE.equals(result[0])) {
+                vehiculo.releaseClaim();  // Una vez confirmado ya no es de este hilo: otro pudo tomarlo
+            }
+        }
+        return result[0];
+    }
+
+    /**
+     * Aplica un cambio de una matrícula dentro de compute cuando su vehículo no está tomado. Un vehículo tomado no se
+     * reemplaza ni se quita, porque un lote pudo anotar ya su alquiler o devolución; quien lo tomó necesita el bloqueo
+     * de la matrícula para terminar, así que la espera se hace fuera de él.
+     *
+     * @param licensePlate la matrícula
+     * @param change el cambio, que recibe la matrícula y el vehículo actual o null, y devuelve el nuevo o null
+     */
+    private void whenUnclaimed(String licensePlate, BiFunction<String, AbstractVehicle, AbstractVehicle> change) {
+        boolean[] claimed = new boolean[1];
+        do {
+            claimed[0] = false;
+            vehiculos.compute(licensePlate, (plate, current) -> {
+                if (current != null && current.isClaimed()) {
+                    claimed[0] = true;
+                    return current;
+                }
+                return change.apply(plate, current);
+            });
+            if (claimed[0]) {
+                Thread.yield();
+            }
+        } while (claimed[0]);
+    }
+
+    /**
+     * Alquila varios vehículos a un usuario de una vez: o se alquilan todos o no se alquila ninguno.
+     *
+     * Primero se toma cada vehículo en orden de matrícula con el mismo compare-and-set que un alquiler suelto, sin tocar
+     * el libro ni el registro. Quien encuentra un vehículo ocupado no espera: suelta lo que tomó y falla, así que dos lotes
+     * que se solapan no pueden bloquearse entre sí, y el orden fijo hace que uno de los dos termine. Si se tomaron todos,
+     * el lote se anota en un solo registro, que al reiniciar se reproduce entero o no se reproduce, y se abre cada alquiler.
+     * Soltar un vehículo tomado no cambia su disponibilidad ni su versión, así que deshacer el lote no anota nada.
+     *
+     * @param licensePlates las matrículas de los vehículos; las repetidas cuentan una vez
+     * @param user el usuario que alquila los vehículos
+     * @return el resultado del lote, con las matrículas que lo impidieron si falló
+     * @throws IllegalArgumentException si no hay matrículas, alguna está vacía o son más de MAX_BATCH_SIZE
+     */
+    public BatchRentalResult rentVehicles(List<String> licensePlates, User user) {
+        List<String> plates = batchPlates(licensePlates);
+        String login = user == null ? null : user.getLogin();
+        long now = System.currentTimeMillis();
+        Map<String, String> unavailable = new TreeMap<>();
+        List<String> claimed = new ArrayList<>(plates.size());
+        List<AbstractVehicle> claimedVehicles = new ArrayList<>(plates.size());
+        long[] versions = new long[plates.size()];
+        double[] dailyRates = new double[plates.size()];
+        for (String licensePlate : plates) {
+            if (!unavailable.isEmpty()) {
+                // El lote ya falló: solo se comprueban las demás matrículas para informar de todas las que lo impiden
+                AbstractVehicle vehiculo = vehiculos.get(licensePlate);
+                String reason = vehiculo == null ? "not found" : rentBlocker(licensePlate, vehiculo, login, now);
+                if (reason != null) {
+                    unavailable.put(licensePlate, reason);
+                }
+                continue;
+            }
+            String[] reason = {"not found"};
+            // Dentro de computeIfPresent, así se toma el vehículo que está registrado con la matrícula
+            vehiculos.computeIfPresent(licensePlate, (plate, current) -> {
+                reason[0] = rentBlocker(plate, current, login, now);
+                if (reason[0] == null) {
+                    if (current.claim(true)) {
+                        versions[claimed.size()] = current.availabilityVersion() + 1;
+                        dailyRates[claimed.size()] = rentalRates.applyAsDouble(current);
+                        claimed.add(plate);
+                        claimedVehicles.add(current);
+                    } else {
+                        reason[0] = "not available";
+                    }
+                }
+                return current;
+            });
+            if (reason[0] != null) {
+                unavailable.put(licensePlate, reason[0]);
+            }
+        }
+        if (!unavailable.isEmpty()) {
+            claimedVehicles.forEach(AbstractVehicle::releaseClaim);
+            return new BatchRentalResult(false, List.of(), unavailable);
+        }
+        // El registro se escribe antes de abrir los alquileres y de soltar los vehículos: ninguna operación sobre ellos
+        // puede anotarse antes que el lote, y si el registro falla el lote se deshace como si un vehículo no estuviera libre
+        try {
+            wal.logRentBatch(claimed, versions, dailyRates, login, now);
+        } catch (RuntimeException e) {
+            claimedVehicles.forEach(AbstractVehicle::releaseClaim);
+            throw e;
+        }
+        for (int i = 0; i < claimed.size(); i++) {
+            AbstractVehicle vehiculo = claimedVehicles.get(i);
+            long version = versions[i];
+            double dailyRate = dailyRates[i];
+            // Un vehículo tomado no se puede reemplazar ni quitar, así que sigue registrado con su matrícula
+            vehiculos.computeIfPresent(claimed.get(i), (plate, current) -> {
+                ledger.open(vehiculo, user, version, now, dailyRate);
+                vehiculo.completeClaim(false);
+                refreshAvailability(vehiculo);
+                return current;
+            });
+        }
+        wal.awaitDurable();
+        return new BatchRentalResult(true, claimed, Map.of());
+    }
+
+    /**
+     * Devuelve varios vehículos alquilados de una vez: o se devuelven todos o no se devuelve ninguno.
+     * Primero se toman todos los vehículos comprobando que siguen alquilados; si alguno no lo está, se sueltan sin cambiar nada.
+     * Después el lote se anota en un solo registro y se devuelve cada vehículo.
+     *
+     * @param licensePlates las matrículas de los vehículos; las repetidas cuentan una vez
+     * @return el resultado del lote, con las matrículas que lo impidieron si falló
+     * @throws IllegalArgumentException si no hay matrículas, alguna está vacía o son más de MAX_BATCH_SIZE
+     */
+    public BatchRentalResult returnVehicles(List<String> licensePlates) {
+        List<String> plates = batchPlates(licensePlates);
+        Map<String, String> unavailable = new TreeMap<>();
+        List<String> claimed = new ArrayList<>(plates.size());
+        List<AbstractVehicle> claimedVehicles = new ArrayList<>(plates.size());
+        long[] versions = new long[plates.size()];
+        for (String licensePlate : plates) {
+            String[] reason = {"not found"};
+            vehiculos.computeIfPresent(licensePlate, (plate, current) -> {
+                reason[0] = current.isClaimed() ? "in another operation" : current.isAvailable() ? "not rented" : null;
+                if (reason[0] == null && unavailable.isEmpty()) {
+                    if (current.claim(false)) {
+                        versions[claimed.size()] = current.availabilityVersion() + 1;
+                        claimed.add(plate);
+                        claimedVehicles.add(current);
+                    } else {
+                        reason[0] = "in another operation";
+                    }
+                }
+                return current;
+            });
+            if (reason[0] != null) {
+                unavailable.put(licensePlate, reason[0]);
+            }
+        }
+        if (!unavailable.isEmpty()) {
+            claimedVehicles.forEach(AbstractVehicle::releaseClaim);
+            return new BatchRentalResult(false, List.of(), unavailable);
+        }
+        long now = System.currentTimeMillis();
+        try {
+            wal.logReturnBatch(claimed, versions, now);
+        } catch (RuntimeException e) {
+            claimedVehicles.forEach(AbstractVehicle::releaseClaim);
+            throw e;
+        }
+        for (int i = 0; i < claimed.size(); i++) {
+            AbstractVehicle vehiculo = claimedVehicles.get(i);
+            long version = versions[i];
+            vehiculos.computeIfPresent(claimed.get(i), (plate, current) -> {
+                ledger.close(plate, version, now);
+                vehiculo.completeClaim(true);
+                refreshAvailability(vehiculo);
+                return current;
+            });
+        }
+        wal.awaitDurable();
+        return new BatchRentalResult(true, claimed, Map.of());
+    }
+
+    /**
+     * Comprueba y ordena las matrículas de un lote. El orden de matrícula es el orden en que se toman los vehículos.
+     */
+    private static List<String> batchPlates(List<String> licensePlates) {
+        if (licensePlates == null || licensePlates.isEmpty()) {
+            throw new IllegalArgumentException("At least one license plate is required");
+        }
+        TreeSet<String> plates = new TreeSet<>();
+        for (String plate : licensePlates) {
+            if (plate == null || plate.isBlank()) {
+                throw new IllegalArgumentException("License plates cannot be empty");
+            }
+            plates.add(plate);
+        }
+        if (plates.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("A batch cannot have more than " + MAX_BATCH_SIZE + " vehicles");
+        }
+        return new ArrayList<>(plates);
+    }
+
+    /**
+     * Devuelve por qué un usuario no puede alquilar ahora un vehículo, o null si puede.
+     */
+    private String rentBlocker(String plate, AbstractVehicle vehiculo, String login, long now) {
+        if (vehiculo.isClaimed()) {
+            return "in another operation";
+        }
+        if (!vehiculo.isAvailable()) {
+            return "not available";
+        }
+        Reservation reservation = reservations.reservationAt(plate, now);
+        if (reservation != null && (login == null || !reservation.getUserLogin().equals(login))) {
+            return "reserved by another user";
+        }
+        return null;
+    }
+
+    /**
+     * Restaura un alquiler al reproducir el registro de escritura anticipada: la disponibilidad y el libro de alquileres.
+     *
+     * @param licensePlate la matrícula del vehículo
+     * @param version la versión de disponibilidad registrada
+     * @param user el usuario que alquiló el vehículo, o null si no se conoce
+     * @param epochMillis el instante del alquiler
+     * @param dailyRate el valor diario fijado al alquilar, o 0 si el registro no lo tiene
+     */
+    public void restoreRent(String licensePlate, long version, User user, long epochMillis, double dailyRate) {
+        restoreAvailability(licensePlate, false, version);
+        AbstractVehicle vehiculo = getVehicle(licensePlate);
+        if (vehiculo != null) {
+            ledger.open(vehiculo, user, version, epochMillis, dailyRate);  // Si el alquiler ya estaba en el libro, no se duplica
+        }
+    }
+
+    /**
+     * Restaura una devolución al reproducir el registro de escritura anticipada.
+     *
+     * @param licensePlate la matrícula del vehículo
+     * @param version la versión de disponibilidad registrada
+     * @param epochMillis el instante de la devolución
+     */
+    public void restoreReturn(String licensePlate, long version, long epochMillis) {
+        restoreAvailability(licensePlate, true, version);
+        ledger.close(licensePlate, version, epochMillis);
+    }
+
+    /**
+     * Reserva un vehículo para un periodo futuro. La comprobación de solapamiento y el alta se hacen dentro de computeIfPresent,
+     * igual que los alquileres: así la reserva se anota en el registro en el mismo orden en que se aplicó, y no se puede
+     * reservar un vehículo que se está dando de baja.
+     *
+     * @param licensePlate la matrícula del vehículo
+     * @param login el inicio de sesión del usuario que reserva
+     * @param pickupDate la fecha y hora de recogida
+     * @param dropOffDate la fecha y hora de entrega
+     * @return la reserva creada, o null si el vehículo no existe o ya está reservado en parte de ese periodo
+     * @throws IllegalArgumentException si falta el usuario o el periodo no es válido
+     */
+    public Reservation reserveVehicle(String licensePlate, String login, LocalDateTime pickupDate, LocalDateTime dropOffDate) {
+        if (login == null || login.isBlank()) {
+            throw new IllegalArgumentException("A user login is required to reserve a vehicle.");
+        }
+        if (pickupDate == null || dropOffDate == null) {
+            throw new IllegalArgumentException("pickup and dropOff are required.");
+        }
+        long pickupMillis = RentalLedgerService.toEpochMillis(pickupDate);
+        long dropOffMillis = RentalLedgerService.toEpochMillis(dropOffDate);
+        long now = System.currentTimeMillis();
+        if (pickupMillis >= dropOffMillis) {
+            throw new IllegalArgumentException("pickup must be before dropOff.");
+        }
+        if (pickupMillis < now) {
+            throw new IllegalArgumentException("pickup must not be in the past.");
+        }
+        if (licensePlate == null) {
+            return null;
+        }
+        Reservation[] created = new Reservation[1];
+        vehiculos.computeIfPresent(licensePlate, (plate, current) -> {
+            created[0] = reservations.reserve(plate, login, pickupMillis, dropOffMillis, now);
+            if (created[0] != null) {
+                try {
+                    wal.logReserve(created[0].getId(), plate, login, pickupMillis, dropOffMillis);
+                } catch (RuntimeException e) {
+                    reservations.cancel(created[0].getId());  // Sin registro no hay reserva
+                    throw e;
+                }
+                refreshOccupancy(current, pickupMillis, dropOffMillis);
+            }
+            return current;
+        });
+        wal.awaitDurable();
+        return created[0];
+    }
+
+    /**
+     * Cancela una reserva.
+     *
+     * @param reservationId el identificador de la reserva
+     * @return true si la reserva se cancela, false si no existía
+     */
+    public boolean cancelReservation(String reservationId) {
+        Reservation reservation = reservations.getReservation(reservationId);
+        if (reservation == null) {
+            return false;
+        }
+        boolean[] cancelled = new boolean[1];
+        // Dentro del compute de la matrícula, para que en el registro la cancelación quede antes de cualquier reserva
+        // que ocupe después el mismo periodo
+        vehiculos.computeIfPresent(reservation.getLicensePlate(), (plate, current) -> {
+            if (reservations.getReservation(reservationId) != null) {
+                wal.logCancelReservation(reservationId);  // Antes de cancelar: si falla, la reserva sigue
+                if (reservations.cancel(reservationId) != null) {
+                    refreshOccupancy(current, RentalLedgerService.toEpochMillis(reservation.getPickupDate()),
+                            RentalLedgerService.toEpochMillis(reservation.getDropOffDate()));
+                    cancelled[0] = true;
+                }
+            }
+            return current;
+        });
+        wal.awaitDurable();
+        return cancelled[0];
+    }
+
+    /**
+     * Busca una reserva por su identificador.
+     *
+     * @param reservationId el identificador de la reserva
+     * @return la reserva, o null si no existe o ya se descartó
+     */
+    public Reservation getReservation(String reservationId) {
+        return reservations.getReservation(reservationId);
+    }
+
+    /**
+     * Lista las reservas de un vehículo que aún no han terminado, ordenadas por fecha de recogida.
+     *
+     * @param licensePlate la matrícula del vehículo
+     * @return una lista con las reservas
+     */
+    public List<Reservation> listReservations(String licensePlate) {
+        return reservations.listReservations(licensePlate, System.currentTimeMillis());
+    }
+
+    /**
+     * Lista las reservas de un usuario sobre un vehículo que aún no han terminado, ordenadas por fecha de recogida.
+     *
+     * @param licensePlate la matrícula del vehículo
+     * @param login el inicio de sesión del usuario
+     * @return una lista con las reservas del usuario; las de otros usuarios no aparecen
+     */
+    public List<Reservation> listReservations(String licensePlate, String login) {
+        List<Reservation> own = reservations.listReservations(licensePlate, System.currentTimeMillis());
+        own.removeIf(reservation -> !reservation.getUserLogin().equals(login));
+        return own;
+    }
+
+    /**
+     * Restaura una reserva al reproducir el registro de escritura anticipada o al cargar una instantánea.
+     * Si la reserva ya estaba, o si ya terminó, no tiene efecto.
+     *
+     * @param reservationId el identificador de la reserva
+     * @param licensePlate la matrícula del vehículo
+     * @param login el inicio de sesión del usuario que reservó
+     * @param pickupMillis el instante de recogida
+     * @param dropOffMillis el instante de entrega
+     */
+    public void restoreReservation(String reservationId, String licensePlate, String login, long pickupMillis, long dropOffMillis) {
+        if (licensePlate == null) {
+            return;
+        }
+        vehiculos.computeIfPresent(licensePlate, (plate, current) -> {
+            reservations.restore(new Reservation(reservationId, plate, login, RentalLedgerService.toDateTime(pickupMillis),
+                    RentalLedgerService.toDateTime(dropOffMillis)), System.currentTimeMillis());
+            refreshOccupancy(current, pickupMillis, dropOffMillis);
+            return current;
+        });
+    }
+
+    /**
+     * Busca los vehículos sin reservas en un periodo, por ejemplo las furgonetas libres de viernes a lunes.
+     * Usa el índice de ocupación por días, así que la mayoría de vehículos se descartan o se aceptan sin mirar sus reservas;
+     * solo los que tienen reservas parciales en esos días se comprueban contra su libro de reservas.
+     * Los alquileres en curso no tienen fecha de devolución, así que no se tienen en cuenta.
+     *
+     * @param type el tipo de vehículo (car, truck, van o motorcycle), o null para todos
+     * @param from el inicio del periodo
+     * @param to el fin del periodo, excluido
+     * @param limit el número máximo de vehículos que se devuelven
+     * @return el total de vehículos libres, los primeros hasta el límite y el plan usado
+     * @throws IllegalArgumentException si el tipo no existe o el periodo no es válido
+     */
+    public VehicleSearchResult findVehiclesFreeBetween(String type, LocalDateTime from, LocalDateTime to, int limit) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("from and to are required.");
+        }
+        long fromMillis = RentalLedgerService.toEpochMillis(from);
+        long toMillis = RentalLedgerService.toEpochMillis(to);
+        return occupancyIndex.findFree(type, fromMillis, toMillis,
+                vehiculo -> reservations.isFree(vehiculo.getLicensePlate(), fromMillis, toMillis), limit);
+    }
+
+    /**
+     * Genera un informe de uso de los vehículos entre dos fechas, ambas incluidas, sumando los contadores diarios del libro de alquileres.
+     * Los alquileres cuentan el día en que empiezan y los ingresos el día en que se devuelve el vehículo; los alquileres activos
+     * suman días alquilados hasta ahora, pero aún no ingresos. La utilización de cada tipo divide sus días alquilados entre los días
+     * del informe por los vehículos de ese tipo que hay ahora en la flota.
+     * El informe se guarda en la caché de informes hasta que un alquiler o una devolución cambie alguno de sus días.
+     *
+     * @param startDate el primer día del informe
+     * @param endDate el último día del informe, incluido
+     * @param byVehicle true para añadir las cifras de cada vehículo
+     * @return el informe de uso
+     * @throws IllegalArgumentException si faltan las fechas o el inicio es posterior al fin
+     */
+    public UsageReport generateUsageReport(LocalDate startDate, LocalDate endDate, boolean byVehicle) {
+        if (startDate == null || endDate == null) {
+            throw new IllegalArgumentException("startDate and endDate are required.");
+        }
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("startDate must not be after endDate.");
+        }
+        long firstDay = startDate.toEpochDay();
+        long lastDay = endDate.toEpochDay();
+        double days = lastDay - firstDay + 1;
+        long now = System.currentTimeMillis();
+        UsageReport cached = usageReports.get(firstDay, lastDay, byVehicle, now);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = usageReports.stamp();  // Antes de leer los contadores: si cambian mientras tanto, el informe no se guarda
+
+        Map<String, VehicleUsageCounters.Totals> usageByType = ledger.usageByType(firstDay, lastDay, now);
+        Map<String, UsageStats> byType = new LinkedHashMap<>();
+        VehicleUsageCounters.Totals total = new VehicleUsageCounters.Totals();
+        int fleetSize = 0;
+        for (String type : VehicleSearchIndex.TYPE_NAMES) {
+            VehicleUsageCounters.Totals sum = usageByType.getOrDefault(type, new VehicleUsageCounters.Totals());
+            int vehicles = availabilityIndex.countTotal(vehicleClass(type));
+            byType.put(type, toUsageStats(sum, days * vehicles));
+            total.rentals += sum.rentals;
+            total.rentedMillis += sum.rentedMillis;
+            total.revenue += sum.revenue;
+            fleetSize += vehicles;
+        }
+
+        Map<String, UsageStats> vehicles = null;
+        if (byVehicle) {
+            Map<String, VehicleUsageCounters.Totals> usageByVehicle = ledger.usageByVehicle(firstDay, lastDay, now);
+            for (String plate : vehiculos.keySet()) {
+                usageByVehicle.putIfAbsent(plate, new VehicleUsageCounters.Totals());  // Los vehículos sin alquileres también salen
+            }
+            vehicles = new TreeMap<>();
+            for (Map.Entry<String, VehicleUsageCounters.Totals> entry : usageByVehicle.entrySet()) {
+                vehicles.put(entry.getKey(), toUsageStats(entry.getValue(), days));
+            }
+        }
+        UsageReport report = new UsageReport(startDate, endDate, toUsageStats(total, days * fleetSize), byType, vehicles);
+        usageReports.put(firstDay, lastDay, byVehicle, report, stamp, now);
+        return report;
+    }
+
+    /**
+     * Devuelve las métricas de la caché de informes de uso.
+     *
+     * @return los aciertos, fallos, expulsiones y la memoria estimada de la caché
+     */
+    public ReportCacheStats getUsageReportCacheStats() {
+        return usageReports.stats();
+    }
+
+    /**
+     * Carga vehículos en masa desde un archivo CSV.
+     *
+     * @param csvFile el archivo CSV que contiene los datos de los vehículos
+     * @return el resultado de la carga con las filas aceptadas y rechazadas
+     * @throws IOException si ocurre un error al leer el archivo
+     */
+    public BulkUploadResult bulkUploadVehicles(File csvFile) throws IOException {
+        try (InputStream in = Files.newInputStream(csvFile.toPath())) {
+            return bulkUploadVehicles(in);
+        }
+    }
+
+    /**
+     * Carga vehículos en masa leyendo un CSV directamente desde un flujo, analizando sus bloques en paralelo.
+     *
+     * @param csvStream el flujo con el contenido CSV; no se cierra aquí
+     * @return el resultado de la carga con las filas aceptadas y rechazadas
+     * @throws IOException si ocurre un error al leer el flujo
+     */
+    public BulkUploadResult bulkUploadVehicles(InputStream csvStream) throws IOException {
+        return bulkUploadVehicles(csvStream, true);
+    }
+
+    /**
+     * Carga vehículos en masa leyendo un CSV directamente desde un flujo.
+     * El flujo se divide en bloques que terminan en un salto de línea; los vehículos se registran bloque a bloque
+     * en el orden del archivo, así que la memoria usada no depende del tamaño del archivo.
+     * Si una matrícula se repite dentro del archivo, se acepta la primera aparición y se rechazan las demás.
+     *
+     * @param csvStream el flujo con el contenido CSV; no se cierra aquí
+     * @param parallel true para analizar los bloques en el pool fork-join, false para analizarlos en el hilo actual
+     * @return el resultado de la carga con las filas aceptadas y rechazadas
+     * @throws IOException si ocurre un error al leer el flujo
+     */
+    public BulkUploadResult bulkUploadVehicles(InputStream csvStream, boolean parallel) throws IOException {
+        BulkUploadResult result = new BulkUploadResult();
+        bulkUploadVehicles(csvStream, parallel, result);
+        return result;
+    }
+
+    /**
+     * Carga vehículos en masa acumulando los contadores en un resultado dado, que puede consultarse mientras avanza la carga.
+     *
+     * @param csvStream el flujo con el contenido CSV; no se cierra aquí
+     * @param parallel true para analizar los bloques en el pool fork-join, false para analizarlos en el hilo actual
+     * @param result el resultado donde se acumulan los contadores
+     * @throws IOException si ocurre un error al leer el flujo
+     */
+    public void bulkUploadVehicles(InputStream csvStream, boolean parallel, BulkUploadResult result) throws IOException {
+        int parallelism = parallel ? ForkJoinPool.getCommonPoolParallelism() : 1;
+        new VehicleCsvIngestor(this::registerVehicles, ForkJoinPool.commonPool(), parallelism).ingest(csvStream, result);
+    }
+
+    /**
+     * Lista todos los vehículos disponibles.
+     *
+     * @return una lista de vehículos disponibles
+     */
+    public List<AbstractVehicle> listAvailableVehicles() {
+        return availabilityIndex.listAvailable(AbstractVehicle.class);  // Une los bits encendidos de todos los tipos
+    }
+
+    /**
+     * Lista los vehículos de un color específico usando el índice de colores.
+     *
+     * @param color el color a consultar, sin importar mayúsculas o minúsculas
+     * @return una lista con los vehículos de ese color
+     */
+    public List<AbstractVehicle> getVehiclesByColor(String color) {
+        return colorIndex.list(color);
+    }
+
+    /**
+     * Cuenta los vehículos de un color específico en tiempo constante.
+     *
+     * @param color el color a consultar, sin importar mayúsculas o minúsculas
+     * @return el número de vehículos de ese color
+     */
+    public int countVehiclesByColor(String color) {
+        return colorIndex.count(color);
+    }
+
+    /**
+     * Busca vehículos que cumplan varios criterios a la vez, usando primero los índices más selectivos.
+     *
+     * @param criteria los criterios de búsqueda; los que están en null no restringen
+     * @param limit el número máximo de vehículos que se devuelven
+     * @return el total de coincidencias, los primeros vehículos y el plan usado
+     * @throws IllegalArgumentException si el tipo de vehículo no existe
+     */
+    public VehicleSearchResult searchVehicles(VehicleSearchCriteria criteria, int limit) {
+        return searchIndex.search(criteria, limit);
+    }
+
+    /**
+     * Lista los vehículos cuyo kilometraje o valor de alquiler está en un rango, ordenados por ese valor.
+     * Usa el índice ordenado del campo, así que cuesta tiempo logarítmico más los vehículos recorridos.
+     *
+     * @param field el campo: kilometers o rentalValue
+     * @param type el tipo de vehículo (car, truck, van o motorcycle), o null para todos
+     * @param min el valor mínimo, inclusivo
+     * @param max el valor máximo, inclusivo
+     * @param available true o false para devolver solo vehículos con esa disponibilidad, o null para no filtrar
+     * @param descending true para ordenar de mayor a menor
+     * @param limit el número máximo de vehículos que se devuelven
+     * @return los vehículos del rango en orden
+     * @throws IllegalArgumentException si el campo o el tipo no existen
+     */
+    public List<AbstractVehicle> listVehiclesByRange(String field, String type, double min, double max, Boolean available,
+                                                     boolean descending, int limit) {
+        return searchIndex.range(field, type, min, max, available, descending, limit);
+    }
+
+    /**
+     * Lista, para cada tipo, los k vehículos disponibles más baratos o con menos kilómetros, sin ordenar la flota.
+     * El orden por lo que cuesta alquilarlos, con los multiplicadores y las reglas de precio, es el de QuoteService.
+     *
+     * @param type el tipo de vehículo (car, truck, van o motorcycle), o null para todos los tipos
+     * @param k el número de vehículos por tipo
+     * @param sortBy el criterio: rentalValue o kilometers
+     * @return un mapa de nombre de tipo a sus k vehículos con el valor por el que se ordenaron
+     * @throws IllegalArgumentException si el criterio o el tipo no son válidos
+     */
+    public Map<String, List<RankedVehicle>> listTopAvailableVehicles(String type, int k, String sortBy) {
+        boolean byKilometers = "kilometers".equalsIgnoreCase(sortBy);
+        if (!byKilometers && !"rentalValue".equalsIgnoreCase(sortBy)) {
+            throw new IllegalArgumentException("Unknown sort key '" + sortBy + "'. Use rentalValue, kilometers or rent.");
+        }
+        Map<String, List<AbstractVehicle>> top = searchIndex.topAvailable(byKilometers ? "kilometers" : "rentalValue", type, k);
+        Map<String, List<RankedVehicle>> ranked = new LinkedHashMap<>();
+        top.forEach((typeName, vehicles) -> {
+            List<RankedVehicle> entries = new ArrayList<>(vehicles.size());
+            for (AbstractVehicle vehiculo : vehicles) {
+                double value = byKilometers ? vehiculo.getKilometers() : vehiculo.getRentalValue();
+                entries.add(new RankedVehicle(vehiculo, value));
+            }
+            ranked.put(typeName, entries);
+        });
+        return ranked;
+    }
+
+    /**
+     * Lista, para cada tipo, los k vehículos disponibles de menor precio, recorriendo el índice del valor de alquiler
+     * solo hasta donde ningún vehículo puede ser más barato.
+     *
+     * @param type el tipo de vehículo, o null para todos los tipos
+     * @param k el número de vehículos por tipo
+     * @param price el precio de un vehículo
+     * @param lowerBound para un tipo y un valor de alquiler, el precio mínimo de los vehículos del tipo con ese valor o uno mayor
+     * @return un mapa de nombre de tipo a sus k vehículos con su precio, del más barato al más caro
+     * @throws IllegalArgumentException si el tipo no existe
+     */
+    Map<String, List<RankedVehicle>> listCheapestAvailableVehicles(String type, int k, ToDoubleFunction<AbstractVehicle> price,
+                                                                   ToDoubleBiFunction<String, Double> lowerBound) {
+        return searchIndex.cheapestAvailable(type, k, price, lowerBound);
+    }
+
+    /**
+     * Aplica el cambio de los kilómetros, el valor de alquiler, el color o si es eléctrico que pidió un setter, y vuelve
+     * a indexar el vehículo. Se hace dentro de computeIfPresent, como cualquier otro cambio de la matrícula: el vehículo se
+     * quita de los índices de color y de los contadores de ocupación con el valor anterior y se agrega con el nuevo.
+     * El cambio se anota en el registro para que sobreviva a un reinicio; si el registro no puede escribir, se deshace.
+     *
+     * @param vehiculo el vehículo que cambia
+     * @param change el cambio
+     * @param undo deshace el cambio
+     */
+    private void reindexValues(AbstractVehicle vehiculo, Runnable change, Runnable undo) {
+        boolean[] applied = new boolean[1];
+        vehiculos.computeIfPresent(vehiculo.getLicensePlate(), (plate, current) -> {
+            if (current == vehiculo) {
+                regroup(vehiculo, change);
+                applied[0] = true;
+                FleetWriteAheadLog.PreparedRecord record;
+                try {
+                    record = wal.preparePutVehicle(vehiculo);
+                } catch (RuntimeException e) {
+                    regroup(vehiculo, undo);  // Sin registro no hay cambio: el vehículo vuelve a sus índices como estaba
+                    throw e;
+                }
+                bumpVersion(vehiculo);
+                wal.append(record);
+            }
+            return current;
+        });
+        if (!applied[0]) {
+            change.run();  // El vehículo ya no está registrado con su matrícula, así que no hay índices que poner al día
+        }
+        wal.awaitDurable();
+    }
+
+    /**
+     * Aplica un cambio a un vehículo indexado entre quitarlo y volver a agregarlo en los índices que dependen del valor.
+     */
+    private void regroup(AbstractVehicle vehiculo, Runnable change) {
+        colorIndex.remove(vehiculo);
+        availabilityIndex.regroup(vehiculo, change);
+        colorIndex.add(vehiculo);
+        searchIndex.add(vehiculo);  // Reemplaza las entradas viejas de la matrícula por las nuevas
+    }
+
+    private static UsageStats toUsageStats(VehicleUsageCounters.Totals sum, double availableDays) {
+        double rentedDays = sum.rentedMillis / (24.0 * 60 * 60 * 1000);
+        return new UsageStats(sum.rentals, rentedDays, sum.revenue, availableDays > 0 ? rentedDays / availableDays : 0);
+    }
+
+    private static Class<? extends AbstractVehicle> vehicleClass(String type) {
+        return switch (type) {
+            case "car" -> Car.class;
+            case "truck" -> Truck.class;
+            case "van" -> Van.class;
+            default -> Motorcycle.class;
+        };
+    }
+
+    /**
+     * Agrega un vehículo a todos los índices secundarios.
+     *
+     * @param vehiculo el vehículo que se va a indexar
+     */
+    private void indexVehicle(AbstractVehicle vehiculo) {
+        availabilityIndex.add(vehiculo);
+        colorIndex.add(vehiculo);
+        searchIndex.add(vehiculo);
+        occupancyIndex.add(vehiculo);
+        // Si la matrícula ya tenía reservas (el vehículo se reemplazó o se actualizó), se vuelven a marcar sus días
+        List<long[]> periods = reservations.periodsBetween(vehiculo.getLicensePlate(), Long.MIN_VALUE, Long.MAX_VALUE);
+        if (!periods.isEmpty()) {
+            occupancyIndex.update(vehiculo, periods, periods.get(0)[0], periods.get(periods.size() - 1)[1]);
+        }
+        vehiculo.attachChangeListener(changeListener);
+        bumpVersion(vehiculo);
+    }
+
+    /**
+     * Quita un vehículo de todos los índices secundarios.
+     *
+     * @param vehiculo el vehículo que se va a quitar
+     */
+    private void unindexVehicle(AbstractVehicle vehiculo) {
+        availabilityIndex.remove(vehiculo);
+        colorIndex.remove(vehiculo);
+        searchIndex.remove(vehiculo);
+        occupancyIndex.remove(vehiculo);
+        vehiculo.attachChangeListener(null);
+        bumpVersion(vehiculo);
+    }
+
+    /**
+     * Recalcula los días de ocupación de un vehículo afectados por un periodo que se reservó, se canceló o se restauró.
+     * Se llama dentro del compute de la matrícula, después de cambiar su libro de reservas.
+     *
+     * @param vehiculo el vehículo
+     * @param fromMillis el inicio del periodo
+     * @param toMillis el fin del periodo, excluido
+     */
+    private void refreshOccupancy(AbstractVehicle vehiculo, long fromMillis, long toMillis) {
+        // Otros periodos pueden compartir los días de los extremos, así que se leen los de los días completos
+        long from = VehicleOccupancyIndex.dayStart(VehicleOccupancyIndex.epochDay(fromMillis));
+        long to = VehicleOccupancyIndex.dayStart(VehicleOccupancyIndex.epochDay(toMillis - 1) + 1);
+        occupancyIndex.update(vehiculo, reservations.periodsBetween(vehiculo.getLicensePlate(), from, to), fromMillis, toMillis);
+    }
+
+    /**
+     * Publica una vista nueva de la flota con el vehículo de la matrícula dada reemplazado o quitado.
+     * Se llama dentro de compute, así los cambios de una misma matrícula se publican en orden; los de matrículas distintas
+     * compiten solo por el compare-and-set de la referencia y se reintentan sobre la vista más reciente.
+     *
+     * @param plate la matrícula
+     * @param vehiculo el vehículo nuevo, o null para quitarlo
+     */
+    private void publish(String plate, AbstractVehicle vehiculo) {
+        fleetView.updateAndGet(view -> vehiculo == null ? view.remove(plate) : view.put(plate, vehiculo));
+    }
+
+    /**
+     * Actualiza el índice de disponibilidad tras un cambio de disponibilidad y aumenta las versiones.
+     *
+     * @param vehiculo el vehículo cuya disponibilidad cambió
+     */
+    private void refreshAvailability(AbstractVehicle vehiculo) {
+        availabilityIndex.refresh(vehiculo);
+        bumpVersion(vehiculo);
+    }
+
+    /**
+     * Aumenta la versión del tipo del vehículo y la de la flota. Se llama después de aplicar el cambio,
+     * así quien lea la versión nueva ve también el cambio.
+     *
+     * @param vehiculo el vehículo que cambió
+     */
+    private void bumpVersion(AbstractVehicle vehiculo) {
+        typeVersions.computeIfAbsent(vehiculo.getClass(), type -> new AtomicLong()).incrementAndGet();
+        fleetVersion.incrementAndGet();
+    }
+}
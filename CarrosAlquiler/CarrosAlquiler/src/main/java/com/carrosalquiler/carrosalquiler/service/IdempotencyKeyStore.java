@@ -0,0 +1,167 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * IdempotencyKeyStore recuerda la respuesta de cada petición enviada con una clave de idempotencia, para que un cliente
+ * que reintenta la misma petición reciba la respuesta original sin que la flota vuelva a cambiar.
+ *
+ * La búsqueda es una lectura de un mapa concurrente, sin bloqueos. Las claves se guardan también en una cola por orden
+ * de llegada: al añadir una, se descartan desde la cabeza las caducadas y las que sobran por encima del máximo, así la
+ * memoria queda acotada aunque lleguen muchas peticiones. Si dos peticiones con la misma clave llegan a la vez, la segunda
+ * espera a la primera y recibe su respuesta.
+ */
+@Service
+public class IdempotencyKeyStore {
+    public static final int MAX_KEY_LENGTH = 255;  // Longitud máxima de una clave
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> arrivals = new ConcurrentLinkedQueue<>();  // Claves por orden de llegada
+    private final AtomicInteger size = new AtomicInteger();  // Claves que siguen en el mapa
+
+    /**
+     * Constructor con los valores por defecto: 100000 claves durante 24 horas.
+     */
+    public IdempotencyKeyStore() {
+        this(100_000, 86_400_000);
+    }
+
+    /**
+     * Constructor con inyección de la configuración.
+     *
+     * @param maxEntries el número máximo de claves recordadas; 0 desactiva la deduplicación
+     * @param ttlMillis cuánto tiempo se recuerda una clave
+     */
+    @Autowired
+    public IdempotencyKeyStore(@Value("${carros.idempotency.max-entries:100000}") int maxEntries,
+                               @Value("${carros.idempotency.ttl-ms:86400000}") long ttlMillis) {
+        this.maxEntries = Math.max(0, maxEntries);
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Ejecuta una petición una sola vez por clave. Si la clave ya se usó para la misma petición, devuelve la respuesta
+     * guardada sin ejecutar nada.
+     *
+     * @param key la clave de idempotencia enviada por el cliente, o null para ejecutar la petición sin deduplicar
+     * @param request la descripción de la petición, por ejemplo la operación, la matrícula y el usuario
+     * @param action la petición
+     * @return la respuesta y si se repitió una anterior
+     * @throws IllegalArgumentException si la clave está vacía o es demasiado larga
+     * @throws IllegalStateException si la clave ya se usó para otra petición
+     */
+    public Outcome execute(String key, String request, Supplier<String> action) {
+        if (key == null || maxEntries == 0) {
+            return new Outcome(action.get(), false);
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must have between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        long now = System.currentTimeMillis();
+        Entry previous = entries.get(key);  // Lectura sin bloqueo: es el camino de los reintentos
+        Entry entry = null;
+        boolean replacedExpired = false;
+        while (true) {
+            if (previous != null && now - previous.createdMillis < ttlMillis) {
+                break;
+            }
+            if (entry == null) {
+                entry = new Entry(key, request, now);  // Solo se crea si la clave es nueva
+            }
+            if (previous == null) {
+                previous = entries.putIfAbsent(key, entry);
+                if (previous == null) {
+                    break;
+                }
+            } else {
+                // La clave caducó pero aún no se había descartado: cuenta como nueva y ocupa su sitio en el mapa
+                replacedExpired = entries.replace(key, previous, entry);
+                if (replacedExpired) {
+                    previous = null;
+                    break;
+                }
+                previous = entries.get(key);
+            }
+        }
+        if (previous != null) {
+            if (!previous.request.equals(request)) {
+                throw new IllegalStateException("Idempotency-Key was already used for a different request");
+            }
+            try {
+                return new Outcome(previous.response.join(), true);  // Si la primera petición sigue en curso, la espera
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        if (!replacedExpired) {
+            size.incrementAndGet();
+        }
+        arrivals.add(entry);
+        evict(now);
+        String response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            // Una petición que falló no se recuerda: el reintento vuelve a ejecutarla
+            if (entries.remove(key, entry)) {
+                size.decrementAndGet();
+            }
+            entry.response.completeExceptionally(e);
+            throw e;
+        }
+        entry.response.complete(response);
+        return new Outcome(response, false);
+    }
+
+    /**
+     * Devuelve el número de claves recordadas.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Descarta desde la cabeza de la cola las claves caducadas y las que sobran por encima del máximo.
+     */
+    private void evict(long now) {
+        Entry head;
+        while ((head = arrivals.peek()) != null && (size.get() > maxEntries || now - head.createdMillis >= ttlMillis)) {
+            if (arrivals.remove(head) && entries.remove(head.key, head)) {
+                size.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Respuesta de una petición y si es la repetición de una anterior.
+     */
+    public record Outcome(String response, boolean replayed) {
+    }
+
+    /**
+     * Petición recordada con su respuesta, que se completa cuando termina.
+     */
+    private static final class Entry {
+        private final String key;
+        private final String request;
+        private final long createdMillis;
+        private final CompletableFuture<String> response = new CompletableFuture<>();
+
+        private Entry(String key, String request, long createdMillis) {
+            this.key = key;
+            this.request = request;
+            this.createdMillis = createdMillis;
+        }
+    }
+}
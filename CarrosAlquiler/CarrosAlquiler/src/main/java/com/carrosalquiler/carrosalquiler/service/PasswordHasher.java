@@ -0,0 +1,89 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * PasswordHasher guarda las contraseñas como un hash PBKDF2 con sal, para que ni el registro de usuarios en memoria
+ * ni el registro de escritura anticipada ni las instantáneas contengan la contraseña en claro.
+ *
+ * El hash se guarda como pbkdf2$iteraciones$sal$hash, con la sal y el hash en Base64, así que se puede subir el número
+ * de iteraciones más adelante sin invalidar los hashes que ya existen.
+ */
+final class PasswordHasher {
+    private static final String PREFIX = "pbkdf2$";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int ITERATIONS = 210_000;
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private PasswordHasher() {
+    }
+
+    /**
+     * Calcula el hash de una contraseña con una sal nueva.
+     *
+     * @param password la contraseña en claro, o null
+     * @return el hash, o null si no hay contraseña
+     */
+    static String hash(String password) {
+        if (password == null) {
+            return null;
+        }
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        Base64.Encoder base64 = Base64.getEncoder();
+        return PREFIX + ITERATIONS + "$" + base64.encodeToString(salt) + "$"
+                + base64.encodeToString(derive(password, salt, ITERATIONS));
+    }
+
+    /**
+     * Comprueba una contraseña contra un hash, en tiempo constante respecto al contenido del hash.
+     *
+     * @param password la contraseña en claro
+     * @param stored el hash guardado
+     * @return true si la contraseña corresponde al hash
+     */
+    static boolean matches(String password, String stored) {
+        if (password == null || !isHashed(stored)) {
+            return false;
+        }
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) {
+            return false;
+        }
+        try {
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            return MessageDigest.isEqual(expected, derive(password, salt, Integer.parseInt(parts[1])));
+        } catch (IllegalArgumentException e) {
+            return false;  // Hash mal formado
+        }
+    }
+
+    /**
+     * Indica si un valor ya es un hash de este formato, para no volver a calcular el hash de uno restaurado.
+     *
+     * @param value el valor guardado como contraseña
+     * @return true si es un hash
+     */
+    static boolean isHashed(String value) {
+        return value != null && value.startsWith(PREFIX);
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);  // Lo incluye cualquier JDK desde la 8
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+/**
+ * PricingRule ajusta el precio de un alquiler según el tipo de vehículo, si es eléctrico y los días del alquiler,
+ * por ejemplo un descuento semanal para camiones o un recargo para eléctricos.
+ *
+ * El precio de un vehículo es lineal en su valor de alquiler: valor × porValor + fijo. Sin reglas, porValor son los días
+ * y fijo es 0, igual que calculateRent. El motor de presupuestos llama a cada regla una vez por grupo (tipo y eléctrico)
+ * y duración, nunca por vehículo, así que la regla puede ser tan costosa como haga falta.
+ */
+@FunctionalInterface
+public interface PricingRule {
+    /**
+     * Ajusta los términos del precio.
+     *
+     * @param type el tipo de vehículo: car, truck, van o motorcycle
+     * @param electric si el vehículo es eléctrico
+     * @param days los días del alquiler
+     * @param terms los términos del precio con las reglas anteriores ya aplicadas, que esta regla modifica
+     */
+    void apply(String type, boolean electric, int days, PriceTerms terms);
+
+    /**
+     * Términos de un precio: lo que se multiplica por el valor de alquiler del vehículo y lo que se suma fijo.
+     */
+    final class PriceTerms {
+        private double perValue;  // Se multiplica por el valor de alquiler del vehículo
+        private double fixed;  // Se suma al precio, sea cual sea el vehículo
+
+        PriceTerms(double perValue, double fixed) {
+            this.perValue = perValue;
+            this.fixed = fixed;
+        }
+
+        public double getPerValue() {
+            return perValue;
+        }  // Devuelve el término que se multiplica por el valor de alquiler.
+
+        public void setPerValue(double perValue) {
+            this.perValue = perValue;
+        }  // Establece el término que se multiplica por el valor de alquiler.
+
+        public double getFixed() {
+            return fixed;
+        }  // Devuelve el término fijo.
+
+        public void setFixed(double fixed) {
+            this.fixed = fixed;
+        }  // Establece el término fijo.
+
+        public void multiply(double factor) {
+            perValue *= factor;
+            fixed *= factor;
+        }  // Multiplica el precio entero, por ejemplo por un recargo porcentual.
+    }
+}
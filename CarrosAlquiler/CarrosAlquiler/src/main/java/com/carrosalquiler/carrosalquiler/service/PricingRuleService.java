@@ -0,0 +1,111 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.AbstractVehicle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * PricingRuleService guarda las reglas de precio y calcula con ellas lo que cuesta un alquiler. Los presupuestos y el
+ * cobro de las devoluciones usan las mismas reglas, así que un presupuesto vale lo mismo que se cobra después por
+ * el mismo valor diario y los mismos días.
+ */
+@Service
+public class PricingRuleService {
+    private final List<PricingRule> rules = new CopyOnWriteArrayList<>();
+
+    /**
+     * Constructor sin reglas: un alquiler cuesta los días por el valor diario, igual que calculateRent.
+     */
+    public PricingRuleService() {
+    }
+
+    /**
+     * Constructor con las reglas de precio configuradas. Sin configurarlas valen 0 y no se añade ninguna regla, así que
+     * los cobros coinciden con calculateRent.
+     *
+     * @param truckWeeklyDiscount el descuento de cada semana completa de alquiler de un camión, de 0 a 1
+     * @param electricSurcharge el recargo sobre el precio de los vehículos eléctricos, de 0 en adelante
+     */
+    @Autowired
+    public PricingRuleService(@Value("${carros.pricing.truck-weekly-discount:0}") double truckWeeklyDiscount,
+                              @Value("${carros.pricing.electric-surcharge:0}") double electricSurcharge) {
+        if (truckWeeklyDiscount < 0 || truckWeeklyDiscount > 1 || electricSurcharge < 0) {
+            throw new IllegalArgumentException("Pricing discounts must be between 0 and 1 and surcharges cannot be negative");
+        }
+        if (truckWeeklyDiscount > 0) {
+            addRule((type, electric, days, terms) -> {
+                if (type.equals("truck")) {
+                    // Cada semana completa se cobra con descuento; los días sueltos, al precio normal
+                    terms.setPerValue(terms.getPerValue() - days / 7 * 7 * truckWeeklyDiscount);
+                }
+            });
+        }
+        if (electricSurcharge > 0) {
+            addRule((type, electric, days, terms) -> {
+                if (electric) {
+                    terms.multiply(1 + electricSurcharge);
+                }
+            });
+        }
+    }
+
+    /**
+     * Añade una regla de precio, que se aplica después de las que ya había.
+     *
+     * @param rule la regla
+     */
+    public void addRule(PricingRule rule) {
+        rules.add(rule);
+    }
+
+    /**
+     * Devuelve las reglas vigentes. La lista no cambia aunque se añadan reglas después, así que un cálculo que la use
+     * entera aplica siempre el mismo conjunto de reglas.
+     *
+     * @return las reglas, en el orden en que se aplican
+     */
+    public List<PricingRule> currentRules() {
+        return List.copyOf(rules);
+    }
+
+    /**
+     * Aplica unas reglas a un grupo y duración.
+     *
+     * @param rules las reglas, de {@link #currentRules}
+     * @param type el tipo de vehículo
+     * @param electric si el vehículo es eléctrico
+     * @param days los días del alquiler
+     * @return los términos del precio
+     */
+    static PricingRule.PriceTerms terms(List<PricingRule> rules, String type, boolean electric, int days) {
+        PricingRule.PriceTerms terms = new PricingRule.PriceTerms(days, 0);  // Sin reglas, igual que calculateRent
+        for (PricingRule rule : rules) {
+            rule.apply(type, electric, days, terms);
+        }
+        return terms;
+    }
+
+    /**
+     * Calcula lo que cuesta alquilar un vehículo unos días a un valor diario.
+     *
+     * @param vehicle el vehículo
+     * @param dailyRate el valor de alquiler diario, con el multiplicador por ocupación ya aplicado
+     * @param days los días del alquiler
+     * @return el precio, redondeado a céntimos
+     */
+    public double price(AbstractVehicle vehicle, double dailyRate, int days) {
+        PricingRule.PriceTerms terms = terms(currentRules(), VehicleSearchIndex.typeName(vehicle.getClass()), vehicle.isElectric(), days);
+        return round(dailyRate * terms.getPerValue() + terms.getFixed());
+    }
+
+    /**
+     * Redondea un precio a céntimos, igual en los presupuestos y en los cobros.
+     */
+    static double round(double price) {
+        return Math.rint(price * 100) / 100;
+    }
+}
@@ -0,0 +1,229 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.AbstractVehicle;
+import com.carrosalquiler.carrosalquiler.models.QuoteResult;
+import com.carrosalquiler.carrosalquiler.models.RankedVehicle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * QuoteService calcula presupuestos de muchos vehículos para muchas duraciones en una sola llamada.
+ *
+ * Las reglas de precio dependen solo del tipo de vehículo, de si es eléctrico y de los días, así que se evalúan una vez
+ * por grupo y duración y dejan cada precio como valor × porValor + fijo. Después, el bucle de precios recorre un arreglo
+ * de valores de alquiler y otro de grupos, sin objetos ni llamadas virtuales: una multiplicación, una suma y el redondeo por presupuesto.
+ * El valor de alquiler de cada vehículo ya lleva el multiplicador por ocupación de su grupo, que se lee una vez por vehículo.
+ * Las reglas y el redondeo son los de PricingRuleService, los mismos con que el libro de alquileres cobra la devolución,
+ * y el alquiler fija el valor diario con el multiplicador vigente al alquilar: si la ocupación no cambia entre el presupuesto
+ * y el alquiler, se cobra lo presupuestado.
+ */
+@Service
+public class QuoteService {
+    public static final int MAX_DURATIONS = 100;  // Máximo de duraciones en una petición
+    public static final int MAX_DAYS = 3650;  // Duración máxima de un presupuesto
+    public static final int MAX_QUOTES = 2_000_000;  // Máximo de presupuestos (vehículos × duraciones) en una petición
+    private static final int GROUPS = VehicleSearchIndex.TYPE_NAMES.size() * 2;  // Tipo × eléctrico
+    // Grupo de cada clase de vehículo sin la parte eléctrica; se calcula una vez por clase
+    private static final ClassValue<Integer> TYPE_GROUPS = new ClassValue<>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            return VehicleSearchIndex.TYPE_NAMES.indexOf(VehicleSearchIndex.typeName(type)) * 2;
+        }
+    };
+
+    private final GestionVehiculoService vehicleService;
+    private final DynamicPricingService dynamicPricing;
+    private final PricingRuleService pricingRules;
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param vehicleService el servicio de vehículos de donde salen los valores de alquiler
+     * @param dynamicPricing los multiplicadores por ocupación que se aplican al valor de alquiler de cada vehículo
+     * @param pricingRules las reglas de precio, las mismas con que se cobran las devoluciones
+     */
+    @Autowired
+    public QuoteService(GestionVehiculoService vehicleService, DynamicPricingService dynamicPricing, PricingRuleService pricingRules) {
+        this.vehicleService = vehicleService;
+        this.dynamicPricing = dynamicPricing;
+        this.pricingRules = pricingRules;
+    }
+
+    /**
+     * Añade una regla de precio, que se aplica después de las que ya había, tanto en los presupuestos como en los cobros.
+     *
+     * @param rule la regla
+     */
+    public void addRule(PricingRule rule) {
+        pricingRules.addRule(rule);
+    }
+
+    /**
+     * Presupuesta varios vehículos para varias duraciones.
+     *
+     * @param licensePlates las matrículas, o null o vacía para presupuestar todos los vehículos disponibles
+     * @param days las duraciones en días
+     * @return una tabla con el precio de cada vehículo para cada duración, y las matrículas que no están en la flota
+     * @throws IllegalArgumentException si no hay duraciones, alguna no es válida o la petición tiene demasiados presupuestos
+     */
+    public QuoteResult quote(List<String> licensePlates, List<Integer> days) {
+        int[] durations = parseDurations(days);
+        List<String> plates = new ArrayList<>();
+        List<String> notFound = new ArrayList<>();
+        double[] values;
+        int[] groups;
+        if (licensePlates == null || licensePlates.isEmpty()) {
+            values = new double[1024];
+            groups = new int[1024];
+            for (AbstractVehicle vehicle : vehicleService.iterateAvailableVehicles()) {
+                if (plates.size() == values.length) {
+                    values = Arrays.copyOf(values, values.length * 2);
+                    groups = Arrays.copyOf(groups, groups.length * 2);
+                }
+                checkQuotes(plates.size() + 1, durations.length);
+                values[plates.size()] = dynamicPricing.rentalValue(vehicle);
+                groups[plates.size()] = groupOf(vehicle);
+                plates.add(vehicle.getLicensePlate());
+            }
+        } else {
+            checkQuotes(licensePlates.size(), durations.length);
+            values = new double[licensePlates.size()];
+            groups = new int[licensePlates.size()];
+            for (String plate : licensePlates) {
+                AbstractVehicle vehicle = plate == null ? null : vehicleService.getVehicle(plate);
+                if (vehicle == null) {
+                    notFound.add(plate);
+                    continue;
+                }
+                values[plates.size()] = dynamicPricing.rentalValue(vehicle);
+                groups[plates.size()] = groupOf(vehicle);
+                plates.add(plate);
+            }
+        }
+        double[][] perValue = new double[GROUPS][durations.length];
+        double[][] fixed = new double[GROUPS][durations.length];
+        priceTerms(durations, perValue, fixed);
+        double[][] prices = new double[plates.size()][durations.length];
+        price(values, groups, perValue, fixed, prices);
+        return new QuoteResult(durations, plates, prices, notFound);
+    }
+
+    /**
+     * Lista, para cada tipo, los k vehículos disponibles que menos cuesta alquilar unos días, con el mismo precio que
+     * daría un presupuesto: el valor de alquiler con el multiplicador de su grupo y las reglas de precio.
+     *
+     * Dentro de un tipo el precio sube con el valor de alquiler, pero el multiplicador y las reglas cambian con el grupo
+     * del vehículo, así que el orden del valor no es el del precio. Se recorre el índice del valor de alquiler desde el más
+     * barato y se para cuando ni con el menor multiplicador ni con las reglas más favorables del tipo puede quedar un
+     * vehículo más barato que los k encontrados.
+     *
+     * @param type el tipo de vehículo, o null para todos los tipos
+     * @param k el número de vehículos por tipo
+     * @param days la duración del alquiler en días
+     * @return un mapa de nombre de tipo a sus k vehículos con su precio, del más barato al más caro
+     * @throws IllegalArgumentException si el tipo o la duración no son válidos
+     */
+    public Map<String, List<RankedVehicle>> listCheapestToRent(String type, int k, int days) {
+        if (days < 1 || days > MAX_DAYS) {
+            throw new IllegalArgumentException("days must be between 1 and " + MAX_DAYS + " to sort by rent.");
+        }
+        double[][] perValue = new double[GROUPS][1];
+        double[][] fixed = new double[GROUPS][1];
+        priceTerms(new int[]{days}, perValue, fixed);
+        double lowest = dynamicPricing.lowestMultiplier();
+        double highest = dynamicPricing.highestMultiplier();
+        // Por tipo, la menor pendiente y el menor término fijo de sus grupos; con ellos, precio ≥ valor × pendiente + fijo
+        double[] slopes = new double[GROUPS / 2];
+        double[] offsets = new double[GROUPS / 2];
+        for (int t = 0; t < slopes.length; t++) {
+            slopes[t] = Double.POSITIVE_INFINITY;
+            offsets[t] = Double.POSITIVE_INFINITY;
+            for (int group = t * 2; group < t * 2 + 2; group++) {
+                slopes[t] = Math.min(slopes[t], Math.min(perValue[group][0] * lowest, perValue[group][0] * highest));
+                offsets[t] = Math.min(offsets[t], fixed[group][0]);
+            }
+        }
+        return vehicleService.listCheapestAvailableVehicles(type, k,
+                vehicle -> {
+                    int group = groupOf(vehicle);
+                    return PricingRuleService.round(dynamicPricing.rentalValue(vehicle) * perValue[group][0] + fixed[group][0]);
+                },
+                (typeName, value) -> {
+                    int t = VehicleSearchIndex.TYPE_NAMES.indexOf(typeName);
+                    // Con una pendiente negativa la cota no crece con el valor y no sirve para parar: se recorre el tipo entero
+                    return slopes[t] < 0 || value < 0 ? Double.NEGATIVE_INFINITY : PricingRuleService.round(value * slopes[t] + offsets[t]);
+                });
+    }
+
+    /**
+     * Aplica las reglas a cada grupo y duración y deja los términos de cada precio.
+     *
+     * @param durations las duraciones
+     * @param perValue por grupo y duración, lo que se multiplica por el valor de alquiler
+     * @param fixed por grupo y duración, lo que se suma fijo
+     */
+    void priceTerms(int[] durations, double[][] perValue, double[][] fixed) {
+        // Una sola copia de las reglas para toda la tabla: una regla añadida a mitad no deja grupos con reglas distintas
+        List<PricingRule> rules = pricingRules.currentRules();
+        for (int group = 0; group < GROUPS; group++) {
+            String type = VehicleSearchIndex.TYPE_NAMES.get(group / 2);
+            boolean electric = group % 2 == 1;
+            for (int j = 0; j < durations.length; j++) {
+                PricingRule.PriceTerms terms = PricingRuleService.terms(rules, type, electric, durations[j]);
+                perValue[group][j] = terms.getPerValue();
+                fixed[group][j] = terms.getFixed();
+            }
+        }
+    }
+
+    /**
+     * Bucle de precios: para cada vehículo y duración, valor × porValor + fijo de su grupo, redondeado a céntimos.
+     *
+     * @param values el valor de alquiler de cada vehículo
+     * @param groups el grupo de cada vehículo
+     * @param perValue por grupo y duración, lo que se multiplica por el valor de alquiler
+     * @param fixed por grupo y duración, lo que se suma fijo
+     * @param prices donde se escribe el precio de cada vehículo para cada duración
+     */
+    static void price(double[] values, int[] groups, double[][] perValue, double[][] fixed, double[][] prices) {
+        for (int i = 0; i < prices.length; i++) {
+            double value = values[i];
+            double[] scale = perValue[groups[i]];
+            double[] offset = fixed[groups[i]];
+            double[] row = prices[i];
+            for (int j = 0; j < row.length; j++) {
+                row[j] = PricingRuleService.round(value * scale[j] + offset[j]);  // Redondeado a céntimos, como el cobro
+            }
+        }
+    }
+
+    private static int groupOf(AbstractVehicle vehicle) {
+        return TYPE_GROUPS.get(vehicle.getClass()) + (vehicle.isElectric() ? 1 : 0);
+    }
+
+    private static int[] parseDurations(List<Integer> days) {
+        if (days == null || days.isEmpty() || days.size() > MAX_DURATIONS) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_DURATIONS + " durations are required");
+        }
+        int[] durations = new int[days.size()];
+        for (int j = 0; j < durations.length; j++) {
+            Integer value = days.get(j);
+            if (value == null || value < 1 || value > MAX_DAYS) {
+                throw new IllegalArgumentException("Durations must be between 1 and " + MAX_DAYS + " days");
+            }
+            durations[j] = value;
+        }
+        return durations;
+    }
+
+    private static void checkQuotes(int vehicles, int durations) {
+        if ((long) vehicles * durations > MAX_QUOTES) {
+            throw new IllegalArgumentException("A request cannot have more than " + MAX_QUOTES + " quotes");
+        }
+    }
+}
@@ -0,0 +1,548 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.AbstractVehicle;
+import com.carrosalquiler.carrosalquiler.models.RentedVehicle;
+import com.carrosalquiler.carrosalquiler.models.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * RentalLedgerService es el libro de alquileres: registra quién alquiló cada vehículo y cuándo, y guarda los alquileres cerrados.
+ * Los alquileres activos se indexan por matrícula y por usuario, así que devolver un vehículo es una búsqueda y un borrado O(1);
+ * al devolverlo, el alquiler pasa al historial con su fecha de devolución.
+ *
+ * Los cambios de una matrícula se hacen con el monitor de su historial, para que las instantáneas copien el estado de cada matrícula
+ * de forma consistente. Abrir y cerrar un alquiler es idempotente, así que reproducir el registro sobre una instantánea algo más nueva
+ * no duplica alquileres.
+ *
+ * Cada alquiler y cada devolución actualizan también los contadores de uso por día y tipo, y cada historial guarda las sumas
+ * acumuladas de sus alquileres cerrados, así que los informes de uso de cualquier rango de fechas no recorren el historial.
+ * Los ingresos de una devolución son los que se cobran: el valor diario fijado al alquilar con las reglas de precio,
+ * igual que un presupuesto.
+ */
+@Service
+public class RentalLedgerService {
+    // Alquiler activo de cada matrícula
+    private final Map<String, RentedVehicle> activeByPlate = new ConcurrentHashMap<>();
+    // Alquileres activos de cada usuario, indexados por matrícula
+    private final Map<String, Map<String, RentedVehicle>> activeByUser = new ConcurrentHashMap<>();
+    // Alquileres cerrados de cada matrícula, en orden de devolución
+    private final Map<String, PlateHistory> historyByPlate = new ConcurrentHashMap<>();
+    // Alquileres cerrados de cada usuario
+    private final Map<String, Queue<RentedVehicle>> historyByUser = new ConcurrentHashMap<>();
+    // Contadores de uso por día y tipo de vehículo
+    private final VehicleUsageCounters usage = new VehicleUsageCounters();
+    // Avisados cuando cambian los contadores de uso de unos días, por ejemplo para invalidar informes guardados
+    private final List<UsageListener> usageListeners = new CopyOnWriteArrayList<>();
+    // Milisegundos de un día de alquiler, para calcular los días que se cobran
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    private final PricingRuleService pricingRules;
+
+    /**
+     * Constructor sin reglas de precio: una devolución se cobra con calculateRent.
+     */
+    public RentalLedgerService() {
+        this(new PricingRuleService());
+    }
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param pricingRules las reglas con que se cobran las devoluciones, las mismas de los presupuestos
+     */
+    @Autowired
+    public RentalLedgerService(PricingRuleService pricingRules) {
+        this.pricingRules = pricingRules;
+    }
+
+    /**
+     * Abre un alquiler. Si la matrícula ya tenía un alquiler activo (por ejemplo, porque un administrador marcó el vehículo
+     * como disponible sin devolverlo), ese alquiler se cierra con la fecha del nuevo.
+     *
+     * @param vehicle el vehículo alquilado
+     * @param user el usuario que lo alquila, o null si no se conoce
+     * @param version la versión de disponibilidad que produjo el alquiler
+     * @param epochMillis el instante del alquiler en milisegundos
+     * @param dailyRate el valor de alquiler diario que se cobrará, o 0 si no se conoce
+     * @return el alquiler abierto, o null si ya estaba registrado
+     */
+    public RentedVehicle open(AbstractVehicle vehicle, User user, long version, long epochMillis, double dailyRate) {
+        String plate = vehicle.getLicensePlate();
+        LocalDateTime rentalDate = toDateTime(epochMillis);
+        PlateHistory history = historyByPlate.computeIfAbsent(plate, key -> new PlateHistory());
+        synchronized (history) {
+            RentedVehicle active = activeByPlate.get(plate);
+            if ((active != null && isSameRental(active, version, rentalDate)) || history.contains(version, rentalDate)) {
+                return null;  // La recuperación reproduce un alquiler que la instantánea ya tenía
+            }
+            if (active != null) {
+                closeLocked(plate, active, rentalDate, history);
+            }
+            RentedVehicle rental = new RentedVehicle(user, vehicle, rentalDate, version, dailyRate);
+            activeByPlate.put(plate, rental);
+            String login = loginOf(user);
+            if (login != null) {
+                activeByUser.computeIfAbsent(login, key -> new ConcurrentHashMap<>()).put(plate, rental);
+            }
+            usage.recordRental(typeOf(vehicle), epochMillis);
+            fireUsageChanged(epochMillis, System.currentTimeMillis());  // Un alquiler activo suma tiempo hasta ahora
+            return rental;
+        }
+    }
+
+    /**
+     * Cierra el alquiler activo de una matrícula y lo pasa al historial.
+     *
+     * @param licensePlate la matrícula del vehículo devuelto
+     * @param version la versión de disponibilidad que produjo la devolución
+     * @param epochMillis el instante de la devolución en milisegundos
+     * @return el alquiler cerrado, o null si no había un alquiler activo anterior a esa devolución
+     */
+    public RentedVehicle close(String licensePlate, long version, long epochMillis) {
+        PlateHistory history = historyByPlate.get(licensePlate);
+        if (history == null) {
+            return null;
+        }
+        LocalDateTime returnDate = toDateTime(epochMillis);
+        synchronized (history) {
+            RentedVehicle active = activeByPlate.get(licensePlate);
+            if (active == null || active.getRentalVersion() >= version || active.getRentalDate().isAfter(returnDate)) {
+                return null;  // No hay alquiler, o el activo es posterior a esta devolución
+            }
+            closeLocked(licensePlate, active, returnDate, history);
+            return active;
+        }
+    }
+
+    /**
+     * Busca el alquiler activo de un vehículo en tiempo constante.
+     *
+     * @param licensePlate la matrícula del vehículo
+     * @return el alquiler activo, o null si el vehículo no está alquilado
+     */
+    public RentedVehicle getActiveRental(String licensePlate) {
+        return licensePlate == null ? null : activeByPlate.get(licensePlate);
+    }
+
+    /**
+     * Lista todos los alquileres activos.
+     *
+     * @return una lista con los alquileres activos
+     */
+    public List<RentedVehicle> listActiveRentals() {
+        return new ArrayList<>(activeByPlate.values());
+    }
+
+    /**
+     * Cuenta los alquileres activos.
+     *
+     * @return el número de alquileres activos
+     */
+    public int countActiveRentals() {
+        return activeByPlate.size();
+    }
+
+    /**
+     * Lista los alquileres activos de un usuario.
+     *
+     * @param login el inicio de sesión del usuario
+     * @return una lista con sus alquileres activos
+     */
+    public List<RentedVehicle> listActiveRentalsByUser(String login) {
+        Map<String, RentedVehicle> rentals = login == null ? null : activeByUser.get(login);
+        return rentals == null ? new ArrayList<>() : new ArrayList<>(rentals.values());
+    }
+
+    /**
+     * Lista los alquileres cerrados de un vehículo, del más antiguo al más reciente.
+     *
+     * @param licensePlate la matrícula del vehículo
+     * @return una lista con los alquileres cerrados
+     */
+    public List<RentedVehicle> getRentalHistory(String licensePlate) {
+        PlateHistory history = licensePlate == null ? null : historyByPlate.get(licensePlate);
+        if (history == null) {
+            return new ArrayList<>();
+        }
+        synchronized (history) {
+            return new ArrayList<>(history.closed);
+        }
+    }
+
+    /**
+     * Lista los alquileres cerrados de un usuario, ordenados por fecha de alquiler.
+     *
+     * @param login el inicio de sesión del usuario
+     * @return una lista con los alquileres cerrados
+     */
+    public List<RentedVehicle> getRentalHistoryByUser(String login) {
+        Queue<RentedVehicle> history = login == null ? null : historyByUser.get(login);
+        List<RentedVehicle> rentals = history == null ? new ArrayList<>() : new ArrayList<>(history);
+        rentals.sort(Comparator.comparing(RentedVehicle::getRentalDate));
+        return rentals;
+    }
+
+    /**
+     * Devuelve las matrículas que tienen o tuvieron algún alquiler.
+     */
+    Set<String> rentedPlates() {
+        return historyByPlate.keySet();
+    }
+
+    /**
+     * Recorre los alquileres cerrados de una matrícula, del más antiguo al más reciente, con el monitor de su historial.
+     * Cada alquiler se entrega con sus instantes de alquiler y devolución y sus ingresos ya calculados.
+     *
+     * @param licensePlate la matrícula
+     * @param visitor el que recibe cada alquiler cerrado
+     * @return el número de alquileres recorridos
+     */
+    int forEachClosedRental(String licensePlate, ClosedRentalVisitor visitor) {
+        PlateHistory history = historyByPlate.get(licensePlate);
+        if (history == null) {
+            return 0;
+        }
+        synchronized (history) {
+            int i = 0;
+            for (RentedVehicle rental : history.closed) {
+                visitor.visit(rental, history.starts[i], history.ends[i], history.revenuePrefix[i + 1] - history.revenuePrefix[i]);
+                i++;
+            }
+            return i;
+        }
+    }
+
+    /**
+     * Copia de forma consistente los alquileres de una matrícula: primero los cerrados, en orden, y al final el activo.
+     * Las copias no cambian aunque después se cierre el alquiler activo.
+     *
+     * @param licensePlate la matrícula
+     * @return las copias de sus alquileres
+     */
+    List<RentedVehicle> copyRentals(String licensePlate) {
+        PlateHistory history = historyByPlate.get(licensePlate);
+        List<RentedVehicle> rentals = new ArrayList<>();
+        if (history == null) {
+            return rentals;
+        }
+        synchronized (history) {
+            for (RentedVehicle rental : history.closed) {
+                rentals.add(copy(rental));
+            }
+            RentedVehicle active = activeByPlate.get(licensePlate);
+            if (active != null) {
+                rentals.add(copy(active));
+            }
+        }
+        return rentals;
+    }
+
+    /**
+     * Agrega un alquiler leído de una instantánea, activo o cerrado según tenga fecha de devolución.
+     *
+     * @param rental el alquiler
+     */
+    void restore(RentedVehicle rental) {
+        String plate = rental.getVehicle().getLicensePlate();
+        PlateHistory history = historyByPlate.computeIfAbsent(plate, key -> new PlateHistory());
+        synchronized (history) {
+            String login = loginOf(rental.getUser());
+            long rentalMillis = toEpochMillis(rental.getRentalDate());
+            usage.recordRental(typeOf(rental.getVehicle()), rentalMillis);
+            if (rental.isActive()) {
+                fireUsageChanged(rentalMillis, System.currentTimeMillis());
+                activeByPlate.put(plate, rental);
+                if (login != null) {
+                    activeByUser.computeIfAbsent(login, key -> new ConcurrentHashMap<>()).put(plate, rental);
+                }
+            } else {
+                long returnMillis = toEpochMillis(rental.getReturnDate());
+                double revenue = revenue(rental, rentalMillis, returnMillis);
+                history.closed.addLast(rental);
+                recordReturn(rentalMillis, returnMillis, revenue, rental, history);
+                if (login != null) {
+                    historyByUser.computeIfAbsent(login, key -> new ConcurrentLinkedQueue<>()).add(rental);
+                }
+            }
+        }
+    }
+
+    /**
+     * Registra a quien hay que avisar cuando cambian los contadores de uso de unos días.
+     *
+     * @param listener el que recibe el primer y el último día que cambiaron
+     */
+    void addUsageListener(UsageListener listener) {
+        usageListeners.add(listener);
+    }
+
+    /**
+     * Suma el uso de cada tipo de vehículo en un rango de días a partir de los contadores diarios, en O(días del rango).
+     * Los alquileres activos suman el tiempo que llevan alquilados dentro del rango, pero aún no suman ingresos.
+     *
+     * @param firstDay el primer día del rango
+     * @param lastDay el último día del rango, incluido
+     * @param nowMillis el instante actual
+     * @return por tipo de vehículo, los alquileres, los milisegundos alquilados y los ingresos
+     */
+    Map<String, VehicleUsageCounters.Totals> usageByType(long firstDay, long lastDay, long nowMillis) {
+        Map<String, VehicleUsageCounters.Totals> totals = usage.sum(firstDay, lastDay);
+        long fromMillis = VehicleOccupancyIndex.dayStart(firstDay);
+        long toMillis = Math.min(nowMillis, VehicleOccupancyIndex.dayStart(lastDay + 1));
+        for (RentedVehicle active : activeByPlate.values()) {
+            long rented = toMillis - Math.max(fromMillis, toEpochMillis(active.getRentalDate()));
+            if (rented > 0) {
+                totals.computeIfAbsent(typeOf(active.getVehicle()), key -> new VehicleUsageCounters.Totals()).rentedMillis += rented;
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Suma el uso de cada vehículo que tuvo algún alquiler en un rango de días. Cada matrícula se resuelve con búsquedas
+     * binarias sobre las sumas acumuladas de su historial, en O(log n) por matrícula.
+     *
+     * @param firstDay el primer día del rango
+     * @param lastDay el último día del rango, incluido
+     * @param nowMillis el instante actual
+     * @return por matrícula, en orden, los alquileres, los milisegundos alquilados y los ingresos
+     */
+    Map<String, VehicleUsageCounters.Totals> usageByVehicle(long firstDay, long lastDay, long nowMillis) {
+        long fromMillis = VehicleOccupancyIndex.dayStart(firstDay);
+        long toMillis = VehicleOccupancyIndex.dayStart(lastDay + 1);
+        Map<String, VehicleUsageCounters.Totals> totals = new TreeMap<>();
+        historyByPlate.forEach((plate, history) -> {
+            VehicleUsageCounters.Totals sum = new VehicleUsageCounters.Totals();
+            synchronized (history) {
+                history.sum(fromMillis, toMillis, sum);
+                RentedVehicle active = activeByPlate.get(plate);
+                if (active != null) {
+                    long rentalMillis = toEpochMillis(active.getRentalDate());
+                    if (rentalMillis >= fromMillis && rentalMillis < toMillis) {
+                        sum.rentals++;
+                    }
+                    sum.rentedMillis += Math.max(0, Math.min(nowMillis, toMillis) - Math.max(fromMillis, rentalMillis));
+                }
+            }
+            if (sum.rentals > 0 || sum.rentedMillis > 0 || sum.revenue > 0) {
+                totals.put(plate, sum);
+            }
+        });
+        return totals;
+    }
+
+    /**
+     * Convierte un instante en milisegundos a la fecha y hora local con la que se guardan los alquileres.
+     */
+    static LocalDateTime toDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    /**
+     * Convierte una fecha y hora local de un alquiler a milisegundos.
+     */
+    static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private void closeLocked(String plate, RentedVehicle active, LocalDateTime returnDate, PlateHistory history) {
+        long rentalMillis = toEpochMillis(active.getRentalDate());
+        long returnMillis = toEpochMillis(returnDate);
+        // Antes de cambiar nada: si una regla de precio falla, el alquiler sigue activo y no queda a medio cerrar
+        double revenue = revenue(active, rentalMillis, returnMillis);
+        active.setReturnDate(returnDate);
+        activeByPlate.remove(plate);
+        history.closed.addLast(active);
+        recordReturn(rentalMillis, returnMillis, revenue, active, history);
+        String login = loginOf(active.getUser());
+        if (login != null) {
+            activeByUser.computeIfPresent(login, (key, rentals) -> {
+                rentals.remove(plate);
+                return rentals.isEmpty() ? null : rentals;  // Devolver null elimina la entrada del mapa
+            });
+            historyByUser.computeIfAbsent(login, key -> new ConcurrentLinkedQueue<>()).add(active);
+        }
+    }
+
+    /**
+     * Calcula los ingresos de una devolución: el precio de los días empezados del alquiler, como mínimo uno, con las reglas
+     * de precio y el valor diario fijado al alquilar; un alquiler sin ese valor usa el valor de alquiler del vehículo.
+     */
+    private double revenue(RentedVehicle rental, long rentalMillis, long returnMillis) {
+        long duration = Math.max(0, returnMillis - rentalMillis);
+        int days = (int) Math.max(1, (duration + DAY_MILLIS - 1) / DAY_MILLIS);
+        AbstractVehicle vehicle = rental.getVehicle();
+        double dailyRate = rental.getDailyRate() > 0 ? rental.getDailyRate() : vehicle.getRentalValue();
+        return pricingRules.price(vehicle, dailyRate, days);
+    }
+
+    /**
+     * Cuenta una devolución en los contadores diarios y en las sumas acumuladas de la matrícula.
+     */
+    private void recordReturn(long rentalMillis, long returnMillis, double revenue, RentedVehicle rental, PlateHistory history) {
+        usage.recordReturn(typeOf(rental.getVehicle()), rentalMillis, returnMillis, revenue);
+        history.append(rentalMillis, Math.max(rentalMillis, returnMillis), revenue);
+        fireUsageChanged(rentalMillis, returnMillis);
+    }
+
+    private void fireUsageChanged(long fromMillis, long toMillis) {
+        if (usageListeners.isEmpty()) {
+            return;
+        }
+        long firstDay = VehicleOccupancyIndex.epochDay(fromMillis);
+        long lastDay = Math.max(firstDay, VehicleOccupancyIndex.epochDay(toMillis));
+        for (UsageListener listener : usageListeners) {
+            listener.usageChanged(firstDay, lastDay);
+        }
+    }
+
+    private static String typeOf(AbstractVehicle vehicle) {
+        return VehicleSearchIndex.typeName(vehicle.getClass());
+    }
+
+    private static boolean isSameRental(RentedVehicle rental, long version, LocalDateTime rentalDate) {
+        return rental.getRentalVersion() == version && rental.getRentalDate().equals(rentalDate);
+    }
+
+    private static RentedVehicle copy(RentedVehicle rental) {
+        RentedVehicle copy = new RentedVehicle(rental.getUser(), rental.getVehicle(), rental.getRentalDate(), rental.getRentalVersion(),
+                rental.getDailyRate());
+        copy.setReturnDate(rental.getReturnDate());
+        return copy;
+    }
+
+    private static String loginOf(User user) {
+        return user == null ? null : user.getLogin();
+    }
+
+    /**
+     * Recibe los días cuyos contadores de uso cambiaron al abrir, cerrar o restaurar un alquiler.
+     */
+    interface UsageListener {
+        void usageChanged(long firstDay, long lastDay);
+    }
+
+    /**
+     * Recibe los alquileres cerrados de una matrícula en forEachClosedRental.
+     */
+    interface ClosedRentalVisitor {
+        void visit(RentedVehicle rental, long rentalMillis, long returnMillis, double revenue);
+    }
+
+    /**
+     * Alquileres cerrados de una matrícula. Su monitor protege también el alquiler activo de la matrícula.
+     * Junto a los alquileres guarda sus instantes de inicio y fin y las sumas acumuladas de tiempo alquilado e ingresos;
+     * como los alquileres de una matrícula no se solapan, los dos arreglos de instantes quedan ordenados.
+     */
+    private static final class PlateHistory {
+        private final ArrayDeque<RentedVehicle> closed = new ArrayDeque<>();
+        private long[] starts = new long[2];
+        private long[] ends = new long[2];
+        private long[] rentedPrefix = new long[3];  // rentedPrefix[i]: milisegundos alquilados de los i primeros alquileres
+        private double[] revenuePrefix = new double[3];  // revenuePrefix[i]: ingresos de los i primeros alquileres
+        private int size;
+
+        void append(long startMillis, long endMillis, double revenue) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+                rentedPrefix = Arrays.copyOf(rentedPrefix, size * 2 + 1);
+                revenuePrefix = Arrays.copyOf(revenuePrefix, size * 2 + 1);
+            }
+            starts[size] = startMillis;
+            ends[size] = endMillis;
+            rentedPrefix[size + 1] = rentedPrefix[size] + (endMillis - startMillis);
+            revenuePrefix[size + 1] = revenuePrefix[size] + revenue;
+            size++;
+        }
+
+        /**
+         * Suma el uso de los alquileres cerrados en [from, to): los que empezaron, el tiempo alquilado recortado al rango
+         * y los ingresos de los devueltos.
+         */
+        void sum(long fromMillis, long toMillis, VehicleUsageCounters.Totals sum) {
+            sum.rentals += lowerBound(starts, toMillis) - lowerBound(starts, fromMillis);
+            int endFrom = lowerBound(ends, fromMillis);
+            int endTo = lowerBound(ends, toMillis);
+            sum.revenue += revenuePrefix[endTo] - revenuePrefix[endFrom];
+            // Se solapan con el rango los que terminan después de from y empiezan antes de to
+            int first = upperBound(ends, fromMillis);
+            int last = lowerBound(starts, toMillis);
+            if (first < last) {
+                long rented = rentedPrefix[last] - rentedPrefix[first];
+                rented -= Math.max(0, fromMillis - starts[first]);  // El primero puede empezar antes del rango
+                rented -= Math.max(0, ends[last - 1] - toMillis);  // y el último terminar después
+                sum.rentedMillis += rented;
+            }
+        }
+
+        /**
+         * Primera posición con un valor mayor o igual que key.
+         */
+        private int lowerBound(long[] values, long key) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Primera posición con un valor mayor que key.
+         */
+        private int upperBound(long[] values, long key) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] <= key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Indica si un alquiler ya está en el historial. Solo mira los alquileres igual o más recientes que el buscado.
+         */
+        boolean contains(long version, LocalDateTime rentalDate) {
+            Iterator<RentedVehicle> iterator = closed.descendingIterator();
+            while (iterator.hasNext()) {
+                RentedVehicle rental = iterator.next();
+                if (rental.getRentalDate().isBefore(rentalDate)) {
+                    return false;
+                }
+                if (isSameRental(rental, version, rentalDate)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
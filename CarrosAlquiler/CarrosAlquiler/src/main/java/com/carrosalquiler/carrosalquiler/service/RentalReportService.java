@@ -0,0 +1,369 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.*;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * RentalReportService calcula informes ad hoc sobre todo el historial de alquileres cerrados, agrupando por cualquier combinación
+ * de dimensiones del vehículo, del usuario y de la fecha del alquiler (por ejemplo tipo × eléctrico × mes).
+ *
+ * El recorrido se reparte en un pool fork-join por bloques de matrículas. Cada tarea acumula sus propios totales parciales
+ * en un mapa local, sin compartir nada con las demás, y los parciales se fusionan al unir las tareas; así los hilos no compiten
+ * por ningún contador mientras recorren el historial.
+ */
+@Service
+public class RentalReportService {
+    // Dimensiones por las que se puede agrupar: primero las del vehículo, luego las del usuario y al final las de la fecha
+    static final List<String> DIMENSIONS = List.of(
+            "type", "electric", "plate", "color", "doors", "seats", "cargoCapacity", "sidecar",  // Del vehículo
+            "user", "role", "ageGroup", "visionImpairment", "hearingImpairment",  // Del usuario
+            "year", "month", "dayOfWeek");  // De la fecha del alquiler
+    private static final String UNKNOWN = "unknown";  // Valor de una dimensión que el alquiler no tiene, por ejemplo sin usuario
+    private static final String NOT_APPLICABLE = "-";  // Valor de una dimensión de otro tipo de vehículo, como las puertas de una moto
+    private static final int FIRST_USER_DIMENSION = DIMENSIONS.indexOf("user");
+    private static final int FIRST_DATE_DIMENSION = DIMENSIONS.indexOf("year");
+    private static final int MIN_PLATES_PER_TASK = 64;  // Por debajo de esto no compensa dividir la tarea
+
+    private final RentalLedgerService ledger;
+    private final Function<String, User> users;  // Busca el usuario actual por login; el del alquiler puede venir incompleto
+    private final ForkJoinPool pool;
+    private final int parallelism;
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param ledger el libro de alquileres que se recorre
+     * @param userService el servicio de usuarios, usado para completar los datos del usuario de cada alquiler
+     * @param parallelism los hilos del pool de informes; 0 usa uno por procesador
+     */
+    @Autowired
+    public RentalReportService(RentalLedgerService ledger, GestionUsuariosService userService,
+                               @Value("${carros.reports.parallelism:0}") int parallelism) {
+        this(ledger, userService::getUserByLogin,
+                parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    RentalReportService(RentalLedgerService ledger, Function<String, User> users, int parallelism) {
+        this.ledger = ledger;
+        this.users = users;
+        this.parallelism = Math.max(1, parallelism);
+        this.pool = this.parallelism > 1 ? new ForkJoinPool(this.parallelism) : null;  // Con un hilo se recorre en el que llama
+    }
+
+    /**
+     * Calcula un informe sobre los alquileres cerrados, agrupado por las dimensiones pedidas.
+     *
+     * @param groupBy las dimensiones, en el orden en que salen en cada fila
+     * @param from el primer día de alquiler que se incluye, o null para no limitar
+     * @param to el último día de alquiler que se incluye, o null para no limitar
+     * @return el informe con una fila por grupo
+     * @throws IllegalArgumentException si no hay dimensiones, alguna no existe o el rango de fechas no es válido
+     */
+    public RentalReport report(List<String> groupBy, LocalDate from, LocalDate to) {
+        int[] dimensions = parseDimensions(groupBy);
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to.");
+        }
+        long fromMillis = from == null ? Long.MIN_VALUE : VehicleOccupancyIndex.dayStart(from.toEpochDay());
+        long toMillis = to == null ? Long.MAX_VALUE : VehicleOccupancyIndex.dayStart(to.toEpochDay() + 1);
+
+        long start = System.nanoTime();
+        String[] plates = ledger.rentedPlates().toArray(new String[0]);
+        ScanTask task = new ScanTask(plates, 0, plates.length, dimensions, fromMillis, toMillis,
+                Math.max(MIN_PLATES_PER_TASK, plates.length / (parallelism * 8)));
+        Partial partial = pool == null ? task.compute() : pool.invoke(task);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        List<String> names = new ArrayList<>();
+        for (int dimension : dimensions) {
+            names.add(DIMENSIONS.get(dimension));
+        }
+        List<Map.Entry<List<String>, VehicleUsageCounters.Totals>> groups = new ArrayList<>(partial.groups.entrySet());
+        groups.sort((a, b) -> compareGroups(a.getKey(), b.getKey()));
+        List<RentalReportRow> rows = new ArrayList<>(groups.size());
+        for (Map.Entry<List<String>, VehicleUsageCounters.Totals> entry : groups) {
+            Map<String, String> group = new LinkedHashMap<>();
+            for (int i = 0; i < names.size(); i++) {
+                group.put(names.get(i), entry.getKey().get(i));
+            }
+            VehicleUsageCounters.Totals totals = entry.getValue();
+            rows.add(new RentalReportRow(group, totals.rentals, totals.rentedMillis / (24.0 * 60 * 60 * 1000), totals.revenue));
+        }
+        return new RentalReport(names, rows, partial.scanned, parallelism, elapsedMillis);
+    }
+
+    /**
+     * Cierra el pool de informes al apagar la aplicación.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    private static int[] parseDimensions(List<String> groupBy) {
+        if (groupBy == null || groupBy.isEmpty()) {
+            throw new IllegalArgumentException("groupBy needs at least one dimension: " + String.join(", ", DIMENSIONS) + ".");
+        }
+        List<Integer> dimensions = new ArrayList<>();
+        for (String name : groupBy) {
+            int dimension = -1;
+            for (int i = 0; i < DIMENSIONS.size(); i++) {
+                if (DIMENSIONS.get(i).equalsIgnoreCase(name.trim())) {
+                    dimension = i;
+                }
+            }
+            if (dimension < 0) {
+                throw new IllegalArgumentException("Unknown dimension '" + name + "'. Use " + String.join(", ", DIMENSIONS) + ".");
+            }
+            if (!dimensions.contains(dimension)) {
+                dimensions.add(dimension);  // Una dimensión repetida no cambia los grupos
+            }
+        }
+        return dimensions.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int compareGroups(List<String> a, List<String> b) {
+        for (int i = 0; i < a.size(); i++) {
+            int cmp = a.get(i).compareTo(b.get(i));
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    private static String vehicleValue(int dimension, AbstractVehicle vehicle) {
+        switch (DIMENSIONS.get(dimension)) {
+            case "type":
+                return VehicleSearchIndex.typeName(vehicle.getClass());
+            case "electric":
+                return Boolean.toString(vehicle.isElectric());
+            case "plate":
+                return vehicle.getLicensePlate();
+            case "color":
+                return vehicle.getColor() == null ? UNKNOWN : vehicle.getColor().toLowerCase(Locale.ROOT);
+            case "doors":
+                return vehicle instanceof Car car ? Integer.toString(car.getNumberOfDoors()) : NOT_APPLICABLE;
+            case "seats":
+                return vehicle instanceof Van van ? Integer.toString(van.getSeatingCapacity()) : NOT_APPLICABLE;
+            case "cargoCapacity":
+                return vehicle instanceof Truck truck ? Double.toString(truck.getCargoCapacity()) : NOT_APPLICABLE;
+            default:
+                return vehicle instanceof Motorcycle motorcycle ? Boolean.toString(motorcycle.isHasSidecar()) : NOT_APPLICABLE;
+        }
+    }  // Devuelve el valor de una dimensión del vehículo.
+
+    private static String userValue(int dimension, User user) {
+        if (user == null) {
+            return UNKNOWN;
+        }
+        switch (DIMENSIONS.get(dimension)) {
+            case "user":
+                return user.getLogin() == null ? UNKNOWN : user.getLogin();
+            case "role":
+                return user.getRole() == null ? UNKNOWN : user.getRole().name();
+            case "ageGroup":
+                if (user.getAge() <= 0) {
+                    return UNKNOWN;
+                }
+                int decade = user.getAge() / 10 * 10;
+                return decade + "-" + (decade + 9);
+            case "visionImpairment":
+                return Boolean.toString(user.isHasVisionImpairment());
+            default:
+                return Boolean.toString(user.isHasHearingImpairment());
+        }
+    }  // Devuelve el valor de una dimensión del usuario.
+
+    /**
+     * Totales parciales de un bloque de matrículas: un acumulado por grupo y los alquileres recorridos.
+     */
+    private static final class Partial {
+        private final Map<List<String>, VehicleUsageCounters.Totals> groups = new HashMap<>();
+        private long scanned;
+
+        /**
+         * Suma otro parcial a este; se recorre el más pequeño.
+         */
+        Partial merge(Partial other) {
+            Partial big = groups.size() >= other.groups.size() ? this : other;
+            Partial small = big == this ? other : this;
+            small.groups.forEach((key, totals) -> {
+                VehicleUsageCounters.Totals sum = big.groups.putIfAbsent(key, totals);
+                if (sum != null) {
+                    sum.rentals += totals.rentals;
+                    sum.rentedMillis += totals.rentedMillis;
+                    sum.revenue += totals.revenue;
+                }
+            });
+            big.scanned += small.scanned;
+            return big;
+        }
+    }
+
+    /**
+     * Tarea que recorre un bloque de matrículas; si el bloque es grande, lo parte en dos mitades.
+     */
+    private final class ScanTask extends RecursiveTask<Partial> {
+        private static final long serialVersionUID = 1L;  // RecursiveTask es Serializable
+        private final String[] plates;
+        private final int lo;
+        private final int hi;
+        private final int[] dimensions;
+        private final long fromMillis;
+        private final long toMillis;
+        private final int threshold;
+
+        ScanTask(String[] plates, int lo, int hi, int[] dimensions, long fromMillis, long toMillis, int threshold) {
+            this.plates = plates;
+            this.lo = lo;
+            this.hi = hi;
+            this.dimensions = dimensions;
+            this.fromMillis = fromMillis;
+            this.toMillis = toMillis;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (hi - lo > threshold) {
+                int mid = (lo + hi) >>> 1;
+                ScanTask left = new ScanTask(plates, lo, mid, dimensions, fromMillis, toMillis, threshold);
+                left.fork();
+                Partial right = new ScanTask(plates, mid, hi, dimensions, fromMillis, toMillis, threshold).compute();
+                return left.join().merge(right);
+            }
+            Partial partial = new Partial();
+            GroupKeys keys = new GroupKeys(dimensions);
+            for (int i = lo; i < hi; i++) {
+                partial.scanned += ledger.forEachClosedRental(plates[i], (rental, rentalMillis, returnMillis, revenue) -> {
+                    if (rentalMillis < fromMillis || rentalMillis >= toMillis) {
+                        return;
+                    }
+                    List<String> key = keys.of(rental, rentalMillis);
+                    VehicleUsageCounters.Totals totals = partial.groups.get(key);
+                    if (totals == null) {
+                        totals = new VehicleUsageCounters.Totals();
+                        partial.groups.put(Arrays.asList(key.toArray(new String[0])), totals);  // La clave reutilizada se copia
+                    }
+                    totals.rentals++;
+                    totals.rentedMillis += returnMillis - rentalMillis;
+                    totals.revenue += revenue;
+                });
+            }
+            return partial;
+        }
+    }
+
+    /**
+     * Calcula la clave de grupo de cada alquiler de un bloque reutilizando un mismo arreglo. Los valores del vehículo se calculan
+     * una vez por vehículo, los del usuario una vez por login y los de la fecha una vez por mes, así que el recorrido casi no crea
+     * objetos por alquiler.
+     */
+    private final class GroupKeys {
+        private final int[] dimensions;
+        private final String[] values;
+        private final List<String> key;
+        private final boolean needsUser;
+        private final boolean needsDate;
+        private final Map<String, String[]> valuesByLogin = new HashMap<>();
+        private AbstractVehicle lastVehicle;
+        private long monthStart = 1;  // Mes de la última fecha calculada; vacío al principio
+        private long monthEnd = 0;
+        private String year;
+        private String month;
+
+        GroupKeys(int[] dimensions) {
+            this.dimensions = dimensions;
+            this.values = new String[dimensions.length];
+            this.key = Arrays.asList(values);
+            boolean user = false;
+            boolean date = false;
+            for (int dimension : dimensions) {
+                user |= dimension >= FIRST_USER_DIMENSION && dimension < FIRST_DATE_DIMENSION;
+                date |= dimension >= FIRST_DATE_DIMENSION;
+            }
+            this.needsUser = user;
+            this.needsDate = date;
+        }
+
+        /**
+         * Devuelve la clave de un alquiler. La lista se reutiliza en la siguiente llamada.
+         */
+        List<String> of(RentedVehicle rental, long rentalMillis) {
+            AbstractVehicle vehicle = rental.getVehicle();
+            if (vehicle != lastVehicle) {
+                for (int d = 0; d < dimensions.length; d++) {
+                    if (dimensions[d] < FIRST_USER_DIMENSION) {
+                        values[d] = vehicleValue(dimensions[d], vehicle);
+                    }
+                }
+                lastVehicle = vehicle;
+            }
+            if (needsUser) {
+                String[] userValues = userValues(rental.getUser());
+                for (int d = 0; d < dimensions.length; d++) {
+                    if (dimensions[d] >= FIRST_USER_DIMENSION && dimensions[d] < FIRST_DATE_DIMENSION) {
+                        values[d] = userValues[d];
+                    }
+                }
+            }
+            if (needsDate) {
+                if (rentalMillis < monthStart || rentalMillis >= monthEnd) {
+                    LocalDate first = rental.getRentalDate().toLocalDate().withDayOfMonth(1);
+                    monthStart = VehicleOccupancyIndex.dayStart(first.toEpochDay());
+                    monthEnd = VehicleOccupancyIndex.dayStart(first.plusMonths(1).toEpochDay());
+                    year = Integer.toString(first.getYear());
+                    month = year + (first.getMonthValue() < 10 ? "-0" : "-") + first.getMonthValue();
+                }
+                for (int d = 0; d < dimensions.length; d++) {
+                    switch (DIMENSIONS.get(dimensions[d])) {
+                        case "year" -> values[d] = year;
+                        case "month" -> values[d] = month;
+                        case "dayOfWeek" -> values[d] = rental.getRentalDate().getDayOfWeek().name();
+                        default -> {
+                        }
+                    }
+                }
+            }
+            return key;
+        }
+
+        /**
+         * Valores de las dimensiones del usuario, buscando sus datos actuales por login una vez por bloque.
+         */
+        private String[] userValues(User user) {
+            String login = user == null ? null : user.getLogin();
+            String[] cached = valuesByLogin.get(login);
+            if (cached == null) {
+                User current = login == null ? null : users.apply(login);
+                User source = current != null ? current : user;
+                cached = new String[dimensions.length];
+                for (int d = 0; d < dimensions.length; d++) {
+                    if (dimensions[d] >= FIRST_USER_DIMENSION && dimensions[d] < FIRST_DATE_DIMENSION) {
+                        cached[d] = userValue(dimensions[d], source);
+                    }
+                }
+                valuesByLogin.put(login, cached);
+            }
+            return cached;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.Reservation;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ReservationService guarda las reservas futuras de cada vehículo en un libro de reservas por matrícula.
+ * Cada libro es un árbol ordenado por fecha de recogida con periodos que nunca se solapan; así, los periodos también quedan
+ * ordenados por fecha de entrega y comprobar si un periodo nuevo choca con otro solo requiere mirar la reserva
+ * que empieza justo antes de su fin: O(log n) en vez de recorrer todas las reservas del vehículo.
+ *
+ * Cada libro se protege con su propio monitor, así que dos peticiones sobre el mismo periodo no pueden reservarlo las dos.
+ * Las reservas ya terminadas se descartan al hacer reservas nuevas sobre el mismo vehículo.
+ */
+@Service
+public class ReservationService {
+    // Libro de reservas de cada matrícula
+    private final Map<String, ReservationBook> books = new ConcurrentHashMap<>();
+    // Reservas vigentes por identificador, para cancelarlas sin saber su matrícula
+    private final Map<String, Reservation> byId = new ConcurrentHashMap<>();
+
+    /**
+     * Reserva un vehículo si el periodo no se solapa con ninguna reserva vigente.
+     *
+     * @param licensePlate la matrícula del vehículo
+     * @param login el inicio de sesión del usuario que reserva
+     * @param pickupMillis el instante de recogida en milisegundos, incluido en el periodo
+     * @param dropOffMillis el instante de entrega en milisegundos, excluido del periodo
+     * @param nowMillis el instante actual, usado para descartar las reservas terminadas
+     * @return la reserva creada, o null si el periodo ya estaba reservado
+     */
+    Reservation reserve(String licensePlate, String login, long pickupMillis, long dropOffMillis, long nowMillis) {
+        ReservationBook book = books.computeIfAbsent(licensePlate, key -> new ReservationBook());
+        synchronized (book) {
+            book.pruneBefore(nowMillis, byId);
+            if (book.overlaps(pickupMillis, dropOffMillis)) {
+                return null;
+            }
+            Reservation reservation = new Reservation(UUID.randomUUID().toString(), licensePlate, login,
+                    RentalLedgerService.toDateTime(pickupMillis), RentalLedgerService.toDateTime(dropOffMillis));
+            book.put(pickupMillis, dropOffMillis, reservation);
+            byId.put(reservation.getId(), reservation);
+            return reservation;
+        }
+    }
+
+    /**
+     * Agrega una reserva leída del registro o de una instantánea. Si ya estaba, o si ya terminó, no hace nada.
+     *
+     * @param reservation la reserva
+     * @param nowMillis el instante actual
+     */
+    void restore(Reservation reservation, long nowMillis) {
+        long pickupMillis = RentalLedgerService.toEpochMillis(reservation.getPickupDate());
+        long dropOffMillis = RentalLedgerService.toEpochMillis(reservation.getDropOffDate());
+        if (dropOffMillis <= nowMillis || byId.containsKey(reservation.getId())) {
+            return;
+        }
+        ReservationBook book = books.computeIfAbsent(reservation.getLicensePlate(), key -> new ReservationBook());
+        synchronized (book) {
+            if (!book.overlaps(pickupMillis, dropOffMillis)) {
+                book.put(pickupMillis, dropOffMillis, reservation);
+                byId.put(reservation.getId(), reservation);
+            }
+        }
+    }
+
+    /**
+     * Cancela una reserva.
+     *
+     * @param reservationId el identificador de la reserva
+     * @return la reserva cancelada, o null si no existía
+     */
+    Reservation cancel(String reservationId) {
+        Reservation reservation = getReservation(reservationId);
+        if (reservation == null) {
+            return null;
+        }
+        ReservationBook book = books.get(reservation.getLicensePlate());
+        if (book == null) {
+            return null;
+        }
+        synchronized (book) {
+            if (!book.remove(RentalLedgerService.toEpochMillis(reservation.getPickupDate()), reservation)) {
+                return null;  // Otro hilo la canceló antes
+            }
+            byId.remove(reservationId);
+            return reservation;
+        }
+    }
+
+    /**
+     * Elimina todas las reservas de un vehículo, por ejemplo porque se dio de baja.
+     *
+     * @param licensePlate la matrícula del vehículo
+     */
+    void removeAll(String licensePlate) {
+        ReservationBook book = books.remove(licensePlate);
+        if (book != null) {
+            synchronized (book) {
+                for (Slot slot : book.byPickup.values()) {
+                    byId.remove(slot.reservation().getId());
+                }
+            }
+        }
+    }
+
+    /**
+     * Busca una reserva vigente por su identificador.
+     *
+     * @param reservationId el identificador de la reserva
+     * @return la reserva, o null si no existe
+     */
+    public Reservation getReservation(String reservationId) {
+        return reservationId == null ? null : byId.get(reservationId);
+    }
+
+    /**
+     * Busca la reserva de un vehículo cuyo periodo contiene un instante, en O(log n).
+     *
+     * @param licensePlate la matrícula del vehículo
+     * @param atMillis el instante en milisegundos
+     * @return la reserva que cubre ese instante, o null si no hay ninguna
+     */
+    public Reservation reservationAt(String licensePlate, long atMillis) {
+        ReservationBook book = licensePlate == null ? null : books.get(licensePlate);
+        if (book == null) {
+            return null;
+        }
+        synchronized (book) {
+            Map.Entry<Long, Slot> entry = book.byPickup.floorEntry(atMillis);
+            return entry != null && entry.getValue().dropOffMillis() > atMillis ? entry.getValue().reservation() : null;
+        }
+    }
+
+    /**
+     * Indica si un vehículo no tiene reservas que se solapen con un periodo, en O(log n).
+     *
+     * @param licensePlate la matrícula del vehículo
+     * @param fromMillis el inicio del periodo
+     * @param toMillis el fin del periodo, excluido
+     * @return true si el periodo está libre
+     */
+    public boolean isFree(String licensePlate, long fromMillis, long toMillis) {
+        ReservationBook book = licensePlate == null ? null : books.get(licensePlate);
+        if (book == null) {
+            return true;
+        }
+        synchronized (book) {
+            return !book.overlaps(fromMillis, toMillis);
+        }
+    }
+
+    /**
+     * Devuelve los periodos reservados de un vehículo que se solapan con un intervalo, ordenados, como pares {recogida, entrega}.
+     *
+     * @param licensePlate la matrícula del vehículo
+     * @param fromMillis el inicio del intervalo
+     * @param toMillis el fin del intervalo, excluido
+     * @return los periodos reservados
+     */
+    List<long[]> periodsBetween(String licensePlate, long fromMillis, long toMillis) {
+        ReservationBook book = books.get(licensePlate);
+        if (book == null) {
+            return List.of();
+        }
+        List<long[]> periods = new ArrayList<>();
+        synchronized (book) {
+            // El periodo que empieza antes del intervalo puede seguir abierto dentro de él
+            Long first = book.byPickup.floorKey(fromMillis);
+            Map<Long, Slot> candidates = book.byPickup.subMap(first == null ? fromMillis : first, true, toMillis, false);
+            for (Map.Entry<Long, Slot> entry : candidates.entrySet()) {
+                if (entry.getValue().dropOffMillis() > fromMillis) {
+                    periods.add(new long[]{entry.getKey(), entry.getValue().dropOffMillis()});
+                }
+            }
+        }
+        return periods;
+    }
+
+    /**
+     * Lista las reservas de un vehículo que aún no han terminado, ordenadas por fecha de recogida.
+     *
+     * @param licensePlate la matrícula del vehículo
+     * @param nowMillis el instante actual
+     * @return una lista con las reservas
+     */
+    public List<Reservation> listReservations(String licensePlate, long nowMillis) {
+        ReservationBook book = licensePlate == null ? null : books.get(licensePlate);
+        List<Reservation> reservations = new ArrayList<>();
+        if (book == null) {
+            return reservations;
+        }
+        synchronized (book) {
+            for (Slot slot : book.byPickup.values()) {
+                if (slot.dropOffMillis() > nowMillis) {
+                    reservations.add(slot.reservation());
+                }
+            }
+        }
+        return reservations;
+    }
+
+    /**
+     * Devuelve las matrículas que tienen un libro de reservas.
+     */
+    Set<String> reservedPlates() {
+        return books.keySet();
+    }
+
+    /**
+     * Cuenta las reservas guardadas, incluidas las terminadas que aún no se han descartado.
+     *
+     * @return el número de reservas
+     */
+    public int countReservations() {
+        return byId.size();
+    }
+
+    /**
+     * Libro de reservas de una matrícula: fecha de recogida a periodo reservado, sin solapamientos.
+     */
+    private static final class ReservationBook {
+        private final TreeMap<Long, Slot> byPickup = new TreeMap<>();
+
+        /**
+         * Como los periodos no se solapan, el único que puede chocar con [pickup, dropOff) es el último que empieza antes de dropOff.
+         */
+        boolean overlaps(long pickupMillis, long dropOffMillis) {
+            Map.Entry<Long, Slot> before = byPickup.lowerEntry(dropOffMillis);
+            return before != null && before.getValue().dropOffMillis() > pickupMillis;
+        }
+
+        void put(long pickupMillis, long dropOffMillis, Reservation reservation) {
+            byPickup.put(pickupMillis, new Slot(dropOffMillis, reservation));
+        }
+
+        boolean remove(long pickupMillis, Reservation reservation) {
+            Slot slot = byPickup.get(pickupMillis);
+            if (slot == null || slot.reservation() != reservation) {
+                return false;
+            }
+            byPickup.remove(pickupMillis);
+            return true;
+        }
+
+        /**
+         * Descarta las reservas terminadas, que son las primeras del árbol.
+         */
+        void pruneBefore(long nowMillis, Map<String, Reservation> byId) {
+            Iterator<Slot> iterator = byPickup.values().iterator();
+            while (iterator.hasNext()) {
+                Slot slot = iterator.next();
+                if (slot.dropOffMillis() > nowMillis) {
+                    return;
+                }
+                iterator.remove();
+                byId.remove(slot.reservation().getId());
+            }
+        }
+    }
+
+    /**
+     * Periodo reservado: su fecha de entrega en milisegundos y la reserva.
+     */
+    private record Slot(long dropOffMillis, Reservation reservation) {
+    }
+}
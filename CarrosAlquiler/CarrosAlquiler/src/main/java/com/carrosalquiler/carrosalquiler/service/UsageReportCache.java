@@ -0,0 +1,234 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.ReportCacheStats;
+import com.carrosalquiler.carrosalquiler.models.UsageReport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * UsageReportCache guarda los últimos informes de uso calculados, por rango de días y agrupación, con expulsión LRU.
+ *
+ * Cada alquiler o devolución invalida solo los informes cuyo rango se solapa con los días que cambió, así que los informes
+ * de otros periodos siguen en la caché. Los informes que llegan hasta el momento actual cambian aunque no haya eventos,
+ * porque los alquileres activos siguen sumando tiempo; por eso caducan tras un tiempo corto.
+ *
+ * Un informe calculado mientras se invalidaba algo no se guarda: podría haber leído los contadores a medio cambiar.
+ *
+ * Las invalidaciones llegan desde los alquileres y devoluciones, dentro del bloqueo de su matrícula, así que no toman
+ * el bloqueo de la caché ni recorren sus informes: suben la marca con un incremento atómico y dejan los días en una cola.
+ * Quien consulta la caché aplica la cola antes de buscar, así que nunca recibe un informe de unos días ya invalidados.
+ * Si la cola se llena porque nadie consulta, los días nuevos se juntan en un solo rango que los cubre a todos.
+ */
+@Service
+public class UsageReportCache {
+    private static final long BASE_BYTES = 256;  // Estimación del informe sin filas: objeto, fechas, mapas vacíos y entrada de la caché
+    private static final long ROW_BYTES = 112;  // Estimación de una fila: UsageStats, nodo del mapa y referencia a la clave
+    private static final int MAX_PENDING = 1024;  // Rangos pendientes en la cola; los que llegan con la cola llena se juntan
+
+    private final int maxEntries;
+    private final long liveTtlMillis;
+    // Orden de acceso: la primera entrada es la usada hace más tiempo
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Aumenta con cada invalidación; un informe solo se guarda si no cambió mientras se calculaba
+    private final AtomicLong invalidationCount = new AtomicLong();
+    private final ConcurrentLinkedQueue<long[]> pending = new ConcurrentLinkedQueue<>();  // Rangos de días aún sin aplicar
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicReference<long[]> pendingHull = new AtomicReference<>();  // Rango que cubre los que no cupieron en la cola
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+    private long expirations;
+    private long estimatedBytes;
+
+    /**
+     * Constructor con los valores por defecto: 256 informes y 30 segundos para los que llegan hasta hoy.
+     */
+    public UsageReportCache() {
+        this(256, 30_000);
+    }
+
+    /**
+     * Constructor con inyección de la configuración.
+     *
+     * @param maxEntries el número máximo de informes guardados; 0 desactiva la caché
+     * @param liveTtlMillis cuánto vale un informe cuyo rango llega hasta el momento actual
+     */
+    @Autowired
+    public UsageReportCache(@Value("${carros.reports.cache.max-entries:256}") int maxEntries,
+                            @Value("${carros.reports.cache.live-ttl-ms:30000}") long liveTtlMillis) {
+        this.maxEntries = Math.max(0, maxEntries);
+        this.liveTtlMillis = liveTtlMillis;
+    }
+
+    /**
+     * Busca un informe guardado.
+     *
+     * @param firstDay el primer día del informe
+     * @param lastDay el último día del informe, incluido
+     * @param byVehicle si el informe incluye las cifras de cada vehículo
+     * @param nowMillis el instante actual
+     * @return el informe, o null si no está o ya caducó
+     */
+    synchronized UsageReport get(long firstDay, long lastDay, boolean byVehicle, long nowMillis) {
+        applyPending();
+        Key key = new Key(firstDay, lastDay, byVehicle);
+        Entry entry = entries.get(key);
+        if (entry != null && entry.live && nowMillis - entry.createdMillis >= liveTtlMillis) {
+            remove(key);
+            expirations++;
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.report;
+    }
+
+    /**
+     * Devuelve la marca que hay que pasar a put: se toma antes de calcular el informe.
+     */
+    long stamp() {
+        return invalidationCount.get();
+    }
+
+    /**
+     * Guarda un informe si nada se invalidó desde la marca, y expulsa el usado hace más tiempo si la caché está llena.
+     *
+     * @param firstDay el primer día del informe
+     * @param lastDay el último día del informe, incluido
+     * @param byVehicle si el informe incluye las cifras de cada vehículo
+     * @param report el informe
+     * @param stamp la marca tomada antes de calcularlo
+     * @param nowMillis el instante en que se calculó
+     */
+    synchronized void put(long firstDay, long lastDay, boolean byVehicle, UsageReport report, long stamp, long nowMillis) {
+        applyPending();
+        if (maxEntries == 0 || stamp != invalidationCount.get()) {
+            return;  // Una invalidación posterior a la comprobación deja su rango en la cola, que se aplica en la siguiente consulta
+        }
+        Key key = new Key(firstDay, lastDay, byVehicle);
+        remove(key);
+        boolean live = VehicleOccupancyIndex.dayStart(lastDay + 1) > nowMillis;
+        Entry entry = new Entry(report, live, nowMillis, estimateBytes(report));
+        entries.put(key, entry);
+        estimatedBytes += entry.bytes;
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries) {
+            estimatedBytes -= eldest.next().getValue().bytes;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Invalida los informes cuyo rango se solapa con unos días que cambiaron. No bloquea: los informes se quitan en la
+     * siguiente consulta a la caché.
+     *
+     * @param firstDay el primer día que cambió
+     * @param lastDay el último día que cambió, incluido
+     */
+    void invalidate(long firstDay, long lastDay) {
+        invalidationCount.incrementAndGet();  // Antes que el rango: un informe calculado desde la marca anterior ya no se guarda
+        if (pendingCount.incrementAndGet() <= MAX_PENDING) {
+            pending.add(new long[]{firstDay, lastDay});
+            return;
+        }
+        pendingCount.decrementAndGet();
+        pendingHull.accumulateAndGet(new long[]{firstDay, lastDay}, (hull, range) -> hull == null ? range
+                : new long[]{Math.min(hull[0], range[0]), Math.max(hull[1], range[1])});
+    }
+
+    /**
+     * Aplica las invalidaciones pendientes. Se llama con el bloqueo de la caché.
+     */
+    private void applyPending() {
+        long[] range;
+        while ((range = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            removeOverlapping(range[0], range[1]);
+        }
+        long[] hull = pendingHull.getAndSet(null);
+        if (hull != null) {
+            removeOverlapping(hull[0], hull[1]);
+        }
+    }
+
+    private void removeOverlapping(long firstDay, long lastDay) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, Entry> entry = iterator.next();
+            if (entry.getKey().firstDay <= lastDay && entry.getKey().lastDay >= firstDay) {
+                estimatedBytes -= entry.getValue().bytes;
+                iterator.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    /**
+     * Invalida todos los informes, por ejemplo porque cambió el número de vehículos de la flota.
+     */
+    synchronized void invalidateAll() {
+        invalidationCount.incrementAndGet();
+        applyPending();  // Solo vacía la cola: los informes que quitaría se quitan todos a continuación
+        invalidations += entries.size();
+        entries.clear();
+        estimatedBytes = 0;
+    }
+
+    /**
+     * Devuelve las métricas de la caché: aciertos, fallos, expulsiones y memoria estimada.
+     *
+     * @return las métricas actuales
+     */
+    public synchronized ReportCacheStats stats() {
+        applyPending();
+        long lookups = hits + misses;
+        return new ReportCacheStats(entries.size(), maxEntries, hits, misses, lookups == 0 ? 0 : (double) hits / lookups,
+                evictions, invalidations, expirations, estimatedBytes);
+    }
+
+    private void remove(Key key) {
+        Entry previous = entries.remove(key);
+        if (previous != null) {
+            estimatedBytes -= previous.bytes;
+        }
+    }
+
+    private static long estimateBytes(UsageReport report) {
+        long bytes = BASE_BYTES + ROW_BYTES * (1 + report.getByType().size());
+        if (report.getByVehicle() != null) {
+            for (String plate : report.getByVehicle().keySet()) {
+                bytes += ROW_BYTES + 40 + plate.length();  // Más el nodo del árbol y la matrícula
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Clave de un informe: su rango de días y si incluye las cifras de cada vehículo.
+     */
+    private record Key(long firstDay, long lastDay, boolean byVehicle) {
+    }
+
+    /**
+     * Informe guardado con su instante de cálculo y su tamaño estimado.
+     */
+    private record Entry(UsageReport report, boolean live, long createdMillis, long bytes) {
+    }
+}
@@ -0,0 +1,251 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.AbstractVehicle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * VehicleAvailabilityIndex es un índice secundario que mantiene un mapa de bits de disponibilidad por tipo de vehículo
+ * (Car, Motorcycle, Van, Truck).
+ * Cada vehículo ocupa una posición (slot) dentro del mapa de bits de su tipo; el bit está encendido si el vehículo está disponible.
+ * El índice se actualiza de forma incremental al registrar, eliminar, alquilar y devolver vehículos, de modo que los listados
+ * solo recorren los bits encendidos y los conteos de disponibles se responden en tiempo constante.
+ */
+public class VehicleAvailabilityIndex {
+    // Un mapa de bits por clase concreta de vehículo
+    private final Map<Class<? extends AbstractVehicle>, TypeBitmap> bitmaps = new ConcurrentHashMap<>();
+    // Contadores de ocupación por grupo que se actualizan con cada bit que cambia, o null si nadie los necesita
+    private final VehicleUtilizationCounters utilization;
+
+    /**
+     * Constructor sin contadores de ocupación.
+     */
+    public VehicleAvailabilityIndex() {
+        this(null);
+    }
+
+    /**
+     * Constructor con contadores de ocupación, que el índice mantiene al día con cada cambio.
+     *
+     * @param utilization los contadores
+     */
+    VehicleAvailabilityIndex(VehicleUtilizationCounters utilization) {
+        this.utilization = utilization;
+    }
+
+    /**
+     * Agrega un vehículo al mapa de bits de su tipo.
+     *
+     * @param vehicle el vehículo que se va a indexar
+     */
+    public void add(AbstractVehicle vehicle) {
+        bitmaps.computeIfAbsent(vehicle.getClass(), type -> new TypeBitmap(utilization)).add(vehicle);
+    }
+
+    /**
+     * Quita un vehículo del mapa de bits de su tipo y libera su posición para reutilizarla.
+     *
+     * @param vehicle el vehículo que se va a quitar del índice
+     */
+    public void remove(AbstractVehicle vehicle) {
+        TypeBitmap bitmap = bitmaps.get(vehicle.getClass());
+        if (bitmap != null) {
+            bitmap.remove(vehicle);
+        }
+    }
+
+    /**
+     * Aplica un cambio del color o de si es eléctrico a un vehículo indexado, moviéndolo en los contadores de ocupación
+     * del grupo anterior al nuevo con el bit que tenía. Si el vehículo no está indexado, solo aplica el cambio.
+     *
+     * @param vehicle el vehículo que cambia
+     * @param change el cambio
+     */
+    public void regroup(AbstractVehicle vehicle, Runnable change) {
+        TypeBitmap bitmap = bitmaps.get(vehicle.getClass());
+        if (bitmap != null) {
+            bitmap.regroup(vehicle, change);
+        } else {
+            change.run();
+        }
+    }
+
+    /**
+     * Sincroniza el bit de un vehículo con su estado de disponibilidad actual.
+     * Se lee el estado dentro del bloqueo del tipo, así que aunque un alquiler y una devolución lleguen desordenados,
+     * la última actualización siempre deja el bit con el valor vigente.
+     *
+     * @param vehicle el vehículo cuyo estado cambió
+     */
+    public void refresh(AbstractVehicle vehicle) {
+        TypeBitmap bitmap = bitmaps.get(vehicle.getClass());
+        if (bitmap != null) {
+            bitmap.refresh(vehicle);
+        }
+    }
+
+    /**
+     * Lista los vehículos disponibles de un tipo (incluidas sus subclases) recorriendo solo los bits encendidos.
+     *
+     * @param vehicleType el tipo de vehículo
+     * @return una lista con los vehículos disponibles de ese tipo
+     */
+    public List<AbstractVehicle> listAvailable(Class<? extends AbstractVehicle> vehicleType) {
+        List<AbstractVehicle> result = new ArrayList<>();
+        for (Map.Entry<Class<? extends AbstractVehicle>, TypeBitmap> entry : bitmaps.entrySet()) {
+            if (vehicleType.isAssignableFrom(entry.getKey())) {
+                entry.getValue().collectAvailable(result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Cuenta los vehículos disponibles de un tipo (incluidas sus subclases) sin recorrer la flota.
+     *
+     * @param vehicleType el tipo de vehículo
+     * @return el número de vehículos disponibles
+     */
+    public int countAvailable(Class<? extends AbstractVehicle> vehicleType) {
+        int count = 0;
+        for (Map.Entry<Class<? extends AbstractVehicle>, TypeBitmap> entry : bitmaps.entrySet()) {
+            if (vehicleType.isAssignableFrom(entry.getKey())) {
+                count += entry.getValue().availableCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Cuenta los vehículos registrados de un tipo (incluidas sus subclases), estén disponibles o no.
+     *
+     * @param vehicleType el tipo de vehículo
+     * @return el número de vehículos registrados
+     */
+    public int countTotal(Class<? extends AbstractVehicle> vehicleType) {
+        int count = 0;
+        for (Map.Entry<Class<? extends AbstractVehicle>, TypeBitmap> entry : bitmaps.entrySet()) {
+            if (vehicleType.isAssignableFrom(entry.getKey())) {
+                count += entry.getValue().size;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Devuelve el conteo de vehículos disponibles agrupado por el nombre simple de cada tipo.
+     *
+     * @return un mapa de nombre de tipo a número de vehículos disponibles
+     */
+    public Map<String, Integer> countAvailableByType() {
+        Map<String, Integer> counts = new HashMap<>();
+        bitmaps.forEach((type, bitmap) -> counts.put(type.getSimpleName(), bitmap.availableCount));
+        return counts;
+    }
+
+    /**
+     * Mapa de bits de disponibilidad de un único tipo de vehículo.
+     * Todas las modificaciones se hacen bajo el bloqueo del propio tipo, así que los tipos no compiten entre sí.
+     */
+    private static final class TypeBitmap {
+        private final VehicleUtilizationCounters utilization;  // Puede ser null
+        private final BitSet available = new BitSet();  // Bit encendido = vehículo disponible
+        private final Map<String, Integer> slotByPlate = new HashMap<>();  // Posición de cada matrícula en el mapa de bits
+        private AbstractVehicle[] slots = new AbstractVehicle[64];  // Vehículo que ocupa cada posición
+        private int[] freeSlots = new int[16];  // Pila de posiciones liberadas por eliminaciones
+        private int freeCount;
+        private int nextSlot;
+        private volatile int size;  // Vehículos indexados; se lee sin bloqueo
+        private volatile int availableCount;  // Bits encendidos; se lee sin bloqueo
+
+        TypeBitmap(VehicleUtilizationCounters utilization) {
+            this.utilization = utilization;
+        }
+
+        synchronized void add(AbstractVehicle vehicle) {
+            Integer existing = slotByPlate.get(vehicle.getLicensePlate());
+            if (existing != null) {
+                clearSlot(existing);  // La matrícula ya estaba indexada con otro objeto
+            }
+            int slot = freeCount > 0 ? freeSlots[--freeCount] : nextSlot++;
+            if (slot >= slots.length) {
+                slots = Arrays.copyOf(slots, slots.length * 2);
+            }
+            slots[slot] = vehicle;
+            slotByPlate.put(vehicle.getLicensePlate(), slot);
+            size++;
+            boolean isAvailable = vehicle.isAvailable();
+            if (isAvailable) {
+                available.set(slot);
+                availableCount++;
+            }
+            if (utilization != null) {
+                utilization.change(vehicle, 1, isAvailable ? 0 : 1);
+            }
+        }
+
+        synchronized void remove(AbstractVehicle vehicle) {
+            Integer slot = slotByPlate.get(vehicle.getLicensePlate());
+            if (slot != null && slots[slot] == vehicle) {
+                clearSlot(slot);
+            }
+        }
+
+        synchronized void refresh(AbstractVehicle vehicle) {
+            Integer slot = slotByPlate.get(vehicle.getLicensePlate());
+            if (slot == null || slots[slot] != vehicle) {
+                return;  // El vehículo fue eliminado o reemplazado mientras tanto
+            }
+            boolean isAvailable = vehicle.isAvailable();
+            if (isAvailable != available.get(slot)) {
+                available.set(slot, isAvailable);
+                availableCount += isAvailable ? 1 : -1;
+                if (utilization != null) {
+                    utilization.change(vehicle, 0, isAvailable ? -1 : 1);
+                }
+            }
+        }
+
+        synchronized void regroup(AbstractVehicle vehicle, Runnable change) {
+            Integer slot = slotByPlate.get(vehicle.getLicensePlate());
+            if (slot == null || slots[slot] != vehicle || utilization == null) {
+                change.run();
+                return;
+            }
+            int rented = available.get(slot) ? 0 : 1;
+            utilization.change(vehicle, -1, -rented);
+            change.run();
+            utilization.change(vehicle, 1, rented);
+        }
+
+        synchronized void collectAvailable(List<AbstractVehicle> result) {
+            for (int slot = available.nextSetBit(0); slot >= 0; slot = available.nextSetBit(slot + 1)) {
+                result.add(slots[slot]);
+            }
+        }
+
+        private void clearSlot(int slot) {
+            boolean wasAvailable = available.get(slot);
+            if (wasAvailable) {
+                available.clear(slot);
+                availableCount--;
+            }
+            if (utilization != null) {
+                utilization.change(slots[slot], -1, wasAvailable ? 0 : -1);
+            }
+            slotByPlate.remove(slots[slot].getLicensePlate());
+            slots[slot] = null;
+            size--;
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+            }
+            freeSlots[freeCount++] = slot;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.AbstractVehicle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * VehicleColorIndex es un índice secundario que agrupa los vehículos por color, sin distinguir mayúsculas de minúsculas.
+ * Los colores se normalizan a una clave canónica (sin espacios sobrantes y en minúsculas), de modo que "Rojo", "rojo" y " ROJO "
+ * comparten la misma entrada. Permite contar vehículos de un color en tiempo constante y listarlos sin recorrer la flota.
+ */
+public class VehicleColorIndex {
+    // Vehículos agrupados por clave canónica de color
+    private final Map<String, Set<AbstractVehicle>> vehiclesByColor = new ConcurrentHashMap<>();
+
+    /**
+     * Agrega un vehículo a la entrada de su color. Los vehículos sin color no se indexan.
+     *
+     * @param vehicle el vehículo que se va a indexar
+     */
+    public void add(AbstractVehicle vehicle) {
+        String key = canonicalColor(vehicle.getColor());
+        if (key == null) {
+            return;
+        }
+        vehiclesByColor.compute(key, (color, vehicles) -> {
+            Set<AbstractVehicle> result = vehicles != null ? vehicles : ConcurrentHashMap.newKeySet();
+            result.add(vehicle);
+            return result;
+        });
+    }
+
+    /**
+     * Quita un vehículo de la entrada de su color, eliminando la entrada si queda vacía.
+     *
+     * @param vehicle el vehículo que se va a quitar
+     */
+    public void remove(AbstractVehicle vehicle) {
+        String key = canonicalColor(vehicle.getColor());
+        if (key == null) {
+            return;
+        }
+        vehiclesByColor.computeIfPresent(key, (color, vehicles) -> {
+            vehicles.remove(vehicle);
+            return vehicles.isEmpty() ? null : vehicles;  // Devolver null elimina la entrada del mapa
+        });
+    }
+
+    /**
+     * Cuenta los vehículos de un color en tiempo constante.
+     *
+     * @param color el color a consultar, sin importar mayúsculas o minúsculas
+     * @return el número de vehículos de ese color
+     */
+    public int count(String color) {
+        String key = canonicalColor(color);
+        Set<AbstractVehicle> vehicles = key == null ? null : vehiclesByColor.get(key);
+        return vehicles == null ? 0 : vehicles.size();
+    }
+
+    /**
+     * Lista los vehículos de un color.
+     *
+     * @param color el color a consultar, sin importar mayúsculas o minúsculas
+     * @return una lista con los vehículos de ese color
+     */
+    public List<AbstractVehicle> list(String color) {
+        String key = canonicalColor(color);
+        Set<AbstractVehicle> vehicles = key == null ? null : vehiclesByColor.get(key);
+        return vehicles == null ? new ArrayList<>() : new ArrayList<>(vehicles);
+    }
+
+    /**
+     * Normaliza un color a su clave canónica.
+     *
+     * @param color el color tal como llega del cliente
+     * @return la clave canónica, o null si el color está vacío
+     */
+    static String canonicalColor(String color) {
+        if (color == null || color.isBlank()) {
+            return null;
+        }
+        return color.trim().toLowerCase(Locale.ROOT);
+    }
+}
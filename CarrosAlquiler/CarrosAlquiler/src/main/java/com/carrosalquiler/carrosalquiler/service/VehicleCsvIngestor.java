@@ -0,0 +1,264 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.AbstractVehicle;
+import com.carrosalquiler.carrosalquiler.models.BulkUploadResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * VehicleCsvIngestor lee un CSV de vehículos desde un flujo y lo divide en bloques que terminan siempre en un salto de línea.
+ * Cada bloque se analiza en el pool fork-join y los resultados se combinan en el orden del archivo, de modo que la detección
+ * de matrículas duplicadas es determinista: gana siempre la primera aparición y las siguientes se rechazan.
+ * Solo se mantiene en vuelo un número acotado de bloques, así que la memoria no depende del tamaño del archivo.
+ * Una línea más larga que MAX_LINE_LENGTH se rechaza sin guardarla entera: se descarta hasta su salto de línea.
+ */
+public class VehicleCsvIngestor {
+    static final int CHUNK_SIZE = 1 << 20;  // Tamaño objetivo de cada bloque en bytes
+    static final int MAX_LINE_LENGTH = 8 << 10;  // Largo máximo de una fila en bytes; una fila válida ocupa mucho menos
+
+    private final Consumer<List<AbstractVehicle>> sink;  // Destino de los lotes de vehículos aceptados
+    private final ForkJoinPool pool;
+    private final int parallelism;
+
+    /**
+     * Constructor para inicializar el VehicleCsvIngestor.
+     *
+     * @param sink el destino al que se entregan los lotes de vehículos aceptados, en el orden del archivo
+     * @param pool el pool fork-join en el que se analizan los bloques
+     * @param parallelism el número de bloques que se analizan a la vez; 1 analiza todo en el hilo que llama
+     */
+    public VehicleCsvIngestor(Consumer<List<AbstractVehicle>> sink, ForkJoinPool pool, int parallelism) {
+        this.sink = sink;
+        this.pool = pool;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Lee el flujo completo, analiza sus bloques y entrega los vehículos aceptados al destino.
+     *
+     * @param in el flujo con el contenido CSV; no se cierra aquí
+     * @param result el resultado donde se acumulan los contadores de la carga
+     * @throws IOException si ocurre un error al leer el flujo
+     * @throws CancellationException si el hilo que llama es interrumpido; los bloques ya combinados quedan registrados
+     */
+    public void ingest(InputStream in, BulkUploadResult result) throws IOException {
+        result.start();
+        Set<String> seenPlates = new HashSet<>();  // Matrículas ya aceptadas en esta carga
+        ArrayDeque<ForkJoinTask<ChunkResult>> inFlight = new ArrayDeque<>();
+        try {
+            readChunks(in, result, seenPlates, inFlight);
+        } finally {
+            for (ForkJoinTask<ChunkResult> task : inFlight) {
+                task.cancel(false);  // Si la carga se interrumpe, los bloques pendientes se descartan
+            }
+            result.finish();
+        }
+    }
+
+    /**
+     * Lee el flujo en bloques que terminan en salto de línea y los combina en orden a medida que se analizan.
+     */
+    private void readChunks(InputStream in, BulkUploadResult result, Set<String> seenPlates,
+                            ArrayDeque<ForkJoinTask<ChunkResult>> inFlight) throws IOException {
+        long firstLine = 1;  // Número de línea con el que empieza el siguiente bloque a combinar
+        byte[] carry = new byte[0];  // Línea incompleta que quedó al final del bloque anterior
+        int carryLength = 0;
+        boolean first = true;
+        while (true) {
+            checkInterrupted();
+            // La línea incompleta nunca supera MAX_LINE_LENGTH, así que siempre caben CHUNK_SIZE bytes nuevos
+            byte[] buffer = new byte[CHUNK_SIZE + MAX_LINE_LENGTH];
+            System.arraycopy(carry, 0, buffer, 0, carryLength);
+            int filled = carryLength + in.readNBytes(buffer, carryLength, buffer.length - carryLength);
+            boolean eof = filled < buffer.length;
+            int lastLineStart = lastNewline(buffer, filled) + 1;
+            // La última línea es demasiado larga: el bloque termina antes de ella y la línea se rechaza sin analizarla
+            boolean oversized = filled - lastLineStart > MAX_LINE_LENGTH;
+            int end = eof && !oversized ? filled : lastLineStart;
+            if (oversized) {
+                carry = eof ? new byte[0] : skipRestOfLine(in);
+            } else {
+                carry = Arrays.copyOfRange(buffer, end, filled);
+            }
+            carryLength = carry.length;
+            if (end > 0 || oversized) {
+                Chunk chunk = new Chunk(buffer, end, first, oversized);
+                first = false;
+                if (parallelism == 1) {
+                    firstLine = merge(chunk.parse(), firstLine, seenPlates, result);
+                } else {
+                    inFlight.add(pool.submit(chunk::parse));
+                    if (inFlight.size() >= parallelism * 2) {
+                        firstLine = merge(inFlight.poll().join(), firstLine, seenPlates, result);
+                    }
+                }
+            }
+            if (eof) {
+                break;
+            }
+        }
+        while (!inFlight.isEmpty()) {
+            firstLine = merge(inFlight.poll().join(), firstLine, seenPlates, result);
+        }
+    }
+
+    /**
+     * Combina el resultado de un bloque en el resultado global, descarta las matrículas repetidas y entrega el lote al destino.
+     *
+     * @return el número de línea con el que empieza el bloque siguiente
+     */
+    private long merge(ChunkResult chunk, long firstLine, Set<String> seenPlates, BulkUploadResult result) {
+        List<AbstractVehicle> batch = new ArrayList<>(chunk.vehicles.size());
+        int rejectIndex = 0;
+        for (int i = 0; i < chunk.vehicles.size(); i++) {
+            long lineNumber = firstLine + chunk.vehicleLines[i];
+            // Los rechazos de formato se intercalan en orden de línea con los vehículos aceptados
+            while (rejectIndex < chunk.rejectedLines.size() && firstLine + chunk.rejectedLines.get(rejectIndex) < lineNumber) {
+                result.reject(firstLine + chunk.rejectedLines.get(rejectIndex), chunk.rejectedReasons.get(rejectIndex));
+                rejectIndex++;
+            }
+            AbstractVehicle vehicle = chunk.vehicles.get(i);
+            if (seenPlates.add(vehicle.getLicensePlate())) {
+                batch.add(vehicle);
+                result.accept();
+            } else {
+                result.reject(lineNumber, "duplicate licensePlate '" + vehicle.getLicensePlate() + "'");
+            }
+        }
+        for (; rejectIndex < chunk.rejectedLines.size(); rejectIndex++) {
+            result.reject(firstLine + chunk.rejectedLines.get(rejectIndex), chunk.rejectedReasons.get(rejectIndex));
+        }
+        sink.accept(batch);
+        return firstLine + chunk.lineCount;
+    }
+
+    /**
+     * Descarta el resto de una línea demasiado larga.
+     *
+     * @return los bytes leídos después de su salto de línea, que empiezan la línea siguiente
+     */
+    private static byte[] skipRestOfLine(InputStream in) throws IOException {
+        byte[] scratch = new byte[MAX_LINE_LENGTH];
+        while (true) {
+            checkInterrupted();
+            int read = in.read(scratch);
+            if (read < 0) {
+                return new byte[0];
+            }
+            for (int i = 0; i < read; i++) {
+                if (scratch[i] == '\n') {
+                    return Arrays.copyOfRange(scratch, i + 1, read);
+                }
+            }
+        }
+    }
+
+    private static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("bulk upload cancelled");
+        }
+    }
+
+    private static String tooLong() {
+        return "line longer than " + MAX_LINE_LENGTH + " bytes";
+    }  // Motivo del rechazo de una fila demasiado larga.
+
+    private static int lastNewline(byte[] buffer, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (buffer[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Bloque de bytes que empieza al inicio de una línea y termina al final de una línea.
+     */
+    private static final class Chunk {
+        private final byte[] data;
+        private final int length;
+        private final boolean first;  // El primer bloque puede contener la cabecera
+        private final boolean oversizedTail;  // Tras el bloque venía una línea demasiado larga que se descartó
+
+        Chunk(byte[] data, int length, boolean first, boolean oversizedTail) {
+            this.data = data;
+            this.length = length;
+            this.first = first;
+            this.oversizedTail = oversizedTail;
+        }
+
+        /**
+         * Analiza todas las líneas del bloque. Los números de línea son relativos al inicio del bloque.
+         */
+        ChunkResult parse() {
+            ChunkResult result = new ChunkResult();
+            int lineStart = 0;
+            int lineIndex = 0;
+            while (lineStart < length) {
+                int lineEnd = lineStart;
+                while (lineEnd < length && data[lineEnd] != '\n') {
+                    lineEnd++;
+                }
+                int contentEnd = lineEnd > lineStart && data[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+                if (contentEnd - lineStart > MAX_LINE_LENGTH) {
+                    reject(result, lineIndex++, tooLong());  // Igual que si la línea hubiera caído al final del bloque
+                    lineStart = lineEnd + 1;
+                    continue;
+                }
+                String line = new String(data, lineStart, contentEnd - lineStart, StandardCharsets.UTF_8);
+                boolean header = first && lineIndex == 0 && VehicleCsvParser.isHeader(line);
+                if (!header && !line.isBlank()) {
+                    try {
+                        result.addVehicle(VehicleCsvParser.parseLine(line), lineIndex);
+                    } catch (IllegalArgumentException e) {
+                        reject(result, lineIndex, e.getMessage());
+                    }
+                }
+                lineIndex++;
+                lineStart = lineEnd + 1;
+            }
+            if (oversizedTail) {
+                reject(result, lineIndex++, tooLong());
+            }
+            result.lineCount = lineIndex;
+            return result;
+        }
+
+        private static void reject(ChunkResult result, int line, String reason) {
+            result.rejectedLines.add(line);
+            result.rejectedReasons.add(reason);
+        }
+    }
+
+    /**
+     * Resultado parcial del análisis de un bloque.
+     */
+    private static final class ChunkResult {
+        private final List<AbstractVehicle> vehicles = new ArrayList<>();
+        private int[] vehicleLines = new int[256];  // Línea relativa de cada vehículo aceptado
+        private final List<Integer> rejectedLines = new ArrayList<>();
+        private final List<String> rejectedReasons = new ArrayList<>();
+        private int lineCount;
+
+        void addVehicle(AbstractVehicle vehicle, int line) {
+            if (vehicles.size() == vehicleLines.length) {
+                vehicleLines = Arrays.copyOf(vehicleLines, vehicleLines.length * 2);
+            }
+            vehicleLines[vehicles.size()] = line;
+            vehicles.add(vehicle);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.*;
+
+/**
+ * VehicleCsvParser convierte filas del formato de vehicles.csv en instancias de Car, Truck, Van o Motorcycle.
+ * El formato de columnas es: licensePlate,kilometers,rentalValue,isElectric,numberOfDoors,cargoCapacity,seatingCapacity,hasSidecar.
+ * El tipo de vehículo se deduce de la única columna específica que viene informada en la fila.
+ */
+public final class VehicleCsvParser {
+    public static final String HEADER_PREFIX = "licensePlate,";  // Las filas que empiezan así son la cabecera
+    private static final int COLUMNS = 8;  // Número de columnas esperadas por fila
+
+    private VehicleCsvParser() {
+    }
+
+    /**
+     * Convierte una fila CSV en un vehículo.
+     *
+     * @param line la fila sin el salto de línea final
+     * @return el vehículo construido a partir de la fila
+     * @throws IllegalArgumentException si la fila no tiene el formato esperado
+     */
+    public static AbstractVehicle parseLine(String line) {
+        String[] fields = line.split(",", -1);  // -1 conserva las columnas vacías del final
+        if (fields.length != COLUMNS) {
+            throw new IllegalArgumentException("expected " + COLUMNS + " columns but found " + fields.length);
+        }
+        String licensePlate = fields[0].trim();
+        if (licensePlate.isEmpty()) {
+            throw new IllegalArgumentException("missing licensePlate");
+        }
+        int kilometers = parseInt(fields[1], "kilometers");
+        double rentalValue = parseDouble(fields[2], "rentalValue");
+        boolean isElectric = parseBoolean(fields[3], "isElectric");
+
+        String doors = fields[4].trim();
+        String cargo = fields[5].trim();
+        String seats = fields[6].trim();
+        String sidecar = fields[7].trim();
+        int informed = (doors.isEmpty() ? 0 : 1) + (cargo.isEmpty() ? 0 : 1) + (seats.isEmpty() ? 0 : 1) + (sidecar.isEmpty() ? 0 : 1);
+        if (informed != 1) {
+            throw new IllegalArgumentException("exactly one of numberOfDoors, cargoCapacity, seatingCapacity, hasSidecar must be set");
+        }
+        if (!doors.isEmpty()) {
+            return new Car(licensePlate, kilometers, rentalValue, isElectric, parseInt(doors, "numberOfDoors"));
+        } else if (!cargo.isEmpty()) {
+            return new Truck(licensePlate, kilometers, rentalValue, isElectric, parseDouble(cargo, "cargoCapacity"));
+        } else if (!seats.isEmpty()) {
+            return new Van(licensePlate, kilometers, rentalValue, isElectric, parseInt(seats, "seatingCapacity"));
+        } else {
+            return new Motorcycle(licensePlate, kilometers, rentalValue, isElectric, parseBoolean(sidecar, "hasSidecar"));
+        }
+    }
+
+    /**
+     * Indica si una fila es la cabecera del archivo.
+     *
+     * @param line la fila a revisar
+     * @return true si la fila es la cabecera
+     */
+    public static boolean isHeader(String line) {
+        return line.startsWith(HEADER_PREFIX);
+    }
+
+    private static int parseInt(String value, String column) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid " + column + " '" + value + "'");
+        }
+    }
+
+    private static double parseDouble(String value, String column) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid " + column + " '" + value + "'");
+        }
+    }
+
+    private static boolean parseBoolean(String value, String column) {
+        String trimmed = value.trim();
+        if (trimmed.equalsIgnoreCase("true")) {
+            return true;
+        } else if (trimmed.equalsIgnoreCase("false")) {
+            return false;
+        }
+        throw new IllegalArgumentException("invalid " + column + " '" + value + "'");
+    }
+}
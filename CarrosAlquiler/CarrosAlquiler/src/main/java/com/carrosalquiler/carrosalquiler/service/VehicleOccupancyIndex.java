@@ -0,0 +1,280 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.AbstractVehicle;
+import com.carrosalquiler.carrosalquiler.models.VehicleSearchResult;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * VehicleOccupancyIndex es un índice de ocupación por días de las reservas de la flota, agrupado por tipo de vehículo.
+ * Cada vehículo ocupa una posición (slot) en su tipo y, para cada día con reservas, el tipo guarda dos mapas de bits:
+ * los vehículos con alguna reserva ese día y los vehículos reservados el día completo.
+ *
+ * Para buscar los vehículos libres en un periodo se unen los mapas de los días que toca: un vehículo sin ningún bit está libre
+ * sin mirar sus reservas, y uno reservado algún día completo está ocupado, porque el periodo pisa parte de ese día.
+ * También lo está uno con cualquier reserva en un día que el periodo cubre entero. Solo los que tienen reservas parciales
+ * en los días de los extremos se comprueban contra su libro de reservas.
+ * Los días ya pasados se descartan, así que solo se buscan periodos que terminan en el futuro.
+ */
+class VehicleOccupancyIndex {
+    static final int MAX_WINDOW_DAYS = 366;  // Días como máximo en una búsqueda
+    private static final ZoneId ZONE = ZoneId.systemDefault();  // La misma zona con la que se guardan las fechas de las reservas
+
+    // Un índice por tipo de vehículo, con el mismo nombre que usa el motor de búsqueda
+    private final Map<String, TypeOccupancy> types = new ConcurrentHashMap<>();
+
+    /**
+     * Agrega un vehículo sin días ocupados.
+     *
+     * @param vehicle el vehículo que se va a indexar
+     */
+    void add(AbstractVehicle vehicle) {
+        types.computeIfAbsent(VehicleSearchIndex.typeName(vehicle.getClass()), type -> new TypeOccupancy()).add(vehicle);
+    }
+
+    /**
+     * Quita un vehículo y sus días ocupados, y libera su posición.
+     *
+     * @param vehicle el vehículo que se va a quitar
+     */
+    void remove(AbstractVehicle vehicle) {
+        TypeOccupancy occupancy = types.get(VehicleSearchIndex.typeName(vehicle.getClass()));
+        if (occupancy != null) {
+            occupancy.remove(vehicle);
+        }
+    }
+
+    /**
+     * Recalcula los días de un vehículo entre dos instantes a partir de sus periodos reservados en esos días.
+     * Se llama dentro del compute de la matrícula después de cada cambio en su libro de reservas.
+     *
+     * @param vehicle el vehículo
+     * @param periods los periodos reservados que tocan esos días, ordenados y sin solaparse, como pares {recogida, entrega}
+     * @param fromMillis el primer instante afectado
+     * @param toMillis el último instante afectado, excluido
+     */
+    void update(AbstractVehicle vehicle, List<long[]> periods, long fromMillis, long toMillis) {
+        TypeOccupancy occupancy = types.get(VehicleSearchIndex.typeName(vehicle.getClass()));
+        if (occupancy != null && fromMillis < toMillis) {
+            occupancy.update(vehicle, periods, epochDay(fromMillis), epochDay(toMillis - 1));
+        }
+    }
+
+    /**
+     * Busca los vehículos sin reservas en un periodo.
+     *
+     * @param type el tipo de vehículo (car, truck, van o motorcycle), o null para todos
+     * @param fromMillis el inicio del periodo
+     * @param toMillis el fin del periodo, excluido
+     * @param isFree la comprobación exacta contra el libro de reservas, para los vehículos con reservas parciales en esos días
+     * @param limit el número máximo de vehículos que se devuelven
+     * @return el total de vehículos libres, los primeros hasta el límite y el plan usado
+     * @throws IllegalArgumentException si el tipo no existe o el periodo no es válido
+     */
+    VehicleSearchResult findFree(String type, long fromMillis, long toMillis, Predicate<AbstractVehicle> isFree, int limit) {
+        String typeName = type == null ? null : VehicleSearchIndex.parseType(type);
+        if (fromMillis >= toMillis) {
+            throw new IllegalArgumentException("from must be before to.");
+        }
+        if (toMillis <= System.currentTimeMillis()) {
+            throw new IllegalArgumentException("The period must end in the future.");
+        }
+        long firstDay = epochDay(fromMillis);
+        long lastDay = epochDay(toMillis - 1);
+        if (lastDay - firstDay >= MAX_WINDOW_DAYS) {
+            throw new IllegalArgumentException("The period can span at most " + MAX_WINDOW_DAYS + " days.");
+        }
+        List<AbstractVehicle> vehicles = new ArrayList<>();
+        // Días que el periodo cubre enteros: cualquier reserva en ellos se solapa con el periodo
+        long firstInnerDay = dayStart(firstDay) >= fromMillis ? firstDay : firstDay + 1;
+        long lastInnerDay = dayStart(lastDay + 1) <= toMillis ? lastDay : lastDay - 1;
+        int[] counts = new int[4];  // Vehículos del tipo, libres sin mirar reservas, ocupados sin mirar reservas, comprobados
+        int total = 0;
+        for (String name : VehicleSearchIndex.TYPE_NAMES) {
+            TypeOccupancy occupancy = types.get(name);
+            if (occupancy != null && (typeName == null || typeName.equals(name))) {
+                total += occupancy.findFree(firstDay, lastDay, firstInnerDay, lastInnerDay, isFree, limit, vehicles, counts);
+            }
+        }
+        String plan = "occupancy " + LocalDate.ofEpochDay(firstDay) + ".." + LocalDate.ofEpochDay(lastDay)
+                + (typeName == null ? "" : " type=" + typeName) + ": " + counts[0] + " vehicles, "
+                + counts[1] + " free without reservations, " + counts[2] + " booked by day buckets, "
+                + counts[3] + " checked against reservations -> " + total + " free";
+        return new VehicleSearchResult(total, vehicles, plan);
+    }
+
+    static long epochDay(long epochMillis) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(epochMillis), ZONE).toEpochDay();
+    }  // Devuelve el día local de un instante.
+
+    static long dayStart(long epochDay) {
+        return LocalDate.ofEpochDay(epochDay).atStartOfDay(ZONE).toInstant().toEpochMilli();
+    }  // Devuelve el primer instante de un día; los días con cambio de hora no duran 24 horas.
+
+    /**
+     * Ocupación de un único tipo de vehículo. Muchas búsquedas a la vez, un cambio a la vez.
+     */
+    private static final class TypeOccupancy {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final BitSet registered = new BitSet();  // Posiciones con un vehículo
+        private final TreeMap<Long, Day> days = new TreeMap<>();  // Días con alguna reserva
+        private final Map<String, Integer> slotByPlate = new HashMap<>();
+        private AbstractVehicle[] slots = new AbstractVehicle[64];
+        private int[] freeSlots = new int[16];  // Pila de posiciones liberadas
+        private int freeCount;
+        private int nextSlot;
+
+        void add(AbstractVehicle vehicle) {
+            lock.writeLock().lock();
+            try {
+                Integer existing = slotByPlate.get(vehicle.getLicensePlate());
+                if (existing != null) {
+                    clearSlot(existing);  // La matrícula ya estaba indexada con otro objeto
+                }
+                int slot = freeCount > 0 ? freeSlots[--freeCount] : nextSlot++;
+                if (slot >= slots.length) {
+                    slots = Arrays.copyOf(slots, slots.length * 2);
+                }
+                slots[slot] = vehicle;
+                slotByPlate.put(vehicle.getLicensePlate(), slot);
+                registered.set(slot);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(AbstractVehicle vehicle) {
+            lock.writeLock().lock();
+            try {
+                Integer slot = slotByPlate.get(vehicle.getLicensePlate());
+                if (slot != null && slots[slot] == vehicle) {
+                    clearSlot(slot);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void update(AbstractVehicle vehicle, List<long[]> periods, long firstDay, long lastDay) {
+            lock.writeLock().lock();
+            try {
+                Integer slot = slotByPlate.get(vehicle.getLicensePlate());
+                if (slot == null || slots[slot] != vehicle) {
+                    return;  // El vehículo fue eliminado o reemplazado mientras tanto
+                }
+                long yesterday = epochDay(System.currentTimeMillis()) - 1;
+                days.headMap(yesterday).clear();  // Los días pasados ya no se consultan
+                int next = 0;  // Primer periodo que puede tocar el día actual
+                for (long day = Math.max(firstDay, yesterday); day <= lastDay; day++) {
+                    long start = dayStart(day);
+                    long end = dayStart(day + 1);
+                    while (next < periods.size() && periods.get(next)[1] <= start) {
+                        next++;
+                    }
+                    // Los periodos están ordenados y no se solapan: el día está completo si se cubren sin huecos desde su inicio
+                    boolean touched = false;
+                    long covered = start;
+                    for (int i = next; i < periods.size() && periods.get(i)[0] < end; i++) {
+                        touched = true;
+                        if (periods.get(i)[0] <= covered) {
+                            covered = Math.max(covered, periods.get(i)[1]);
+                        }
+                    }
+                    setDay(day, slot, touched, covered >= end);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        int findFree(long firstDay, long lastDay, long firstInnerDay, long lastInnerDay, Predicate<AbstractVehicle> isFree, int limit,
+                     List<AbstractVehicle> vehicles, int[] counts) {
+            lock.readLock().lock();
+            try {
+                BitSet touched = new BitSet();
+                BitSet busy = new BitSet();
+                for (Map.Entry<Long, Day> entry : days.subMap(firstDay, true, lastDay, true).entrySet()) {
+                    Day day = entry.getValue();
+                    touched.or(day.touched);
+                    boolean inner = entry.getKey() >= firstInnerDay && entry.getKey() <= lastInnerDay;
+                    busy.or(inner ? day.touched : day.full);
+                }
+                touched.and(registered);
+                busy.and(registered);
+                int registeredCount = registered.cardinality();
+                int touchedCount = touched.cardinality();
+                BitSet partial = (BitSet) touched.clone();
+                partial.andNot(busy);
+                // Los vehículos sin bits están libres sin más; solo se comprueban los que tienen reservas parciales
+                BitSet free = (BitSet) registered.clone();
+                free.andNot(touched);
+                for (int slot = partial.nextSetBit(0); slot >= 0; slot = partial.nextSetBit(slot + 1)) {
+                    if (isFree.test(slots[slot])) {
+                        free.set(slot);
+                    }
+                }
+                counts[0] += registeredCount;
+                counts[1] += registeredCount - touchedCount;
+                counts[2] += busy.cardinality();
+                counts[3] += partial.cardinality();
+                for (int slot = free.nextSetBit(0); slot >= 0 && vehicles.size() < limit; slot = free.nextSetBit(slot + 1)) {
+                    vehicles.add(slots[slot]);
+                }
+                return free.cardinality();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private void setDay(long epochDay, int slot, boolean touched, boolean full) {
+            Day day = days.get(epochDay);
+            if (day == null) {
+                if (!touched) {
+                    return;
+                }
+                day = new Day();
+                days.put(epochDay, day);
+            }
+            day.touched.set(slot, touched);
+            day.full.set(slot, full);
+            if (day.touched.isEmpty()) {
+                days.remove(epochDay);
+            }
+        }
+
+        private void clearSlot(int slot) {
+            days.values().removeIf(day -> {
+                day.touched.clear(slot);
+                day.full.clear(slot);
+                return day.touched.isEmpty();
+            });
+            registered.clear(slot);
+            slotByPlate.remove(slots[slot].getLicensePlate());
+            slots[slot] = null;
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+            }
+            freeSlots[freeCount++] = slot;
+        }
+    }
+
+    /**
+     * Mapas de bits de un día: vehículos con alguna reserva y vehículos reservados el día completo.
+     */
+    private static final class Day {
+        private final BitSet touched = new BitSet();
+        private final BitSet full = new BitSet();
+    }
+}
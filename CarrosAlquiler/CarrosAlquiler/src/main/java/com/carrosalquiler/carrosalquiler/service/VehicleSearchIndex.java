@@ -0,0 +1,638 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleBiFunction;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * VehicleSearchIndex es el motor de búsqueda de vehículos por varios criterios.
+ * Cada vehículo ocupa una posición (slot) y, para cada atributo de igualdad (tipo, eléctrico, color, puertas, asientos, sidecar),
+ * se mantiene un mapa de bits por valor con las posiciones de los vehículos que lo tienen.
+ *
+ * Los kilómetros y el valor de alquiler tienen además un índice ordenado por tipo de vehículo, que responde rangos y recorridos
+ * en orden en tiempo logarítmico más el tamaño de la salida.
+ *
+ * Para cada consulta el planificador ordena los filtros de igualdad por el número de vehículos que dejan pasar, empieza por el más
+ * selectivo e interseca los mapas de bits de los demás. Después estima con un histograma cuántos vehículos deja pasar cada rango
+ * pedido y recorre su índice ordenado, del más estrecho al más amplio, solo si eso cuesta menos que filtrar los candidatos que
+ * ya hay; si no, el rango queda como filtro. Al final materializa los candidatos y les aplica los filtros que no resolvió ningún índice.
+ */
+class VehicleSearchIndex {
+    private static final int ELECTRIC = 0;
+    private static final int TYPE = 1;
+    private static final int COLOR = 2;
+    private static final int DOORS = 3;
+    private static final int SEATS = 4;
+    private static final int SIDECAR = 5;
+    private static final int KILOMETERS = 0;
+    private static final int RENTAL_VALUE = 1;
+    // Recorrer una entrada de un árbol cuesta varias veces más que filtrar un candidato del mapa de bits
+    private static final int RANGE_WALK_COST = 4;
+    static final List<String> TYPE_NAMES = List.of("car", "truck", "van", "motorcycle");
+    // Orden de los índices de rango: por valor y, a igual valor, por matrícula. Una matrícula null queda antes que cualquier otra.
+    private static final Comparator<RangeKey> RANGE_ORDER = Comparator.comparingDouble(RangeKey::value)
+            .thenComparing(RangeKey::plate, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();  // Muchas consultas a la vez, un cambio a la vez
+    private final EqualityIndex[] indexes = {
+            new EqualityIndex("electric", AbstractVehicle::isElectric),
+            new EqualityIndex("type", vehicle -> typeName(vehicle.getClass())),
+            new EqualityIndex("color", vehicle -> VehicleColorIndex.canonicalColor(vehicle.getColor())),
+            new EqualityIndex("numberOfDoors", vehicle -> vehicle instanceof Car car ? car.getNumberOfDoors() : null),
+            new EqualityIndex("seatingCapacity", vehicle -> vehicle instanceof Van van ? van.getSeatingCapacity() : null),
+            new EqualityIndex("hasSidecar", vehicle -> vehicle instanceof Motorcycle motorcycle ? motorcycle.isHasSidecar() : null)
+    };
+    private final RangeIndex[] ranges = {
+            new RangeIndex("kilometers", AbstractVehicle::getKilometers),
+            new RangeIndex("rentalValue", AbstractVehicle::getRentalValue)
+    };
+    private final BitSet occupied = new BitSet();  // Posiciones con un vehículo
+    private final Map<String, Integer> slotByPlate = new HashMap<>();
+    private AbstractVehicle[] slots = new AbstractVehicle[64];
+    private Object[][] slotKeys = new Object[64][];  // Valores con los que se indexó cada posición, para quitarla aunque el vehículo cambie
+    private RangeKey[][] slotRanges = new RangeKey[64][];  // Claves de rango con las que se indexó cada posición
+    private int[] freeSlots = new int[16];  // Pila de posiciones liberadas
+    private int freeCount;
+    private int nextSlot;
+
+    /**
+     * Agrega un vehículo a todos los índices de atributos.
+     *
+     * @param vehicle el vehículo que se va a indexar
+     */
+    void add(AbstractVehicle vehicle) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = slotByPlate.get(vehicle.getLicensePlate());
+            if (existing != null) {
+                clearSlot(existing);  // La matrícula ya estaba indexada con otro objeto
+            }
+            int slot = freeCount > 0 ? freeSlots[--freeCount] : nextSlot++;
+            if (slot >= slots.length) {
+                slots = Arrays.copyOf(slots, slots.length * 2);
+                slotKeys = Arrays.copyOf(slotKeys, slotKeys.length * 2);
+                slotRanges = Arrays.copyOf(slotRanges, slotRanges.length * 2);
+            }
+            Object[] keys = new Object[indexes.length];
+            for (int i = 0; i < indexes.length; i++) {
+                keys[i] = indexes[i].key.apply(vehicle);
+                indexes[i].add(keys[i], slot);
+            }
+            RangeKey[] rangeKeys = new RangeKey[ranges.length];
+            for (int i = 0; i < ranges.length; i++) {
+                rangeKeys[i] = new RangeKey(ranges[i].value.applyAsDouble(vehicle), vehicle.getLicensePlate(), slot);
+                ranges[i].add((String) keys[TYPE], rangeKeys[i]);
+            }
+            slots[slot] = vehicle;
+            slotKeys[slot] = keys;
+            slotRanges[slot] = rangeKeys;
+            slotByPlate.put(vehicle.getLicensePlate(), slot);
+            occupied.set(slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita un vehículo de todos los índices de atributos y libera su posición.
+     *
+     * @param vehicle el vehículo que se va a quitar
+     */
+    void remove(AbstractVehicle vehicle) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotByPlate.get(vehicle.getLicensePlate());
+            if (slot != null && slots[slot] == vehicle) {
+                clearSlot(slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Busca los vehículos que cumplen todos los criterios.
+     *
+     * @param criteria los criterios de búsqueda
+     * @param limit el número máximo de vehículos que se devuelven
+     * @return el número total de coincidencias, los primeros vehículos y el plan usado
+     * @throws IllegalArgumentException si el tipo de vehículo no existe
+     */
+    VehicleSearchResult search(VehicleSearchCriteria criteria, int limit) {
+        Object[] wanted = new Object[indexes.length];
+        wanted[ELECTRIC] = criteria.getElectric();
+        wanted[TYPE] = criteria.getType() == null ? null : parseType(criteria.getType());
+        wanted[COLOR] = criteria.getColor() == null ? null : VehicleColorIndex.canonicalColor(criteria.getColor());
+        wanted[DOORS] = criteria.getNumberOfDoors();
+        wanted[SEATS] = criteria.getSeatingCapacity();
+        wanted[SIDECAR] = criteria.getHasSidecar();
+        double[][] bounds = new double[ranges.length][];
+        if (criteria.getMinKilometers() != null || criteria.getMaxKilometers() != null) {
+            bounds[KILOMETERS] = new double[]{
+                    criteria.getMinKilometers() == null ? Double.NEGATIVE_INFINITY : criteria.getMinKilometers(),
+                    criteria.getMaxKilometers() == null ? Double.POSITIVE_INFINITY : criteria.getMaxKilometers()};
+        }
+        if (criteria.getMinRentalValue() != null || criteria.getMaxRentalValue() != null) {
+            bounds[RENTAL_VALUE] = new double[]{
+                    criteria.getMinRentalValue() == null ? Double.NEGATIVE_INFINITY : criteria.getMinRentalValue(),
+                    criteria.getMaxRentalValue() == null ? Double.POSITIVE_INFINITY : criteria.getMaxRentalValue()};
+        }
+
+        lock.readLock().lock();
+        try {
+            // Plan: filtros de igualdad de más a menos selectivo
+            List<Term> terms = new ArrayList<>();
+            for (int i = 0; i < indexes.length; i++) {
+                if (wanted[i] != null) {
+                    BitSet bits = indexes[i].bitsByValue.get(wanted[i]);
+                    if (bits == null) {
+                        return new VehicleSearchResult(0, List.of(), "index " + indexes[i].name + "=" + wanted[i] + " (0)");
+                    }
+                    terms.add(new Term(indexes[i].name + "=" + wanted[i], bits, bits.cardinality()));
+                }
+            }
+            terms.sort(Comparator.comparingInt(Term::count));
+            BitSet candidates = null;  // null mientras no haya ningún índice aplicado: toda la flota
+            boolean copied = false;  // Los mapas de bits de los índices se copian antes de modificarlos
+            List<String> steps = new ArrayList<>();
+            for (Term term : terms) {
+                if (candidates == null) {
+                    candidates = term.bits;
+                } else if (!candidates.isEmpty()) {
+                    if (!copied) {
+                        candidates = (BitSet) candidates.clone();
+                        copied = true;
+                    }
+                    candidates.and(term.bits);
+                }
+                steps.add(term.description + " (" + term.count + ")");
+            }
+
+            // Rangos: del más estrecho al más amplio según el histograma, mientras recorrerlos cueste menos que filtrar los candidatos
+            boolean[] rangeIndexed = new boolean[ranges.length];
+            long[] estimates = new long[ranges.length];
+            List<Integer> rangeOrder = new ArrayList<>();
+            for (int i = 0; i < ranges.length; i++) {
+                if (bounds[i] != null) {
+                    estimates[i] = ranges[i].estimate((String) wanted[TYPE], bounds[i][0], bounds[i][1]);
+                    rangeOrder.add(i);
+                }
+            }
+            rangeOrder.sort(Comparator.comparingLong(i -> estimates[i]));
+            long remaining = candidates == null ? slotByPlate.size() : candidates.cardinality();
+            for (int i : rangeOrder) {
+                if (estimates[i] * RANGE_WALK_COST > remaining) {
+                    break;  // Es más barato filtrar los candidatos que recorrer este rango y los siguientes
+                }
+                BitSet bits = ranges[i].collect((String) wanted[TYPE], bounds[i][0], bounds[i][1]);
+                rangeIndexed[i] = true;
+                if (candidates == null) {
+                    candidates = bits;
+                    copied = true;
+                } else {
+                    if (!copied) {
+                        candidates = (BitSet) candidates.clone();
+                        copied = true;
+                    }
+                    candidates.and(bits);
+                }
+                steps.add(ranges[i].name + "=[" + bounds[i][0] + ", " + bounds[i][1] + "] (" + bits.cardinality() + ")");
+                remaining = candidates.cardinality();
+            }
+            boolean indexed = candidates != null;
+            if (!indexed) {
+                candidates = occupied;  // Sin índices aplicables: se recorre toda la flota
+                steps.add("scan (" + slotByPlate.size() + ")");
+            }
+            List<String> residualNames = new ArrayList<>();
+            Predicate<AbstractVehicle> residual = residualFilter(criteria, bounds, rangeIndexed, residualNames);
+            String plan = (indexed ? "index " : "") + String.join(" AND ", steps) + " -> " + candidates.cardinality() + " candidates"
+                    + (residualNames.isEmpty() ? "" : "; filter " + String.join(", ", residualNames));
+
+            // Materialización: solo se leen los vehículos candidatos
+            List<AbstractVehicle> vehicles = new ArrayList<>(Math.min(limit, 1024));
+            int total = 0;
+            for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                AbstractVehicle vehicle = slots[slot];
+                if (residual.test(vehicle)) {
+                    total++;
+                    if (vehicles.size() < limit) {
+                        vehicles.add(vehicle);
+                    }
+                }
+            }
+            return new VehicleSearchResult(total, vehicles, plan);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Recorre en orden los vehículos cuyo valor del campo dado está en el rango, en tiempo logarítmico más lo recorrido.
+     *
+     * @param field el campo: kilometers o rentalValue
+     * @param type el tipo de vehículo, o null para todos
+     * @param min el valor mínimo, inclusivo
+     * @param max el valor máximo, inclusivo
+     * @param available true o false para devolver solo vehículos con esa disponibilidad, o null para no filtrar
+     * @param descending true para recorrer de mayor a menor
+     * @param limit el número máximo de vehículos que se devuelven
+     * @return los vehículos en orden del campo y, a igual valor, de matrícula
+     * @throws IllegalArgumentException si el campo o el tipo no existen
+     */
+    List<AbstractVehicle> range(String field, String type, double min, double max, Boolean available, boolean descending, int limit) {
+        RangeIndex index = rangeIndex(field);
+        String typeName = type == null ? null : parseType(type);
+        List<AbstractVehicle> vehicles = new ArrayList<>(Math.min(limit, 1024));
+        lock.readLock().lock();
+        try {
+            Iterator<RangeKey> keys = index.iterate(typeName, min, max, descending);
+            while (keys.hasNext() && vehicles.size() < limit) {
+                AbstractVehicle vehicle = slots[keys.next().slot];
+                if (available == null || vehicle.isAvailable() == available) {
+                    vehicles.add(vehicle);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return vehicles;
+    }
+
+    /**
+     * Devuelve, para cada tipo, los primeros k vehículos disponibles en orden ascendente del campo dado.
+     * Cada árbol se recorre desde su menor valor y se deja de recorrer al juntar k disponibles, así que el costo es
+     * O(log n + k) por tipo mientras la mayoría de la flota esté disponible, sin ordenar la flota.
+     *
+     * @param field el campo: kilometers o rentalValue
+     * @param type el tipo de vehículo, o null para todos los tipos
+     * @param k el número de vehículos por tipo
+     * @return un mapa ordenado de nombre de tipo a sus k primeros vehículos disponibles
+     * @throws IllegalArgumentException si el campo o el tipo no existen
+     */
+    Map<String, List<AbstractVehicle>> topAvailable(String field, String type, int k) {
+        RangeIndex index = rangeIndex(field);
+        List<String> typeNames = type == null ? TYPE_NAMES : List.of(parseType(type));
+        Map<String, List<AbstractVehicle>> result = new LinkedHashMap<>();
+        lock.readLock().lock();  // Todos los tipos se leen sobre el mismo estado de la flota
+        try {
+            for (String typeName : typeNames) {
+                List<AbstractVehicle> vehicles = new ArrayList<>(Math.min(k, 1024));
+                Iterator<RangeKey> keys = index.iterate(typeName, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, false);
+                while (keys.hasNext() && vehicles.size() < k) {
+                    AbstractVehicle vehicle = slots[keys.next().slot];
+                    if (vehicle.isAvailable()) {
+                        vehicles.add(vehicle);
+                    }
+                }
+                result.put(typeName, vehicles);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Devuelve, para cada tipo, los k vehículos disponibles de menor precio, cuando el precio sube con el valor de alquiler
+     * pero no en el mismo orden para todos los vehículos del tipo, por ejemplo porque las reglas o el multiplicador dependen
+     * de si es eléctrico o de su color. Cada árbol del valor de alquiler se recorre desde su menor valor y se deja de recorrer
+     * cuando la cota inferior del precio en ese valor supera el k-ésimo precio encontrado.
+     *
+     * @param type el tipo de vehículo, o null para todos los tipos
+     * @param k el número de vehículos por tipo
+     * @param price el precio de un vehículo
+     * @param lowerBound para un tipo y un valor de alquiler, un precio por debajo del que no queda ningún vehículo del tipo
+     *                   con ese valor o uno mayor; debe crecer con el valor de alquiler
+     * @return un mapa ordenado de nombre de tipo a sus k vehículos con su precio, del más barato al más caro
+     * @throws IllegalArgumentException si el tipo no existe
+     */
+    Map<String, List<RankedVehicle>> cheapestAvailable(String type, int k, ToDoubleFunction<AbstractVehicle> price,
+                                                       ToDoubleBiFunction<String, Double> lowerBound) {
+        RangeIndex index = rangeIndex("rentalValue");
+        List<String> typeNames = type == null ? TYPE_NAMES : List.of(parseType(type));
+        Comparator<RankedVehicle> cheapestFirst = Comparator.comparingDouble(RankedVehicle::getValue)
+                .thenComparing(ranked -> ranked.getVehicle().getLicensePlate());
+        Map<String, List<RankedVehicle>> result = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            for (String typeName : typeNames) {
+                PriorityQueue<RankedVehicle> best = new PriorityQueue<>(cheapestFirst.reversed());  // El más caro, en la cabeza
+                Iterator<RangeKey> keys = index.iterate(typeName, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, false);
+                while (keys.hasNext() && k > 0) {
+                    RangeKey key = keys.next();
+                    if (best.size() == k && lowerBound.applyAsDouble(typeName, key.value) > best.peek().getValue()) {
+                        break;  // Ningún vehículo que quede puede ser más barato que los k encontrados
+                    }
+                    AbstractVehicle vehicle = slots[key.slot];
+                    if (!vehicle.isAvailable()) {
+                        continue;
+                    }
+                    RankedVehicle ranked = new RankedVehicle(vehicle, price.applyAsDouble(vehicle));
+                    if (best.size() < k) {
+                        best.add(ranked);
+                    } else if (cheapestFirst.compare(ranked, best.peek()) < 0) {
+                        best.poll();
+                        best.add(ranked);
+                    }
+                }
+                List<RankedVehicle> vehicles = new ArrayList<>(best);
+                vehicles.sort(cheapestFirst);
+                result.put(typeName, vehicles);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Busca el índice de rango de un campo por su nombre, sin distinguir mayúsculas.
+     */
+    private RangeIndex rangeIndex(String field) {
+        for (RangeIndex index : ranges) {
+            if (index.name.equalsIgnoreCase(field)) {
+                return index;
+            }
+        }
+        throw new IllegalArgumentException("Unknown range field '" + field + "'. Use kilometers or rentalValue.");
+    }
+
+    /**
+     * Arma el filtro de los criterios que no resolvió ningún índice, que se evalúa sobre cada candidato.
+     */
+    private static Predicate<AbstractVehicle> residualFilter(VehicleSearchCriteria criteria, double[][] bounds, boolean[] rangeIndexed,
+                                                             List<String> names) {
+        Predicate<AbstractVehicle> filter = vehicle -> true;
+        if (bounds[KILOMETERS] != null && !rangeIndexed[KILOMETERS]) {
+            double min = bounds[KILOMETERS][0];
+            double max = bounds[KILOMETERS][1];
+            filter = filter.and(vehicle -> vehicle.getKilometers() >= min && vehicle.getKilometers() <= max);
+            names.add("kilometers");
+        }
+        if (bounds[RENTAL_VALUE] != null && !rangeIndexed[RENTAL_VALUE]) {
+            double min = bounds[RENTAL_VALUE][0];
+            double max = bounds[RENTAL_VALUE][1];
+            filter = filter.and(vehicle -> vehicle.getRentalValue() >= min && vehicle.getRentalValue() <= max);
+            names.add("rentalValue");
+        }
+        if (criteria.getMinCargoCapacity() != null || criteria.getMaxCargoCapacity() != null) {
+            double min = criteria.getMinCargoCapacity() == null ? Double.NEGATIVE_INFINITY : criteria.getMinCargoCapacity();
+            double max = criteria.getMaxCargoCapacity() == null ? Double.POSITIVE_INFINITY : criteria.getMaxCargoCapacity();
+            filter = filter.and(vehicle -> vehicle instanceof Truck truck
+                    && truck.getCargoCapacity() >= min && truck.getCargoCapacity() <= max);
+            names.add("cargoCapacity");
+        }
+        if (criteria.getAvailable() != null) {
+            boolean available = criteria.getAvailable();
+            filter = filter.and(vehicle -> vehicle.isAvailable() == available);
+            names.add("available");
+        }
+        return filter;
+    }
+
+    private void clearSlot(int slot) {
+        Object[] keys = slotKeys[slot];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i].remove(keys[i], slot);
+        }
+        RangeKey[] rangeKeys = slotRanges[slot];
+        for (int i = 0; i < ranges.length; i++) {
+            ranges[i].remove((String) keys[TYPE], rangeKeys[i]);
+        }
+        slotByPlate.remove(slots[slot].getLicensePlate());
+        slots[slot] = null;
+        slotKeys[slot] = null;
+        slotRanges[slot] = null;
+        occupied.clear(slot);
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    /**
+     * Convierte el tipo pedido en el nombre con el que se indexa.
+     */
+    static String parseType(String type) {
+        String name = type.trim().toLowerCase(Locale.ROOT);
+        return switch (name) {
+            case "car", "truck", "van", "motorcycle" -> name;  // Los mismos que TYPE_NAMES
+            default -> throw new IllegalArgumentException("Unknown vehicle type '" + type + "'. Use car, truck, van or motorcycle.");
+        };
+    }
+
+    static String typeName(Class<?> type) {
+        return type.getSimpleName().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Filtro de igualdad de una consulta con su mapa de bits y el número de vehículos que deja pasar.
+     */
+    private record Term(String description, BitSet bits, int count) {
+    }
+
+    /**
+     * Entrada de un índice de rango: el valor indexado, la matrícula para desempatar y la posición del vehículo.
+     */
+    private record RangeKey(double value, String plate, int slot) {
+    }
+
+    /**
+     * Índice ordenado de un atributo numérico, con un árbol y un histograma por tipo de vehículo.
+     */
+    private static final class RangeIndex {
+        private final String name;
+        private final ToDoubleFunction<AbstractVehicle> value;
+        private final Map<String, TreeSet<RangeKey>> byType = new HashMap<>();
+        private final Map<String, RangeHistogram> histograms = new HashMap<>();
+
+        RangeIndex(String name, ToDoubleFunction<AbstractVehicle> value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        void add(String type, RangeKey key) {
+            byType.computeIfAbsent(type, t -> new TreeSet<>(RANGE_ORDER)).add(key);
+            histograms.computeIfAbsent(type, t -> new RangeHistogram()).add(key.value, 1);
+        }
+
+        void remove(String type, RangeKey key) {
+            TreeSet<RangeKey> keys = byType.get(type);
+            if (keys != null && keys.remove(key)) {
+                histograms.get(type).add(key.value, -1);
+            }
+        }
+
+        /**
+         * Estima, sin recorrer el árbol, cuántos vehículos hay en el rango. Nunca se queda corta.
+         */
+        long estimate(String type, double min, double max) {
+            long total = 0;
+            if (min <= max) {
+                for (Map.Entry<String, RangeHistogram> entry : histograms.entrySet()) {
+                    if (type == null || type.equals(entry.getKey())) {
+                        total += entry.getValue().count(min, max);
+                    }
+                }
+            }
+            return total;
+        }
+
+        /**
+         * Devuelve las claves del rango [min, max] de un tipo, o de todos si el tipo es null.
+         */
+        private List<NavigableSet<RangeKey>> subSets(String type, double min, double max) {
+            RangeKey from = new RangeKey(min, null, -1);
+            RangeKey to = new RangeKey(Math.nextUp(max), null, -1);  // Excluye todo lo mayor que max, con cualquier matrícula
+            List<NavigableSet<RangeKey>> result = new ArrayList<>();
+            if (min > max) {
+                return result;
+            }
+            for (Map.Entry<String, TreeSet<RangeKey>> entry : byType.entrySet()) {
+                if (type == null || type.equals(entry.getKey())) {
+                    result.add(entry.getValue().subSet(from, true, to, false));
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Marca las posiciones de los vehículos del rango.
+         */
+        BitSet collect(String type, double min, double max) {
+            BitSet bits = new BitSet();
+            for (NavigableSet<RangeKey> keys : subSets(type, min, max)) {
+                for (RangeKey key : keys) {
+                    bits.set(key.slot);
+                }
+            }
+            return bits;
+        }
+
+        /**
+         * Recorre las claves del rango en orden; si hay varios tipos, mezcla sus árboles tomando siempre la menor (o la mayor).
+         */
+        Iterator<RangeKey> iterate(String type, double min, double max, boolean descending) {
+            Comparator<RangeKey> order = descending ? RANGE_ORDER.reversed() : RANGE_ORDER;
+            PriorityQueue<Head> heads = new PriorityQueue<>((a, b) -> order.compare(a.key, b.key));
+            for (NavigableSet<RangeKey> keys : subSets(type, min, max)) {
+                Iterator<RangeKey> iterator = (descending ? keys.descendingSet() : keys).iterator();
+                if (iterator.hasNext()) {
+                    heads.add(new Head(iterator.next(), iterator));
+                }
+            }
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return !heads.isEmpty();
+                }
+
+                @Override
+                public RangeKey next() {
+                    Head head = heads.poll();
+                    if (head == null) {
+                        throw new NoSuchElementException();
+                    }
+                    RangeKey key = head.key;
+                    if (head.rest.hasNext()) {
+                        heads.add(new Head(head.rest.next(), head.rest));
+                    }
+                    return key;
+                }
+            };
+        }
+
+        /**
+         * Primera clave pendiente de un árbol y el resto de su recorrido.
+         */
+        private record Head(RangeKey key, Iterator<RangeKey> rest) {
+        }
+    }
+
+    /**
+     * Histograma acumulado (árbol de Fenwick) de los valores de un índice de rango. Cada cubeta agrupa los valores que comparten
+     * signo, exponente y los primeros 4 bits de la mantisa, así que su ancho es proporcional a los valores que contiene y sirve
+     * igual para kilómetros que para precios. Cuenta un rango en tiempo logarítmico; solo las cubetas de los extremos pueden
+     * incluir valores de fuera.
+     */
+    private static final class RangeHistogram {
+        private static final int BUCKETS = 1 << 16;
+        private final int[] tree = new int[BUCKETS + 1];
+
+        void add(double value, int delta) {
+            for (int i = bucket(value) + 1; i <= BUCKETS; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+
+        long count(double min, double max) {
+            return prefix(bucket(max) + 1) - prefix(bucket(min));
+        }
+
+        private long prefix(int end) {
+            long total = 0;
+            for (int i = end; i > 0; i -= i & -i) {
+                total += tree[i];
+            }
+            return total;
+        }
+
+        /**
+         * Convierte el valor en una clave que ordena igual que los double y se queda con sus 16 bits altos.
+         */
+        private static int bucket(double value) {
+            long bits = Double.doubleToLongBits(value + 0.0);  // Suma 0.0 para que -0.0 caiga con 0.0
+            bits ^= (bits >> 63) & Long.MAX_VALUE;  // Los negativos quedan en orden inverso al de sus bits
+            return (int) ((bits ^ Long.MIN_VALUE) >>> 48);
+        }
+    }
+
+    /**
+     * Índice de igualdad de un atributo: un mapa de bits con las posiciones de cada valor.
+     */
+    private static final class EqualityIndex {
+        private final String name;
+        private final Function<AbstractVehicle, Object> key;  // Valor del atributo, o null si no aplica al vehículo
+        private final Map<Object, BitSet> bitsByValue = new HashMap<>();
+
+        EqualityIndex(String name, Function<AbstractVehicle, Object> key) {
+            this.name = name;
+            this.key = key;
+        }
+
+        void add(Object value, int slot) {
+            if (value != null) {
+                bitsByValue.computeIfAbsent(value, v -> new BitSet()).set(slot);
+            }
+        }
+
+        void remove(Object value, int slot) {
+            BitSet bits = value == null ? null : bitsByValue.get(value);
+            if (bits != null) {
+                bits.clear(slot);
+                if (bits.isEmpty()) {
+                    bitsByValue.remove(value);
+                }
+            }
+        }
+    }
+}
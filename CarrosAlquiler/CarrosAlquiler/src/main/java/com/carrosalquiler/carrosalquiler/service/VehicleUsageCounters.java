@@ -0,0 +1,92 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * VehicleUsageCounters guarda contadores de uso por día y por tipo de vehículo, actualizados en cada alquiler y devolución:
+ * alquileres empezados, milisegundos alquilados y los ingresos de los alquileres devueltos ese día.
+ * Un informe de un rango de fechas es la suma de los días del rango, sin recorrer el historial de alquileres.
+ *
+ * Los días se ordenan en un mapa concurrente y los contadores son acumuladores sin bloqueo, porque alquileres de matrículas
+ * distintas suman a la vez en el mismo día y el mismo tipo.
+ */
+class VehicleUsageCounters {
+    private final ConcurrentSkipListMap<Long, Map<String, Counter>> days = new ConcurrentSkipListMap<>();
+
+    /**
+     * Cuenta un alquiler en el día en que empieza.
+     *
+     * @param type el tipo de vehículo
+     * @param rentalMillis el instante del alquiler
+     */
+    void recordRental(String type, long rentalMillis) {
+        counter(VehicleOccupancyIndex.epochDay(rentalMillis), type).rentals.increment();
+    }
+
+    /**
+     * Reparte el tiempo de un alquiler devuelto entre los días que duró y suma sus ingresos al día de la devolución.
+     *
+     * @param type el tipo de vehículo
+     * @param rentalMillis el instante del alquiler
+     * @param returnMillis el instante de la devolución
+     * @param revenue los ingresos del alquiler
+     */
+    void recordReturn(String type, long rentalMillis, long returnMillis, double revenue) {
+        long day = VehicleOccupancyIndex.epochDay(rentalMillis);
+        long start = rentalMillis;
+        while (start < returnMillis) {
+            long end = Math.min(returnMillis, VehicleOccupancyIndex.dayStart(day + 1));
+            counter(day, type).rentedMillis.add(end - start);
+            start = end;
+            day++;
+        }
+        counter(VehicleOccupancyIndex.epochDay(returnMillis), type).revenue.add(revenue);
+    }
+
+    /**
+     * Suma los contadores de los días de un rango, por tipo de vehículo.
+     *
+     * @param firstDay el primer día
+     * @param lastDay el último día, incluido
+     * @return por tipo, los alquileres, los milisegundos alquilados y los ingresos
+     */
+    Map<String, Totals> sum(long firstDay, long lastDay) {
+        Map<String, Totals> totals = new HashMap<>();
+        for (Map<String, Counter> day : days.subMap(firstDay, true, lastDay, true).values()) {
+            day.forEach((type, counter) -> {
+                Totals sum = totals.computeIfAbsent(type, key -> new Totals());
+                sum.rentals += counter.rentals.sum();
+                sum.rentedMillis += counter.rentedMillis.sum();
+                sum.revenue += counter.revenue.sum();
+            });
+        }
+        return totals;
+    }
+
+    private Counter counter(long epochDay, String type) {
+        return days.computeIfAbsent(epochDay, key -> new ConcurrentHashMap<>()).computeIfAbsent(type, key -> new Counter());
+    }
+
+    /**
+     * Contadores de un tipo de vehículo en un día.
+     */
+    private static final class Counter {
+        private final LongAdder rentals = new LongAdder();
+        private final LongAdder rentedMillis = new LongAdder();
+        private final DoubleAdder revenue = new DoubleAdder();
+    }
+
+    /**
+     * Suma de los contadores de un rango; también se usa para acumular las cifras de cada vehículo.
+     */
+    static final class Totals {
+        long rentals;
+        long rentedMillis;
+        double revenue;
+    }
+}
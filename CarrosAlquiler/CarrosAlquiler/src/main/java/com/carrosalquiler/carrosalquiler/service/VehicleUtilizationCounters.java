@@ -0,0 +1,125 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.AbstractVehicle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * VehicleUtilizationCounters cuenta, por tipo de vehículo, cuántos vehículos hay y cuántos están alquilados (no disponibles),
+ * también separados por eléctrico o no y por color. El índice de disponibilidad los actualiza con cada alta, baja, alquiler
+ * y devolución, dentro del bloqueo del tipo y solo cuando el bit del vehículo cambia, así que nunca se recorre la flota
+ * y consultar la ocupación de un grupo es leer dos contadores.
+ */
+class VehicleUtilizationCounters {
+    // Posición de cada clase de vehículo en TYPE_NAMES; se calcula una vez por clase
+    private static final ClassValue<Integer> TYPE_INDEX = new ClassValue<>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            return VehicleSearchIndex.TYPE_NAMES.indexOf(VehicleSearchIndex.typeName(type));
+        }
+    };
+
+    private final Counts[] byType = new Counts[VehicleSearchIndex.TYPE_NAMES.size()];
+    private final Counts[][] byElectric = new Counts[byType.length][2];  // [tipo][0 = no eléctrico, 1 = eléctrico]
+    private final List<Map<String, Counts>> byColor = new ArrayList<>(byType.length);  // Por tipo, color en minúsculas
+
+    VehicleUtilizationCounters() {
+        for (int type = 0; type < byType.length; type++) {
+            byType[type] = new Counts();
+            byElectric[type][0] = new Counts();
+            byElectric[type][1] = new Counts();
+            byColor.add(new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Aplica un cambio en los contadores de los grupos del vehículo.
+     *
+     * @param vehicle el vehículo que cambió
+     * @param totalDelta 1 si se indexó, -1 si se quitó, 0 si solo cambió su disponibilidad
+     * @param rentedDelta 1 si pasó a no disponible, -1 si dejó de estarlo, 0 si no cambió
+     */
+    void change(AbstractVehicle vehicle, int totalDelta, int rentedDelta) {
+        int type = TYPE_INDEX.get(vehicle.getClass());
+        if (type < 0) {
+            return;
+        }
+        byType[type].add(totalDelta, rentedDelta);
+        byElectric[type][vehicle.isElectric() ? 1 : 0].add(totalDelta, rentedDelta);
+        String color = VehicleColorIndex.canonicalColor(vehicle.getColor());
+        if (color != null) {
+            byColor.get(type).computeIfAbsent(color, key -> new Counts()).add(totalDelta, rentedDelta);
+        }
+    }
+
+    /**
+     * Devuelve los contadores del tipo del vehículo.
+     */
+    Counts byType(AbstractVehicle vehicle) {
+        int type = TYPE_INDEX.get(vehicle.getClass());
+        return type < 0 ? null : byType[type];
+    }
+
+    /**
+     * Devuelve los contadores del tipo del vehículo que son, o no, eléctricos como él.
+     */
+    Counts byElectric(AbstractVehicle vehicle) {
+        int type = TYPE_INDEX.get(vehicle.getClass());
+        return type < 0 ? null : byElectric[type][vehicle.isElectric() ? 1 : 0];
+    }
+
+    /**
+     * Devuelve los contadores del tipo del vehículo con su mismo color, o null si no tiene color.
+     */
+    Counts byColor(AbstractVehicle vehicle) {
+        int type = TYPE_INDEX.get(vehicle.getClass());
+        String color = VehicleColorIndex.canonicalColor(vehicle.getColor());
+        return type < 0 || color == null ? null : byColor.get(type).get(color);
+    }
+
+    Counts byType(int type) {
+        return byType[type];
+    }  // Devuelve los contadores de un tipo por su posición en TYPE_NAMES.
+
+    Counts byElectric(int type, boolean electric) {
+        return byElectric[type][electric ? 1 : 0];
+    }  // Devuelve los contadores de un tipo, eléctricos o no.
+
+    Map<String, Counts> byColor(int type) {
+        return byColor.get(type);
+    }  // Devuelve los contadores de un tipo por color.
+
+    /**
+     * Vehículos de un grupo y cuántos están alquilados.
+     */
+    static final class Counts {
+        private final AtomicInteger total = new AtomicInteger();
+        private final AtomicInteger rented = new AtomicInteger();
+
+        private void add(int totalDelta, int rentedDelta) {
+            if (totalDelta != 0) {
+                total.addAndGet(totalDelta);
+            }
+            if (rentedDelta != 0) {
+                rented.addAndGet(rentedDelta);
+            }
+        }
+
+        int total() {
+            return total.get();
+        }  // Devuelve los vehículos del grupo.
+
+        int rented() {
+            return rented.get();
+        }  // Devuelve los vehículos del grupo que están alquilados.
+
+        double utilization() {
+            int vehicles = total.get();
+            return vehicles == 0 ? 0 : Math.min(1, (double) rented.get() / vehicles);
+        }  // Devuelve la proporción de vehículos alquilados, de 0 a 1.
+    }
+}
@@ -1,11 +1,24 @@
 package com.carrosalquiler.carrosalquiler;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
 
 @SpringBootTest
 class CarrosAlquilerApplicationTests {
 
+    @TempDir
+    static Path walDirectory;
+
+    @DynamicPropertySource
+    static void walProperties(DynamicPropertyRegistry registry) {
+        registry.add("carros.wal.dir", () -> walDirectory.toString());
+    }
+
     @Test
     void contextLoads() {
     }
@@ -0,0 +1,128 @@
+package com.carrosalquiler.carrosalquiler.controller;
+
+import com.carrosalquiler.carrosalquiler.models.AbstractVehicle;
+import com.carrosalquiler.carrosalquiler.models.Car;
+import com.carrosalquiler.carrosalquiler.models.Role;
+import com.carrosalquiler.carrosalquiler.models.User;
+import com.carrosalquiler.carrosalquiler.models.Van;
+import com.carrosalquiler.carrosalquiler.service.BulkUploadJobService;
+import com.carrosalquiler.carrosalquiler.service.DynamicPricingService;
+import com.carrosalquiler.carrosalquiler.service.GestionUsuariosService;
+import com.carrosalquiler.carrosalquiler.service.GestionVehiculoService;
+import com.carrosalquiler.carrosalquiler.service.IdempotencyKeyStore;
+import com.carrosalquiler.carrosalquiler.service.PricingRuleService;
+import com.carrosalquiler.carrosalquiler.service.QuoteService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VehicleControllerTest {
+
+    private final GestionVehiculoService vehicles = new GestionVehiculoService();
+    private final GestionUsuariosService users = new GestionUsuariosService();
+    private final BulkUploadJobService bulkUploads = new BulkUploadJobService(vehicles, 1);
+    private final VehicleController controller = new VehicleController(vehicles, users, bulkUploads, new IdempotencyKeyStore(),
+            new QuoteService(vehicles, new DynamicPricingService(vehicles, false, "type", "0:1,1:1"), new PricingRuleService()),
+            new DynamicPricingService(vehicles, false, "type", "0:1,1:1"), new ObjectMapper());
+
+    @AfterEach
+    void shutdown() {
+        bulkUploads.shutdown();
+    }
+
+    @Test
+    void unchangedAvailableListingAnswersNotModified() {
+        vehicles.registerVehicle(new Car("CAR1", 0, 50, false, 4));
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        List<AbstractVehicle> listed = controller.listAvailableVehicles(request(null, first));
+        String etag = first.getHeader("ETag");
+        assertEquals(1, listed.size());
+        assertNotNull(etag);
+
+        MockHttpServletResponse poll = new MockHttpServletResponse();
+        assertNull(controller.listAvailableVehicles(request(etag, poll)));
+        assertEquals(304, poll.getStatus());
+
+        assertTrue(vehicles.rentVehicle("CAR1", user("ana", Role.USER)));
+        MockHttpServletResponse afterRent = new MockHttpServletResponse();
+        assertEquals(List.of(), controller.listAvailableVehicles(request(etag, afterRent)));
+        assertEquals(200, afterRent.getStatus());
+        assertNotEquals(etag, afterRent.getHeader("ETag"));
+    }
+
+    @Test
+    void typeListingsChangeOnlyWithTheirOwnType() {
+        users.registerUser(user("admin", Role.ADMIN));
+        vehicles.registerVehicle(new Car("CAR1", 0, 50, false, 4));
+        vehicles.registerVehicle(new Van("VAN1", 0, 70, false, 9));
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        controller.listAvailableCars("admin", request(null, first));
+        String etag = first.getHeader("ETag");
+
+        vehicles.updateVehicleAvailability("VAN1", false);  // Otro tipo: el listado de autos sigue igual
+        MockHttpServletResponse poll = new MockHttpServletResponse();
+        assertNull(controller.listAvailableCars("admin", request(etag, poll)));
+        assertEquals(304, poll.getStatus());
+
+        vehicles.getVehicle("CAR1").setRentalValue(60);  // Cambio sobre el mismo objeto
+        MockHttpServletResponse changed = new MockHttpServletResponse();
+        assertEquals(60, controller.listAvailableCars("admin", request(etag, changed)).get(0).getRentalValue(), 1e-9);
+        assertEquals(200, changed.getStatus());
+    }
+
+    @Test
+    void retriedRentReplaysTheOriginalAnswer() {
+        users.registerUser(user("ana", Role.USER));
+        users.registerUser(user("luis", Role.USER));
+        vehicles.registerVehicle(new Car("CAR1", 0, 50, false, 4));
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        assertEquals("Vehicle rented successfully!", controller.rentVehicle("CAR1", user("ana", Role.USER), "retry-1", first));
+        assertNull(first.getHeader("Idempotent-Replayed"));
+
+        MockHttpServletResponse retry = new MockHttpServletResponse();
+        assertEquals("Vehicle rented successfully!", controller.rentVehicle("CAR1", user("ana", Role.USER), "retry-1", retry));
+        assertEquals("true", retry.getHeader("Idempotent-Replayed"));
+        // Sin clave, el mismo alquiler sí se vuelve a intentar y el vehículo ya está alquilado
+        assertEquals("Vehicle could not be rented.",
+                controller.rentVehicle("CAR1", user("ana", Role.USER), null, new MockHttpServletResponse()));
+
+        ResponseStatusException reused = assertThrows(ResponseStatusException.class,
+                () -> controller.rentVehicle("CAR1", user("luis", Role.USER), "retry-1", new MockHttpServletResponse()));
+        assertEquals(422, reused.getStatusCode().value());
+        ResponseStatusException blank = assertThrows(ResponseStatusException.class,
+                () -> controller.returnVehicle("CAR1", "", new MockHttpServletResponse()));
+        assertEquals(400, blank.getStatusCode().value());
+        assertFalse(vehicles.getVehicle("CAR1").isAvailable());
+    }
+
+    private static ServletWebRequest request(String ifNoneMatch, MockHttpServletResponse response) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/vehicles/available");
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return new ServletWebRequest(request, response);
+    }
+
+    private static User user(String login, Role role) {
+        User user = new User();
+        user.setLogin(login);
+        user.setName(login);
+        user.setPasswd("secret");
+        user.setRole(role);
+        return user;
+    }
+}
@@ -0,0 +1,71 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.Car;
+import com.carrosalquiler.carrosalquiler.models.User;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compara alquilar y devolver un lote de vehículos con una sola llamada frente a un bucle de llamadas sueltas, con el
+ * registro de escritura anticipada activo. No es una prueba: se ejecuta a mano con la clase como principal, igual que
+ * {@link RentContentionBench}.
+ *
+ * Argumentos opcionales: tamaño del lote, vueltas y si cada mutación espera a su fsync (por defecto 200, 200 y true).
+ */
+public class BatchRentBench {
+
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        boolean syncCommit = args.length <= 2 || Boolean.parseBoolean(args[2]);
+
+        Path dir = Files.createTempDirectory("batch-bench");
+        FleetWriteAheadLog wal = new FleetWriteAheadLog(true, dir.toString(), 10, 1000, syncCommit);
+        wal.open();
+        GestionVehiculoService service = new GestionVehiculoService(wal, new RentalLedgerService(), new ReservationService(),
+                new UsageReportCache());
+        List<String> plates = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            plates.add("VAN" + i);
+            service.registerVehicle(new Car("VAN" + i, 0, 100, false, 4));
+        }
+        User user = new User();
+        user.setLogin("bench");
+
+        double loopMillis = 0;
+        double batchMillis = 0;
+        for (int round = 0; round < 2; round++) {  // La primera vuelta calienta el compilador
+            long start = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                for (String plate : plates) {
+                    service.rentVehicle(plate, user);
+                }
+                for (String plate : plates) {
+                    service.returnVehicle(plate);
+                }
+            }
+            loopMillis = (System.nanoTime() - start) / 1e6 / rounds;
+            start = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                if (!service.rentVehicles(plates, user).isSuccess() || !service.returnVehicles(plates).isSuccess()) {
+                    throw new IllegalStateException("Batch failed");
+                }
+            }
+            batchMillis = (System.nanoTime() - start) / 1e6 / rounds;
+        }
+        wal.close();
+
+        System.out.printf("%d vehicles, sync commit %s: loop %.2f ms, batch %.2f ms per rent and return round trip%n",
+                size, syncCommit, loopMillis, batchMillis);
+        try (var files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+}
@@ -0,0 +1,72 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.BulkUploadResult;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compara la carga masiva de un CSV leída en un solo hilo con la carga por bloques en pools fork-join de distinto tamaño.
+ * No es una prueba: se ejecuta a mano con la clase como principal, igual que {@link RentContentionBench}.
+ * Cada medición registra los vehículos en una flota nueva, sin registro de escritura anticipada.
+ *
+ * Argumentos opcionales: filas del CSV e hilos separados por comas (por defecto 2000000 y 1,2,4,8).
+ */
+public class BulkUploadBench {
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int[] threads = Arrays.stream((args.length > 1 ? args[1] : "1,2,4,8").split(","))
+                .mapToInt(Integer::parseInt)
+                .toArray();
+
+        Path csv = Files.createTempFile("bulk-bench-", ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(csv)) {
+            writer.write("licensePlate,kilometers,rentalValue,isElectric,numberOfDoors,cargoCapacity,seatingCapacity,hasSidecar\n");
+            for (int i = 0; i < rows; i++) {
+                writer.write(switch (i % 4) {
+                    case 0 -> "CAR" + i + "," + i + ",50.5,false,4,,,\n";
+                    case 1 -> "TRK" + i + "," + i + ",90,true,,12.5,,\n";
+                    case 2 -> "VAN" + i + "," + i + ",70,false,,,9,\n";
+                    default -> "MOT" + i + "," + i + ",20,false,,,,true\n";
+                });
+            }
+        }
+
+        double sequentialMillis = 0;
+        for (int round = 0; round < 2; round++) {  // La primera vuelta calienta el compilador
+            sequentialMillis = upload(csv, null, 1);
+        }
+        System.out.printf("%,d rows, sequential: %.0f ms%n", rows, sequentialMillis);
+        for (int threadCount : threads) {
+            ForkJoinPool pool = new ForkJoinPool(threadCount);
+            double millis = 0;
+            for (int round = 0; round < 2; round++) {
+                millis = upload(csv, pool, threadCount);
+            }
+            pool.shutdown();
+            System.out.printf("%,d rows, %d threads: %.0f ms (x%.2f)%n", rows, threadCount, millis, sequentialMillis / millis);
+        }
+        Files.delete(csv);
+    }
+
+    private static double upload(Path csv, ForkJoinPool pool, int parallelism) throws IOException {
+        GestionVehiculoService service = new GestionVehiculoService();
+        BulkUploadResult result = new BulkUploadResult();
+        long start = System.nanoTime();
+        try (InputStream in = Files.newInputStream(csv)) {
+            new VehicleCsvIngestor(service::registerVehicles, pool == null ? ForkJoinPool.commonPool() : pool, parallelism)
+                    .ingest(in, result);
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+        if (result.getRowsRejected() > 0) {
+            throw new IllegalStateException("Rows were rejected: " + result.getRejectedRows());
+        }
+        return millis;
+    }
+}
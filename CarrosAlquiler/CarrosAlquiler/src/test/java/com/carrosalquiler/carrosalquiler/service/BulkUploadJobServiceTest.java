@@ -0,0 +1,157 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.BulkUploadJob;
+import com.carrosalquiler.carrosalquiler.models.BulkUploadResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BulkUploadJobServiceTest {
+    private static final String CSV = "licensePlate,kilometers,rentalValue,isElectric,numberOfDoors,cargoCapacity,seatingCapacity,hasSidecar\n"
+            + "CAR1,0,50,false,4,,,\n"
+            + "CAR2,0,50,false,4,,,\n"
+            + "BAD\n";
+
+    private final BlockingVehicleService vehicles = new BlockingVehicleService();
+    private final BulkUploadJobService jobs = new BulkUploadJobService(vehicles, 1);
+
+    @AfterEach
+    void shutdown() {
+        vehicles.release.countDown();
+        jobs.shutdown();
+    }
+
+    @Test
+    void uploadRunsInTheBackgroundAndDeletesItsFile() throws Exception {
+        vehicles.release.countDown();
+        Path csv = spool();
+
+        BulkUploadJob job = jobs.submit(csv, "admin", false);
+        awaitFinished(job);
+
+        assertEquals(BulkUploadJob.Status.COMPLETED, job.getStatus());
+        assertNotNull(job.getStartedAt());
+        assertNotNull(job.getFinishedAt());
+        assertEquals(2, job.getResult().getRowsAccepted());
+        assertEquals(1, job.getResult().getRowsRejected());
+        assertNotNull(vehicles.getVehicle("CAR2"));
+        assertFalse(Files.exists(csv));
+        assertFalse(jobs.cancel(job.getId()));  // Ya terminó
+    }
+
+    @Test
+    void cancellingAQueuedJobNeverRunsIt() throws Exception {
+        BulkUploadJob first = jobs.submit(spool(), "admin", false);
+        vehicles.started.await();  // El único hilo queda ocupado con la primera carga
+        Path csv = spool();
+        BulkUploadJob queued = jobs.submit(csv, "admin", false);
+
+        assertTrue(jobs.cancel(queued.getId()));
+
+        assertEquals(BulkUploadJob.Status.CANCELLED, queued.getStatus());
+        assertNull(queued.getStartedAt());
+        assertFalse(Files.exists(csv));
+        vehicles.release.countDown();
+        awaitFinished(first);
+        assertEquals(BulkUploadJob.Status.COMPLETED, first.getStatus());
+        assertEquals(1, vehicles.uploads.get());
+        assertEquals(0, queued.getResult().getRowsParsed());
+    }
+
+    @Test
+    void cancellingARunningJobInterruptsItAndDeletesItsFile() throws Exception {
+        Path csv = spool();
+        BulkUploadJob job = jobs.submit(csv, "admin", false);
+        vehicles.started.await();
+
+        assertTrue(jobs.cancel(job.getId()));
+        awaitFinished(job);
+
+        assertEquals(BulkUploadJob.Status.CANCELLED, job.getStatus());
+        assertNull(job.getError());
+        assertFalse(Files.exists(csv));
+    }
+
+    @Test
+    void cancelRacingTheStartNeverDeletesTheFileOfARunningJob() throws Exception {
+        vehicles.release.countDown();
+        for (int i = 0; i < 200; i++) {
+            Path csv = spool();
+            BulkUploadJob job = jobs.submit(csv, "admin", false);
+            boolean cancelled = jobs.cancel(job.getId());
+            awaitFinished(job);
+
+            // Si la carga llegó a ejecutarse, su archivo seguía ahí: nunca falla por no encontrarlo
+            assertNull(job.getError());
+            if (job.getStatus() == BulkUploadJob.Status.COMPLETED) {
+                assertEquals(3, job.getResult().getRowsParsed());
+            } else {
+                assertTrue(cancelled);
+                assertEquals(BulkUploadJob.Status.CANCELLED, job.getStatus());
+            }
+            assertFalse(Files.exists(csv));
+        }
+    }
+
+    @Test
+    void onlyOneOfStartAndCancelLeavesTheQueue() {
+        BulkUploadJob started = new BulkUploadJob("1", "admin");
+        assertTrue(started.markRunning());
+        assertFalse(started.cancelIfQueued());
+        assertEquals(BulkUploadJob.Status.RUNNING, started.getStatus());
+
+        BulkUploadJob cancelled = new BulkUploadJob("2", "admin");
+        assertTrue(cancelled.cancelIfQueued());
+        assertFalse(cancelled.markRunning());
+        assertEquals(BulkUploadJob.Status.CANCELLED, cancelled.getStatus());
+        assertTrue(cancelled.isFinished());
+    }
+
+    private static Path spool() throws IOException {
+        Path csv = Files.createTempFile("bulk-upload-test-", ".csv");
+        Files.writeString(csv, CSV);
+        return csv;
+    }
+
+    private static void awaitFinished(BulkUploadJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!job.isFinished()) {
+            assertTrue(System.nanoTime() < deadline, "job did not finish");
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Servicio de vehículos cuya carga espera a que la prueba la libere, para poder cancelarla en cola o en ejecución.
+     */
+    private static final class BlockingVehicleService extends GestionVehiculoService {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final AtomicInteger uploads = new AtomicInteger();
+
+        @Override
+        public void bulkUploadVehicles(InputStream csvStream, boolean parallel, BulkUploadResult result) throws IOException {
+            uploads.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new CancellationException("bulk upload cancelled");
+            }
+            super.bulkUploadVehicles(csvStream, parallel, result);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.Car;
+import com.carrosalquiler.carrosalquiler.models.PricingMultiplier;
+import com.carrosalquiler.carrosalquiler.models.User;
+import com.carrosalquiler.carrosalquiler.models.Van;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DynamicPricingServiceTest {
+    private static final String CURVE = "0:1.0,0.7:1.0,0.9:1.25,1:1.5";
+
+    private final RentalLedgerService ledger = new RentalLedgerService();
+    private final GestionVehiculoService vehicles =
+            new GestionVehiculoService(new FleetWriteAheadLog(), ledger, new ReservationService(), new UsageReportCache());
+
+    @Test
+    void curveInterpolatesBetweenPoints() {
+        DynamicPricingService pricing = new DynamicPricingService(vehicles, true, "type", CURVE);
+
+        assertEquals(1.0, pricing.multiplierAt(0), 1e-9);
+        assertEquals(1.0, pricing.multiplierAt(0.7), 1e-9);
+        assertEquals(1.125, pricing.multiplierAt(0.8), 1e-9);
+        assertEquals(1.25, pricing.multiplierAt(0.9), 1e-9);
+        assertEquals(1.375, pricing.multiplierAt(0.95), 1e-9);
+        assertEquals(1.5, pricing.multiplierAt(1), 1e-9);
+        assertEquals(1.5, pricing.multiplierAt(2), 1e-9);  // Fuera de la curva vale el último punto
+        assertEquals(1.0, pricing.lowestMultiplier(), 1e-9);
+        assertEquals(1.5, pricing.highestMultiplier(), 1e-9);
+    }
+
+    @Test
+    void multiplierFollowsTheUtilizationOfTheGroup() {
+        DynamicPricingService pricing = new DynamicPricingService(vehicles, true, "type", CURVE);
+        for (int i = 0; i < 10; i++) {
+            vehicles.registerVehicle(new Car("CAR" + i, 0, 100, false, 4));
+        }
+        vehicles.registerVehicle(new Van("VAN0", 0, 100, false, 8));
+        User user = new User();
+        user.setLogin("ana");
+        for (int i = 0; i < 8; i++) {
+            assertTrue(vehicles.rentVehicle("CAR" + i, user));
+        }
+
+        assertEquals(1.125, pricing.multiplier(vehicles.getVehicle("CAR9")), 1e-9);
+        assertEquals(112.5, pricing.rentalValue(vehicles.getVehicle("CAR9")), 1e-9);
+        assertEquals(1.0, pricing.multiplier(vehicles.getVehicle("VAN0")), 1e-9);  // Otro tipo, otra ocupación
+        PricingMultiplier cars = pricing.currentMultipliers().stream()
+                .filter(m -> m.getType().equals("car") && m.getGroup().equals("all"))
+                .findFirst().orElseThrow();
+        assertEquals(10, cars.getVehicles());
+        assertEquals(8, cars.getRented());
+        assertTrue(cars.isApplied());
+
+        // El alquiler fija el valor diario con la ocupación de antes de alquilar
+        assertTrue(vehicles.rentVehicle("CAR8", user));
+        assertEquals(112.5, ledger.getActiveRental("CAR8").getDailyRate(), 1e-9);
+    }
+
+    @Test
+    void disabledPricingKeepsTheRentalValue() {
+        DynamicPricingService pricing = new DynamicPricingService(vehicles, false, "type", CURVE);
+        vehicles.registerVehicle(new Car("CAR0", 0, 100, false, 4));
+        User user = new User();
+        user.setLogin("ana");
+        assertTrue(vehicles.rentVehicle("CAR0", user));
+
+        assertEquals(1.0, pricing.multiplier(vehicles.getVehicle("CAR0")), 1e-9);
+        assertEquals(1.0, pricing.highestMultiplier(), 1e-9);
+        assertEquals(100, ledger.getActiveRental("CAR0").getDailyRate(), 1e-9);
+    }
+
+    @Test
+    void invalidConfigurationIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new DynamicPricingService(vehicles, true, "type", "0:1,1.5:2"));
+        assertThrows(IllegalArgumentException.class, () -> new DynamicPricingService(vehicles, true, "type", "0:0"));
+        assertThrows(IllegalArgumentException.class, () -> new DynamicPricingService(vehicles, true, "type", "half:1"));
+        assertThrows(IllegalArgumentException.class, () -> new DynamicPricingService(vehicles, true, "region", CURVE));
+    }
+}
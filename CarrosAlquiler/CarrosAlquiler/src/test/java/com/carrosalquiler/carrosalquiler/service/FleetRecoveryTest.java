@@ -0,0 +1,239 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.AbstractVehicle;
+import com.carrosalquiler.carrosalquiler.models.Car;
+import com.carrosalquiler.carrosalquiler.models.RentedVehicle;
+import com.carrosalquiler.carrosalquiler.models.Truck;
+import com.carrosalquiler.carrosalquiler.models.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FleetRecoveryTest {
+
+    @TempDir
+    Path dir;
+
+    private final List<Fleet> fleets = new ArrayList<>();
+
+    @AfterEach
+    void closeFleets() {
+        for (Fleet fleet : fleets) {
+            fleet.snapshots.stop();
+            fleet.wal.close();
+        }
+    }
+
+    @Test
+    void crashIsRecoveredFromTheLog() throws IOException {
+        Fleet before = recover();
+        before.users.registerUser(user("ana"));
+        before.vehicles.registerVehicle(new Car("CAR1", 0, 50, false, 4));
+        before.vehicles.registerVehicle(new Car("CAR2", 0, 60, false, 4));
+        before.vehicles.registerVehicle(new Truck("TRK1", 0, 100, true, 10));
+        User ana = before.users.getUserByLogin("ana");
+        assertTrue(before.vehicles.rentVehicle("CAR1", ana));
+        assertTrue(before.vehicles.rentVehicles(List.of("CAR2", "TRK1"), ana).isSuccess());
+        assertTrue(before.vehicles.returnVehicle("CAR2"));
+        LocalDateTime pickup = LocalDateTime.now().plusDays(2);
+        assertNotNull(before.vehicles.reserveVehicle("CAR2", "ana", pickup, pickup.plusDays(1)));
+        // Sin cerrar el registro, como tras una caída; el último registro quedó escrito a medias
+        Files.write(lastSegment(), new byte[]{0, 0, 0, 42, 7, 1, 2}, StandardOpenOption.APPEND);
+
+        Fleet after = recover();
+
+        assertEquals(3, after.vehicles.countVehicles());
+        assertTrue(after.users.validateUser("ana", "secret"));
+        assertRented(after, "CAR1", 1);
+        assertRented(after, "TRK1", 1);
+        AbstractVehicle car2 = after.vehicles.getVehicle("CAR2");
+        assertTrue(car2.isAvailable());
+        assertEquals(2, car2.availabilityVersion());
+        assertEquals(1, after.ledger.getRentalHistory("CAR2").size());
+        assertEquals(100, after.ledger.getActiveRental("TRK1").getDailyRate());
+        assertEquals(2, after.ledger.listActiveRentalsByUser("ana").size());
+        assertEquals(1, after.vehicles.listReservations("CAR2").size());
+        // El estado recuperado sigue aceptando mutaciones
+        assertTrue(after.vehicles.returnVehicle("CAR1"));
+        assertEquals(2, after.vehicles.getVehicle("CAR1").availabilityVersion());
+    }
+
+    @Test
+    void snapshotIsCompletedWithTheLogAfterIt() throws IOException {
+        Fleet before = recover();
+        before.users.registerUser(user("ana"));
+        before.vehicles.registerVehicle(new Car("CAR1", 0, 50, false, 4));
+        before.vehicles.registerVehicle(new Car("CAR2", 0, 60, false, 4));
+        User ana = before.users.getUserByLogin("ana");
+        assertTrue(before.vehicles.rentVehicle("CAR1", ana));
+        assertTrue(before.vehicles.rentVehicle("CAR2", ana));
+        assertTrue(before.vehicles.returnVehicle("CAR2"));
+        assertNotNull(before.snapshots.takeSnapshot());
+        assertNull(before.snapshots.takeSnapshot());  // Sin mutaciones nuevas no hace falta otra
+        // Después de la instantánea: una devolución de un alquiler que ella guarda y un alquiler nuevo
+        assertTrue(before.vehicles.returnVehicle("CAR1"));
+        assertTrue(before.vehicles.rentVehicle("CAR2", ana));
+        before.vehicles.registerVehicle(new Car("CAR3", 0, 70, false, 4));
+        before.wal.close();
+
+        Fleet after = recover();
+
+        assertEquals(3, after.vehicles.countVehicles());
+        assertTrue(after.vehicles.getVehicle("CAR1").isAvailable());
+        assertEquals(2, after.vehicles.getVehicle("CAR1").availabilityVersion());
+        assertRented(after, "CAR2", 3);
+        assertNull(after.ledger.getActiveRental("CAR1"));
+        assertEquals(1, after.ledger.getRentalHistory("CAR1").size());
+        assertEquals(1, after.ledger.getRentalHistory("CAR2").size());
+        assertEquals(2, after.ledger.getRentalHistoryByUser("ana").size());
+        assertTrue(after.vehicles.getVehicle("CAR3").isAvailable());
+    }
+
+    @Test
+    void replayingRecordsTheSnapshotAlreadyHasChangesNothing() throws IOException {
+        Fleet before = recover();
+        before.users.registerUser(user("ana"));
+        before.vehicles.registerVehicle(new Car("CAR1", 0, 50, false, 4));
+        before.vehicles.registerVehicle(new Car("CAR2", 0, 60, false, 4));
+        User ana = before.users.getUserByLogin("ana");
+        assertTrue(before.vehicles.rentVehicle("CAR1", ana));
+        assertTrue(before.vehicles.rentVehicle("CAR2", ana));
+        assertTrue(before.vehicles.returnVehicle("CAR2"));
+        // Copia de los segmentos que la instantánea borrará, como si la caída llegara antes de borrarlos
+        Path copies = Files.createDirectory(dir.resolve("copies"));
+        for (Path segment : segments()) {
+            Files.copy(segment, copies.resolve(segment.getFileName()));
+        }
+        assertNotNull(before.snapshots.takeSnapshot());
+        before.wal.close();
+        try (Stream<Path> saved = Files.list(copies)) {
+            for (Path segment : saved.toList()) {
+                Files.copy(segment, dir.resolve(segment.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        Fleet after = fleet();
+        after.snapshots.load();
+        after.wal.replay(after.recovery, 0);  // Todos los segmentos, también los que la instantánea ya cubre
+        after.wal.replay(after.recovery, 0);
+
+        assertEquals(2, after.vehicles.countVehicles());
+        assertRented(after, "CAR1", 1);
+        assertTrue(after.vehicles.getVehicle("CAR2").isAvailable());
+        assertEquals(2, after.vehicles.getVehicle("CAR2").availabilityVersion());
+        assertEquals(1, after.ledger.listActiveRentals().size());
+        assertEquals(1, after.ledger.getRentalHistory("CAR2").size());
+        assertEquals(1, after.ledger.getRentalHistoryByUser("ana").size());
+        LocalDate today = LocalDate.now();
+        assertEquals(2, after.vehicles.generateUsageReport(today, today, false).getTotal().getRentals());
+        assertEquals(60, after.vehicles.generateUsageReport(today, today, false).getTotal().getRevenue(), 1e-9);
+    }
+
+    @Test
+    void changesThatFailAreNotLogged() {
+        Fleet before = recover();
+        before.vehicles.registerVehicle(new Car("CAR1", 0, 50, false, 4));
+        assertTrue(before.vehicles.rentVehicle("CAR1", user("ana")));
+        before.rules.addRule((type, electric, days, terms) -> {
+            throw new IllegalStateException("Pricing is down");
+        });
+
+        assertThrows(IllegalStateException.class, () -> before.vehicles.returnVehicle("CAR1"));
+        assertThrows(IllegalArgumentException.class, () -> before.vehicles.registerVehicle(new Car(null, 0, 50, false, 4)));
+
+        // La devolución falló al cobrar, antes de anotarse: el vehículo sigue alquilado en memoria y en el registro
+        assertRented(before, "CAR1", 1);
+        assertFalse(before.vehicles.getVehicle("CAR1").isClaimed());
+        assertTrue(before.ledger.getRentalHistory("CAR1").isEmpty());
+        before.wal.close();
+
+        Fleet after = recover();
+
+        assertEquals(1, after.vehicles.countVehicles());
+        assertRented(after, "CAR1", 1);
+        assertTrue(after.vehicles.returnVehicle("CAR1"));
+        assertEquals(2, after.vehicles.getVehicle("CAR1").availabilityVersion());
+    }
+
+    private static void assertRented(Fleet fleet, String plate, long version) {
+        AbstractVehicle vehicle = fleet.vehicles.getVehicle(plate);
+        assertFalse(vehicle.isAvailable());
+        assertEquals(version, vehicle.availabilityVersion());
+        RentedVehicle rental = fleet.ledger.getActiveRental(plate);
+        assertNotNull(rental);
+        assertEquals("ana", rental.getUser().getLogin());
+        assertEquals(version, rental.getRentalVersion());
+    }
+
+    private Fleet recover() {
+        Fleet fleet = fleet();
+        fleet.recovery.recover();
+        return fleet;
+    }
+
+    /**
+     * Servicios nuevos sobre el mismo directorio, como un arranque de la aplicación. El registro hace fsync de cada
+     * mutación antes de devolver, así que lo anotado sobrevive aunque nunca se cierre.
+     */
+    private Fleet fleet() {
+        Fleet fleet = new Fleet(new FleetWriteAheadLog(true, dir.toString(), 0, 1, true));
+        fleets.add(fleet);
+        return fleet;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("wal-")).sorted().toList();
+        }
+    }
+
+    private Path lastSegment() throws IOException {
+        List<Path> segments = segments();
+        return segments.get(segments.size() - 1);
+    }
+
+    private static User user(String login) {
+        User user = new User();
+        user.setName(login);
+        user.setLogin(login);
+        user.setPasswd("secret");
+        return user;
+    }
+
+    private static final class Fleet {
+        final FleetWriteAheadLog wal;
+        final PricingRuleService rules = new PricingRuleService();
+        final RentalLedgerService ledger = new RentalLedgerService(rules);
+        final GestionUsuariosService users;
+        final GestionVehiculoService vehicles;
+        final FleetSnapshotStore snapshots;
+        final FleetRecovery recovery;
+
+        Fleet(FleetWriteAheadLog wal) {
+            this.wal = wal;
+            ReservationService reservations = new ReservationService();
+            users = new GestionUsuariosService(wal);
+            vehicles = new GestionVehiculoService(wal, ledger, reservations, new UsageReportCache());
+            snapshots = new FleetSnapshotStore(wal, vehicles, users, ledger, reservations, true, 3_600_000);
+            recovery = new FleetRecovery(wal, vehicles, users, snapshots);
+        }
+    }
+}
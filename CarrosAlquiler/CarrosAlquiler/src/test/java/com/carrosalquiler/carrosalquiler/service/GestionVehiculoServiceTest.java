@@ -0,0 +1,824 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.AbstractVehicle;
+import com.carrosalquiler.carrosalquiler.models.BatchRentalResult;
+import com.carrosalquiler.carrosalquiler.models.BulkUploadResult;
+import com.carrosalquiler.carrosalquiler.models.Car;
+import com.carrosalquiler.carrosalquiler.models.Motorcycle;
+import com.carrosalquiler.carrosalquiler.models.RankedVehicle;
+import com.carrosalquiler.carrosalquiler.models.RentedVehicle;
+import com.carrosalquiler.carrosalquiler.models.Reservation;
+import com.carrosalquiler.carrosalquiler.models.Truck;
+import com.carrosalquiler.carrosalquiler.models.User;
+import com.carrosalquiler.carrosalquiler.models.Van;
+import com.carrosalquiler.carrosalquiler.models.VehiclePage;
+import com.carrosalquiler.carrosalquiler.models.VehicleSearchCriteria;
+import com.carrosalquiler.carrosalquiler.models.VehicleSearchResult;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GestionVehiculoServiceTest {
+
+    private final RentalLedgerService ledger = new RentalLedgerService();
+    private final GestionVehiculoService service =
+            new GestionVehiculoService(new FleetWriteAheadLog(), ledger, new ReservationService(), new UsageReportCache());
+
+    @Test
+    void concurrentRentsOfTheSameVehicleHaveOneWinner() throws Exception {
+        service.registerVehicle(new Car("ABC123", 0, 50, false, 4));
+        int threads = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                User user = user("user" + i);
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return service.rentVehicle("ABC123", user);
+                }));
+            }
+            start.countDown();
+            int winners = 0;
+            for (Future<Boolean> result : results) {
+                winners += result.get(10, TimeUnit.SECONDS) ? 1 : 0;
+            }
+            assertEquals(1, winners);
+        } finally {
+            pool.shutdownNow();
+        }
+        AbstractVehicle vehicle = service.getVehicle("ABC123");
+        assertFalse(vehicle.isAvailable());
+        assertFalse(vehicle.isClaimed());
+        assertEquals(1, vehicle.availabilityVersion());
+        assertEquals(1, ledger.listActiveRentals().size());
+        assertEquals(0, service.countAvailableVehicles(Car.class));
+    }
+
+    @Test
+    void rentFailsFastWhileTheVehicleIsClaimed() {
+        service.registerVehicle(new Car("ABC123", 0, 50, false, 4));
+        AbstractVehicle vehicle = service.getVehicle("ABC123");
+        assertTrue(vehicle.claim(true));  // Otra operación tiene el vehículo
+
+        assertFalse(service.rentVehicle("ABC123", user("ana")));
+        assertFalse(vehicle.isAvailable());
+        assertTrue(vehicle.committedAvailability());
+
+        vehicle.releaseClaim();
+        assertEquals(0, vehicle.availabilityVersion());  // Soltar sin completar no cambia la versión
+        assertTrue(service.rentVehicle("ABC123", user("ana")));
+        assertFalse(vehicle.claim(true));  // Ya no está disponible
+        assertTrue(service.returnVehicle("ABC123"));
+        assertEquals(2, vehicle.availabilityVersion());
+    }
+
+    @Test
+    void rentAndReturnGoThroughTheLedger() {
+        service.registerVehicle(new Car("ABC123", 0, 50, false, 4));
+        User ana = user("ana");
+
+        assertTrue(service.rentVehicle("ABC123", ana));
+        assertFalse(service.rentVehicle("ABC123", user("luis")));
+        RentedVehicle active = ledger.getActiveRental("ABC123");
+        assertNotNull(active);
+        assertSame(ana, active.getUser());
+        assertEquals(50, active.getDailyRate());
+        assertEquals(1, ledger.listActiveRentalsByUser("ana").size());
+
+        assertTrue(service.returnVehicle("ABC123"));
+        assertFalse(service.returnVehicle("ABC123"));
+        assertNull(ledger.getActiveRental("ABC123"));
+        List<RentedVehicle> history = ledger.getRentalHistory("ABC123");
+        assertEquals(1, history.size());
+        assertNotNull(history.get(0).getReturnDate());
+        assertEquals(1, ledger.getRentalHistoryByUser("ana").size());
+        assertTrue(service.getVehicle("ABC123").isAvailable());
+        assertEquals(2, service.getVehicle("ABC123").availabilityVersion());
+    }
+
+    @Test
+    void updateKeepsAvailabilityAndVersion() {
+        service.registerVehicle(new Car("ABC123", 0, 50, false, 4));
+        assertTrue(service.rentVehicle("ABC123", user("ana")));
+
+        service.updateVehicle("ABC123", new Car("ABC123", 1000, 55, false, 4));
+
+        AbstractVehicle updated = service.getVehicle("ABC123");
+        assertEquals(55, updated.getRentalValue());
+        assertFalse(updated.isAvailable());
+        assertEquals(1, updated.availabilityVersion());
+        assertTrue(service.returnVehicle("ABC123"));
+    }
+
+    @Test
+    void plateChangeIsRejectedWhileRented() {
+        service.registerVehicle(new Car("ABC123", 0, 50, false, 4));
+        service.registerVehicle(new Car("XYZ789", 0, 50, false, 4));
+        assertTrue(service.rentVehicle("ABC123", user("ana")));
+
+        assertThrows(IllegalStateException.class, () -> service.updateVehicle("ABC123", new Car("NEW001", 0, 50, false, 4)));
+        assertNotNull(service.getVehicle("ABC123"));
+        assertNull(service.getVehicle("NEW001"));
+        assertNotNull(ledger.getActiveRental("ABC123"));
+
+        assertTrue(service.returnVehicle("ABC123"));
+        assertThrows(IllegalStateException.class, () -> service.updateVehicle("ABC123", new Car("XYZ789", 0, 80, false, 4)));
+        assertEquals(50, service.getVehicle("XYZ789").getRentalValue());
+
+        service.updateVehicle("ABC123", new Car("NEW001", 0, 50, false, 4));
+        assertNull(service.getVehicle("ABC123"));
+        assertTrue(service.getVehicle("NEW001").isAvailable());
+        assertEquals(2, service.getVehicle("NEW001").availabilityVersion());
+    }
+
+    @Test
+    void reRegisteringARentedPlateKeepsItRented() {
+        service.registerVehicle(new Car("ABC123", 0, 50, false, 4));
+        assertTrue(service.rentVehicle("ABC123", user("ana")));
+
+        service.registerVehicle(new Car("ABC123", 500, 80, false, 4));
+        service.registerVehicles(List.of(new Car("ABC123", 900, 90, false, 4)));  // Como una carga masiva
+
+        AbstractVehicle vehicle = service.getVehicle("ABC123");
+        assertEquals(90, vehicle.getRentalValue());
+        assertFalse(vehicle.isAvailable());
+        assertEquals(1, vehicle.availabilityVersion());
+        assertEquals(0, service.countAvailableVehicles(Car.class));
+        assertFalse(service.rentVehicle("ABC123", user("luis")));
+        assertEquals("ana", ledger.getActiveRental("ABC123").getUser().getLogin());
+
+        assertTrue(service.returnVehicle("ABC123"));
+        assertTrue(service.getVehicle("ABC123").isAvailable());
+        assertEquals(2, service.getVehicle("ABC123").availabilityVersion());
+        assertEquals(1, service.countAvailableVehicles(Car.class));
+    }
+
+    @Test
+    void rentRespectsReservationsOfOtherUsers() {
+        service.registerVehicle(new Car("ABC123", 0, 50, false, 4));
+        long now = System.currentTimeMillis();
+        service.restoreReservation("R1", "ABC123", "ana", now - 3_600_000, now + 86_400_000);  // Una reserva ya en curso
+
+        assertFalse(service.rentVehicle("ABC123", user("luis")));
+        assertFalse(service.getVehicle("ABC123").isClaimed());  // El alquiler rechazado soltó el vehículo
+        assertTrue(service.rentVehicle("ABC123", user("ana")));
+    }
+
+    @Test
+    void concurrentReservationsOfTheSamePeriodHaveOneWinner() throws Exception {
+        service.registerVehicle(new Car("ABC123", 0, 50, false, 4));
+        LocalDateTime pickup = LocalDateTime.now().plusDays(3);
+        int threads = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Reservation>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                String login = "user" + i;
+                LocalDateTime from = pickup.plusHours(i);  // Periodos distintos que se solapan todos
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return service.reserveVehicle("ABC123", login, from, from.plusDays(1));
+                }));
+            }
+            start.countDown();
+            int winners = 0;
+            for (Future<Reservation> result : results) {
+                winners += result.get(10, TimeUnit.SECONDS) != null ? 1 : 0;
+            }
+            assertEquals(1, winners);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, service.listReservations("ABC123").size());
+        // Un periodo que empieza justo al acabar el reservado no se solapa
+        Reservation booked = service.listReservations("ABC123").get(0);
+        assertNotNull(service.reserveVehicle("ABC123", "ana", booked.getDropOffDate(), booked.getDropOffDate().plusDays(1)));
+        assertNull(service.reserveVehicle("ABC123", "ana", booked.getPickupDate().minusHours(1), booked.getPickupDate().plusHours(1)));
+    }
+
+    @Test
+    void usersSeeOnlyTheirOwnReservations() {
+        service.registerVehicle(new Car("ABC123", 0, 50, false, 4));
+        LocalDateTime pickup = LocalDateTime.now().plusDays(3);
+        Reservation ana = service.reserveVehicle("ABC123", "ana", pickup, pickup.plusDays(1));
+        service.reserveVehicle("ABC123", "luis", pickup.plusDays(2), pickup.plusDays(3));
+
+        assertEquals(2, service.listReservations("ABC123").size());
+        List<Reservation> own = service.listReservations("ABC123", "ana");
+        assertEquals(1, own.size());
+        assertEquals(ana.getId(), own.get(0).getId());
+        assertTrue(service.listReservations("ABC123", "eva").isEmpty());
+
+        assertTrue(service.cancelReservation(ana.getId()));
+        assertTrue(service.listReservations("ABC123", "ana").isEmpty());
+    }
+
+    @Test
+    void usageReportCacheIsInvalidatedByRentsAndReturns() {
+        service.registerVehicle(new Car("ABC123", 0, 50, false, 4));
+        LocalDate today = LocalDate.now();
+        LocalDate lastWeek = today.minusDays(7);
+
+        assertEquals(0, service.generateUsageReport(today, today, false).getTotal().getRentals());
+        service.generateUsageReport(lastWeek, lastWeek, false);
+        service.generateUsageReport(today, today, false);
+        assertEquals(1, service.getUsageReportCacheStats().getHits());
+        assertEquals(2, service.getUsageReportCacheStats().getMisses());
+
+        assertTrue(service.rentVehicle("ABC123", user("ana")));
+        assertTrue(service.getUsageReportCacheStats().getInvalidations() >= 1);
+        assertEquals(1, service.generateUsageReport(today, today, false).getTotal().getRentals());
+        assertEquals(3, service.getUsageReportCacheStats().getMisses());
+        service.generateUsageReport(lastWeek, lastWeek, false);
+        assertEquals(2, service.getUsageReportCacheStats().getHits());  // Un alquiler de hoy no cambia la semana pasada
+
+        assertTrue(service.returnVehicle("ABC123"));
+        assertEquals(50, service.generateUsageReport(today, today, false).getTotal().getRevenue(), 1e-9);
+
+        service.registerVehicle(new Car("XYZ789", 0, 50, false, 4));  // Otro coche reparte la utilización
+        long misses = service.getUsageReportCacheStats().getMisses();
+        service.generateUsageReport(lastWeek, lastWeek, false);
+        assertEquals(misses + 1, service.getUsageReportCacheStats().getMisses());
+    }
+
+    @Test
+    void batchRentIsAllOrNothing() {
+        service.registerVehicle(new Car("AAA111", 0, 50, false, 4));
+        service.registerVehicle(new Car("BBB222", 0, 60, false, 4));
+        service.registerVehicle(new Car("CCC333", 0, 70, false, 4));
+        assertTrue(service.rentVehicle("BBB222", user("luis")));
+
+        BatchRentalResult result = service.rentVehicles(List.of("AAA111", "BBB222", "CCC333", "ZZZ999"), user("ana"));
+
+        assertFalse(result.isSuccess());
+        assertEquals("not available", result.getUnavailable().get("BBB222"));
+        assertEquals("not found", result.getUnavailable().get("ZZZ999"));
+        // Ningún vehículo libre del lote cambió: ni disponibilidad, ni versión, ni libro
+        for (String plate : List.of("AAA111", "CCC333")) {
+            AbstractVehicle vehicle = service.getVehicle(plate);
+            assertTrue(vehicle.isAvailable());
+            assertFalse(vehicle.isClaimed());
+            assertEquals(0, vehicle.availabilityVersion());
+            assertNull(ledger.getActiveRental(plate));
+        }
+        assertTrue(ledger.listActiveRentalsByUser("ana").isEmpty());
+
+        assertTrue(service.returnVehicle("BBB222"));
+        BatchRentalResult retry = service.rentVehicles(List.of("CCC333", "AAA111", "BBB222", "AAA111"), user("ana"));
+        assertTrue(retry.isSuccess());
+        assertEquals(List.of("AAA111", "BBB222", "CCC333"), retry.getLicensePlates());
+        assertEquals(3, ledger.listActiveRentalsByUser("ana").size());
+    }
+
+    @Test
+    void batchReturnIsAllOrNothing() {
+        service.registerVehicle(new Car("AAA111", 0, 50, false, 4));
+        service.registerVehicle(new Car("BBB222", 0, 60, false, 4));
+        assertTrue(service.rentVehicle("AAA111", user("ana")));
+
+        BatchRentalResult result = service.returnVehicles(List.of("AAA111", "BBB222"));
+
+        assertFalse(result.isSuccess());
+        assertEquals("not rented", result.getUnavailable().get("BBB222"));
+        assertNotNull(ledger.getActiveRental("AAA111"));
+        assertFalse(service.getVehicle("AAA111").isAvailable());
+        assertFalse(service.getVehicle("AAA111").isClaimed());
+    }
+
+    @Test
+    void topAvailableVehiclesMatchASortedScan() {
+        Random random = new Random(42);
+        for (int i = 0; i < 300; i++) {
+            int kilometers = random.nextInt(50) * 1000;  // Valores repetidos: el desempate es la matrícula
+            double value = 20 + random.nextInt(30);
+            service.registerVehicle(i % 2 == 0
+                    ? new Car("CAR" + i, kilometers, value, false, 4)
+                    : new Van("VAN" + i, kilometers, value, false, 8));
+        }
+        for (int i = 0; i < 300; i += 3) {
+            assertTrue(service.rentVehicle((i % 2 == 0 ? "CAR" : "VAN") + i, user("ana")));
+        }
+
+        for (String sortBy : List.of("rentalValue", "kilometers")) {
+            Map<String, List<RankedVehicle>> top = service.listTopAvailableVehicles(null, 10, sortBy);
+            for (Class<? extends AbstractVehicle> type : List.of(Car.class, Van.class)) {
+                Comparator<AbstractVehicle> order = Comparator.<AbstractVehicle>comparingDouble(vehicle ->
+                                sortBy.equals("kilometers") ? vehicle.getKilometers() : vehicle.getRentalValue())
+                        .thenComparing(AbstractVehicle::getLicensePlate);
+                List<String> expected = service.listVehiclesByType(type).stream()
+                        .filter(AbstractVehicle::isAvailable)
+                        .sorted(order)
+                        .limit(10)
+                        .map(AbstractVehicle::getLicensePlate)
+                        .toList();
+                List<String> actual = top.get(type.getSimpleName().toLowerCase()).stream()
+                        .map(ranked -> ranked.getVehicle().getLicensePlate())
+                        .toList();
+                assertEquals(expected, actual);
+            }
+        }
+        assertTrue(service.listTopAvailableVehicles("truck", 10, "kilometers").get("truck").isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> service.listTopAvailableVehicles(null, 10, "color"));
+    }
+
+    @Test
+    void topAvailableVehiclesFollowRentsAndUpdates() {
+        service.registerVehicle(new Car("AAA111", 0, 30, false, 4));
+        service.registerVehicle(new Car("BBB222", 0, 40, false, 4));
+        service.registerVehicle(new Car("CCC333", 0, 50, false, 4));
+
+        assertTrue(service.rentVehicle("AAA111", user("ana")));
+        List<RankedVehicle> top = service.listTopAvailableVehicles("car", 2, "rentalValue").get("car");
+        assertEquals(List.of("BBB222", "CCC333"), top.stream().map(ranked -> ranked.getVehicle().getLicensePlate()).toList());
+        assertEquals(40, top.get(0).getValue());
+
+        service.updateVehicle("CCC333", new Car("CCC333", 0, 10, false, 4));
+        assertTrue(service.returnVehicle("AAA111"));
+        top = service.listTopAvailableVehicles("car", 2, "rentalValue").get("car");
+        assertEquals(List.of("CCC333", "AAA111"), top.stream().map(ranked -> ranked.getVehicle().getLicensePlate()).toList());
+        assertEquals(10, top.get(0).getValue());
+    }
+
+    @Test
+    void rangeQueriesMatchASortedScan() {
+        Random random = new Random(7);
+        for (int i = 0; i < 300; i++) {
+            service.registerVehicle(new Car("CAR" + i, random.nextInt(100_000), 20 + random.nextInt(200), false, 4));
+        }
+        User user = user("ana");
+        for (int i = 0; i < 300; i += 3) {
+            assertTrue(service.rentVehicle("CAR" + i, user));
+        }
+
+        List<AbstractVehicle> byValue = service.listVehiclesByRange("rentalValue", "car", 50, 150, true, false, 20);
+        List<AbstractVehicle> byKilometers = service.listVehiclesByRange("kilometers", "car", 10_000, 60_000, null, true, 20);
+
+        List<String> expectedByValue = service.listAllVehicles().stream()
+                .filter(vehicle -> vehicle.isAvailable() && vehicle.getRentalValue() >= 50 && vehicle.getRentalValue() <= 150)
+                .sorted(Comparator.comparingDouble(AbstractVehicle::getRentalValue).thenComparing(AbstractVehicle::getLicensePlate))
+                .limit(20)
+                .map(AbstractVehicle::getLicensePlate)
+                .toList();
+        assertEquals(expectedByValue, byValue.stream().map(AbstractVehicle::getLicensePlate).toList());
+        List<Integer> expectedKilometers = service.listAllVehicles().stream()
+                .map(AbstractVehicle::getKilometers)
+                .filter(kilometers -> kilometers >= 10_000 && kilometers <= 60_000)
+                .sorted(Comparator.reverseOrder())
+                .limit(20)
+                .toList();
+        assertEquals(expectedKilometers, byKilometers.stream().map(AbstractVehicle::getKilometers).toList());
+    }
+
+    @Test
+    void rangeQueriesFollowSetterChanges() {
+        service.registerVehicle(new Car("CAR1", 1_000, 50, false, 4));
+        service.registerVehicle(new Car("CAR2", 2_000, 60, false, 4));
+        AbstractVehicle vehicle = service.getVehicle("CAR1");
+
+        vehicle.setRentalValue(500);
+        vehicle.setKilometers(90_000);
+
+        assertEquals(List.of("CAR2"), service.listVehiclesByRange("rentalValue", "car", 0, 100, null, false, 10).stream()
+                .map(AbstractVehicle::getLicensePlate).toList());
+        assertEquals(List.of("CAR1"), service.listVehiclesByRange("kilometers", "car", 50_000, 100_000, null, false, 10).stream()
+                .map(AbstractVehicle::getLicensePlate).toList());
+    }
+
+    @Test
+    void colorAndElectricSettersKeepTheIndexesCurrent() {
+        Car car = new Car("CAR1", 0, 50, false, 4);
+        car.setColor("Red");
+        service.registerVehicle(car);
+        service.registerVehicle(new Car("CAR2", 0, 50, false, 4));
+        assertTrue(service.rentVehicle("CAR1", user("ana")));
+        VehicleUtilizationCounters counters = service.utilizationCounters();
+
+        car.setColor(" blue ");
+        car.setElectric(true);
+
+        assertEquals(0, service.countVehiclesByColor("red"));
+        assertEquals(List.of(car), service.getVehiclesByColor("BLUE"));
+        VehicleSearchCriteria criteria = new VehicleSearchCriteria();
+        criteria.setColor("blue");
+        criteria.setElectric(true);
+        assertEquals(List.of(car), service.searchVehicles(criteria, 10).getVehicles());
+        criteria.setColor("red");
+        criteria.setElectric(null);
+        assertEquals(0, service.searchVehicles(criteria, 10).getTotalMatches());
+        assertEquals(1, counters.byColor(car).total());
+        assertEquals(1, counters.byColor(car).rented());  // Sigue alquilado en su nuevo grupo
+        assertEquals(0, counters.byColor(VehicleSearchIndex.TYPE_NAMES.indexOf("car")).get("red").total());
+        assertEquals(1, counters.byElectric(car).total());
+        assertEquals(1, counters.byElectric(car).rented());
+        assertEquals(0, counters.byElectric(VehicleSearchIndex.TYPE_NAMES.indexOf("car"), false).rented());
+
+        assertTrue(service.returnVehicle("CAR1"));
+        assertEquals(0, counters.byColor(car).rented());
+        assertEquals(0, counters.byElectric(car).rented());
+    }
+
+    @Test
+    void colorCountsIgnoreCaseAndFollowUpdates() {
+        service.registerVehicle(colored(new Car("CAR1", 0, 50, false, 4), "Red"));
+        service.registerVehicle(colored(new Car("CAR2", 0, 50, false, 4), " RED "));
+        service.registerVehicle(colored(new Van("VAN1", 0, 70, false, 9), "white"));
+        service.registerVehicle(new Car("CAR3", 0, 50, false, 4));  // Sin color
+
+        assertEquals(2, service.countVehiclesByColor("red"));
+        assertEquals(List.of("CAR1", "CAR2"), plates(service.getVehiclesByColor("rEd")));
+        assertEquals(1, service.countVehiclesByColor("WHITE"));
+        assertEquals(0, service.countVehiclesByColor("green"));
+
+        service.updateVehicle("CAR1", colored(new Car("CAR1", 0, 50, false, 4), "green"));
+        assertEquals(1, service.countVehiclesByColor("red"));
+        assertEquals(List.of("CAR1"), plates(service.getVehiclesByColor("green")));
+
+        service.updateVehicle("CAR2", colored(new Car("CAR9", 0, 50, false, 4), "Green"));  // Cambia también la matrícula
+        assertEquals(0, service.countVehiclesByColor("red"));
+        assertEquals(List.of("CAR1", "CAR9"), plates(service.getVehiclesByColor("green")));
+
+        service.deleteVehicle("CAR1");
+        service.deleteVehicle("VAN1");
+        assertEquals(List.of("CAR9"), plates(service.getVehiclesByColor("green")));
+        assertEquals(0, service.countVehiclesByColor("white"));
+    }
+
+    @Test
+    void parallelBulkUploadRegistersTheSameFleetAsASequentialOne() throws Exception {
+        StringBuilder csv = new StringBuilder("licensePlate,kilometers,rentalValue,isElectric,numberOfDoors,cargoCapacity,seatingCapacity,hasSidecar\n");
+        int rows = 60_000;  // Más de un bloque del lector
+        for (int i = 0; i < rows; i++) {
+            String plate = "PL" + (i % 50_000);  // Las últimas filas repiten matrículas
+            switch (i % 5) {
+                case 0 -> csv.append(plate).append(',').append(i).append(",50,false,4,,,\n");
+                case 1 -> csv.append(plate).append(',').append(i).append(",90,true,,12.5,,\n");
+                case 2 -> csv.append(plate).append(',').append(i).append(",70,false,,,9,\n");
+                case 3 -> csv.append(plate).append(',').append(i).append(",20,false,,,,true\n");
+                default -> csv.append(plate).append(",not-a-number,50,false,4,,,\n");
+            }
+        }
+        byte[] bytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+        GestionVehiculoService sequential = new GestionVehiculoService();
+
+        BulkUploadResult parallelResult = service.bulkUploadVehicles(new ByteArrayInputStream(bytes), true);
+        BulkUploadResult sequentialResult = sequential.bulkUploadVehicles(new ByteArrayInputStream(bytes), false);
+
+        assertEquals(rows, parallelResult.getRowsParsed());
+        assertEquals(40_000, parallelResult.getRowsAccepted());
+        assertEquals(20_000, parallelResult.getRowsRejected());  // Filas mal formadas y matrículas repetidas
+        assertEquals(sequentialResult.getRowsAccepted(), parallelResult.getRowsAccepted());
+        assertEquals(sequentialResult.getRejectedRows(), parallelResult.getRejectedRows());
+        assertEquals("line 6: invalid kilometers 'not-a-number'", parallelResult.getRejectedRows().get(0));
+        assertEquals(40_000, service.countVehicles());
+        assertEquals(10_000, service.countAvailableVehicles(Motorcycle.class));
+        assertEquals(sequential.listAllVehicles().stream().map(vehicle -> vehicle.getLicensePlate() + "/" + vehicle.getKilometers()).toList(),
+                service.listAllVehicles().stream().map(vehicle -> vehicle.getLicensePlate() + "/" + vehicle.getKilometers()).toList());
+        assertEquals(1, service.getVehicle("PL1").getKilometers());  // Gana la primera aparición, no la repetida
+    }
+
+    @Test
+    void pagesWalkTheFleetInPlateOrder() {
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 80; i++) {
+            expected.add(String.format("CAR%03d", i));
+        }
+        List<String> shuffled = new ArrayList<>(expected);
+        Collections.shuffle(shuffled, new Random(3));
+        for (String plate : shuffled) {
+            service.registerVehicle(new Car(plate, 0, 50, false, 4));
+        }
+
+        List<String> walked = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            VehiclePage page = service.listVehiclesPage(cursor, 40);
+            walked.addAll(page.getVehicles().stream().map(AbstractVehicle::getLicensePlate).toList());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(expected, walked);
+        assertEquals(2, pages);  // Una página exacta al final no deja un cursor hacia una página vacía
+        List<String> iterated = new ArrayList<>();
+        service.iterateAllVehicles().forEach(vehicle -> iterated.add(vehicle.getLicensePlate()));
+        assertEquals(expected, iterated);
+    }
+
+    @Test
+    void cursorSurvivesChangesBetweenPages() {
+        for (int i = 0; i < 10; i++) {
+            service.registerVehicle(new Car("CAR" + i, 0, 50, false, 4));
+        }
+        VehiclePage first = service.listVehiclesPage(null, 3);
+        assertEquals("CAR2", first.getNextCursor());
+
+        service.deleteVehicle("CAR2");  // El vehículo del cursor ya no existe
+        service.deleteVehicle("CAR3");
+        service.registerVehicle(new Car("CAR25", 0, 50, false, 4));
+        service.registerVehicle(new Car("CAR0A", 0, 50, false, 4));  // Antes del cursor: no aparece
+
+        VehiclePage second = service.listVehiclesPage(first.getNextCursor(), 3);
+        assertEquals(List.of("CAR25", "CAR4", "CAR5"), second.getVehicles().stream().map(AbstractVehicle::getLicensePlate).toList());
+        assertEquals("CAR5", second.getNextCursor());
+    }
+
+    @Test
+    void availablePagesSkipRentedVehicles() {
+        for (int i = 0; i < 10; i++) {
+            service.registerVehicle(new Car("CAR" + i, 0, 50, false, 4));
+        }
+        User user = user("ana");
+        for (String plate : List.of("CAR0", "CAR3", "CAR4", "CAR9")) {
+            assertTrue(service.rentVehicle(plate, user));
+        }
+
+        VehiclePage first = service.listAvailableVehiclesPage(null, 3);
+        VehiclePage second = service.listAvailableVehiclesPage(first.getNextCursor(), 3);
+
+        assertEquals(List.of("CAR1", "CAR2", "CAR5"), first.getVehicles().stream().map(AbstractVehicle::getLicensePlate).toList());
+        assertEquals(List.of("CAR6", "CAR7", "CAR8"), second.getVehicles().stream().map(AbstractVehicle::getLicensePlate).toList());
+        assertNull(second.getNextCursor());  // Después de CAR8 solo queda CAR9, que está alquilado
+        List<String> iterated = new ArrayList<>();
+        service.iterateAvailableVehicles().forEach(vehicle -> iterated.add(vehicle.getLicensePlate()));
+        assertEquals(List.of("CAR1", "CAR2", "CAR5", "CAR6", "CAR7", "CAR8"), iterated);
+    }
+
+    @Test
+    void listingVersionsChangeOnlyWhenTheirTypeChanges() {
+        service.registerVehicle(new Car("CAR1", 0, 50, false, 4));
+        service.registerVehicle(new Van("VAN1", 0, 70, false, 9));
+        String fleet = service.getListingVersion(AbstractVehicle.class);
+        String cars = service.getListingVersion(Car.class);
+        String vans = service.getListingVersion(Van.class);
+
+        service.listAvailableVehicles();
+        assertFalse(service.rentVehicle("NOPE", user("ana")));
+        assertEquals(fleet, service.getListingVersion(AbstractVehicle.class));  // Leer o fallar no cambia nada
+
+        assertTrue(service.rentVehicle("VAN1", user("ana")));
+        assertEquals(cars, service.getListingVersion(Car.class));
+        assertFalse(vans.equals(service.getListingVersion(Van.class)));
+        assertFalse(fleet.equals(service.getListingVersion(AbstractVehicle.class)));
+
+        String beforeUpdate = service.getListingVersion(Car.class);
+        service.getVehicle("CAR1").setKilometers(100);
+        String afterUpdate = service.getListingVersion(Car.class);
+        assertFalse(beforeUpdate.equals(afterUpdate));
+        service.deleteVehicle("CAR1");
+        assertFalse(afterUpdate.equals(service.getListingVersion(Car.class)));
+    }
+
+    @Test
+    void searchMatchesABruteForceFilter() {
+        Random random = new Random(11);
+        String[] colors = {"red", "blue", "white", "black"};
+        for (int i = 0; i < 3000; i++) {
+            int kilometers = random.nextInt(100_000);
+            double value = 20 + random.nextInt(200);
+            boolean electric = random.nextBoolean();
+            AbstractVehicle vehicle = switch (i % 4) {
+                case 0 -> new Car("CAR" + i, kilometers, value, electric, 2 + random.nextInt(4));
+                case 1 -> new Truck("TRK" + i, kilometers, value, electric, random.nextInt(40));
+                case 2 -> new Van("VAN" + i, kilometers, value, electric, 5 + random.nextInt(5));
+                default -> new Motorcycle("MOT" + i, kilometers, value, electric, random.nextBoolean());
+            };
+            vehicle.setColor(colors[random.nextInt(colors.length)]);
+            service.registerVehicle(vehicle);
+        }
+        User user = user("ana");
+        for (int i = 0; i < 3000; i += 3) {
+            service.rentVehicle(service.listAllVehicles().get(i).getLicensePlate(), user);
+        }
+
+        for (int query = 0; query < 300; query++) {
+            VehicleSearchCriteria criteria = randomCriteria(random, colors);
+
+            VehicleSearchResult result = service.searchVehicles(criteria, 10_000);
+
+            List<String> expected = service.listAllVehicles().stream()
+                    .filter(vehicle -> matches(vehicle, criteria))
+                    .map(AbstractVehicle::getLicensePlate)
+                    .sorted()
+                    .toList();
+            assertEquals(expected.size(), result.getTotalMatches(), result.getPlan());
+            assertEquals(expected, result.getVehicles().stream().map(AbstractVehicle::getLicensePlate).sorted().toList(), result.getPlan());
+        }
+    }
+
+    @Test
+    void searchPlanStartsWithTheMostSelectiveIndex() {
+        for (int i = 0; i < 1000; i++) {
+            Car car = new Car("CAR" + i, i * 100, 50, i % 2 == 0, 4);
+            car.setColor(i < 10 ? "red" : "white");
+            service.registerVehicle(car);
+        }
+        VehicleSearchCriteria selective = new VehicleSearchCriteria();
+        selective.setType("Car");
+        selective.setElectric(true);
+        selective.setColor(" RED");
+        VehicleSearchCriteria narrowRange = new VehicleSearchCriteria();
+        narrowRange.setType("car");
+        narrowRange.setMinKilometers(0);
+        narrowRange.setMaxKilometers(250);
+        VehicleSearchCriteria wideRange = new VehicleSearchCriteria();
+        wideRange.setColor("red");
+        wideRange.setMinKilometers(0);
+        wideRange.setMaxKilometers(1_000_000);
+        VehicleSearchCriteria missing = new VehicleSearchCriteria();
+        missing.setColor("purple");
+        missing.setType("car");
+        VehicleSearchCriteria unindexed = new VehicleSearchCriteria();
+        unindexed.setAvailable(true);
+
+        VehicleSearchResult first = service.searchVehicles(selective, 10);
+        assertEquals(5, first.getTotalMatches());
+        assertTrue(first.getPlan().startsWith("index color=red (10) AND electric=true (500) AND type=car (1000)"), first.getPlan());
+
+        VehicleSearchResult ranged = service.searchVehicles(narrowRange, 10);
+        assertEquals(3, ranged.getTotalMatches());
+        assertTrue(ranged.getPlan().contains("kilometers=[0.0, 250.0] (3)"), ranged.getPlan());  // El rango estrecho se recorre en su índice
+        assertFalse(ranged.getPlan().contains("filter"), ranged.getPlan());
+
+        VehicleSearchResult filtered = service.searchVehicles(wideRange, 10);
+        assertEquals(10, filtered.getTotalMatches());
+        assertTrue(filtered.getPlan().endsWith("-> 10 candidates; filter kilometers"), filtered.getPlan());  // Más barato filtrar 10
+
+        VehicleSearchResult none = service.searchVehicles(missing, 10);
+        assertEquals(0, none.getTotalMatches());
+        assertEquals("index color=purple (0)", none.getPlan());
+
+        VehicleSearchResult scan = service.searchVehicles(unindexed, 10);
+        assertEquals(1000, scan.getTotalMatches());
+        assertEquals(10, scan.getVehicles().size());
+        assertTrue(scan.getPlan().startsWith("scan (1000)"), scan.getPlan());
+        assertTrue(scan.getPlan().endsWith("filter available"), scan.getPlan());
+    }
+
+    @Test
+    void freeSearchMatchesCheckingEveryReservation() {
+        Random random = new Random(5);
+        LocalDateTime base = LocalDate.now().plusDays(2).atStartOfDay();
+        for (int i = 0; i < 400; i++) {
+            service.registerVehicle(new Van("VAN" + i, 0, 70, false, 9));
+            if (i % 4 == 0) {
+                service.registerVehicle(new Car("CAR" + i, 0, 50, false, 4));
+            }
+        }
+        for (int i = 0; i < 400; i++) {
+            int bookings = random.nextInt(4);  // Una de cada cuatro furgonetas queda sin reservas
+            for (int b = 0; b < bookings; b++) {
+                LocalDateTime pickup = base.plusDays(random.nextInt(20)).plusHours(random.nextInt(24));
+                LocalDateTime dropOff = random.nextBoolean()
+                        ? pickup.toLocalDate().plusDays(1 + random.nextInt(3)).atStartOfDay()  // Días completos
+                        : pickup.plusHours(1 + random.nextInt(30));
+                service.reserveVehicle("VAN" + i, "ana", pickup, dropOff);  // Las que se solapan se rechazan
+            }
+            service.reserveVehicle("CAR" + (i - i % 4), "ana", base, base.plusDays(30));
+        }
+
+        for (int query = 0; query < 200; query++) {
+            LocalDateTime from = base.plusDays(random.nextInt(22)).plusHours(random.nextInt(24));
+            LocalDateTime to = from.plusHours(1 + random.nextInt(96));
+
+            VehicleSearchResult result = service.findVehiclesFreeBetween("van", from, to, 1000);
+
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                boolean free = service.listReservations("VAN" + i).stream()
+                        .noneMatch(reservation -> reservation.getPickupDate().isBefore(to) && from.isBefore(reservation.getDropOffDate()));
+                if (free) {
+                    expected.add("VAN" + i);
+                }
+            }
+            assertEquals(expected.size(), result.getTotalMatches(), result.getPlan());
+            assertEquals(expected.stream().sorted().toList(),
+                    result.getVehicles().stream().map(AbstractVehicle::getLicensePlate).sorted().toList(), result.getPlan());
+            assertTrue(result.getPlan().contains(" type=van: 400 vehicles, "), result.getPlan());
+        }
+        assertEquals(0, service.findVehiclesFreeBetween("car", base.plusDays(3), base.plusDays(4), 10).getTotalMatches());
+    }
+
+    @Test
+    void freeSearchFollowsCancellationsAndDeletes() {
+        LocalDateTime friday = LocalDate.now().plusDays(7).atTime(18, 0);
+        LocalDateTime monday = friday.plusDays(3).withHour(9);
+        service.registerVehicle(new Van("VAN1", 0, 70, false, 9));
+        service.registerVehicle(new Van("VAN2", 0, 70, false, 9));
+        Reservation reservation = service.reserveVehicle("VAN1", "ana", friday.plusHours(2), friday.plusDays(1));
+
+        assertEquals(List.of("VAN2"), service.findVehiclesFreeBetween("Van", friday, monday, 10).getVehicles().stream()
+                .map(AbstractVehicle::getLicensePlate).toList());
+        assertEquals(2, service.findVehiclesFreeBetween("van", friday.plusDays(1), monday, 10).getTotalMatches());  // Termina justo al empezar
+
+        assertTrue(service.cancelReservation(reservation.getId()));
+        assertEquals(2, service.findVehiclesFreeBetween(null, friday, monday, 10).getTotalMatches());
+        service.deleteVehicle("VAN2");
+        assertEquals(1, service.findVehiclesFreeBetween("van", friday, monday, 10).getTotalMatches());
+
+        assertThrows(IllegalArgumentException.class, () -> service.findVehiclesFreeBetween("van", monday, friday, 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.findVehiclesFreeBetween("van", friday.minusYears(1), friday.minusYears(1).plusDays(1), 10));
+        assertThrows(IllegalArgumentException.class, () -> service.findVehiclesFreeBetween("van", friday, friday.plusDays(400), 10));
+        assertThrows(IllegalArgumentException.class, () -> service.findVehiclesFreeBetween("boat", friday, monday, 10));
+    }
+
+    private static VehicleSearchCriteria randomCriteria(Random random, String[] colors) {
+        VehicleSearchCriteria criteria = new VehicleSearchCriteria();
+        if (random.nextInt(3) == 0) {
+            String type = List.of("car", "truck", "van", "motorcycle").get(random.nextInt(4));
+            criteria.setType(random.nextBoolean() ? type : type.toUpperCase());
+        }
+        if (random.nextInt(3) == 0) {
+            criteria.setElectric(random.nextBoolean());
+        }
+        if (random.nextInt(3) == 0) {
+            criteria.setColor(" " + colors[random.nextInt(colors.length)].toUpperCase());
+        }
+        if (random.nextInt(3) == 0) {
+            int min = random.nextInt(100_000);
+            criteria.setMinKilometers(min);
+            criteria.setMaxKilometers(min + random.nextInt(random.nextBoolean() ? 2_000 : 60_000));
+        }
+        if (random.nextInt(3) == 0) {
+            criteria.setMinRentalValue(random.nextBoolean() ? null : 20.0 + random.nextInt(200));
+            criteria.setMaxRentalValue(120.0 + random.nextInt(100));
+        }
+        if (random.nextInt(5) == 0) {
+            criteria.setNumberOfDoors(2 + random.nextInt(4));
+        }
+        if (random.nextInt(5) == 0) {
+            criteria.setSeatingCapacity(5 + random.nextInt(5));
+        }
+        if (random.nextInt(5) == 0) {
+            criteria.setMinCargoCapacity(10.0);
+            criteria.setMaxCargoCapacity(10.0 + random.nextInt(30));
+        }
+        if (random.nextInt(5) == 0) {
+            criteria.setHasSidecar(random.nextBoolean());
+        }
+        if (random.nextInt(3) == 0) {
+            criteria.setAvailable(random.nextBoolean());
+        }
+        return criteria;
+    }
+
+    private static boolean matches(AbstractVehicle vehicle, VehicleSearchCriteria criteria) {
+        return (criteria.getType() == null || vehicle.getClass().getSimpleName().equalsIgnoreCase(criteria.getType()))
+                && (criteria.getElectric() == null || vehicle.isElectric() == criteria.getElectric())
+                && (criteria.getColor() == null || vehicle.getColor().equalsIgnoreCase(criteria.getColor().trim()))
+                && (criteria.getMinKilometers() == null || vehicle.getKilometers() >= criteria.getMinKilometers())
+                && (criteria.getMaxKilometers() == null || vehicle.getKilometers() <= criteria.getMaxKilometers())
+                && (criteria.getMinRentalValue() == null || vehicle.getRentalValue() >= criteria.getMinRentalValue())
+                && (criteria.getMaxRentalValue() == null || vehicle.getRentalValue() <= criteria.getMaxRentalValue())
+                && (criteria.getNumberOfDoors() == null
+                    || vehicle instanceof Car car && car.getNumberOfDoors() == criteria.getNumberOfDoors())
+                && (criteria.getSeatingCapacity() == null
+                    || vehicle instanceof Van van && van.getSeatingCapacity() == criteria.getSeatingCapacity())
+                && (criteria.getMinCargoCapacity() == null || vehicle instanceof Truck truck
+                    && truck.getCargoCapacity() >= criteria.getMinCargoCapacity() && truck.getCargoCapacity() <= criteria.getMaxCargoCapacity())
+                && (criteria.getHasSidecar() == null
+                    || vehicle instanceof Motorcycle motorcycle && motorcycle.isHasSidecar() == criteria.getHasSidecar())
+                && (criteria.getAvailable() == null || vehicle.isAvailable() == criteria.getAvailable());
+    }
+
+    private static <T extends AbstractVehicle> T colored(T vehicle, String color) {
+        vehicle.setColor(color);
+        return vehicle;
+    }
+
+    private static List<String> plates(List<AbstractVehicle> vehicles) {
+        return vehicles.stream().map(AbstractVehicle::getLicensePlate).sorted().toList();
+    }
+
+    private static User user(String login) {
+        User user = new User();
+        user.setLogin(login);
+        return user;
+    }
+}
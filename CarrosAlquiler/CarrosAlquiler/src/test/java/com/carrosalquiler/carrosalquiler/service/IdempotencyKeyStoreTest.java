@@ -0,0 +1,135 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyKeyStoreTest {
+
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @Test
+    void retryReplaysTheOriginalResponseWithoutRunningAgain() {
+        IdempotencyKeyStore store = new IdempotencyKeyStore(10, 60_000);
+
+        IdempotencyKeyStore.Outcome first = store.execute("k1", "rent CAR1 ana", this::run);
+        IdempotencyKeyStore.Outcome retry = store.execute("k1", "rent CAR1 ana", this::run);
+
+        assertEquals(new IdempotencyKeyStore.Outcome("run 1", false), first);
+        assertEquals(new IdempotencyKeyStore.Outcome("run 1", true), retry);
+        assertEquals(1, runs.get());
+        assertEquals(new IdempotencyKeyStore.Outcome("run 2", false), store.execute("k2", "rent CAR1 ana", this::run));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    void keysAreCheckedAgainstTheirRequest() {
+        IdempotencyKeyStore store = new IdempotencyKeyStore(10, 60_000);
+        store.execute("k1", "rent CAR1 ana", this::run);
+
+        assertThrows(IllegalStateException.class, () -> store.execute("k1", "rent CAR2 ana", this::run));
+        assertThrows(IllegalArgumentException.class, () -> store.execute(" ", "rent CAR1 ana", this::run));
+        assertThrows(IllegalArgumentException.class,
+                () -> store.execute("k".repeat(IdempotencyKeyStore.MAX_KEY_LENGTH + 1), "rent CAR1 ana", this::run));
+        assertFalse(store.execute(null, "rent CAR1 ana", this::run).replayed());  // Sin clave no se deduplica
+        assertFalse(store.execute(null, "rent CAR1 ana", this::run).replayed());
+        assertEquals(3, runs.get());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void failedRequestsAreNotRemembered() {
+        IdempotencyKeyStore store = new IdempotencyKeyStore(10, 60_000);
+
+        assertThrows(IllegalStateException.class, () -> store.execute("k1", "rent CAR1 ana", () -> {
+            throw new IllegalStateException("fleet is busy");
+        }));
+
+        assertEquals(0, store.size());
+        assertEquals(new IdempotencyKeyStore.Outcome("run 1", false), store.execute("k1", "rent CAR1 ana", this::run));
+    }
+
+    @Test
+    void expiredKeysRunAgain() throws InterruptedException {
+        IdempotencyKeyStore store = new IdempotencyKeyStore(10, 50);
+        store.execute("k1", "rent CAR1 ana", this::run);
+        store.execute("k2", "rent CAR2 ana", this::run);
+
+        Thread.sleep(80);
+
+        // La clave caducada ocupa de nuevo su sitio, incluso para otra petición
+        assertEquals(new IdempotencyKeyStore.Outcome("run 3", false), store.execute("k1", "return CAR1", this::run));
+        assertEquals(1, store.size());  // k2 se descartó al añadir la nueva
+        assertTrue(store.execute("k1", "return CAR1", this::run).replayed());
+        assertEquals(3, runs.get());
+    }
+
+    @Test
+    void oldestKeysAreEvictedAboveTheMaximum() {
+        IdempotencyKeyStore store = new IdempotencyKeyStore(100, 60_000);
+        for (int i = 0; i < 1000; i++) {
+            store.execute("k" + i, "rent CAR" + i, this::run);
+            assertTrue(store.size() <= 100);
+        }
+
+        assertTrue(store.execute("k999", "rent CAR999", this::run).replayed());
+        assertTrue(store.execute("k900", "rent CAR900", this::run).replayed());
+        assertFalse(store.execute("k0", "rent CAR0", this::run).replayed());  // Ya se había descartado
+        assertEquals(1001, runs.get());
+        assertEquals(100, store.size());
+    }
+
+    @Test
+    void concurrentRetriesRunTheRequestOnce() throws Exception {
+        IdempotencyKeyStore store = new IdempotencyKeyStore(10, 60_000);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<IdempotencyKeyStore.Outcome> first = executor.submit(() -> store.execute("k1", "rent CAR1 ana", () -> {
+                running.countDown();
+                await(release);
+                return run();
+            }));
+            running.await();
+            List<Future<IdempotencyKeyStore.Outcome>> retries = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                retries.add(executor.submit(() -> store.execute("k1", "rent CAR1 ana", this::run)));
+            }
+            release.countDown();  // Los reintentos esperan a la primera petición y reciben su respuesta
+
+            assertEquals(new IdempotencyKeyStore.Outcome("run 1", false), first.get(10, TimeUnit.SECONDS));
+            for (Future<IdempotencyKeyStore.Outcome> retry : retries) {
+                assertEquals(new IdempotencyKeyStore.Outcome("run 1", true), retry.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(1, runs.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private String run() {
+        return "run " + runs.incrementAndGet();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.Car;
+import com.carrosalquiler.carrosalquiler.models.Truck;
+import com.carrosalquiler.carrosalquiler.models.Van;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Mide presupuestos por segundo de toda la flota disponible para varias duraciones, y el coste de listar los más baratos
+ * de alquilar. No es una prueba: se ejecuta a mano con la clase como principal, igual que {@link RentContentionBench}.
+ *
+ * Argumentos opcionales: vehículos, duraciones y segundos (por defecto 100000, 10 y 5).
+ */
+public class QuoteBench {
+
+    public static void main(String[] args) {
+        int vehicles = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int durations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        GestionVehiculoService service = new GestionVehiculoService();  // Sin registro de escritura anticipada
+        Random random = new Random(42);
+        for (int i = 0; i < vehicles; i++) {
+            double value = 20 + random.nextInt(300);
+            boolean electric = random.nextInt(4) == 0;
+            service.registerVehicle(switch (i % 3) {
+                case 0 -> new Car("BENCH" + i, 0, value, electric, 4);
+                case 1 -> new Truck("BENCH" + i, 0, value, electric, 10);
+                default -> new Van("BENCH" + i, 0, value, electric, 8);
+            });
+        }
+        PricingRuleService rules = new PricingRuleService(0.15, 0.10);
+        DynamicPricingService pricing = new DynamicPricingService(service, true, "type", "0:1.0,0.7:1.0,0.9:1.25,1:1.5");
+        QuoteService quotes = new QuoteService(service, pricing, rules);
+        List<Integer> days = new ArrayList<>();
+        for (int j = 1; j <= durations; j++) {
+            days.add(j * 3);
+        }
+
+        long fullQuotes = 0;
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        while (System.nanoTime() < deadline) {
+            fullQuotes += quotes.quote(null, days).getLicensePlates().size() * (long) durations;
+        }
+        long rankings = 0;
+        deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        while (System.nanoTime() < deadline) {
+            quotes.listCheapestToRent(null, 10, 14);
+            rankings++;
+        }
+        System.out.printf("%d vehicles, %d durations, %d s: %.0f quotes/s, %.0f cheapest-to-rent rankings/s%n",
+                vehicles, durations, seconds, fullQuotes / (double) seconds, rankings / (double) seconds);
+    }
+}
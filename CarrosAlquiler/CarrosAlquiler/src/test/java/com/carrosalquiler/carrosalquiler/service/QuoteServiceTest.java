@@ -0,0 +1,141 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.AbstractVehicle;
+import com.carrosalquiler.carrosalquiler.models.Car;
+import com.carrosalquiler.carrosalquiler.models.QuoteResult;
+import com.carrosalquiler.carrosalquiler.models.RankedVehicle;
+import com.carrosalquiler.carrosalquiler.models.Truck;
+import com.carrosalquiler.carrosalquiler.models.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuoteServiceTest {
+    private static final String FLAT_CURVE = "0:1,1:1";
+
+    private final PricingRuleService rules = new PricingRuleService(0.15, 0.10);
+    private final GestionVehiculoService vehicles = new GestionVehiculoService(new FleetWriteAheadLog(),
+            new RentalLedgerService(rules), new ReservationService(), new UsageReportCache());
+
+    @Test
+    void quoteAppliesTruckAndElectricRules() {
+        QuoteService quotes = quoteService(FLAT_CURVE);
+        vehicles.registerVehicle(new Truck("TRK1", 0, 100, false, 10));
+        vehicles.registerVehicle(new Truck("TRK2", 0, 100, true, 10));
+        vehicles.registerVehicle(new Car("CAR1", 0, 50, true, 4));
+        vehicles.registerVehicle(new Car("CAR2", 0, 50, false, 4));
+
+        QuoteResult result = quotes.quote(List.of("TRK1", "TRK2", "CAR1", "CAR2", "NOPE"), List.of(3, 10, 14));
+
+        assertEquals(List.of("TRK1", "TRK2", "CAR1", "CAR2"), result.getLicensePlates());
+        assertEquals(List.of("NOPE"), result.getNotFound());
+        double[][] prices = result.getPrices();
+        // Camión: cada semana completa con un 15 % de descuento
+        assertEquals(300, prices[0][0], 1e-9);
+        assertEquals(895, prices[0][1], 1e-9);
+        assertEquals(1190, prices[0][2], 1e-9);
+        // Camión eléctrico: el descuento y después el 10 % de recargo
+        assertEquals(330, prices[1][0], 1e-9);
+        assertEquals(984.5, prices[1][1], 1e-9);
+        assertEquals(1309, prices[1][2], 1e-9);
+        // Coches: sin descuento por semanas
+        assertEquals(165, prices[2][0], 1e-9);
+        assertEquals(770, prices[2][2], 1e-9);
+        assertEquals(700, prices[3][2], 1e-9);
+    }
+
+    @Test
+    void quoteIncludesTheUtilizationMultiplier() {
+        QuoteService quotes = quoteService("0:1,0.5:2,1:2");
+        vehicles.registerVehicle(new Car("CAR1", 0, 50, false, 4));
+        vehicles.registerVehicle(new Car("CAR2", 0, 50, false, 4));
+        User user = user();
+        assertTrue(vehicles.rentVehicle("CAR1", user));
+
+        QuoteResult result = quotes.quote(List.of("CAR2"), List.of(2));
+
+        assertEquals(200, result.getPrices()[0][0], 1e-9);  // Ocupación 0,5: valor doble
+    }
+
+    @Test
+    void returnChargesWhatTheQuoteSaid() {
+        QuoteService quotes = quoteService(FLAT_CURVE);
+        vehicles.registerVehicle(new Truck("TRK2", 0, 87.35, true, 10));
+        double quoted = quotes.quote(List.of("TRK2"), List.of(1)).getPrices()[0][0];
+
+        assertTrue(vehicles.rentVehicle("TRK2", user()));
+        assertTrue(vehicles.returnVehicle("TRK2"));
+
+        LocalDate today = LocalDate.now();
+        double charged = vehicles.generateUsageReport(today, today, false).getTotal().getRevenue();
+        assertEquals(quoted, charged, 1e-9);  // El alquiler duró menos de un día y se cobra uno
+    }
+
+    @Test
+    void withoutConfiguredRulesChargesMatchCalculateRent() {
+        PricingRuleService defaults = new PricingRuleService(0, 0);  // Los valores por defecto de la configuración
+        GestionVehiculoService plain = new GestionVehiculoService(new FleetWriteAheadLog(),
+                new RentalLedgerService(defaults), new ReservationService(), new UsageReportCache());
+        QuoteService quotes = new QuoteService(plain, new DynamicPricingService(plain, false, "type", FLAT_CURVE), defaults);
+        plain.registerVehicle(new Truck("TRK1", 0, 100, true, 10));
+        plain.registerVehicle(new Car("CAR1", 0, 50, true, 4));
+
+        QuoteResult result = quotes.quote(List.of("TRK1", "CAR1"), List.of(1, 14));
+
+        for (int i = 0; i < 2; i++) {
+            AbstractVehicle vehicle = plain.getVehicle(result.getLicensePlates().get(i));
+            assertEquals(vehicle.calculateRent(1), result.getPrices()[i][0], 1e-9);
+            assertEquals(vehicle.calculateRent(14), result.getPrices()[i][1], 1e-9);
+        }
+        assertTrue(plain.rentVehicle("TRK1", user()));
+        assertTrue(plain.returnVehicle("TRK1"));
+        LocalDate today = LocalDate.now();
+        assertEquals(100, plain.generateUsageReport(today, today, false).getTotal().getRevenue(), 1e-9);
+    }
+
+    @Test
+    void cheapestToRentMatchesTheQuotes() {
+        QuoteService quotes = quoteService(FLAT_CURVE);
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            double value = 20 + random.nextInt(200);
+            boolean electric = random.nextBoolean();
+            vehicles.registerVehicle(i % 2 == 0
+                    ? new Truck("TRK" + i, 0, value, electric, 10)
+                    : new Car("CAR" + i, 0, value, electric, 4));
+        }
+        int days = 14;
+
+        Map<String, List<RankedVehicle>> top = quotes.listCheapestToRent("truck", 5, days);
+
+        List<Double> expected = vehicles.listVehiclesByType(Truck.class).stream()
+                .map(vehicle -> quotes.quote(List.of(vehicle.getLicensePlate()), List.of(days)).getPrices()[0][0])
+                .sorted(Comparator.naturalOrder())
+                .limit(5)
+                .toList();
+        List<RankedVehicle> trucks = top.get("truck");
+        assertEquals(expected, trucks.stream().map(RankedVehicle::getValue).toList());
+        for (RankedVehicle ranked : trucks) {
+            AbstractVehicle vehicle = ranked.getVehicle();
+            assertEquals(quotes.quote(List.of(vehicle.getLicensePlate()), List.of(days)).getPrices()[0][0], ranked.getValue(), 1e-9);
+        }
+    }
+
+    private QuoteService quoteService(String curve) {
+        DynamicPricingService pricing = new DynamicPricingService(vehicles, true, "type", curve);
+        return new QuoteService(vehicles, pricing, rules);
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setLogin("ana");
+        return user;
+    }
+}
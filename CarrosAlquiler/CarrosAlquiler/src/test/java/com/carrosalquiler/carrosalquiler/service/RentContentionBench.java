@@ -0,0 +1,62 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.Car;
+import com.carrosalquiler.carrosalquiler.models.User;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mide alquileres y devoluciones por segundo cuando muchos hilos se disputan pocos vehículos. No es una prueba: se ejecuta
+ * a mano con la clase como principal, por ejemplo con java -cp target/classes:target/test-classes y el classpath de Maven.
+ *
+ * Argumentos opcionales: hilos, vehículos y segundos (por defecto 16, 4 y 5). Con pocos vehículos casi todos los intentos
+ * pierden la toma del vehículo, que es el caso que debe fallar enseguida sin esperar al bloqueo de la matrícula.
+ */
+public class RentContentionBench {
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int vehicles = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        GestionVehiculoService service = new GestionVehiculoService();  // Sin registro de escritura anticipada
+        for (int i = 0; i < vehicles; i++) {
+            service.registerVehicle(new Car("BENCH" + i, 0, 100, false, 4));
+        }
+        User user = new User();
+        user.setLogin("bench");
+
+        LongAdder won = new LongAdder();
+        LongAdder lost = new LongAdder();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = offset; System.nanoTime() < deadline; i++) {
+                    String plate = "BENCH" + (i % vehicles);
+                    if (service.rentVehicle(plate, user)) {
+                        won.increment();
+                        service.returnVehicle(plate);
+                    } else {
+                        lost.increment();
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        System.out.printf("%d threads, %d vehicles, %d s: %.0f rents/s, %.0f failed attempts/s%n",
+                threads, vehicles, seconds, won.sum() / (double) seconds, lost.sum() / (double) seconds);
+    }
+}
@@ -0,0 +1,61 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.Car;
+import com.carrosalquiler.carrosalquiler.models.User;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Mide la latencia de un alquiler y su devolución con flotas de distinto tamaño, para comprobar que no crece con la
+ * flota. No es una prueba: se ejecuta a mano con la clase como principal, igual que {@link RentContentionBench}.
+ * Con un millón de vehículos conviene dar memoria de sobra a la máquina virtual, por ejemplo -Xmx3g.
+ *
+ * Argumentos opcionales: operaciones por tamaño y tamaños de flota separados por comas
+ * (por defecto 200000 y 1000,10000,100000,1000000).
+ */
+public class RentLatencyBench {
+
+    public static void main(String[] args) {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int[] sizes = Arrays.stream((args.length > 1 ? args[1] : "1000,10000,100000,1000000").split(","))
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        User user = new User();
+        user.setLogin("bench");
+
+        for (int size : sizes) {
+            GestionVehiculoService service = new GestionVehiculoService();  // Sin registro de escritura anticipada
+            for (int i = 0; i < size; i++) {
+                service.registerVehicle(new Car("BENCH" + i, 0, 100, false, 4));
+            }
+            String[] plates = new String[operations];
+            Random random = new Random(42);
+            for (int i = 0; i < operations; i++) {
+                plates[i] = "BENCH" + random.nextInt(size);  // Matrículas al azar: sin localidad que favorezca flotas pequeñas
+            }
+            long[] rentNanos = new long[operations];
+            long[] returnNanos = new long[operations];
+            for (int round = 0; round < 2; round++) {  // La primera vuelta calienta el compilador
+                for (int i = 0; i < operations; i++) {
+                    long start = System.nanoTime();
+                    service.rentVehicle(plates[i], user);
+                    long rented = System.nanoTime();
+                    service.returnVehicle(plates[i]);
+                    long returned = System.nanoTime();
+                    rentNanos[i] = rented - start;
+                    returnNanos[i] = returned - rented;
+                }
+            }
+            Arrays.sort(rentNanos);
+            Arrays.sort(returnNanos);
+            System.out.printf("%,d vehicles: rent p50 %.2f us, p99 %.2f us; return p50 %.2f us, p99 %.2f us%n", size,
+                    percentile(rentNanos, 0.50), percentile(rentNanos, 0.99),
+                    percentile(returnNanos, 0.50), percentile(returnNanos, 0.99));
+        }
+    }
+
+    private static double percentile(long[] sortedNanos, double fraction) {
+        return sortedNanos[(int) Math.min(sortedNanos.length - 1, sortedNanos.length * fraction)] / 1000.0;
+    }
+}
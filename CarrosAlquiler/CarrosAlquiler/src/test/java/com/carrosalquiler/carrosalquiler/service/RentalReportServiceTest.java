@@ -0,0 +1,147 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.AbstractVehicle;
+import com.carrosalquiler.carrosalquiler.models.Car;
+import com.carrosalquiler.carrosalquiler.models.Motorcycle;
+import com.carrosalquiler.carrosalquiler.models.RentalReport;
+import com.carrosalquiler.carrosalquiler.models.RentalReportRow;
+import com.carrosalquiler.carrosalquiler.models.RentedVehicle;
+import com.carrosalquiler.carrosalquiler.models.Role;
+import com.carrosalquiler.carrosalquiler.models.Truck;
+import com.carrosalquiler.carrosalquiler.models.User;
+import com.carrosalquiler.carrosalquiler.models.Van;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RentalReportServiceTest {
+    private static final LocalDateTime START = LocalDate.of(2021, 1, 1).atStartOfDay();
+
+    private final RentalLedgerService ledger = new RentalLedgerService();
+    private final Map<String, User> users = new HashMap<>();
+    private final List<AbstractVehicle> vehicles = new ArrayList<>();
+    private final RentalReportService parallel = new RentalReportService(ledger, users::get, 4);
+    private final RentalReportService sequential = new RentalReportService(ledger, users::get, 1);
+
+    @AfterEach
+    void shutdown() {
+        parallel.shutdown();
+    }
+
+    @Test
+    void parallelReportMatchesASequentialOneAndTheHistory() {
+        fillHistory(new Random(9), 600, 20);
+
+        RentalReport report = parallel.report(List.of("type", "electric", "month"), null, null);
+        RentalReport expected = sequential.report(List.of("type", "electric", "month"), null, null);
+
+        assertEquals(List.of("type", "electric", "month"), report.getGroupBy());
+        assertEquals(4, report.getParallelism());
+        assertEquals(expected.getScannedRentals(), report.getScannedRentals());
+        assertRowsEqual(expected.getRows(), report.getRows());
+        Map<String, long[]> history = new TreeMap<>();  // Alquileres y minutos alquilados por grupo, contados a mano
+        for (AbstractVehicle vehicle : vehicles) {
+            for (RentedVehicle rental : ledger.getRentalHistory(vehicle.getLicensePlate())) {
+                String key = VehicleSearchIndex.typeName(vehicle.getClass()) + "|" + vehicle.isElectric() + "|"
+                        + YearMonth.from(rental.getRentalDate());
+                long[] sums = history.computeIfAbsent(key, k -> new long[2]);
+                sums[0]++;
+                sums[1] += Duration.between(rental.getRentalDate(), rental.getReturnDate()).toMinutes();
+            }
+        }
+        Map<String, long[]> reported = new TreeMap<>();
+        for (RentalReportRow row : report.getRows()) {
+            reported.put(String.join("|", row.getGroup().values()),
+                    new long[]{row.getRentals(), Math.round(row.getRentedDays() * 24 * 60)});
+        }
+        assertEquals(history.keySet(), reported.keySet());
+        history.forEach((key, sums) -> {
+            assertEquals(sums[0], reported.get(key)[0], key);
+            assertEquals(sums[1], reported.get(key)[1], key);
+        });
+        assertEquals(600 * 20, report.getScannedRentals());
+    }
+
+    @Test
+    void userDimensionsUseTheCurrentUserAndDatesAreFiltered() {
+        fillHistory(new Random(4), 100, 10);
+        users.get("user1").setAge(67);  // Cumplió años después de alquilar: cuenta la edad actual
+
+        RentalReport report = parallel.report(List.of("ROLE", "ageGroup", "role"), LocalDate.of(2021, 3, 1), LocalDate.of(2021, 3, 31));
+        RentalReport expected = sequential.report(List.of("role", "ageGroup"), LocalDate.of(2021, 3, 1), LocalDate.of(2021, 3, 31));
+
+        assertEquals(List.of("role", "ageGroup"), report.getGroupBy());  // Una dimensión repetida no cambia los grupos
+        assertRowsEqual(expected.getRows(), report.getRows());
+        long inMarch = vehicles.stream()
+                .flatMap(vehicle -> ledger.getRentalHistory(vehicle.getLicensePlate()).stream())
+                .filter(rental -> rental.getRentalDate().getMonthValue() == 3 && rental.getRentalDate().getYear() == 2021)
+                .count();
+        assertEquals(inMarch, report.getRows().stream().mapToLong(RentalReportRow::getRentals).sum());
+        assertEquals(List.of("60-69"), report.getRows().stream()
+                .filter(row -> row.getGroup().get("role").equals("ADMIN"))
+                .map(row -> row.getGroup().get("ageGroup"))
+                .toList());
+    }
+
+    @Test
+    void invalidReportsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> parallel.report(List.of(), null, null));
+        assertThrows(IllegalArgumentException.class, () -> parallel.report(List.of("type", "wheels"), null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> parallel.report(List.of("type"), LocalDate.of(2022, 1, 2), LocalDate.of(2022, 1, 1)));
+    }
+
+    /**
+     * Abre y cierra alquileres seguidos de cada vehículo a lo largo de varios años, con tres usuarios.
+     */
+    private void fillHistory(Random random, int vehicleCount, int rentalsPerVehicle) {
+        for (int u = 0; u < 3; u++) {
+            User user = new User();
+            user.setLogin("user" + u);
+            user.setAge(20 + u * 15);
+            user.setRole(u == 1 ? Role.ADMIN : Role.USER);
+            users.put(user.getLogin(), user);
+        }
+        for (int i = 0; i < vehicleCount; i++) {
+            boolean electric = random.nextBoolean();
+            AbstractVehicle vehicle = switch (i % 4) {
+                case 0 -> new Car("CAR" + i, 0, 50, electric, 4);
+                case 1 -> new Truck("TRK" + i, 0, 90, electric, 12);
+                case 2 -> new Van("VAN" + i, 0, 70, electric, 9);
+                default -> new Motorcycle("MOT" + i, 0, 20, electric, false);
+            };
+            vehicles.add(vehicle);
+            long millis = RentalLedgerService.toEpochMillis(START.plusHours(random.nextInt(24 * 30)));
+            for (int r = 0; r < rentalsPerVehicle; r++) {
+                long version = 2L * r + 1;
+                ledger.open(vehicle, users.get("user" + random.nextInt(3)), version, millis, vehicle.getRentalValue());
+                millis += (1 + random.nextInt(5 * 24)) * 3_600_000L;
+                ledger.close(vehicle.getLicensePlate(), version + 1, millis);
+                millis += random.nextInt(30 * 24) * 3_600_000L;
+            }
+        }
+    }
+
+    private static void assertRowsEqual(List<RentalReportRow> expected, List<RentalReportRow> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getGroup(), actual.get(i).getGroup());
+            assertEquals(expected.get(i).getRentals(), actual.get(i).getRentals());
+            assertEquals(expected.get(i).getRentedDays(), actual.get(i).getRentedDays(), 1e-6);
+            assertEquals(expected.get(i).getRevenue(), actual.get(i).getRevenue(), 1e-6);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.Car;
+import com.carrosalquiler.carrosalquiler.models.User;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Compara el arranque reproduciendo todo el registro con el arranque desde una instantánea más la cola del registro.
+ * No es una prueba: se ejecuta a mano con la clase como principal, igual que {@link RentContentionBench}.
+ * Con un millón de vehículos conviene dar memoria de sobra a la máquina virtual, por ejemplo -Xmx3g.
+ *
+ * Argumentos opcionales: vehículos y alquileres con su devolución anotados después de darlos de alta
+ * (por defecto 200000 y 200000).
+ */
+public class SnapshotStartupBench {
+
+    public static void main(String[] args) throws IOException {
+        int vehicles = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int rentals = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        Path replayDir = Files.createTempDirectory("startup-replay");
+        Path snapshotDir = Files.createTempDirectory("startup-snapshot");
+        write(replayDir, vehicles, rentals, false);
+        write(snapshotDir, vehicles, rentals, true);
+
+        System.out.printf("%,d vehicles, %,d rentals: full replay %d ms, snapshot plus log tail %d ms%n",
+                vehicles, rentals, start(replayDir), start(snapshotDir));
+        delete(replayDir);
+        delete(snapshotDir);
+    }
+
+    /**
+     * Escribe la historia de la flota en un directorio; con snapshot, toma una instantánea antes de la última décima
+     * parte de los alquileres, que queda como cola del registro.
+     */
+    private static void write(Path dir, int vehicles, int rentals, boolean snapshot) throws IOException {
+        Fleet fleet = new Fleet(dir);
+        fleet.recovery.recover();
+        User user = new User();
+        user.setLogin("bench");
+        for (int i = 0; i < vehicles; i++) {
+            fleet.vehicles.registerVehicle(new Car("BENCH" + i, 0, 100, false, 4));
+        }
+        for (int i = 0; i < rentals; i++) {
+            if (snapshot && i == rentals - rentals / 10) {
+                fleet.snapshots.takeSnapshot();
+            }
+            String plate = "BENCH" + (i % vehicles);
+            fleet.vehicles.rentVehicle(plate, user);
+            fleet.vehicles.returnVehicle(plate);
+        }
+        fleet.snapshots.stop();
+        fleet.wal.close();
+    }
+
+    /**
+     * Arranca servicios nuevos sobre un directorio y devuelve lo que tarda la recuperación en milisegundos.
+     */
+    private static long start(Path dir) {
+        Fleet fleet = new Fleet(dir);
+        long start = System.nanoTime();
+        fleet.recovery.recover();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        fleet.snapshots.stop();
+        fleet.wal.close();
+        return millis;
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    private static final class Fleet {
+        final FleetWriteAheadLog wal;
+        final GestionVehiculoService vehicles;
+        final FleetSnapshotStore snapshots;
+        final FleetRecovery recovery;
+
+        Fleet(Path dir) {
+            wal = new FleetWriteAheadLog(true, dir.toString(), 10, 1000, false);
+            RentalLedgerService ledger = new RentalLedgerService();
+            ReservationService reservations = new ReservationService();
+            GestionUsuariosService users = new GestionUsuariosService(wal);
+            vehicles = new GestionVehiculoService(wal, ledger, reservations, new UsageReportCache());
+            snapshots = new FleetSnapshotStore(wal, vehicles, users, ledger, reservations, true, 3_600_000);
+            recovery = new FleetRecovery(wal, vehicles, users, snapshots);
+        }
+    }
+}
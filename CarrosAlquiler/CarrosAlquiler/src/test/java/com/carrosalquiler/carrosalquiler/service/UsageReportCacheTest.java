@@ -0,0 +1,60 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.UsageReport;
+import com.carrosalquiler.carrosalquiler.models.UsageStats;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class UsageReportCacheTest {
+
+    private final UsageReportCache cache = new UsageReportCache(16, 30_000);
+
+    @Test
+    void onlyReportsOverlappingTheChangedDaysAreInvalidated() {
+        cache.put(0, 6, false, report(), cache.stamp(), 0);
+        cache.put(10, 16, false, report(), cache.stamp(), 0);
+
+        cache.invalidate(5, 5);
+
+        assertNull(cache.get(0, 6, false, 0));
+        assertNotNull(cache.get(10, 16, false, 0));
+        assertEquals(1, cache.stats().getInvalidations());
+    }
+
+    @Test
+    void reportComputedDuringAnInvalidationIsNotStored() {
+        long stamp = cache.stamp();
+        cache.invalidate(100, 100);  // Llega mientras se calcula un informe de otros días
+
+        cache.put(0, 6, false, report(), stamp, 0);
+
+        assertNull(cache.get(0, 6, false, 0));
+        assertEquals(0, cache.stats().getEntries());
+    }
+
+    @Test
+    void invalidationsBeyondTheQueueAreMergedIntoOneRange() {
+        cache.put(0, 6, false, report(), cache.stamp(), 0);
+        cache.put(2_000, 2_006, false, report(), cache.stamp(), 0);
+        cache.put(5_000, 5_006, false, report(), cache.stamp(), 0);
+
+        for (int day = 1_000; day < 3_500; day++) {  // Más rangos de los que caben en la cola sin que nadie consulte
+            cache.invalidate(day, day);
+        }
+
+        assertNotNull(cache.get(0, 6, false, 0));
+        assertNull(cache.get(2_000, 2_006, false, 0));
+        assertNotNull(cache.get(5_000, 5_006, false, 0));
+    }
+
+    private static UsageReport report() {
+        UsageStats total = new UsageStats(0, 0, 0, 0);
+        return new UsageReport(LocalDate.EPOCH, LocalDate.EPOCH, total, Map.of(), null);
+    }
+}
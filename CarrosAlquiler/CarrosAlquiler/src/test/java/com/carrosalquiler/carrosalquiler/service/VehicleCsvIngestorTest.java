@@ -0,0 +1,127 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.AbstractVehicle;
+import com.carrosalquiler.carrosalquiler.models.BulkUploadResult;
+import com.carrosalquiler.carrosalquiler.models.Car;
+import com.carrosalquiler.carrosalquiler.models.Motorcycle;
+import com.carrosalquiler.carrosalquiler.models.Truck;
+import com.carrosalquiler.carrosalquiler.models.Van;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VehicleCsvIngestorTest {
+    private static final String HEADER = "licensePlate,kilometers,rentalValue,isElectric,numberOfDoors,cargoCapacity,seatingCapacity,hasSidecar\n";
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void parsesEveryVehicleTypeAndRejectsBadRows() throws IOException {
+        String csv = HEADER
+                + "CAR1,100,50.5,true,4,,,\r\n"
+                + "TRK1,200,90,false,,12.5,,\n"
+                + "\n"
+                + "VAN1,300,70,false,,,9,\n"
+                + "MOT1,400,20,true,,,,true\n"
+                + "BAD1,100,50\n"
+                + "BAD2,abc,50,false,4,,,\n"
+                + "BAD3,100,50,false,4,10,,\n"
+                + ",100,50,false,4,,,\n"
+                + "CAR1,1,1,false,2,,,";  // Repetida y sin salto de línea final
+        List<AbstractVehicle> vehicles = new ArrayList<>();
+
+        BulkUploadResult result = ingest(csv, vehicles, 1);
+
+        assertEquals(List.of("CAR1", "TRK1", "VAN1", "MOT1"), plates(vehicles));
+        Car car = assertInstanceOf(Car.class, vehicles.get(0));
+        assertEquals(4, car.getNumberOfDoors());
+        assertEquals(50.5, car.getRentalValue(), 1e-9);
+        assertTrue(car.isElectric());
+        assertEquals(12.5, assertInstanceOf(Truck.class, vehicles.get(1)).getCargoCapacity(), 1e-9);
+        assertEquals(9, assertInstanceOf(Van.class, vehicles.get(2)).getSeatingCapacity());
+        assertTrue(assertInstanceOf(Motorcycle.class, vehicles.get(3)).isHasSidecar());
+        assertEquals(9, result.getRowsParsed());
+        assertEquals(4, result.getRowsAccepted());
+        assertEquals(List.of(
+                "line 7: expected 8 columns but found 3",
+                "line 8: invalid kilometers 'abc'",
+                "line 9: exactly one of numberOfDoors, cargoCapacity, seatingCapacity, hasSidecar must be set",
+                "line 10: missing licensePlate",
+                "line 11: duplicate licensePlate 'CAR1'"), result.getRejectedRows());
+    }
+
+    @Test
+    void chunkedIngestionMatchesASequentialRead() throws IOException {
+        StringBuilder csv = new StringBuilder(HEADER);
+        int rows = 3 * VehicleCsvIngestor.CHUNK_SIZE / 24;  // Unos tres bloques, con filas partidas entre bloques
+        for (int i = 0; i < rows; i++) {
+            if (i % 1000 == 7) {
+                csv.append("BROKEN").append(i).append('\n');
+            } else {
+                csv.append("CAR").append(i % 50_000).append(',').append(i).append(",50,false,4,,,\n");  // Repite matrículas
+            }
+        }
+        List<AbstractVehicle> sequential = new ArrayList<>();
+        List<AbstractVehicle> parallel = new ArrayList<>();
+
+        BulkUploadResult expected = ingest(csv.toString(), sequential, 1);
+        BulkUploadResult actual = ingest(csv.toString(), parallel, 4);
+
+        assertEquals(rows, expected.getRowsParsed());
+        assertEquals(plates(sequential), plates(parallel));
+        assertEquals(sequential.stream().map(AbstractVehicle::getKilometers).toList(),
+                parallel.stream().map(AbstractVehicle::getKilometers).toList());  // Gana siempre la primera aparición
+        assertEquals(expected.getRowsAccepted(), actual.getRowsAccepted());
+        assertEquals(expected.getRowsRejected(), actual.getRowsRejected());
+        assertEquals(expected.getRejectedRows(), actual.getRejectedRows());
+        assertEquals("line 9: expected 8 columns but found 1", actual.getRejectedRows().get(0));
+    }
+
+    @Test
+    void overlongLinesAreRejectedWithoutStoppingTheUpload() throws IOException {
+        String huge = "X".repeat(3 * VehicleCsvIngestor.CHUNK_SIZE);  // Más larga que cualquier bloque
+        String longRow = "CAR9," + "9".repeat(VehicleCsvIngestor.MAX_LINE_LENGTH) + ",50,false,4,,,";  // Cabe en un bloque
+        String csv = HEADER
+                + "CAR1,0,50,false,4,,,\n"
+                + huge + "\n"
+                + "CAR2,0,50,false,4,,,\n"
+                + longRow + "\n"
+                + "CAR3,0,50,false,4,,,\n"
+                + huge;  // La última, sin salto de línea
+        for (int parallelism : new int[]{1, 4}) {
+            List<AbstractVehicle> vehicles = new ArrayList<>();
+
+            BulkUploadResult result = ingest(csv, vehicles, parallelism);
+
+            assertEquals(List.of("CAR1", "CAR2", "CAR3"), plates(vehicles));
+            String reason = ": line longer than " + VehicleCsvIngestor.MAX_LINE_LENGTH + " bytes";
+            assertEquals(List.of("line 3" + reason, "line 5" + reason, "line 7" + reason), result.getRejectedRows());
+        }
+    }
+
+    private BulkUploadResult ingest(String csv, List<AbstractVehicle> vehicles, int parallelism) throws IOException {
+        BulkUploadResult result = new BulkUploadResult();
+        new VehicleCsvIngestor(vehicles::addAll, pool, parallelism)
+                .ingest(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), result);
+        return result;
+    }
+
+    private static List<String> plates(List<AbstractVehicle> vehicles) {
+        return vehicles.stream().map(AbstractVehicle::getLicensePlate).toList();
+    }
+}
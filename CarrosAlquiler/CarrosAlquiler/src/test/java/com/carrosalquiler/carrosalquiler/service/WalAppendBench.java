@@ -0,0 +1,80 @@
+package com.carrosalquiler.carrosalquiler.service;
+
+import com.carrosalquiler.carrosalquiler.models.Car;
+import com.carrosalquiler.carrosalquiler.models.User;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mide alquileres y devoluciones por segundo con el registro de escritura anticipada activo, y después cuánto tarda en
+ * reproducirse lo anotado. No es una prueba: se ejecuta a mano con la clase como principal, igual que {@link RentContentionBench}.
+ *
+ * Argumentos opcionales: hilos, segundos y si cada mutación espera a su fsync (por defecto 8, 5 y false). Cada hilo usa
+ * su propio vehículo, así que lo que se mide es el registro y no la disputa por los vehículos.
+ */
+public class WalAppendBench {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        boolean syncCommit = args.length > 2 && Boolean.parseBoolean(args[2]);
+
+        Path dir = Files.createTempDirectory("wal-bench");
+        FleetWriteAheadLog wal = new FleetWriteAheadLog(true, dir.toString(), 10, 1000, syncCommit);
+        wal.open();
+        GestionVehiculoService service = new GestionVehiculoService(wal, new RentalLedgerService(), new ReservationService(),
+                new UsageReportCache());
+        for (int t = 0; t < threads; t++) {
+            service.registerVehicle(new Car("BENCH" + t, 0, 100, false, 4));
+        }
+        User user = new User();
+        user.setLogin("bench");
+
+        LongAdder operations = new LongAdder();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            String plate = "BENCH" + t;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (System.nanoTime() < deadline) {
+                    if (service.rentVehicle(plate, user) && service.returnVehicle(plate)) {
+                        operations.add(2);
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        wal.close();
+
+        // Reproducción sobre servicios nuevos, como en un arranque
+        GestionVehiculoService replayed = new GestionVehiculoService();
+        FleetSnapshotStore snapshots = new FleetSnapshotStore(wal, replayed, new GestionUsuariosService(), new RentalLedgerService(),
+                new ReservationService(), false, 1000);
+        long replayStart = System.nanoTime();
+        long records = wal.replay(new FleetRecovery(wal, replayed, new GestionUsuariosService(), snapshots));
+        double replaySeconds = (System.nanoTime() - replayStart) / 1e9;
+
+        System.out.printf("%d threads, %d s, sync commit %s: %.0f logged operations/s; replay of %d records: %.0f records/s%n",
+                threads, seconds, syncCommit, operations.sum() / (double) seconds, records, records / replaySeconds);
+        try (var files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+}